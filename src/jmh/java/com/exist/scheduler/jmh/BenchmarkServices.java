@@ -0,0 +1,55 @@
+package com.exist.scheduler.jmh;
+
+import com.exist.scheduler.repository.ProjectPlanRepository;
+import com.exist.scheduler.repository.TaskRepository;
+import com.exist.scheduler.repository.WorkCalendarRepository;
+import com.exist.scheduler.scheduling.SchedulingEngine;
+import com.exist.scheduler.scheduling.WorkingDayCalendar;
+import com.exist.scheduler.service.ProjectPlanDetailsCache;
+import com.exist.scheduler.service.ProjectPlanService;
+import com.exist.scheduler.service.SchedulerMetrics;
+import com.exist.scheduler.service.WorkCalendarService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+// Wires a ProjectPlanService without a Spring context or database
+final class BenchmarkServices {
+
+    private BenchmarkServices() {
+    }
+
+    // Stub-only mocks do not record invocations, so they don't grow over millions of benchmark calls
+    static <T> T stub(Class<T> type) {
+        return mock(type, withSettings().stubOnly());
+    }
+
+    static ProjectPlanService projectPlanService(ProjectPlanRepository projectPlanRepository, TaskRepository taskRepository) {
+        return projectPlanService(projectPlanRepository, taskRepository, new ProjectPlanDetailsCache(1000));
+    }
+
+    static ProjectPlanService projectPlanService(ProjectPlanRepository projectPlanRepository, TaskRepository taskRepository,
+                                                 ProjectPlanDetailsCache projectPlanDetailsCache) {
+        WorkingDayCalendar workingDayCalendar = new WorkingDayCalendar();
+
+        ProjectPlanService projectPlanService = new ProjectPlanService();
+        ReflectionTestUtils.setField(projectPlanService, "projectPlanRepository", projectPlanRepository);
+        ReflectionTestUtils.setField(projectPlanService, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(projectPlanService, "workingDayCalendar", workingDayCalendar);
+        ReflectionTestUtils.setField(projectPlanService, "schedulingEngine", new SchedulingEngine(workingDayCalendar));
+        ReflectionTestUtils.setField(projectPlanService, "workCalendarService",
+                new WorkCalendarService(stub(WorkCalendarRepository.class), workingDayCalendar,
+                        stub(ProjectPlanRepository.class), projectPlanDetailsCache));
+        ReflectionTestUtils.setField(projectPlanService, "projectPlanDetailsCache", projectPlanDetailsCache);
+        ReflectionTestUtils.setField(projectPlanService, "schedulerMetrics",
+                new SchedulerMetrics(new SimpleMeterRegistry(), ObservationRegistry.NOOP));
+        return projectPlanService;
+    }
+
+    static ProjectPlanService projectPlanService() {
+        return projectPlanService(stub(ProjectPlanRepository.class), stub(TaskRepository.class));
+    }
+}
@@ -0,0 +1,79 @@
+package com.exist.scheduler.jmh;
+
+import com.exist.scheduler.scheduling.HolidayCalendar;
+import com.exist.scheduler.scheduling.WorkingDayCalendar;
+import com.exist.scheduler.service.ProjectPlanService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Working-day arithmetic over task durations from a few days to about ten years
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalendarBenchmark {
+
+    private static final int DATES = 1024;
+
+    @Param({"5", "250", "2500"})
+    public int days;
+
+    private ProjectPlanService projectPlanService;
+
+    private HolidayCalendar holidayCalendar;
+
+    private final LocalDate[] startDates = new LocalDate[DATES];
+
+    private final LocalDate[] endDates = new LocalDate[DATES];
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        projectPlanService = BenchmarkServices.projectPlanService();
+
+        Random random = new Random(42);
+        List<LocalDate> holidays = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            holidays.add(SyntheticPlans.PROJECT_START.plusDays(random.nextInt(3650)));
+        }
+        holidayCalendar = new HolidayCalendar(new WorkingDayCalendar(), holidays);
+
+        // Start dates spread over the holiday range so lookups don't stay in one cache line
+        for (int i = 0; i < DATES; i++) {
+            startDates[i] = SyntheticPlans.PROJECT_START.plusDays(random.nextInt(3650));
+            endDates[i] = startDates[i].plusDays(days * 7L / 5);
+        }
+    }
+
+    @Benchmark
+    public LocalDate addWorkingDays() {
+        int i = next++ & (DATES - 1);
+        return projectPlanService.addWorkingDays(startDates[i], days);
+    }
+
+    @Benchmark
+    public long calculateWorkingDays() {
+        int i = next++ & (DATES - 1);
+        return projectPlanService.calculateWorkingDays(startDates[i], endDates[i]);
+    }
+
+    @Benchmark
+    public LocalDate addWorkingDaysWithHolidays() {
+        int i = next++ & (DATES - 1);
+        return holidayCalendar.addWorkingDays(startDates[i], days);
+    }
+
+    @Benchmark
+    public long countWorkingDaysWithHolidays() {
+        int i = next++ & (DATES - 1);
+        return holidayCalendar.countWorkingDays(startDates[i], endDates[i]);
+    }
+}
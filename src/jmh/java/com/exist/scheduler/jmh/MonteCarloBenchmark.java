@@ -0,0 +1,57 @@
+package com.exist.scheduler.jmh;
+
+import com.exist.scheduler.scheduling.DurationDistribution;
+import com.exist.scheduler.scheduling.PlanGraph;
+import com.exist.scheduler.scheduling.ScheduleRisk;
+import com.exist.scheduler.scheduling.SchedulingEngine;
+import com.exist.scheduler.scheduling.WorkingDayCalendar;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Schedule risk analysis of a plan with 10,000 iterations, the default of GET /api/projects/{id}/risk. Every task
+// has an optimistic estimate of half its duration and a pessimistic one of twice it.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MonteCarloBenchmark {
+
+    @Param({"CHAIN", "RANDOM_DAG"})
+    public SyntheticPlans.Shape shape;
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    @Param({"TRIANGULAR", "PERT"})
+    public DurationDistribution distribution;
+
+    private final WorkingDayCalendar calendar = new WorkingDayCalendar();
+
+    private final SchedulingEngine schedulingEngine = new SchedulingEngine(calendar);
+
+    private PlanGraph graph;
+
+    private int[] optimistic;
+
+    private int[] pessimistic;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = PlanGraph.of(SyntheticPlans.create(shape, size, 42).getTasks());
+        optimistic = new int[graph.size()];
+        pessimistic = new int[graph.size()];
+        for (int node = 0; node < graph.size(); node++) {
+            optimistic[node] = graph.duration(node) / 2;
+            pessimistic[node] = graph.duration(node) * 2;
+        }
+    }
+
+    @Benchmark
+    public ScheduleRisk simulate() {
+        return schedulingEngine.simulate(graph, optimistic, pessimistic, distribution, SyntheticPlans.PROJECT_START,
+                calendar, 10_000, 42);
+    }
+}
@@ -0,0 +1,49 @@
+package com.exist.scheduler.jmh;
+
+import com.exist.scheduler.scheduling.PlanGraph;
+import com.exist.scheduler.scheduling.Schedule;
+import com.exist.scheduler.scheduling.SchedulingEngine;
+import com.exist.scheduler.scheduling.WorkingDayCalendar;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Sequential against wavefront-parallel scheduling of one very large plan. FAN_OUT is a single wide wavefront,
+// RANDOM_DAG has a few dozen of varying width and CHAIN has no parallelism at all, which shows the overhead.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelSchedulingBenchmark {
+
+    @Param({"CHAIN", "FAN_OUT", "RANDOM_DAG"})
+    public SyntheticPlans.Shape shape;
+
+    @Param({"100000", "500000"})
+    public int size;
+
+    private final WorkingDayCalendar calendar = new WorkingDayCalendar();
+
+    private final SchedulingEngine sequential = new SchedulingEngine(calendar, Integer.MAX_VALUE);
+
+    private final SchedulingEngine parallel = new SchedulingEngine(calendar, 0);
+
+    private PlanGraph graph;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        graph = PlanGraph.of(SyntheticPlans.create(shape, size, 42).getTasks());
+    }
+
+    @Benchmark
+    public Schedule sequential() {
+        return sequential.schedule(graph, SyntheticPlans.PROJECT_START, calendar);
+    }
+
+    @Benchmark
+    public Schedule parallel() {
+        return parallel.schedule(graph, SyntheticPlans.PROJECT_START, calendar);
+    }
+}
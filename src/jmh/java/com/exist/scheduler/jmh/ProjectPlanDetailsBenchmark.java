@@ -0,0 +1,85 @@
+package com.exist.scheduler.jmh;
+
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.ProjectPlanDetails;
+import com.exist.scheduler.model.ProjectPlanSummary;
+import com.exist.scheduler.model.Task;
+import com.exist.scheduler.model.TaskDependencyName;
+import com.exist.scheduler.model.TaskSummary;
+import com.exist.scheduler.repository.ProjectPlanRepository;
+import com.exist.scheduler.repository.TaskRepository;
+import com.exist.scheduler.service.ProjectPlanDetailsCache;
+import com.exist.scheduler.service.ProjectPlanService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+// Building ProjectPlanDetails from projection rows, with the repositories answering from memory, and serving
+// them again from the details cache while the plan is unchanged
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectPlanDetailsBenchmark {
+
+    @Param({"CHAIN", "FAN_OUT", "DIAMOND", "RANDOM_DAG"})
+    public SyntheticPlans.Shape shape;
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int size;
+
+    private ProjectPlanService projectPlanService;
+
+    private ProjectPlanDetailsCache projectPlanDetailsCache;
+
+    private Long projectPlanId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ProjectPlan projectPlan = SyntheticPlans.create(shape, size, 42);
+
+        // Schedule the plan first so the details carry real dates
+        BenchmarkServices.projectPlanService().calculateTaskAndProjectDates(projectPlan);
+
+        List<TaskSummary> tasks = new ArrayList<>(size);
+        List<TaskDependencyName> dependencyNames = new ArrayList<>();
+        for (Task task : projectPlan.getTasks()) {
+            tasks.add(new TaskSummary(task.getId(), projectPlan.getId(), task.getName(), task.getDuration(),
+                    task.getTaskStartDate(), task.getTaskEndDate()));
+            for (Task dependency : task.getDependencies()) {
+                dependencyNames.add(new TaskDependencyName(task.getId(), dependency.getName()));
+            }
+        }
+
+        ProjectPlanRepository projectPlanRepository = BenchmarkServices.stub(ProjectPlanRepository.class);
+        TaskRepository taskRepository = BenchmarkServices.stub(TaskRepository.class);
+        when(projectPlanRepository.findAllSummaries()).thenReturn(List.of(new ProjectPlanSummary(projectPlan.getId(),
+                projectPlan.getName(), projectPlan.getProjectStartDate(), projectPlan.getProjectEndDate(),
+                projectPlan.getProjectDuration(), projectPlan.getTotalWorkingDays())));
+        when(taskRepository.findSummariesByProjectPlanIds(any())).thenReturn(tasks);
+        when(taskRepository.findDependencyNamesByProjectPlanIds(any())).thenReturn(dependencyNames);
+
+        projectPlanId = projectPlan.getId();
+        projectPlanDetailsCache = new ProjectPlanDetailsCache(1000);
+        projectPlanService = BenchmarkServices.projectPlanService(projectPlanRepository, taskRepository, projectPlanDetailsCache);
+    }
+
+    // Every call renders the tasks, as the first read after a write does
+    @Benchmark
+    public List<ProjectPlanDetails> toProjectPlanDetails() {
+        projectPlanDetailsCache.invalidate(projectPlanId);
+        return projectPlanService.toProjectPlanDetails();
+    }
+
+    @Benchmark
+    public List<ProjectPlanDetails> toProjectPlanDetailsCached() {
+        return projectPlanService.toProjectPlanDetails();
+    }
+}
@@ -0,0 +1,84 @@
+package com.exist.scheduler.jmh;
+
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.Resource;
+import com.exist.scheduler.model.ResourceAssignment;
+import com.exist.scheduler.model.Task;
+import com.exist.scheduler.scheduling.PlanGraph;
+import com.exist.scheduler.scheduling.ResourceDemand;
+import com.exist.scheduler.scheduling.Schedule;
+import com.exist.scheduler.scheduling.SchedulingEngine;
+import com.exist.scheduler.scheduling.WorkingDayCalendar;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Resource leveling of synthetic plans where every task needs one or two resources with a capacity of 1 to 5.
+// FAN_OUT has the most tasks ready at once and so the most capacity conflicts; RANDOM_DAG is closer to real plans.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceLevelingBenchmark {
+
+    @Param({"FAN_OUT", "RANDOM_DAG"})
+    public SyntheticPlans.Shape shape;
+
+    @Param({"1000", "50000"})
+    public int size;
+
+    @Param({"10", "300"})
+    public int resources;
+
+    private final WorkingDayCalendar calendar = new WorkingDayCalendar();
+
+    private final SchedulingEngine schedulingEngine = new SchedulingEngine(calendar);
+
+    private PlanGraph graph;
+
+    private ResourceDemand demand;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ProjectPlan projectPlan = SyntheticPlans.create(shape, size, 42);
+        Random random = new Random(42);
+
+        Resource[] pool = new Resource[resources];
+        Map<Long, Integer> capacities = new HashMap<>();
+        for (int i = 0; i < resources; i++) {
+            pool[i] = new Resource("Resource " + i, 1 + random.nextInt(5));
+            pool[i].setId(i + 1L);
+            capacities.put(pool[i].getId(), pool[i].getCapacity());
+        }
+        for (Task task : projectPlan.getTasks()) {
+            int first = random.nextInt(resources);
+            assign(task, pool[first], random);
+            if (random.nextBoolean()) {
+                assign(task, pool[(first + 1 + random.nextInt(resources - 1)) % resources], random);
+            }
+        }
+
+        graph = PlanGraph.of(projectPlan.getTasks());
+        demand = ResourceDemand.of(graph, capacities);
+    }
+
+    private static void assign(Task task, Resource resource, Random random) {
+        task.getAssignments().add(new ResourceAssignment(resource, 1 + random.nextInt(resource.getCapacity())));
+    }
+
+    @Benchmark
+    public Schedule level() {
+        return schedulingEngine.level(graph, demand, SyntheticPlans.PROJECT_START, calendar);
+    }
+
+    // The same plan without capacity limits, for comparison
+    @Benchmark
+    public Schedule schedule() {
+        return schedulingEngine.schedule(graph, SyntheticPlans.PROJECT_START, calendar);
+    }
+}
@@ -0,0 +1,53 @@
+package com.exist.scheduler.jmh;
+
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.Task;
+import com.exist.scheduler.service.ProjectPlanService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Full-plan recalculation and single-task scheduling on synthetic dependency graphs
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulingBenchmark {
+
+    @Param({"CHAIN", "FAN_OUT", "DIAMOND", "RANDOM_DAG"})
+    public SyntheticPlans.Shape shape;
+
+    @Param({"10", "1000", "10000", "100000"})
+    public int size;
+
+    private ProjectPlanService projectPlanService;
+
+    private ProjectPlan projectPlan;
+
+    private Task lastTask;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        projectPlanService = BenchmarkServices.projectPlanService();
+        projectPlan = SyntheticPlans.create(shape, size, 42);
+        List<Task> tasks = projectPlan.getTasks();
+        lastTask = tasks.get(tasks.size() - 1);
+    }
+
+    @Benchmark
+    public LocalDate calculateTaskAndProjectDates() {
+        projectPlan.setProjectStartDate(SyntheticPlans.PROJECT_START);
+        projectPlanService.calculateTaskAndProjectDates(projectPlan);
+        return projectPlan.getProjectEndDate();
+    }
+
+    // The last task transitively waits on most of the plan in every shape
+    @Benchmark
+    public LocalDate[] calculateTaskDates() {
+        return projectPlanService.calculateTaskDates(lastTask, SyntheticPlans.PROJECT_START);
+    }
+}
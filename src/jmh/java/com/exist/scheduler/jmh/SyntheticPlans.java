@@ -0,0 +1,73 @@
+package com.exist.scheduler.jmh;
+
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.Task;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Builds in-memory project plans with the dependency shapes the benchmarks run on
+public final class SyntheticPlans {
+
+    public enum Shape {
+        // Every task waits on the one before it
+        CHAIN,
+        // One root, every other task depends on it, and a final task depends on all of them
+        FAN_OUT,
+        // Repeated diamonds: a -> b, c -> d, where d is the a of the next diamond
+        DIAMOND,
+        // Each task depends on up to three random earlier tasks
+        RANDOM_DAG
+    }
+
+    public static final LocalDate PROJECT_START = LocalDate.of(2024, 10, 7);
+
+    private SyntheticPlans() {
+    }
+
+    public static ProjectPlan create(Shape shape, int size, long seed) {
+        ProjectPlan projectPlan = new ProjectPlan(shape + " " + size, PROJECT_START, new ArrayList<>(size));
+        projectPlan.setId(1L);
+        Random random = new Random(seed);
+
+        List<Task> tasks = projectPlan.getTasks();
+        for (int i = 0; i < size; i++) {
+            Task task = new Task("Task " + i, 1 + random.nextInt(10), new ArrayList<>(), projectPlan);
+            task.setId(i + 1L);
+            task.getDependencies().addAll(dependenciesFor(shape, i, size, tasks, random));
+            tasks.add(task);
+        }
+        return projectPlan;
+    }
+
+    private static List<Task> dependenciesFor(Shape shape, int index, int size, List<Task> earlier, Random random) {
+        if (index == 0) {
+            return List.of();
+        }
+        switch (shape) {
+            case CHAIN:
+                return List.of(earlier.get(index - 1));
+            case FAN_OUT:
+                return index == size - 1 && size > 2 ? earlier.subList(1, index) : List.of(earlier.get(0));
+            case DIAMOND:
+                // Positions 0 and 1 are the two sides; 2 joins them and is the top of the next diamond
+                int position = (index - 1) % 3;
+                int top = index - 1 - position;
+                return position < 2
+                        ? List.of(earlier.get(top))
+                        : List.of(earlier.get(index - 2), earlier.get(index - 1));
+            default:
+                List<Task> dependencies = new ArrayList<>(3);
+                int count = 1 + random.nextInt(Math.min(3, index));
+                for (int i = 0; i < count; i++) {
+                    Task dependency = earlier.get(random.nextInt(index));
+                    if (!dependencies.contains(dependency)) {
+                        dependencies.add(dependency);
+                    }
+                }
+                return dependencies;
+        }
+    }
+}
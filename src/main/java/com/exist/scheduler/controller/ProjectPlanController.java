@@ -1,22 +1,79 @@
 package com.exist.scheduler.controller;
 
 import com.exist.scheduler.dto.ProjectPlanDTO;
+import com.exist.scheduler.dto.ProjectPlanFilter;
+import com.exist.scheduler.dto.ScenarioDTO;
+import com.exist.scheduler.dto.TaskBatchDTO;
 import com.exist.scheduler.dto.TaskDTO;
+import com.exist.scheduler.model.BulkRecalculationJob;
+import com.exist.scheduler.model.CacheStats;
+import com.exist.scheduler.model.ProjectPlanDetails;
+import com.exist.scheduler.model.ProjectPlanImportResult;
 import com.exist.scheduler.model.ProjectPlanResponse;
+import com.exist.scheduler.model.RecalculationJob;
+import com.exist.scheduler.model.RecalculationResult;
+import com.exist.scheduler.model.RecalculationStatus;
+import com.exist.scheduler.model.TaskBatchResult;
+import com.exist.scheduler.service.BulkRecalculationService;
 import com.exist.scheduler.service.ProjectPlanService;
+import com.exist.scheduler.service.ProjectPlanTransferService;
+import com.exist.scheduler.service.RecalculationQueue;
+import com.exist.scheduler.service.ScenarioService;
+import com.exist.scheduler.service.ScheduleRiskService;
+import com.exist.scheduler.service.TaskBatchService;
+import com.exist.scheduler.service.TaskRecordFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/projects")
 public class ProjectPlanController {
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final ProjectPlanService projectPlanService;
 
-    public ProjectPlanController(ProjectPlanService projectPlanService) {
+    private final TaskBatchService taskBatchService;
+
+    private final ProjectPlanTransferService projectPlanTransferService;
+
+    private final RecalculationQueue recalculationQueue;
+
+    private final BulkRecalculationService bulkRecalculationService;
+
+    private final ScenarioService scenarioService;
+
+    private final ScheduleRiskService scheduleRiskService;
+
+    private final ObjectMapper objectMapper;
+
+    public ProjectPlanController(ProjectPlanService projectPlanService, TaskBatchService taskBatchService,
+                                 ProjectPlanTransferService projectPlanTransferService,
+                                 RecalculationQueue recalculationQueue, BulkRecalculationService bulkRecalculationService,
+                                 ScenarioService scenarioService, ScheduleRiskService scheduleRiskService,
+                                 ObjectMapper objectMapper) {
         this.projectPlanService = projectPlanService;
+        this.taskBatchService = taskBatchService;
+        this.projectPlanTransferService = projectPlanTransferService;
+        this.recalculationQueue = recalculationQueue;
+        this.bulkRecalculationService = bulkRecalculationService;
+        this.scenarioService = scenarioService;
+        this.scheduleRiskService = scheduleRiskService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("/create")
@@ -24,39 +81,201 @@ public class ProjectPlanController {
         try {
             ProjectPlanDTO savedProject = projectPlanService.createProjectPlan(projectPlanDTO);
             return ResponseEntity.ok(String.format("Project plan created with ID: %s", savedProject.getId()));
-        } catch (NoSuchElementException e) {
+        } catch (NoSuchElementException | IllegalStateException | IllegalArgumentException e) {
             return ResponseEntity.status(400).body(e.getMessage());
         }
     }
 
+    // With async=true the write endpoints persist the change and leave the dates to the recalculation queue
     @PostMapping("/add-task")
-    public ResponseEntity<String> addTaskToProjectPlan(@RequestBody TaskDTO taskDTO) {
+    public ResponseEntity<String> addTaskToProjectPlan(@RequestBody TaskDTO taskDTO,
+                                                       @RequestParam(defaultValue = "false") boolean async) {
         try {
-            projectPlanService.addTaskToProjectPlan(taskDTO);
-            return ResponseEntity.ok("Task added to project plan with ID: " + taskDTO.getProjectPlanId());
-        } catch (NoSuchElementException e) {
+            if (async) {
+                List<Long> staleProjectPlanIds = projectPlanService.addTaskToProjectPlanDeferred(taskDTO);
+                return accepted(String.format("Task added to project plan with ID: %s.", taskDTO.getProjectPlanId()),
+                        recalculationQueue.submit(staleProjectPlanIds));
+            }
+            RecalculationResult result = projectPlanService.addTaskToProjectPlan(taskDTO);
+            return ResponseEntity.ok(String.format("Task added to project plan with ID: %s. %s",
+                    taskDTO.getProjectPlanId(), describe(result)));
+        } catch (NoSuchElementException | IllegalStateException | IllegalArgumentException e) {
             return ResponseEntity.status(400).body(e.getMessage());
         }
     }
 
+    // Many task changes to one plan in one transaction, with a single recalculation at the end
+    @PostMapping("/{projectId}/tasks/batch")
+    public ResponseEntity<?> applyTaskBatch(@PathVariable Long projectId, @RequestBody TaskBatchDTO taskBatchDTO) {
+        try {
+            TaskBatchResult result = taskBatchService.applyBatch(projectId, taskBatchDTO);
+            return result.isApplied() ? ResponseEntity.ok(result) : ResponseEntity.status(400).body(result);
+        } catch (NoSuchElementException | IllegalStateException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    // The request body is parsed while it is uploaded; format is csv or ndjson, see TaskRecordFormat
+    @PostMapping("/import")
+    public ResponseEntity<String> importProjectPlan(
+            @RequestParam String name,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate projectStartDate,
+            @RequestParam(defaultValue = "csv") String format,
+            InputStream body) throws IOException {
+        try {
+            ProjectPlanImportResult result = projectPlanTransferService.importPlan(name, projectStartDate,
+                    TaskRecordFormat.of(format), body);
+            return ResponseEntity.ok(String.format("Project plan imported with ID: %s. Tasks imported: %s, dependencies: %s",
+                    result.getProjectPlanId(), result.getTasksImported(), result.getDependenciesImported()));
+        } catch (NoSuchElementException | IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    // Written while the tasks are read from the database, in the format the import accepts. The body type has to
+    // stay StreamingResponseBody for Spring to stream it, so an unknown plan or format goes to handleInvalidRequest.
+    @GetMapping("/{projectId}/export")
+    public ResponseEntity<StreamingResponseBody> exportProjectPlan(@PathVariable Long projectId,
+                                                                   @RequestParam(defaultValue = "csv") String format) {
+        TaskRecordFormat recordFormat = TaskRecordFormat.of(format);
+        projectPlanTransferService.requireProjectPlan(projectId);
+        StreamingResponseBody body = outputStream -> projectPlanTransferService.exportPlan(projectId, recordFormat, outputStream);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(recordFormat.getMediaType())).body(body);
+    }
+
     @GetMapping("/retrieve-all")
-    public ResponseEntity<ProjectPlanResponse> retrieveAllProjectPlan(){
-        ProjectPlanResponse projectPlanResponse = new ProjectPlanResponse(("All Project Plans"), projectPlanService.toProjectPlanDetails());
+    public ResponseEntity<ProjectPlanResponse> retrieveAllProjectPlan(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (size < 1 || size > ProjectPlanService.MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(new ProjectPlanResponse(
+                    String.format("Page size must be between 1 and %s", ProjectPlanService.MAX_PAGE_SIZE), List.of()));
+        }
+
+        List<ProjectPlanDetails> page = projectPlanService.toProjectPlanDetails(new ProjectPlanFilter(name, from, to), afterId, size);
+        ProjectPlanResponse projectPlanResponse = new ProjectPlanResponse(("All Project Plans"), page);
+        if (page.size() == size) {
+            projectPlanResponse.setNextCursor(page.get(page.size() - 1).getProjectId());
+        }
         return ResponseEntity.ok(projectPlanResponse);
     }
 
-    @PutMapping("/tasks/{taskId}")
-    public ResponseEntity<String> updateTask(@PathVariable Long taskId, @RequestBody TaskDTO taskDTO) {
+    // Writes one JSON document per line as plans are read, so the response is never held in memory as a whole
+    @GetMapping("/retrieve-all/stream")
+    public ResponseEntity<StreamingResponseBody> streamAllProjectPlans(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        ProjectPlanFilter filter = new ProjectPlanFilter(name, from, to);
+        StreamingResponseBody body = outputStream -> projectPlanService.streamProjectPlanDetails(filter, planDetails -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(planDetails));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    @GetMapping("/details-cache/stats")
+    public ResponseEntity<CacheStats> getDetailsCacheStats() {
+        return ResponseEntity.ok(projectPlanService.getDetailsCacheStats());
+    }
+
+    // Whether the plan's dates include every accepted edit, and the job that is bringing them up to date if not
+    @GetMapping("/{projectId}/recalculation")
+    public ResponseEntity<RecalculationStatus> getRecalculationStatus(@PathVariable Long projectId) {
+        return ResponseEntity.ok(recalculationQueue.getStatus(projectId));
+    }
+
+    @GetMapping("/recalculations/{jobId}")
+    public ResponseEntity<?> getRecalculationJob(@PathVariable long jobId) {
+        try {
+            return ResponseEntity.ok(recalculationQueue.getJob(jobId));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    // Recomputes the dates of every stored plan in the background, e.g. after a data fix. While a run is going on,
+    // another request gets that run instead of starting a second one.
+    @PostMapping("/recalculate-all")
+    public ResponseEntity<BulkRecalculationJob> recalculateAll() {
+        BulkRecalculationJob job = bulkRecalculationService.recalculateAll();
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/projects/recalculate-all/" + job.getJobId()))
+                .body(job);
+    }
+
+    @GetMapping("/recalculate-all/{jobId}")
+    public ResponseEntity<?> getBulkRecalculationJob(@PathVariable long jobId) {
         try {
-        projectPlanService.updateTask(taskId, taskDTO);
-        return ResponseEntity.ok("Task updated and affected dates recalculated.");
+            return ResponseEntity.ok(bulkRecalculationService.getJob(jobId));
         } catch (NoSuchElementException e) {
             return ResponseEntity.status(400).body(e.getMessage());
         }
     }
 
+    @GetMapping("/{projectId}/critical-path")
+    public ResponseEntity<?> getCriticalPath(@PathVariable Long projectId) {
+        try {
+            return ResponseEntity.ok(projectPlanService.analyzeCriticalPath(projectId));
+        } catch (NoSuchElementException | IllegalStateException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    // What-if dates for the plan with some durations, dependencies or the start date changed. Nothing is written;
+    // the response lists how far each moved task and the project end would shift.
+    @PostMapping("/{projectId}/scenarios")
+    public ResponseEntity<?> simulateScenario(@PathVariable Long projectId, @RequestBody ScenarioDTO scenarioDTO) {
+        try {
+            return ResponseEntity.ok(scenarioService.simulate(projectId, scenarioDTO));
+        } catch (NoSuchElementException | IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    // P50/P80/P95 end dates and each task's criticality index from Monte Carlo runs over the tasks' three-point
+    // estimates; pass the seed of an earlier response to repeat it
+    @GetMapping("/{projectId}/risk")
+    public ResponseEntity<?> analyzeScheduleRisk(@PathVariable Long projectId,
+                                                 @RequestParam(defaultValue = "10000") int iterations,
+                                                 @RequestParam(defaultValue = "triangular") String distribution,
+                                                 @RequestParam(required = false) Long seed) {
+        try {
+            return ResponseEntity.ok(scheduleRiskService.analyze(projectId, iterations, distribution, seed));
+        } catch (NoSuchElementException | IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    @PutMapping("/tasks/{taskId}")
+    public ResponseEntity<String> updateTask(@PathVariable Long taskId, @RequestBody TaskDTO taskDTO,
+                                             @RequestParam(defaultValue = "false") boolean async) {
+        try {
+            if (async) {
+                List<Long> staleProjectPlanIds = projectPlanService.updateTaskDeferred(taskId, taskDTO);
+                return accepted("Task updated.", recalculationQueue.submit(staleProjectPlanIds));
+            }
+            RecalculationResult result = projectPlanService.updateTask(taskId, taskDTO);
+            return ResponseEntity.ok("Task updated and affected dates recalculated. " + describe(result));
+        } catch (NoSuchElementException | IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
     @PutMapping("/{projectId}")
-    public ResponseEntity<String> updateProject(@PathVariable Long projectId, @RequestBody ProjectPlanDTO projectPlanDTO) {
+    public ResponseEntity<String> updateProject(@PathVariable Long projectId, @RequestBody ProjectPlanDTO projectPlanDTO,
+                                                @RequestParam(defaultValue = "false") boolean async) {
+        if (async) {
+            List<Long> staleProjectPlanIds = projectPlanService.updateProjectDeferred(projectId, projectPlanDTO);
+            return accepted("Project updated.", recalculationQueue.submit(staleProjectPlanIds));
+        }
         projectPlanService.updateProject(projectId, projectPlanDTO);
         return ResponseEntity.ok("Project updated and affected dates recalculated.");
     }
@@ -72,4 +291,29 @@ public class ProjectPlanController {
         projectPlanService.deleteProject(projectId);
         return ResponseEntity.ok("Project deleted.");
     }
+
+    // Unknown plans and invalid parameters of endpoints that cannot return a message body of their own
+    @ExceptionHandler({NoSuchElementException.class, IllegalArgumentException.class})
+    public ResponseEntity<String> handleInvalidRequest(RuntimeException e) {
+        return ResponseEntity.status(400).body(e.getMessage());
+    }
+
+    // A write that kept losing to concurrent edits of the same plan; the client can re-read and try again
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleConcurrentEdit(OptimisticLockingFailureException e) {
+        return ResponseEntity.status(409).body(e.getMessage());
+    }
+
+    // 202 pointing at the job of the last plan; moving a task between plans queues a job for each of them
+    private ResponseEntity<String> accepted(String message, List<RecalculationJob> jobs) {
+        RecalculationJob job = jobs.get(jobs.size() - 1);
+        String jobIds = jobs.stream().map(queued -> String.valueOf(queued.getJobId())).collect(Collectors.joining(", "));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/projects/recalculations/" + job.getJobId()))
+                .body(String.format("%s Recalculation queued with job ID: %s", message, jobIds));
+    }
+
+    private String describe(RecalculationResult result) {
+        return String.format("Tasks recalculated: %s, dates changed: %s", result.getTasksRecalculated(), result.getTasksChanged());
+    }
 }
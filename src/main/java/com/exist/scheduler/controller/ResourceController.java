@@ -0,0 +1,54 @@
+package com.exist.scheduler.controller;
+
+import com.exist.scheduler.dto.ResourceDTO;
+import com.exist.scheduler.service.ProjectPlanService;
+import com.exist.scheduler.service.ResourceService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/api/resources")
+public class ResourceController {
+
+    private final ResourceService resourceService;
+
+    private final ProjectPlanService projectPlanService;
+
+    public ResourceController(ResourceService resourceService, ProjectPlanService projectPlanService) {
+        this.resourceService = resourceService;
+        this.projectPlanService = projectPlanService;
+    }
+
+    @PostMapping("/create")
+    public ResponseEntity<String> createResource(@RequestBody ResourceDTO resourceDTO) {
+        try {
+            ResourceDTO savedResource = resourceService.createResource(resourceDTO);
+            return ResponseEntity.ok(String.format("Resource created with ID: %s", savedResource.getId()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/retrieve-all")
+    public ResponseEntity<List<ResourceDTO>> retrieveAllResources() {
+        return ResponseEntity.ok(resourceService.getAllResources());
+    }
+
+    // A new capacity re-levels every resource-leveled plan with a task on the resource
+    @PutMapping("/{resourceId}")
+    public ResponseEntity<String> updateResource(@PathVariable Long resourceId, @RequestBody ResourceDTO resourceDTO) {
+        try {
+            resourceService.updateResource(resourceId, resourceDTO);
+            projectPlanService.recalculatePlansUsingResource(resourceId);
+            return ResponseEntity.ok("Resource updated and affected dates recalculated.");
+        } catch (NoSuchElementException | IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.exist.scheduler.controller;
+
+import com.exist.scheduler.dto.WorkCalendarDTO;
+import com.exist.scheduler.service.ProjectPlanService;
+import com.exist.scheduler.service.WorkCalendarService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/api/calendars")
+public class WorkCalendarController {
+
+    private final WorkCalendarService workCalendarService;
+
+    private final ProjectPlanService projectPlanService;
+
+    public WorkCalendarController(WorkCalendarService workCalendarService, ProjectPlanService projectPlanService) {
+        this.workCalendarService = workCalendarService;
+        this.projectPlanService = projectPlanService;
+    }
+
+    @PostMapping("/create")
+    public ResponseEntity<String> createCalendar(@RequestBody WorkCalendarDTO workCalendarDTO) {
+        try {
+            WorkCalendarDTO savedCalendar = workCalendarService.createCalendar(workCalendarDTO);
+            return ResponseEntity.ok(String.format("Work calendar created with ID: %s", savedCalendar.getId()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/retrieve-all")
+    public ResponseEntity<List<WorkCalendarDTO>> retrieveAllCalendars() {
+        return ResponseEntity.ok(workCalendarService.getAllCalendars());
+    }
+
+    @PutMapping("/{calendarId}")
+    public ResponseEntity<String> updateCalendar(@PathVariable Long calendarId, @RequestBody WorkCalendarDTO workCalendarDTO) {
+        try {
+            workCalendarService.updateCalendar(calendarId, workCalendarDTO);
+            projectPlanService.recalculatePlansUsingCalendar(calendarId);
+            return ResponseEntity.ok("Work calendar updated and affected dates recalculated.");
+        } catch (NoSuchElementException | IllegalArgumentException e) {
+            return ResponseEntity.status(400).body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
+    }
+}
@@ -14,6 +14,8 @@ public class ProjectPlanDTO {
     private LocalDate projectEndDate;
     private long projectDuration;
     private long totalWorkingDays;
+    private Long workCalendarId;
+    private Boolean resourceLeveling;
 
     public ProjectPlanDTO() {}
 
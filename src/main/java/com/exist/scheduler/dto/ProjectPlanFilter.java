@@ -0,0 +1,20 @@
+package com.exist.scheduler.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+public class ProjectPlanFilter {
+    private String name;
+    private LocalDate from;
+    private LocalDate to;
+
+    public ProjectPlanFilter() {}
+
+    public ProjectPlanFilter(String name, LocalDate from, LocalDate to) {
+        this.name = name;
+        this.from = from;
+        this.to = to;
+    }
+}
@@ -0,0 +1,18 @@
+package com.exist.scheduler.dto;
+
+import lombok.Data;
+
+@Data
+public class ResourceDTO {
+    private Long id;
+    private String name;
+    private int capacity;
+
+    public ResourceDTO() {}
+
+    public ResourceDTO(Long id, String name, int capacity) {
+        this.id = id;
+        this.name = name;
+        this.capacity = capacity;
+    }
+}
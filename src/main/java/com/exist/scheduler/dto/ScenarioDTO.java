@@ -0,0 +1,23 @@
+package com.exist.scheduler.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// A what-if change to a stored plan. It is only scheduled, never written.
+@Data
+public class ScenarioDTO {
+
+    // Replaces the plan's start date when set
+    private LocalDate projectStartDate;
+
+    private List<TaskOverrideDTO> tasks;
+
+    public ScenarioDTO() {}
+
+    public ScenarioDTO(LocalDate projectStartDate, List<TaskOverrideDTO> tasks) {
+        this.projectStartDate = projectStartDate;
+        this.tasks = tasks;
+    }
+}
@@ -0,0 +1,16 @@
+package com.exist.scheduler.dto;
+
+import lombok.Data;
+
+@Data
+public class TaskAssignmentDTO {
+    private Long resourceId;
+    private int units = 1;
+
+    public TaskAssignmentDTO() {}
+
+    public TaskAssignmentDTO(Long resourceId, int units) {
+        this.resourceId = resourceId;
+        this.units = units;
+    }
+}
@@ -0,0 +1,16 @@
+package com.exist.scheduler.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class TaskBatchDTO {
+    private List<TaskOperationDTO> operations;
+
+    public TaskBatchDTO() {}
+
+    public TaskBatchDTO(List<TaskOperationDTO> operations) {
+        this.operations = operations;
+    }
+}
@@ -13,6 +13,18 @@ public class TaskDTO {
     private List<Long> dependencies;
     private Long projectPlanId;
 
+    // Shortest and longest duration the task may take; duration is the most likely one. Used for risk analysis only
+    // and left unchanged on update when both are absent
+    private Integer optimisticDuration;
+    private Integer pessimisticDuration;
+
+    // Client-supplied references between tasks of the same create request
+    private String key;
+    private List<String> dependencyKeys;
+
+    // Resources the task occupies, units per working day; left unchanged on update when absent
+    private List<TaskAssignmentDTO> assignments;
+
     private LocalDate taskStartDate;
     private LocalDate taskEndDate;
 
@@ -0,0 +1,44 @@
+package com.exist.scheduler.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// One item of a task batch. UPDATE replaces name, duration and dependencies, and estimates and assignments when they
+// are given, like PUT /tasks/{id}; RELINK replaces only dependencies.
+@Data
+public class TaskOperationDTO {
+
+    public enum Type {
+        ADD, UPDATE, DELETE, RELINK
+    }
+
+    private Type op;
+
+    // The existing task an UPDATE, DELETE or RELINK applies to
+    private Long taskId;
+
+    // Reference to a task added by this batch, for dependencyKeys of other items
+    private String key;
+
+    private String name;
+    private int duration;
+    private Integer optimisticDuration;
+    private Integer pessimisticDuration;
+
+    // Existing tasks of the plan, and tasks added by this batch, that this task waits on
+    private List<Long> dependencies;
+    private List<String> dependencyKeys;
+
+    private List<TaskAssignmentDTO> assignments;
+
+    public TaskOperationDTO() {}
+
+    public TaskOperationDTO(Type op, Long taskId, String name, int duration, List<Long> dependencies) {
+        this.op = op;
+        this.taskId = taskId;
+        this.name = name;
+        this.duration = duration;
+        this.dependencies = dependencies;
+    }
+}
@@ -0,0 +1,25 @@
+package com.exist.scheduler.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Changes to one task of a scenario; fields left null keep what the stored task has
+@Data
+public class TaskOverrideDTO {
+    private Long taskId;
+    private Integer duration;
+
+    // Tasks of the same plan to wait on in addition to, or no longer wait on out of, the stored dependencies
+    private List<Long> addedDependencies;
+    private List<Long> removedDependencies;
+
+    public TaskOverrideDTO() {}
+
+    public TaskOverrideDTO(Long taskId, Integer duration, List<Long> addedDependencies, List<Long> removedDependencies) {
+        this.taskId = taskId;
+        this.duration = duration;
+        this.addedDependencies = addedDependencies;
+        this.removedDependencies = removedDependencies;
+    }
+}
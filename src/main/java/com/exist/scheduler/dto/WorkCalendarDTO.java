@@ -0,0 +1,24 @@
+package com.exist.scheduler.dto;
+
+import lombok.Data;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class WorkCalendarDTO {
+    private Long id;
+    private String name;
+    private List<DayOfWeek> workingDays;
+    private List<LocalDate> holidays;
+
+    public WorkCalendarDTO() {}
+
+    public WorkCalendarDTO(Long id, String name, List<DayOfWeek> workingDays, List<LocalDate> holidays) {
+        this.id = id;
+        this.name = name;
+        this.workingDays = workingDays;
+        this.holidays = holidays;
+    }
+}
@@ -1,19 +1,23 @@
 package com.exist.scheduler.mapper;
 
 import com.exist.scheduler.dto.ProjectPlanDTO;
+import com.exist.scheduler.dto.TaskAssignmentDTO;
 import com.exist.scheduler.dto.TaskDTO;
 import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.Resource;
+import com.exist.scheduler.model.ResourceAssignment;
 import com.exist.scheduler.model.Task;
+import com.exist.scheduler.model.WorkCalendar;
 import com.exist.scheduler.repository.ProjectPlanRepository;
+import com.exist.scheduler.repository.ResourceRepository;
 import com.exist.scheduler.repository.TaskRepository;
+import com.exist.scheduler.repository.WorkCalendarRepository;
+import com.exist.scheduler.service.SchedulerMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.NoSuchElementException;
-import java.util.Optional;
+import java.util.*;
 
 @Component
 public class ProjectPlanMapper {
@@ -24,6 +28,15 @@ public class ProjectPlanMapper {
     @Autowired
     private ProjectPlanRepository projectPlanRepository;
 
+    @Autowired
+    private WorkCalendarRepository workCalendarRepository;
+
+    @Autowired
+    private ResourceRepository resourceRepository;
+
+    @Autowired
+    private SchedulerMetrics schedulerMetrics;
+
     // Convert ProjectPlanDTO to ProjectPlan entity
     public ProjectPlan toProjectPlanEntity(ProjectPlanDTO projectPlanDTO) {
         ProjectPlan projectPlan = new ProjectPlan();
@@ -32,6 +45,8 @@ public class ProjectPlanMapper {
                 ? projectPlanDTO.getProjectStartDate()
                 : LocalDate.now();
         projectPlan.setProjectStartDate(projectStart);
+        projectPlan.setWorkCalendar(toWorkCalendar(projectPlanDTO.getWorkCalendarId()));
+        projectPlan.setResourceLeveling(Boolean.TRUE.equals(projectPlanDTO.getResourceLeveling()));
 
         projectPlan = projectPlanRepository.save(projectPlan);
 
@@ -39,49 +54,211 @@ public class ProjectPlanMapper {
             if (projectPlan.getTasks() == null) {
                 projectPlan.setTasks(new ArrayList<>());  // Initialize the task list if null
             }
+
+            // Persist all tasks in one go; sequence IDs are assigned without hitting the database
+            List<Task> tasks = new ArrayList<>(projectPlanDTO.getTasks().size());
             for (TaskDTO taskDTO : projectPlanDTO.getTasks()) {
                 taskDTO.setProjectPlanId(projectPlan.getId());
-                Task task = toTaskEntity(taskDTO, projectPlan);
-                taskRepository.save(task);
+                Task task = new Task(taskDTO.getName(), taskDTO.getDuration(), new ArrayList<>(), projectPlan);
+                setEstimates(task, taskDTO);
+                tasks.add(task);
+            }
+            Map<String, Task> tasksByKey = toTasksByKey(projectPlanDTO.getTasks(), tasks);
+            tasks = taskRepository.saveAll(tasks);
+
+            // Dependencies on tasks of this request resolve from the identity map without a query, so nothing is
+            // flushed early and the task and task_dependencies rows all go out as JDBC batches at commit
+            Map<Long, Task> createdTasks = new HashMap<>();
+            for (Task task : tasks) {
+                createdTasks.put(task.getId(), task);
+            }
+            Map<Long, Task> dependencies = resolveDependencies(projectPlanDTO.getTasks(), projectPlan, createdTasks);
+            Map<Long, Resource> resources = resolveResources(projectPlanDTO.getTasks());
+
+            List<String> unknownKeys = new ArrayList<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                TaskDTO taskDTO = projectPlanDTO.getTasks().get(i);
+                Task task = tasks.get(i);
+                task.setDependencies(toTaskDependencies(taskDTO, dependencies));
+                task.setAssignments(toAssignments(taskDTO, resources));
+
+                if (taskDTO.getDependencyKeys() != null) {
+                    for (String dependencyKey : taskDTO.getDependencyKeys()) {
+                        Task dependency = tasksByKey.get(dependencyKey);
+                        if (dependency == null) {
+                            unknownKeys.add(dependencyKey);
+                        } else {
+                            task.getDependencies().add(dependency);
+                        }
+                    }
+                }
                 projectPlan.getTasks().add(task);
             }
+
+            if (!unknownKeys.isEmpty()) {
+                throw new NoSuchElementException(String.format("Tasks with keys: %s not found in request", unknownKeys));
+            }
         }
 
         return projectPlan;
     }
 
+    // Index the tasks of a create request by their client-supplied keys
+    private Map<String, Task> toTasksByKey(List<TaskDTO> taskDTOs, List<Task> tasks) {
+        Map<String, Task> tasksByKey = new HashMap<>();
+        Set<String> duplicateKeys = new LinkedHashSet<>();
+        for (int i = 0; i < taskDTOs.size(); i++) {
+            String key = taskDTOs.get(i).getKey();
+            if (key != null && tasksByKey.put(key, tasks.get(i)) != null) {
+                duplicateKeys.add(key);
+            }
+        }
+
+        if (!duplicateKeys.isEmpty()) {
+            throw new IllegalArgumentException(String.format("Task keys: %s are used more than once", duplicateKeys));
+        }
+        return tasksByKey;
+    }
+
+    // Resolve the working calendar a project plan refers to; plans without one use the default work week
+    public WorkCalendar toWorkCalendar(Long workCalendarId) {
+        if (workCalendarId == null) {
+            return null;
+        }
+        return workCalendarRepository.findById(workCalendarId)
+                .orElseThrow(() -> new NoSuchElementException(
+                        String.format("Work Calendar with ID: %s not found", workCalendarId)));
+    }
+
     // Convert TaskDTO to Task entity
     public Task toTaskEntity(TaskDTO taskDTO, ProjectPlan projectPlan) {
         List<Task> dependencies = toTaskDependencies(taskDTO, projectPlan);
 
-        return new Task(taskDTO.getName(), taskDTO.getDuration(), dependencies, projectPlan);
+        Task task = new Task(taskDTO.getName(), taskDTO.getDuration(), dependencies, projectPlan);
+        setEstimates(task, taskDTO);
+        task.setAssignments(toAssignments(taskDTO, resolveResources(List.of(taskDTO))));
+        return task;
+    }
+
+    // Copies the optimistic and pessimistic durations, which have to bracket the most likely one
+    public void setEstimates(Task task, TaskDTO taskDTO) {
+        Integer optimistic = taskDTO.getOptimisticDuration();
+        Integer pessimistic = taskDTO.getPessimisticDuration();
+        if ((optimistic != null && (optimistic < 0 || optimistic > taskDTO.getDuration()))
+                || (pessimistic != null && pessimistic < taskDTO.getDuration())) {
+            throw new IllegalArgumentException(String.format(
+                    "Task %s needs 0 <= optimistic duration <= duration <= pessimistic duration, not: %s <= %s <= %s",
+                    taskDTO.getName(), optimistic, taskDTO.getDuration(), pessimistic));
+        }
+        task.setOptimisticDuration(optimistic);
+        task.setPessimisticDuration(pessimistic);
     }
 
     public List<Task> toTaskDependencies (TaskDTO taskDTO, ProjectPlan projectPlan){
+        return toTaskDependencies(taskDTO, resolveDependencies(List.of(taskDTO), projectPlan, Map.of()));
+    }
+
+    public List<Task> toTaskDependencies(TaskDTO taskDTO, Map<Long, Task> resolvedDependencies) {
         List<Task> dependencies = new ArrayList<>();
+        for (Long depId : dependencyIdsOf(taskDTO)) {
+            dependencies.add(resolvedDependencies.get(depId));
+        }
+        return dependencies;
+    }
 
-        for (Long depId : taskDTO.getDependencies()) {
-            Task dependency = taskRepository.findById(depId)
-                    .orElseThrow(() -> new NoSuchElementException(
-                            String.format("Task with ID: %s not found", depId)));
+    // Resolves the dependency IDs of a whole batch of tasks with at most one query scoped to the project plan.
+    // Tasks the caller already holds are taken from the identity map; every ID that is missing or belongs to
+    // another project is reported in a single error.
+    public Map<Long, Task> resolveDependencies(Collection<TaskDTO> taskDTOs, ProjectPlan projectPlan, Map<Long, Task> knownTasks) {
+        Long currentProjectId = Optional.ofNullable(projectPlan.getId())
+                .orElseThrow(() -> new NoSuchElementException("Current task's project plan has no ID"));
 
-            Long dependencyProjectId = Optional.ofNullable(dependency.getProjectPlan())
-                    .map(ProjectPlan::getId)
-                    .orElseThrow(() -> new NoSuchElementException(
-                            String.format("Task with ID: %s has no project plan", depId)));
+        Map<Long, Task> resolved = new HashMap<>(knownTasks);
+        Set<Long> requestedIds = new LinkedHashSet<>();
+        Set<Long> idsToLoad = new LinkedHashSet<>();
+        for (TaskDTO taskDTO : taskDTOs) {
+            for (Long depId : dependencyIdsOf(taskDTO)) {
+                requestedIds.add(depId);
+                if (!resolved.containsKey(depId)) {
+                    idsToLoad.add(depId);
+                }
+            }
+        }
 
-            Long currentProjectId = Optional.ofNullable(projectPlan.getId())
-                    .orElseThrow(() -> new NoSuchElementException("Current task's project plan has no ID"));
+        if (!idsToLoad.isEmpty()) {
+            List<Task> loaded = schedulerMetrics.dependencyResolution(idsToLoad.size(),
+                    () -> taskRepository.findAllByProjectPlanIdAndIdIn(currentProjectId, idsToLoad));
+            for (Task dependency : loaded) {
+                resolved.put(dependency.getId(), dependency);
+            }
+        }
 
-            if (!dependencyProjectId.equals(currentProjectId)) {
-                throw new NoSuchElementException(
-                        String.format("Task with ID: %s belongs to a different project", depId));
+        List<Long> unresolvedIds = new ArrayList<>();
+        for (Long depId : requestedIds) {
+            Task dependency = resolved.get(depId);
+            if (dependency == null || dependency.getProjectPlan() == null
+                    || !currentProjectId.equals(dependency.getProjectPlan().getId())) {
+                unresolvedIds.add(depId);
             }
+        }
+        if (!unresolvedIds.isEmpty()) {
+            throw new NoSuchElementException(String.format(
+                    "Tasks with IDs: %s not found in project plan with ID: %s", unresolvedIds, currentProjectId));
+        }
+
+        return resolved;
+    }
 
-            dependencies.add(dependency);
+    // Loads the resources a batch of tasks is assigned to with at most one query, and reports every unknown ID at once
+    public Map<Long, Resource> resolveResources(Collection<TaskDTO> taskDTOs) {
+        Set<Long> resourceIds = new LinkedHashSet<>();
+        for (TaskDTO taskDTO : taskDTOs) {
+            for (TaskAssignmentDTO assignment : assignmentsOf(taskDTO)) {
+                if (assignment.getUnits() < 1) {
+                    throw new IllegalArgumentException(String.format("Task %s needs at least 1 unit of resource %s, not: %s",
+                            taskDTO.getName(), assignment.getResourceId(), assignment.getUnits()));
+                }
+                resourceIds.add(assignment.getResourceId());
+            }
         }
 
-        return dependencies;
+        Map<Long, Resource> resources = new HashMap<>();
+        if (resourceIds.isEmpty()) {
+            return resources;
+        }
+        resourceIds.remove(null);
+        for (Resource resource : resourceRepository.findAllById(resourceIds)) {
+            resources.put(resource.getId(), resource);
+        }
+
+        List<Long> unknownIds = new ArrayList<>();
+        for (TaskDTO taskDTO : taskDTOs) {
+            for (TaskAssignmentDTO assignment : assignmentsOf(taskDTO)) {
+                if (!resources.containsKey(assignment.getResourceId()) && !unknownIds.contains(assignment.getResourceId())) {
+                    unknownIds.add(assignment.getResourceId());
+                }
+            }
+        }
+        if (!unknownIds.isEmpty()) {
+            throw new NoSuchElementException(String.format("Resources with IDs: %s not found", unknownIds));
+        }
+        return resources;
+    }
+
+    public List<ResourceAssignment> toAssignments(TaskDTO taskDTO, Map<Long, Resource> resources) {
+        List<ResourceAssignment> assignments = new ArrayList<>();
+        for (TaskAssignmentDTO assignment : assignmentsOf(taskDTO)) {
+            assignments.add(new ResourceAssignment(resources.get(assignment.getResourceId()), assignment.getUnits()));
+        }
+        return assignments;
+    }
+
+    private static List<TaskAssignmentDTO> assignmentsOf(TaskDTO taskDTO) {
+        return taskDTO.getAssignments() != null ? taskDTO.getAssignments() : List.of();
+    }
+
+    private static List<Long> dependencyIdsOf(TaskDTO taskDTO) {
+        return taskDTO.getDependencies() != null ? taskDTO.getDependencies() : List.of();
     }
 
     // Convert ProjectPlan entity to ProjectPlanDTO
@@ -92,6 +269,10 @@ public class ProjectPlanMapper {
         projectPlanDTO.setProjectDuration(projectPlan.getProjectDuration());
         projectPlanDTO.setProjectStartDate(projectPlan.getProjectStartDate());
         projectPlanDTO.setProjectEndDate(projectPlan.getProjectEndDate());
+        if (projectPlan.getWorkCalendar() != null) {
+            projectPlanDTO.setWorkCalendarId(projectPlan.getWorkCalendar().getId());
+        }
+        projectPlanDTO.setResourceLeveling(projectPlan.isResourceLeveling());
 
         // Convert Tasks to TaskDTOs
         if(projectPlan.getTasks() != null && !projectPlan.getTasks().isEmpty()) {
@@ -111,6 +292,8 @@ public class ProjectPlanMapper {
         taskDTO.setId(task.getId());
         taskDTO.setName(task.getName());
         taskDTO.setDuration(task.getDuration());
+        taskDTO.setOptimisticDuration(task.getOptimisticDuration());
+        taskDTO.setPessimisticDuration(task.getPessimisticDuration());
 
         // Convert Task dependencies to a list of IDs (no recursive TaskDTO conversion)
         List<Long> dependencyIds = new ArrayList<>();
@@ -0,0 +1,108 @@
+package com.exist.scheduler.model;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One run of the recalculation of every stored plan. The counters are updated by the worker threads as their
+// batches commit and read by status requests while the run goes on.
+@Getter
+public class BulkRecalculationJob {
+
+    // Failed plan IDs listed in the status; the count covers all of them
+    private static final int FAILED_IDS_KEPT = 100;
+
+    private final long jobId;
+    private final int parallelism;
+    private final Instant submittedAt;
+    private volatile RecalculationJob.Status status = RecalculationJob.Status.QUEUED;
+    private volatile long plansTotal;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    private final AtomicInteger plansDone = new AtomicInteger();
+    private final AtomicInteger plansFailed = new AtomicInteger();
+    private final AtomicLong tasksRecalculated = new AtomicLong();
+    private final AtomicLong tasksChanged = new AtomicLong();
+    private final List<Long> failedPlanIds = new ArrayList<>();
+
+    public BulkRecalculationJob(long jobId, int parallelism) {
+        this.jobId = jobId;
+        this.parallelism = parallelism;
+        this.submittedAt = Instant.now();
+    }
+
+    public void start(long plansTotal) {
+        this.plansTotal = plansTotal;
+        this.status = RecalculationJob.Status.RUNNING;
+    }
+
+    public void batchDone(int plans, RecalculationResult result) {
+        tasksRecalculated.addAndGet(result.getTasksRecalculated());
+        tasksChanged.addAndGet(result.getTasksChanged());
+        plansDone.addAndGet(plans);
+    }
+
+    public void batchFailed(List<Long> projectPlanIds) {
+        synchronized (failedPlanIds) {
+            for (Long projectPlanId : projectPlanIds) {
+                if (failedPlanIds.size() < FAILED_IDS_KEPT) {
+                    failedPlanIds.add(projectPlanId);
+                }
+            }
+        }
+        plansFailed.addAndGet(projectPlanIds.size());
+    }
+
+    public void complete() {
+        finish(plansFailed.get() == 0 ? RecalculationJob.Status.DONE : RecalculationJob.Status.FAILED);
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        finish(RecalculationJob.Status.FAILED);
+    }
+
+    public boolean isFinished() {
+        return status == RecalculationJob.Status.DONE || status == RecalculationJob.Status.FAILED;
+    }
+
+    public int getPlansDone() {
+        return plansDone.get();
+    }
+
+    public int getPlansFailed() {
+        return plansFailed.get();
+    }
+
+    public long getTasksRecalculated() {
+        return tasksRecalculated.get();
+    }
+
+    public long getTasksChanged() {
+        return tasksChanged.get();
+    }
+
+    public List<Long> getFailedPlanIds() {
+        synchronized (failedPlanIds) {
+            return new ArrayList<>(failedPlanIds);
+        }
+    }
+
+    // Plans committed per second since the job was submitted, up to now or until it finished
+    public double getPlansPerSecond() {
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long millis = Math.max(1, Duration.between(submittedAt, end).toMillis());
+        return plansDone.get() * 1000.0 / millis;
+    }
+
+    private void finish(RecalculationJob.Status status) {
+        this.finishedAt = Instant.now();
+        this.status = status;
+    }
+}
@@ -0,0 +1,19 @@
+package com.exist.scheduler.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class CriticalPathDetails {
+    private String projectPlanName;
+    private long projectId;
+    private String projectStart;
+    private String projectEnd;
+    // Working days from the start of the first critical task to the end of the last one
+    private long criticalPathWorkingDays;
+    private List<String> criticalPath;
+    private List<TaskFloatDetails> tasks;
+}
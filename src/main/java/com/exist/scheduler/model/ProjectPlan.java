@@ -8,19 +8,35 @@ import java.time.LocalDate;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = "ProjectPlan.tasks", attributeNodes = {
+        @NamedAttributeNode("tasks"),
+        @NamedAttributeNode("workCalendar")
+})
 @Getter
 @Setter
 public class ProjectPlan {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "project_plan_seq")
+    @SequenceGenerator(name = "project_plan_seq", sequenceName = "project_plan_seq", allocationSize = 50)
     private Long id;
 
+    // Checked on every update, so a write based on a stale read of the plan fails instead of overwriting newer dates
+    @Version
+    private Long version;
+
     private String name;
 
-    @OneToMany(cascade = CascadeType.ALL, mappedBy = "projectPlan", fetch = FetchType.EAGER)
+    @OneToMany(cascade = CascadeType.ALL, mappedBy = "projectPlan")
     private List<Task> tasks;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "work_calendar_id")
+    private WorkCalendar workCalendar;
+
+    // Tasks are delayed until their resources have capacity left, see SchedulingEngine.level
+    private boolean resourceLeveling;
+
     private LocalDate projectStartDate;
     private LocalDate projectEndDate;
     private long projectDuration;
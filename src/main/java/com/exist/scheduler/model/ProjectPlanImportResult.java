@@ -0,0 +1,16 @@
+package com.exist.scheduler.model;
+
+import lombok.Getter;
+
+@Getter
+public class ProjectPlanImportResult {
+    private final Long projectPlanId;
+    private final int tasksImported;
+    private final int dependenciesImported;
+
+    public ProjectPlanImportResult(Long projectPlanId, int tasksImported, int dependenciesImported) {
+        this.projectPlanId = projectPlanId;
+        this.tasksImported = tasksImported;
+        this.dependenciesImported = dependenciesImported;
+    }
+}
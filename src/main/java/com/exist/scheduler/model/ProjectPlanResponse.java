@@ -11,6 +11,8 @@ import java.util.List;
 public class ProjectPlanResponse {
     private String message;
     private List<ProjectPlanDetails> projectPlans = new ArrayList<>();
+    // ID to pass as afterId for the next page; null on the last page
+    private Long nextCursor;
 
     public ProjectPlanResponse() {
     }
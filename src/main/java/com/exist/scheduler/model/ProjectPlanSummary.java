@@ -0,0 +1,8 @@
+package com.exist.scheduler.model;
+
+import java.time.LocalDate;
+
+// Columns of a project plan needed for ProjectPlanDetails, read without loading the entity
+public record ProjectPlanSummary(Long id, String name, LocalDate projectStartDate, LocalDate projectEndDate,
+                                 long projectDuration, long totalWorkingDays) {
+}
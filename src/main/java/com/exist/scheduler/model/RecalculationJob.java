@@ -0,0 +1,57 @@
+package com.exist.scheduler.model;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+// One queued recomputation of a plan's dates. Edits made while the job is still queued are folded into it.
+// Updated by the worker thread and read by status requests, hence the volatile fields.
+@Getter
+public class RecalculationJob {
+
+    public enum Status {
+        QUEUED, RUNNING, DONE, FAILED
+    }
+
+    private final long jobId;
+    private final Long projectPlanId;
+    private final Instant submittedAt;
+    private volatile int edits = 1;
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant finishedAt;
+    private volatile RecalculationResult result;
+    private volatile String error;
+
+    public RecalculationJob(long jobId, Long projectPlanId) {
+        this.jobId = jobId;
+        this.projectPlanId = projectPlanId;
+        this.submittedAt = Instant.now();
+    }
+
+    public void addEdit() {
+        edits++;
+    }
+
+    public void start() {
+        status = Status.RUNNING;
+    }
+
+    public void complete(RecalculationResult result) {
+        this.result = result;
+        finish(Status.DONE);
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        finish(Status.FAILED);
+    }
+
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED;
+    }
+
+    private void finish(Status status) {
+        this.finishedAt = Instant.now();
+        this.status = status;
+    }
+}
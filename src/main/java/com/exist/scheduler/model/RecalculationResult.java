@@ -0,0 +1,18 @@
+package com.exist.scheduler.model;
+
+import lombok.Getter;
+
+@Getter
+public class RecalculationResult {
+    private final int tasksRecalculated;
+    private final int tasksChanged;
+
+    public RecalculationResult(int tasksRecalculated, int tasksChanged) {
+        this.tasksRecalculated = tasksRecalculated;
+        this.tasksChanged = tasksChanged;
+    }
+
+    public RecalculationResult plus(RecalculationResult other) {
+        return new RecalculationResult(tasksRecalculated + other.tasksRecalculated, tasksChanged + other.tasksChanged);
+    }
+}
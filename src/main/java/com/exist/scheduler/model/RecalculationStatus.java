@@ -0,0 +1,21 @@
+package com.exist.scheduler.model;
+
+import lombok.Getter;
+
+// Whether a plan's stored dates reflect every accepted edit. A plan is fresh when no recalculation is queued
+// or running for it and the last one, if any, succeeded.
+@Getter
+public class RecalculationStatus {
+    private final Long projectPlanId;
+    private final boolean fresh;
+    private final RecalculationJob currentJob;
+    private final RecalculationJob lastFinishedJob;
+
+    public RecalculationStatus(Long projectPlanId, RecalculationJob currentJob, RecalculationJob lastFinishedJob) {
+        this.projectPlanId = projectPlanId;
+        this.fresh = currentJob == null
+                && (lastFinishedJob == null || lastFinishedJob.getStatus() == RecalculationJob.Status.DONE);
+        this.currentJob = currentJob;
+        this.lastFinishedJob = lastFinishedJob;
+    }
+}
@@ -0,0 +1,31 @@
+package com.exist.scheduler.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// A team or piece of equipment tasks are assigned to. Capacity is the number of units it can give per working day,
+// e.g. the head count of a team; resource-leveled plans never book more than that on any day.
+@Entity
+@Getter
+@Setter
+public class Resource {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "resource_seq")
+    @SequenceGenerator(name = "resource_seq", sequenceName = "resource_seq", allocationSize = 50)
+    private Long id;
+
+    private String name;
+
+    private int capacity;
+
+    // Constructors
+    public Resource() {
+    }
+
+    public Resource(String name, int capacity) {
+        this.name = name;
+        this.capacity = capacity;
+    }
+}
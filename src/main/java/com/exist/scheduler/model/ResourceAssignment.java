@@ -0,0 +1,27 @@
+package com.exist.scheduler.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// Units of a resource a task occupies on every working day it runs
+@Embeddable
+@Getter
+@Setter
+public class ResourceAssignment {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "resource_id")
+    private Resource resource;
+
+    private int units;
+
+    // Constructors
+    public ResourceAssignment() {
+    }
+
+    public ResourceAssignment(Resource resource, int units) {
+        this.resource = resource;
+        this.units = units;
+    }
+}
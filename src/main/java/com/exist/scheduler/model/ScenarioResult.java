@@ -0,0 +1,30 @@
+package com.exist.scheduler.model;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// How a scenario would move a plan's dates. Deltas are in working days of the plan's calendar, positive when the
+// scenario is later; only tasks whose dates move are listed.
+@Getter
+public class ScenarioResult {
+    private final Long projectPlanId;
+    private final LocalDate baseProjectEndDate;
+    private final LocalDate projectEndDate;
+    private final long projectEndDelta;
+    private final int tasksScheduled;
+    private final int tasksChanged;
+    private final List<TaskScenarioDelta> tasks;
+
+    public ScenarioResult(Long projectPlanId, LocalDate baseProjectEndDate, LocalDate projectEndDate,
+                          long projectEndDelta, int tasksScheduled, List<TaskScenarioDelta> tasks) {
+        this.projectPlanId = projectPlanId;
+        this.baseProjectEndDate = baseProjectEndDate;
+        this.projectEndDate = projectEndDate;
+        this.projectEndDelta = projectEndDelta;
+        this.tasksScheduled = tasksScheduled;
+        this.tasksChanged = tasks.size();
+        this.tasks = tasks;
+    }
+}
@@ -0,0 +1,39 @@
+package com.exist.scheduler.model;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Outcome of a Monte Carlo run over a plan: the end date that 50, 80 and 95 percent of the iterations met, how likely
+// the plan's own end date is, and how often each task was critical, most critical first. The same seed, iterations
+// and distribution give the same result for the same version of the plan. Resource-leveled plans have no planned
+// end or probability, as the simulation does not apply capacities.
+@Getter
+public class ScheduleRiskAnalysis {
+    private final Long projectPlanId;
+    private final int iterations;
+    private final String distribution;
+    private final long seed;
+    private final LocalDate plannedEndDate;
+    private final Double plannedEndProbability;
+    private final LocalDate p50EndDate;
+    private final LocalDate p80EndDate;
+    private final LocalDate p95EndDate;
+    private final List<TaskCriticality> tasks;
+
+    public ScheduleRiskAnalysis(Long projectPlanId, int iterations, String distribution, long seed,
+                                LocalDate plannedEndDate, Double plannedEndProbability, LocalDate p50EndDate,
+                                LocalDate p80EndDate, LocalDate p95EndDate, List<TaskCriticality> tasks) {
+        this.projectPlanId = projectPlanId;
+        this.iterations = iterations;
+        this.distribution = distribution;
+        this.seed = seed;
+        this.plannedEndDate = plannedEndDate;
+        this.plannedEndProbability = plannedEndProbability;
+        this.p50EndDate = p50EndDate;
+        this.p80EndDate = p80EndDate;
+        this.p95EndDate = p95EndDate;
+        this.tasks = tasks;
+    }
+}
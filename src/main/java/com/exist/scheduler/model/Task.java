@@ -3,23 +3,40 @@ package com.exist.scheduler.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = "Task.projectPlan", attributeNodes = @NamedAttributeNode("projectPlan"))
 @Getter
 @Setter
 public class Task {
 
+    // Pooled sequence IDs let Hibernate assign identifiers without an insert, so inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_seq")
+    @SequenceGenerator(name = "task_seq", sequenceName = "task_seq", allocationSize = 50)
     private Long id;
 
+    @Version
+    private Long version;
+
     private String name;
     private int duration;
 
-    @ManyToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    // Three-point estimate for risk analysis around duration, the most likely one; null when not estimated
+    private Integer optimisticDuration;
+    private Integer pessimisticDuration;
+
+    // Loaded on demand, up to 50 lists at a time where Hibernate batches them; incremental recalculation loads all
+    // of a plan's lists in one query instead (TaskRepository.findWithDependenciesByProjectPlanId).
+    // Dependencies are sibling tasks owned by the plan, so nothing cascades along them: a cascade would walk a whole
+    // chain recursively on every flush and remove a task's dependencies along with it.
+    @ManyToMany
+    @BatchSize(size = 50)
     @JoinTable(
             name = "task_dependencies",
             joinColumns = @JoinColumn(name = "task_id"),
@@ -27,10 +44,16 @@ public class Task {
     )
     private List<Task> dependencies;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "project_plan_id")
     private ProjectPlan projectPlan;
 
+    // Resources the task occupies; only read when its plan is resource-leveled, in batches like the dependencies
+    @ElementCollection
+    @BatchSize(size = 50)
+    @CollectionTable(name = "task_assignments", joinColumns = @JoinColumn(name = "task_id"))
+    private List<ResourceAssignment> assignments = new ArrayList<>();
+
     private LocalDate taskStartDate;
     private LocalDate taskEndDate;
 
@@ -0,0 +1,24 @@
+package com.exist.scheduler.model;
+
+import lombok.Getter;
+
+import java.util.List;
+
+// A batch is applied as a whole or not at all; when any item is rejected nothing is written and the
+// per-item results say which items were at fault
+@Getter
+public class TaskBatchResult {
+    private final Long projectPlanId;
+    private final boolean applied;
+    private final int tasksRecalculated;
+    private final int tasksChanged;
+    private final List<TaskOperationResult> results;
+
+    public TaskBatchResult(Long projectPlanId, boolean applied, RecalculationResult recalculation, List<TaskOperationResult> results) {
+        this.projectPlanId = projectPlanId;
+        this.applied = applied;
+        this.tasksRecalculated = recalculation.getTasksRecalculated();
+        this.tasksChanged = recalculation.getTasksChanged();
+        this.results = results;
+    }
+}
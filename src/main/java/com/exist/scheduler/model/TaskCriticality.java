@@ -0,0 +1,17 @@
+package com.exist.scheduler.model;
+
+import lombok.Getter;
+
+@Getter
+public class TaskCriticality {
+    private final Long taskId;
+    private final String taskName;
+    // Share of the iterations in which the task was on a critical path, 0 to 1
+    private final double criticalityIndex;
+
+    public TaskCriticality(Long taskId, String taskName, double criticalityIndex) {
+        this.taskId = taskId;
+        this.taskName = taskName;
+        this.criticalityIndex = criticalityIndex;
+    }
+}
@@ -0,0 +1,5 @@
+package com.exist.scheduler.model;
+
+// One row of the task_dependencies join: a task and the name of a task it depends on
+public record TaskDependencyName(Long taskId, String dependencyName) {
+}
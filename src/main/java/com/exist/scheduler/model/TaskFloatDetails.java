@@ -0,0 +1,20 @@
+package com.exist.scheduler.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class TaskFloatDetails {
+    private String taskName;
+    private Long taskId;
+    private int duration;
+    private String earliestStart;
+    private String earliestFinish;
+    private String latestStart;
+    private String latestFinish;
+    // In working days
+    private long totalFloat;
+    private long freeFloat;
+    private boolean critical;
+}
@@ -0,0 +1,22 @@
+package com.exist.scheduler.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// Staging row of a running import: a dependency between two tasks by their keys in the imported file, kept
+// until every task is inserted so that dependencies may refer to tasks further down the file
+@Entity
+@Table(indexes = @Index(name = "task_import_edge_plan", columnList = "projectPlanId"))
+@Getter
+@Setter
+public class TaskImportEdge {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long projectPlanId;
+    private String taskKey;
+    private String dependencyKey;
+}
@@ -0,0 +1,23 @@
+package com.exist.scheduler.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+// Staging row of a running import: the key a task has in the imported file and the ID it was inserted with.
+// Written and read with plain JDBC, and removed again before the import commits. The index is not unique: a key
+// used twice is reported by the import with all the other duplicates once every task is in.
+@Entity
+@Table(indexes = @Index(name = "task_import_key_plan_key", columnList = "projectPlanId, taskKey"))
+@Getter
+@Setter
+public class TaskImportKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long projectPlanId;
+    private String taskKey;
+    private Long taskId;
+}
@@ -0,0 +1,21 @@
+package com.exist.scheduler.model;
+
+import lombok.Getter;
+
+// Outcome of one batch item: the task it applied to, or why it was rejected
+@Getter
+public class TaskOperationResult {
+    private final int index;
+    private final String op;
+    private final Long taskId;
+    private final String key;
+    private final String error;
+
+    public TaskOperationResult(int index, String op, Long taskId, String key, String error) {
+        this.index = index;
+        this.op = op;
+        this.taskId = taskId;
+        this.key = key;
+        this.error = error;
+    }
+}
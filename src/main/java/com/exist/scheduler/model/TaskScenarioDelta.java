@@ -0,0 +1,30 @@
+package com.exist.scheduler.model;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+@Getter
+public class TaskScenarioDelta {
+    private final Long taskId;
+    private final String taskName;
+    private final LocalDate baseStartDate;
+    private final LocalDate baseEndDate;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    // In working days
+    private final long startDelta;
+    private final long endDelta;
+
+    public TaskScenarioDelta(Long taskId, String taskName, LocalDate baseStartDate, LocalDate baseEndDate,
+                             LocalDate startDate, LocalDate endDate, long startDelta, long endDelta) {
+        this.taskId = taskId;
+        this.taskName = taskName;
+        this.baseStartDate = baseStartDate;
+        this.baseEndDate = baseEndDate;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.startDelta = startDelta;
+        this.endDelta = endDelta;
+    }
+}
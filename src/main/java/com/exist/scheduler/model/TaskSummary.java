@@ -0,0 +1,8 @@
+package com.exist.scheduler.model;
+
+import java.time.LocalDate;
+
+// Columns of a task needed for TaskDetails, read without loading the entity
+public record TaskSummary(Long id, Long projectPlanId, String name, int duration,
+                          LocalDate taskStartDate, LocalDate taskEndDate) {
+}
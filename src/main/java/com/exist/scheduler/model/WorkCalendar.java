@@ -0,0 +1,44 @@
+package com.exist.scheduler.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+@Entity
+@Getter
+@Setter
+public class WorkCalendar {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "work_calendar_seq")
+    @SequenceGenerator(name = "work_calendar_seq", sequenceName = "work_calendar_seq", allocationSize = 50)
+    private Long id;
+
+    private String name;
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "work_calendar_working_days", joinColumns = @JoinColumn(name = "work_calendar_id"))
+    @Enumerated(EnumType.STRING)
+    @Column(name = "day_of_week")
+    private Set<DayOfWeek> workingDays = new HashSet<>();
+
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "work_calendar_holidays", joinColumns = @JoinColumn(name = "work_calendar_id"))
+    @Column(name = "holiday")
+    private Set<LocalDate> holidays = new HashSet<>();
+
+    // Constructors
+    public WorkCalendar() {
+    }
+
+    public WorkCalendar(String name, Set<DayOfWeek> workingDays, Set<LocalDate> holidays) {
+        this.name = name;
+        this.workingDays = workingDays;
+        this.holidays = holidays;
+    }
+}
@@ -1,9 +1,64 @@
 package com.exist.scheduler.repository;
 
 import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.ProjectPlanSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
 public interface ProjectPlanRepository extends JpaRepository<ProjectPlan, Long> {
-}
\ No newline at end of file
+
+    // Optional filters: name contains (case-insensitive), and the plan overlaps the [from, to] date range
+    String FILTER = "(:name is null or lower(p.name) like lower(concat('%', :name, '%')))"
+            + " and (:from is null or p.projectEndDate >= :from)"
+            + " and (:to is null or p.projectStartDate <= :to)";
+
+    String SUMMARY = "select new com.exist.scheduler.model.ProjectPlanSummary(p.id, p.name, p.projectStartDate,"
+            + " p.projectEndDate, p.projectDuration, p.totalWorkingDays) from ProjectPlan p";
+
+    // Scheduling: the plan with its tasks and calendar in one query
+    @EntityGraph("ProjectPlan.tasks")
+    Optional<ProjectPlan> findWithTasksById(Long id);
+
+    @EntityGraph("ProjectPlan.tasks")
+    List<ProjectPlan> findWithTasksByWorkCalendarId(Long workCalendarId);
+
+    @Query("select p.id from ProjectPlan p where p.workCalendar.id = :workCalendarId")
+    List<Long> findIdsByWorkCalendarId(@Param("workCalendarId") Long workCalendarId);
+
+    @EntityGraph("ProjectPlan.tasks")
+    @Query("select p from ProjectPlan p order by p.id")
+    List<ProjectPlan> findAllWithTasks();
+
+    @EntityGraph("ProjectPlan.tasks")
+    List<ProjectPlan> findWithTasksByIdIn(Collection<Long> ids);
+
+    // Keyset paging over all plan IDs, for work that goes through every plan
+    @Query("select p.id from ProjectPlan p where p.id > :afterId order by p.id")
+    List<Long> findIdsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    // Listing: only the columns ProjectPlanDetails shows
+    @Query(SUMMARY + " order by p.id")
+    List<ProjectPlanSummary> findAllSummaries();
+
+    @Query(SUMMARY + " where p.id > :afterId and " + FILTER + " order by p.id")
+    List<ProjectPlanSummary> findPageByFilter(@Param("afterId") long afterId, @Param("name") String name,
+                                              @Param("from") LocalDate from, @Param("to") LocalDate to, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"))
+    @Query(SUMMARY + " where " + FILTER + " order by p.id")
+    Stream<ProjectPlanSummary> streamByFilter(@Param("name") String name, @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
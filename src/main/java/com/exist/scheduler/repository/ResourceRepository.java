@@ -0,0 +1,9 @@
+package com.exist.scheduler.repository;
+
+import com.exist.scheduler.model.Resource;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ResourceRepository extends JpaRepository<Resource, Long> {
+}
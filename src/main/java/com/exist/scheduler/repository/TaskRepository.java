@@ -1,10 +1,51 @@
 package com.exist.scheduler.repository;
 
 import com.exist.scheduler.model.Task;
+import com.exist.scheduler.model.TaskDependencyName;
+import com.exist.scheduler.model.TaskSummary;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
     Task findByName(String name);
-}
\ No newline at end of file
+
+    List<Task> findAllByProjectPlanIdAndIdIn(Long projectPlanId, Collection<Long> ids);
+
+    // Single-task update: the task and the plan it belongs to
+    @EntityGraph("Task.projectPlan")
+    Optional<Task> findWithProjectPlanById(Long id);
+
+    // Initializes the dependency lists of every task of the plan with one query; the tasks are usually managed
+    // already, loaded with their plan, and @BatchSize does not batch lists reached through that entity graph
+    @Query("select distinct t from Task t left join fetch t.dependencies where t.projectPlan.id = :projectPlanId")
+    List<Task> findWithDependenciesByProjectPlanId(@Param("projectPlanId") Long projectPlanId);
+
+    // Resource-leveled plans with a task assigned to the resource
+    @Query("select distinct t.projectPlan.id from Task t join t.assignments a"
+            + " where a.resource.id = :resourceId and t.projectPlan.resourceLeveling = true")
+    List<Long> findLeveledProjectPlanIdsByResourceId(@Param("resourceId") Long resourceId);
+
+    @Query("select max(a.units) from Task t join t.assignments a where a.resource.id = :resourceId")
+    Optional<Integer> findMaxUnitsByResourceId(@Param("resourceId") Long resourceId);
+
+    // The plan a task belongs to, without loading the task, so a write can lock the plan before reading it
+    @Query("select t.projectPlan.id from Task t where t.id = :id")
+    Optional<Long> findProjectPlanIdById(@Param("id") Long id);
+
+    @Query("select new com.exist.scheduler.model.TaskSummary(t.id, t.projectPlan.id, t.name, t.duration,"
+            + " t.taskStartDate, t.taskEndDate) from Task t where t.projectPlan.id in :projectPlanIds order by t.id")
+    List<TaskSummary> findSummariesByProjectPlanIds(@Param("projectPlanIds") Collection<Long> projectPlanIds);
+
+    @Query("select new com.exist.scheduler.model.TaskDependencyName(t.id, d.name)"
+            + " from Task t join t.dependencies d where t.projectPlan.id in :projectPlanIds"
+            + " order by t.id, d.id")
+    List<TaskDependencyName> findDependencyNamesByProjectPlanIds(@Param("projectPlanIds") Collection<Long> projectPlanIds);
+}
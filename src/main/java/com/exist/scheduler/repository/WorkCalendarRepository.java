@@ -0,0 +1,9 @@
+package com.exist.scheduler.repository;
+
+import com.exist.scheduler.model.WorkCalendar;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface WorkCalendarRepository extends JpaRepository<WorkCalendar, Long> {
+}
@@ -0,0 +1,147 @@
+package com.exist.scheduler.scheduling;
+
+// Daily usage of one resource over working-day offsets 0..length-1, as a segment tree with lazy range additions.
+// Booking a task adds its units over its working days, a capacity check asks for the last overbooked day in
+// a span, and the next candidate start is the first day after it with room; each takes O(log n). The tree
+// doubles its length when a booking reaches past the end, and days past the end have no usage.
+final class CapacityTree {
+
+    private int length;
+
+    // Node 1 is the root and node i has children 2i and 2i + 1. max and min hold the highest and lowest usage in
+    // the node's span, pending an addition to the whole span that has not been passed down to the children yet.
+    private int[] max;
+    private int[] min;
+    private int[] pending;
+
+    CapacityTree(int length) {
+        this.length = 1;
+        while (this.length < length) {
+            this.length <<= 1;
+        }
+        this.max = new int[2 * this.length];
+        this.min = new int[2 * this.length];
+        this.pending = new int[2 * this.length];
+    }
+
+    // Adds units to every day from first to last, both inclusive
+    void add(int first, int last, int units) {
+        while (last >= length) {
+            grow();
+        }
+        add(1, 0, length - 1, first, last, units);
+    }
+
+    // The last day from first to last, both inclusive, whose usage is above the limit, or -1 if there is none.
+    // The limit is never negative, so days past the end of the tree are never above it.
+    int lastAbove(int first, int last, int limit) {
+        return first < length ? lastAbove(1, 0, length - 1, first, Math.min(last, length - 1), limit) : -1;
+    }
+
+    // The first day on or after from whose usage is at most the limit
+    int firstAtMost(int from, int limit) {
+        if (from >= length) {
+            return from;
+        }
+        int day = firstAtMost(1, 0, length - 1, from, limit);
+        return day >= 0 ? day : length;
+    }
+
+    int usage(int day) {
+        if (day >= length) {
+            return 0;
+        }
+        int node = 1;
+        int low = 0;
+        int high = length - 1;
+        while (low < high) {
+            push(node);
+            int middle = (low + high) >>> 1;
+            if (day <= middle) {
+                node = 2 * node;
+                high = middle;
+            } else {
+                node = 2 * node + 1;
+                low = middle + 1;
+            }
+        }
+        return max[node];
+    }
+
+    private void add(int node, int low, int high, int first, int last, int units) {
+        if (last < low || high < first) {
+            return;
+        }
+        if (first <= low && high <= last) {
+            max[node] += units;
+            min[node] += units;
+            pending[node] += units;
+            return;
+        }
+        push(node);
+        int middle = (low + high) >>> 1;
+        add(2 * node, low, middle, first, last, units);
+        add(2 * node + 1, middle + 1, high, first, last, units);
+        max[node] = Math.max(max[2 * node], max[2 * node + 1]);
+        min[node] = Math.min(min[2 * node], min[2 * node + 1]);
+    }
+
+    // Looks right first, and skips every subtree whose maximum is within the limit
+    private int lastAbove(int node, int low, int high, int first, int last, int limit) {
+        if (last < low || high < first || max[node] <= limit) {
+            return -1;
+        }
+        if (low == high) {
+            return low;
+        }
+        push(node);
+        int middle = (low + high) >>> 1;
+        int day = lastAbove(2 * node + 1, middle + 1, high, first, last, limit);
+        return day >= 0 ? day : lastAbove(2 * node, low, middle, first, last, limit);
+    }
+
+    // Looks left first, and skips every subtree that is booked above the limit on all of its days
+    private int firstAtMost(int node, int low, int high, int from, int limit) {
+        if (high < from || min[node] > limit) {
+            return -1;
+        }
+        if (low == high) {
+            return low;
+        }
+        push(node);
+        int middle = (low + high) >>> 1;
+        int day = firstAtMost(2 * node, low, middle, from, limit);
+        return day >= 0 ? day : firstAtMost(2 * node + 1, middle + 1, high, from, limit);
+    }
+
+    private void push(int node) {
+        if (pending[node] != 0) {
+            for (int child = 2 * node; child <= 2 * node + 1; child++) {
+                max[child] += pending[node];
+                min[child] += pending[node];
+                pending[child] += pending[node];
+            }
+            pending[node] = 0;
+        }
+    }
+
+    // The current tree becomes the left half of one twice as long: every node moves down one level, so node i
+    // at depth d becomes node i + 2^d
+    private void grow() {
+        int[] grownMax = new int[4 * length];
+        int[] grownMin = new int[4 * length];
+        int[] grownPending = new int[4 * length];
+        for (int node = 1; node < 2 * length; node++) {
+            int moved = node + Integer.highestOneBit(node);
+            grownMax[moved] = max[node];
+            grownMin[moved] = min[node];
+            grownPending[moved] = pending[node];
+        }
+        // The new right half is empty, so the lowest usage is 0
+        grownMax[1] = max[1];
+        length *= 2;
+        max = grownMax;
+        min = grownMin;
+        pending = grownPending;
+    }
+}
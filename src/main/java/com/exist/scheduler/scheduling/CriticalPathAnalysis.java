@@ -0,0 +1,111 @@
+package com.exist.scheduler.scheduling;
+
+import com.exist.scheduler.model.Task;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Result of the forward and backward pass over a plan graph. All values are working-day ordinals of the plan's
+// calendar: a task occupies the working days [earliestStart, earliestFinish), so floats are counted in working days.
+public class CriticalPathAnalysis {
+
+    private final PlanGraph graph;
+    private final WorkingCalendar calendar;
+    private final int[] order;
+    private final long[] earliestStart;
+    private final long[] earliestFinish;
+    private final long[] latestStart;
+    private final long[] latestFinish;
+    private final long[] freeFloat;
+    private final int[] criticalPath;
+    private final LocalDate projectEnd;
+
+    public CriticalPathAnalysis(PlanGraph graph, WorkingCalendar calendar, int[] order, long[] earliestStart,
+                                long[] earliestFinish, long[] latestStart, long[] latestFinish, long[] freeFloat,
+                                int[] criticalPath, LocalDate projectEnd) {
+        this.graph = graph;
+        this.calendar = calendar;
+        this.order = order;
+        this.earliestStart = earliestStart;
+        this.earliestFinish = earliestFinish;
+        this.latestStart = latestStart;
+        this.latestFinish = latestFinish;
+        this.freeFloat = freeFloat;
+        this.criticalPath = criticalPath;
+        this.projectEnd = projectEnd;
+    }
+
+    public List<Task> getOrder() {
+        return toTasks(order);
+    }
+
+    // From the first task to the one that finishes last, each task driving the start of the next
+    public List<Task> getCriticalPath() {
+        return toTasks(criticalPath);
+    }
+
+    // Day the last task ends on, or the plan's start when it has no tasks
+    public LocalDate getProjectEnd() {
+        return projectEnd;
+    }
+
+    public LocalDate getEarliestStart(Task task) {
+        return startDate(earliestStart[node(task)]);
+    }
+
+    public LocalDate getEarliestFinish(Task task) {
+        int node = node(task);
+        return finishDate(earliestStart[node], earliestFinish[node]);
+    }
+
+    public LocalDate getLatestStart(Task task) {
+        return startDate(latestStart[node(task)]);
+    }
+
+    public LocalDate getLatestFinish(Task task) {
+        int node = node(task);
+        return finishDate(latestStart[node], latestFinish[node]);
+    }
+
+    // Working days the task can slip without delaying the project
+    public long getTotalFloat(Task task) {
+        int node = node(task);
+        return latestStart[node] - earliestStart[node];
+    }
+
+    // Working days the task can slip without delaying any task that depends on it
+    public long getFreeFloat(Task task) {
+        return freeFloat[node(task)];
+    }
+
+    public boolean isCritical(Task task) {
+        return getTotalFloat(task) == 0;
+    }
+
+    private int node(Task task) {
+        int node = graph.indexOf(task);
+        if (node < 0) {
+            throw new IllegalArgumentException(String.format("Task %s is not part of the analysed plan", task.getName()));
+        }
+        return node;
+    }
+
+    private LocalDate startDate(long ordinal) {
+        return LocalDate.ofEpochDay(calendar.workingDayAt(ordinal));
+    }
+
+    // Last working day of the task; a task without duration finishes on the day it starts
+    private LocalDate finishDate(long start, long finish) {
+        return LocalDate.ofEpochDay(calendar.workingDayAt(finish > start ? finish - 1 : start));
+    }
+
+    private List<Task> toTasks(int[] nodes) {
+        List<Task> tasks = new ArrayList<>(nodes.length);
+        for (int node : nodes) {
+            tasks.add(graph.task(node));
+        }
+        return Collections.unmodifiableList(tasks);
+    }
+}
@@ -0,0 +1,93 @@
+package com.exist.scheduler.scheduling;
+
+import java.util.SplittableRandom;
+
+// How a task's duration is drawn from its optimistic (low), most likely (mode) and pessimistic (high) estimates.
+// Whatever depends on the estimates alone is worked out once per task into PARAMETERS doubles, so a draw only
+// does the arithmetic that depends on the random numbers.
+public enum DurationDistribution {
+
+    // Straight lines from low up to mode and down to high, drawn by inverting the distribution function
+    TRIANGULAR {
+        @Override
+        void prepare(int low, int mode, int high, double[] parameters, int offset) {
+            double range = high - low;
+            parameters[offset] = low;
+            parameters[offset + 1] = high;
+            parameters[offset + 2] = (mode - low) / range;
+            parameters[offset + 3] = range * (mode - low);
+            parameters[offset + 4] = range * (high - mode);
+        }
+
+        @Override
+        double draw(SplittableRandom random, double[] parameters, int offset) {
+            double u = random.nextDouble();
+            if (u < parameters[offset + 2]) {
+                return parameters[offset] + Math.sqrt(u * parameters[offset + 3]);
+            }
+            return parameters[offset + 1] - Math.sqrt((1 - u) * parameters[offset + 4]);
+        }
+    },
+
+    // The beta distribution of PERT, with shapes 1 + 4 (mode - low) / range and 1 + 4 (high - mode) / range, so
+    // that its mean is (low + 4 mode + high) / 6. It stays closer to the most likely duration than TRIANGULAR.
+    // The beta variate is x / (x + y) of two gamma variates with those shapes.
+    PERT {
+        @Override
+        void prepare(int low, int mode, int high, double[] parameters, int offset) {
+            double range = high - low;
+            double alpha = 1 + 4.0 * (mode - low) / range;
+            double beta = 1 + 4.0 * (high - mode) / range;
+            parameters[offset] = low;
+            parameters[offset + 1] = range;
+            parameters[offset + 2] = alpha - 1.0 / 3;
+            parameters[offset + 3] = 1 / Math.sqrt(9 * (alpha - 1.0 / 3));
+            parameters[offset + 4] = beta - 1.0 / 3;
+            parameters[offset + 5] = 1 / Math.sqrt(9 * (beta - 1.0 / 3));
+        }
+
+        @Override
+        double draw(SplittableRandom random, double[] parameters, int offset) {
+            double x = gamma(random, parameters[offset + 2], parameters[offset + 3]);
+            double y = gamma(random, parameters[offset + 4], parameters[offset + 5]);
+            return parameters[offset] + parameters[offset + 1] * x / (x + y);
+        }
+    };
+
+    public static final int PARAMETERS = 6;
+
+    public static DurationDistribution of(String name) {
+        for (DurationDistribution distribution : values()) {
+            if (distribution.name().equalsIgnoreCase(name)) {
+                return distribution;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Distribution must be one of triangular, pert, not: %s", name));
+    }
+
+    // Works out the parameters of a task with low < high, low <= mode <= high into parameters[offset ..]
+    abstract void prepare(int low, int mode, int high, double[] parameters, int offset);
+
+    abstract double draw(SplittableRandom random, double[] parameters, int offset);
+
+    // A whole number of working days between low and high
+    int sample(SplittableRandom random, double[] parameters, int offset) {
+        return (int) (draw(random, parameters, offset) + 0.5);
+    }
+
+    // Marsaglia and Tsang's method for a shape of at least 1, given d = shape - 1/3 and c = 1 / sqrt(9 d)
+    private static double gamma(SplittableRandom random, double d, double c) {
+        while (true) {
+            double x = random.nextGaussian();
+            double v = 1 + c * x;
+            if (v <= 0) {
+                continue;
+            }
+            v = v * v * v;
+            double u = random.nextDouble();
+            if (u < 1 - 0.0331 * x * x * x * x || Math.log(u) < 0.5 * x * x + d * (1 - v + Math.log(v))) {
+                return d * v;
+            }
+        }
+    }
+}
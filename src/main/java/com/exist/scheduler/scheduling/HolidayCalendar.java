@@ -0,0 +1,115 @@
+package com.exist.scheduler.scheduling;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+// A work week with holidays, compiled into a bitmap of working days over the range spanned by the holidays.
+// Each 64-day word of the bitmap carries the number of working days before it, so ordinals are looked up with
+// one bit count and resolved back to days with a binary search over the words.
+// Outside the compiled range the plain work week applies.
+public class HolidayCalendar implements WorkingCalendar {
+
+    private final WorkingDayCalendar workWeek;
+
+    private final long rangeStart;
+    private final long rangeEnd;
+
+    private final long[] workingDayBits;
+
+    // rankBeforeWord[w] = working days in [rangeStart, rangeStart + 64 * w)
+    private final long[] rankBeforeWord;
+
+    // Ordinal offsets that keep the numbering continuous across the edges of the compiled range
+    private final long ordinalsBeforeRange;
+    private final long ordinalsAfterRange;
+
+    public HolidayCalendar(WorkingDayCalendar workWeek, Collection<LocalDate> holidays) {
+        this.workWeek = workWeek;
+
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (LocalDate holiday : holidays) {
+            first = Math.min(first, holiday.toEpochDay());
+            last = Math.max(last, holiday.toEpochDay());
+        }
+        if (holidays.isEmpty()) {
+            first = 0;
+            last = -1;
+        }
+        rangeStart = first;
+        rangeEnd = last;
+
+        int days = (int) (rangeEnd - rangeStart + 1);
+        workingDayBits = new long[(days + 63) >>> 6];
+        for (int day = 0; day < days; day++) {
+            if (workWeek.isWorkingDay(rangeStart + day)) {
+                workingDayBits[day >>> 6] |= 1L << day;
+            }
+        }
+        for (LocalDate holiday : holidays) {
+            int day = (int) (holiday.toEpochDay() - rangeStart);
+            workingDayBits[day >>> 6] &= ~(1L << day);
+        }
+
+        rankBeforeWord = new long[workingDayBits.length + 1];
+        for (int word = 0; word < workingDayBits.length; word++) {
+            rankBeforeWord[word + 1] = rankBeforeWord[word] + Long.bitCount(workingDayBits[word]);
+        }
+
+        // Ordinal 0 is the first working day of the compiled range
+        ordinalsBeforeRange = workWeek.workingDaysBefore(rangeStart);
+        ordinalsAfterRange = workWeek.workingDaysBefore(rangeEnd + 1) - rankBeforeWord[workingDayBits.length];
+    }
+
+    @Override
+    public boolean isWorkingDay(long epochDay) {
+        if (epochDay < rangeStart || epochDay > rangeEnd) {
+            return workWeek.isWorkingDay(epochDay);
+        }
+        int day = (int) (epochDay - rangeStart);
+        return (workingDayBits[day >>> 6] & (1L << day)) != 0;
+    }
+
+    @Override
+    public long workingDaysBefore(long epochDay) {
+        if (epochDay <= rangeStart) {
+            return workWeek.workingDaysBefore(epochDay) - ordinalsBeforeRange;
+        }
+        if (epochDay > rangeEnd) {
+            return workWeek.workingDaysBefore(epochDay) - ordinalsAfterRange;
+        }
+        int day = (int) (epochDay - rangeStart);
+        int word = day >>> 6;
+        long bitsBefore = workingDayBits[word] & ((1L << day) - 1);
+        return rankBeforeWord[word] + Long.bitCount(bitsBefore);
+    }
+
+    @Override
+    public long workingDayAt(long ordinal) {
+        long workingDaysInRange = rankBeforeWord[workingDayBits.length];
+        if (ordinal < 0) {
+            return workWeek.workingDayAt(ordinal + ordinalsBeforeRange);
+        }
+        if (ordinal >= workingDaysInRange) {
+            return workWeek.workingDayAt(ordinal + ordinalsAfterRange);
+        }
+
+        // Last word whose rank does not exceed the ordinal
+        int low = 0;
+        int high = workingDayBits.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (rankBeforeWord[middle] <= ordinal) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        long bits = workingDayBits[low];
+        for (long skip = ordinal - rankBeforeWord[low]; skip > 0; skip--) {
+            bits &= bits - 1;  // Clear the lowest working day
+        }
+        return rangeStart + ((long) low << 6) + Long.numberOfTrailingZeros(bits);
+    }
+}
@@ -0,0 +1,316 @@
+package com.exist.scheduler.scheduling;
+
+import com.exist.scheduler.model.Task;
+
+import java.util.*;
+
+// Compact, array-backed view of a task dependency graph. Tasks are numbered 0..size-1 and the dependencies of
+// task i are dependencies[dependencyOffsets[i]] .. dependencies[dependencyOffsets[i + 1] - 1], in list order.
+// Built once per scheduling pass, so the date computation itself only touches primitive arrays.
+public final class PlanGraph {
+
+    private final Task[] tasks;
+    private final Map<Task, Integer> index;
+    private final long[] taskIds;
+    private final int[] durations;
+    private final int[] dependencyOffsets;
+    private final int[] dependencies;
+
+    private PlanGraph(Task[] tasks, Map<Task, Integer> index, long[] taskIds, int[] durations,
+                      int[] dependencyOffsets, int[] dependencies) {
+        this.tasks = tasks;
+        this.index = index;
+        this.taskIds = taskIds;
+        this.durations = durations;
+        this.dependencyOffsets = dependencyOffsets;
+        this.dependencies = dependencies;
+    }
+
+    // The given tasks plus every task reachable through their dependencies
+    public static PlanGraph of(Collection<Task> roots) {
+        Map<Task, Integer> index = new IdentityHashMap<>(roots.size() * 2);
+        List<Task> nodes = new ArrayList<>(roots.size());
+        for (Task task : roots) {
+            if (index.putIfAbsent(task, nodes.size()) == null) {
+                nodes.add(task);
+            }
+        }
+
+        // Breadth-first over dependencies; nodes grows while it is walked
+        int edgeCount = 0;
+        for (int i = 0; i < nodes.size(); i++) {
+            List<Task> taskDependencies = dependenciesOf(nodes.get(i));
+            edgeCount += taskDependencies.size();
+            for (Task dependency : taskDependencies) {
+                if (index.putIfAbsent(dependency, nodes.size()) == null) {
+                    nodes.add(dependency);
+                }
+            }
+        }
+
+        int size = nodes.size();
+        Task[] tasks = nodes.toArray(new Task[0]);
+        int[] durations = new int[size];
+        int[] dependencyOffsets = new int[size + 1];
+        int[] dependencies = new int[edgeCount];
+
+        int edge = 0;
+        for (int i = 0; i < size; i++) {
+            durations[i] = tasks[i].getDuration();
+            dependencyOffsets[i] = edge;
+            for (Task dependency : dependenciesOf(tasks[i])) {
+                dependencies[edge++] = index.get(dependency);
+            }
+        }
+        dependencyOffsets[size] = edge;
+
+        return new PlanGraph(tasks, index, null, durations, dependencyOffsets, dependencies);
+    }
+
+    // A graph read straight from the database, with task IDs in place of entities, so a plan too large to load
+    // as entities can still be scheduled. The arrays use the CSR layout described above.
+    public static PlanGraph of(long[] taskIds, int[] durations, int[] dependencyOffsets, int[] dependencies) {
+        return new PlanGraph(null, Map.of(), taskIds, durations, dependencyOffsets, dependencies);
+    }
+
+    // The same graph with task IDs in place of the entities. It shares this graph's arrays and holds no reference
+    // to the entities, so it can be kept after the session that loaded them has closed.
+    public PlanGraph detached() {
+        if (tasks == null) {
+            return this;
+        }
+        long[] ids = new long[tasks.length];
+        for (int node = 0; node < tasks.length; node++) {
+            ids[node] = tasks[node].getId();
+        }
+        return new PlanGraph(null, Map.of(), ids, durations, dependencyOffsets, dependencies);
+    }
+
+    // A copy-on-write variant of this graph: the given nodes get a new duration or a new dependency list, and every
+    // other node keeps what it has here. Arrays that no change touches are shared rather than copied, and this
+    // graph stays as it is, so any number of variants can be made from it at the same time.
+    public PlanGraph withChanges(Map<Integer, Integer> changedDurations, Map<Integer, int[]> changedDependencies) {
+        int[] variantDurations = durations;
+        if (!changedDurations.isEmpty()) {
+            variantDurations = durations.clone();
+            for (Map.Entry<Integer, Integer> change : changedDurations.entrySet()) {
+                variantDurations[change.getKey()] = change.getValue();
+            }
+        }
+        if (changedDependencies.isEmpty()) {
+            return new PlanGraph(tasks, index, taskIds, variantDurations, dependencyOffsets, dependencies);
+        }
+
+        int[] changedNodes = changedDependencies.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        int edgeCount = dependencies.length;
+        for (int node : changedNodes) {
+            edgeCount += changedDependencies.get(node).length - (dependencyOffsets[node + 1] - dependencyOffsets[node]);
+        }
+
+        // The edges between two changed nodes move as one block, shifted by what the earlier changes added or removed
+        int size = size();
+        int[] variantOffsets = new int[size + 1];
+        int[] variantDependencies = new int[edgeCount];
+        int shift = 0;
+        int from = 0;
+        for (int changed : changedNodes) {
+            System.arraycopy(dependencies, dependencyOffsets[from], variantDependencies, dependencyOffsets[from] + shift,
+                    dependencyOffsets[changed] - dependencyOffsets[from]);
+            for (int node = from; node <= changed; node++) {
+                variantOffsets[node] = dependencyOffsets[node] + shift;
+            }
+            int[] replacement = changedDependencies.get(changed);
+            System.arraycopy(replacement, 0, variantDependencies, variantOffsets[changed], replacement.length);
+            shift += replacement.length - (dependencyOffsets[changed + 1] - dependencyOffsets[changed]);
+            from = changed + 1;
+        }
+        System.arraycopy(dependencies, dependencyOffsets[from], variantDependencies, dependencyOffsets[from] + shift,
+                dependencies.length - dependencyOffsets[from]);
+        for (int node = from; node <= size; node++) {
+            variantOffsets[node] = dependencyOffsets[node] + shift;
+        }
+
+        return new PlanGraph(tasks, index, taskIds, variantDurations, variantOffsets, variantDependencies);
+    }
+
+    public int size() {
+        return durations.length;
+    }
+
+    // The task entity of the node, or null when the graph was built from task IDs
+    public Task task(int node) {
+        return tasks != null ? tasks[node] : null;
+    }
+
+    public long taskId(int node) {
+        return tasks != null ? tasks[node].getId() : taskIds[node];
+    }
+
+    // Node number of the task, or -1 when it is not part of the graph
+    public int indexOf(Task task) {
+        Integer node = index.get(task);
+        return node != null ? node : -1;
+    }
+
+    public int duration(int node) {
+        return durations[node];
+    }
+
+    public int dependencyStart(int node) {
+        return dependencyOffsets[node];
+    }
+
+    public int dependencyEnd(int node) {
+        return dependencyOffsets[node + 1];
+    }
+
+    public int dependency(int edge) {
+        return dependencies[edge];
+    }
+
+    // Successors in the same CSR layout: offsets has size + 1 entries, followed by the successor lists
+    public int[][] successors() {
+        int size = size();
+        int[] offsets = new int[size + 1];
+        for (int dependency : dependencies) {
+            offsets[dependency + 1]++;
+        }
+        for (int i = 0; i < size; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+
+        int[] successors = new int[dependencies.length];
+        int[] next = Arrays.copyOf(offsets, size);
+        for (int node = 0; node < size; node++) {
+            for (int edge = dependencyOffsets[node]; edge < dependencyOffsets[node + 1]; edge++) {
+                successors[next[dependencies[edge]]++] = node;
+            }
+        }
+        return new int[][]{offsets, successors};
+    }
+
+    // Orders all nodes so that every node comes after its dependencies (Kahn's algorithm)
+    public int[] topologicalOrder() {
+        boolean[] included = new boolean[size()];
+        Arrays.fill(included, true);
+        return topologicalOrder(included, size());
+    }
+
+    // The topological order cut into wavefronts, returned as {order, offsets}: wavefront k is order[offsets[k]] up to
+    // order[offsets[k + 1] - 1], and its nodes only depend on nodes of earlier wavefronts. Kahn's algorithm with a
+    // FIFO queue releases a node while the deepest of its dependencies is dequeued, so the order it produces is
+    // already sorted by wavefront and is the same order topologicalOrder() returns.
+    public int[][] wavefronts() {
+        int size = size();
+        boolean[] included = new boolean[size];
+        Arrays.fill(included, true);
+        int[] depth = new int[size];
+        int[] order = topologicalOrder(included, size, depth);
+
+        int count = size > 0 ? depth[order[size - 1]] + 1 : 0;
+        int[] offsets = new int[count + 1];
+        for (int node = 0; node < size; node++) {
+            offsets[depth[node] + 1]++;
+        }
+        for (int wavefront = 0; wavefront < count; wavefront++) {
+            offsets[wavefront + 1] += offsets[wavefront];
+        }
+        return new int[][]{order, offsets};
+    }
+
+    // Orders the included nodes only; dependencies on excluded nodes are treated as already scheduled
+    public int[] topologicalOrder(boolean[] included, int includedCount) {
+        return topologicalOrder(included, includedCount, null);
+    }
+
+    // Also records the wavefront of every node in depth, when it is given
+    private int[] topologicalOrder(boolean[] included, int includedCount, int[] depth) {
+        int size = size();
+        int[][] successorLists = successors();
+        int[] successorOffsets = successorLists[0];
+        int[] successors = successorLists[1];
+
+        int[] inDegree = new int[size];
+        for (int node = 0; node < size; node++) {
+            if (included[node]) {
+                for (int edge = dependencyOffsets[node]; edge < dependencyOffsets[node + 1]; edge++) {
+                    if (included[dependencies[edge]]) {
+                        inDegree[node]++;
+                    }
+                }
+            }
+        }
+
+        // The order array doubles as the FIFO queue of ready nodes
+        int[] order = new int[includedCount];
+        int tail = 0;
+        for (int node = 0; node < size; node++) {
+            if (included[node] && inDegree[node] == 0) {
+                order[tail++] = node;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int current = order[head];
+            for (int edge = successorOffsets[current]; edge < successorOffsets[current + 1]; edge++) {
+                int successor = successors[edge];
+                if (included[successor] && --inDegree[successor] == 0) {
+                    order[tail++] = successor;
+                    if (depth != null) {
+                        depth[successor] = depth[current] + 1;
+                    }
+                }
+            }
+        }
+
+        if (tail < includedCount) {
+            throw new IllegalStateException("Circular dependency detected: " + describeCycle(included, inDegree));
+        }
+        return order;
+    }
+
+    // Every node left with a positive in-degree after Kahn's algorithm waits on another leftover node,
+    // so following leftover dependencies from any of them must run into a cycle
+    private String describeCycle(boolean[] included, int[] inDegree) {
+        int current = 0;
+        while (!included[current] || inDegree[current] == 0) {
+            current++;
+        }
+
+        int[] positionInPath = new int[size()];
+        Arrays.fill(positionInPath, -1);
+        List<Integer> path = new ArrayList<>();
+        while (positionInPath[current] < 0) {
+            positionInPath[current] = path.size();
+            path.add(current);
+
+            for (int edge = dependencyOffsets[current]; edge < dependencyOffsets[current + 1]; edge++) {
+                int dependency = dependencies[edge];
+                if (included[dependency] && inDegree[dependency] > 0) {
+                    current = dependency;
+                    break;
+                }
+            }
+        }
+
+        StringJoiner cycle = new StringJoiner(" -> ");
+        for (int node : path.subList(positionInPath[current], path.size())) {
+            cycle.add(describe(node));
+        }
+        cycle.add(describe(current));
+        return cycle.toString();
+    }
+
+    String describe(int node) {
+        return tasks != null ? describe(tasks[node]) : String.format("Task (%s)", taskIds[node]);
+    }
+
+    private static List<Task> dependenciesOf(Task task) {
+        return task.getDependencies() != null ? task.getDependencies() : List.of();
+    }
+
+    private static String describe(Task task) {
+        return task.getId() != null
+                ? String.format("%s (%s)", task.getName(), task.getId())
+                : String.valueOf(task.getName());
+    }
+}
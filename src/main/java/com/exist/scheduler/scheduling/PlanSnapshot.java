@@ -0,0 +1,87 @@
+package com.exist.scheduler.scheduling;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+// An immutable copy of one plan as it was at a given version: its detached graph, task names, duration estimates,
+// start date, calendar, resource demand when it is leveled, and the dates the plan gets as it is. Nothing in it is
+// ever written after construction, so scenarios can be evaluated against one snapshot from many threads without
+// locking; each builds its own variant of the graph with PlanGraph.withChanges, which shares the arrays the
+// scenario leaves alone.
+public final class PlanSnapshot {
+
+    private final long version;
+    private final PlanGraph graph;
+    private final String[] names;
+    private final int[] optimistic;
+    private final int[] pessimistic;
+    private final Map<Long, Integer> nodes;
+    private final ResourceDemand demand;
+    private final LocalDate projectStartDate;
+    private final WorkingCalendar calendar;
+    private final Schedule baseline;
+
+    public PlanSnapshot(long version, PlanGraph graph, String[] names, int[] optimistic, int[] pessimistic,
+                        ResourceDemand demand, LocalDate projectStartDate, WorkingCalendar calendar, Schedule baseline) {
+        this.version = version;
+        this.graph = graph;
+        this.names = names;
+        this.optimistic = optimistic;
+        this.pessimistic = pessimistic;
+        this.demand = demand;
+        this.projectStartDate = projectStartDate;
+        this.calendar = calendar;
+        this.baseline = baseline;
+
+        Map<Long, Integer> nodes = new HashMap<>(graph.size() * 2);
+        for (int node = 0; node < graph.size(); node++) {
+            nodes.put(graph.taskId(node), node);
+        }
+        this.nodes = nodes;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public PlanGraph getGraph() {
+        return graph;
+    }
+
+    public String getName(int node) {
+        return names[node];
+    }
+
+    // Optimistic and pessimistic durations by node; tasks without an estimate have their duration in both
+    public int[] getOptimistic() {
+        return optimistic.clone();
+    }
+
+    public int[] getPessimistic() {
+        return pessimistic.clone();
+    }
+
+    // Node number of the task, or -1 when the task is not part of the plan
+    public int nodeOf(Long taskId) {
+        Integer node = nodes.get(taskId);
+        return node != null ? node : -1;
+    }
+
+    // Null unless the plan is resource-leveled
+    public ResourceDemand getDemand() {
+        return demand;
+    }
+
+    public LocalDate getProjectStartDate() {
+        return projectStartDate;
+    }
+
+    public WorkingCalendar getCalendar() {
+        return calendar;
+    }
+
+    public Schedule getBaseline() {
+        return baseline;
+    }
+}
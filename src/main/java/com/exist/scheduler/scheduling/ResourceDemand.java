@@ -0,0 +1,121 @@
+package com.exist.scheduler.scheduling;
+
+import com.exist.scheduler.model.ResourceAssignment;
+import com.exist.scheduler.model.Task;
+
+import java.util.*;
+
+// The resources every node of a plan graph occupies on each of its working days, in the CSR layout of PlanGraph:
+// node i books units[j] of resource resources[j] for j in offsets[i] .. offsets[i + 1] - 1. Resources are numbered
+// 0..n-1 and have a daily capacity each.
+public final class ResourceDemand {
+
+    private final long[] resourceIds;
+    private final int[] capacities;
+    private final int[] offsets;
+    private final int[] resources;
+    private final int[] units;
+
+    public ResourceDemand(long[] resourceIds, int[] capacities, int[] offsets, int[] resources, int[] units) {
+        this.resourceIds = resourceIds;
+        this.capacities = capacities;
+        this.offsets = offsets;
+        this.resources = resources;
+        this.units = units;
+    }
+
+    // Reads the assignments of the graph's tasks. Capacities are looked up by resource ID, and assignments of
+    // one task to the same resource are added up.
+    public static ResourceDemand of(PlanGraph graph, Map<Long, Integer> capacityByResourceId) {
+        Map<Long, Integer> numbers = new HashMap<>();
+        List<Long> resourceIds = new ArrayList<>();
+        int[] offsets = new int[graph.size() + 1];
+        int[] resources = new int[16];
+        int[] units = new int[16];
+
+        int count = 0;
+        for (int node = 0; node < graph.size(); node++) {
+            offsets[node] = count;
+            List<ResourceAssignment> assignments = graph.task(node).getAssignments();
+            if (assignments == null) {
+                continue;
+            }
+            for (ResourceAssignment assignment : assignments) {
+                Long resourceId = assignment.getResource().getId();
+                if (!capacityByResourceId.containsKey(resourceId)) {
+                    throw new NoSuchElementException(String.format("Resource with ID: %s not found", resourceId));
+                }
+                int resource = numbers.computeIfAbsent(resourceId, id -> {
+                    resourceIds.add(id);
+                    return resourceIds.size() - 1;
+                });
+
+                int existing = offsets[node];
+                while (existing < count && resources[existing] != resource) {
+                    existing++;
+                }
+                if (existing < count) {
+                    units[existing] += assignment.getUnits();
+                    continue;
+                }
+                if (count == resources.length) {
+                    resources = Arrays.copyOf(resources, count * 2);
+                    units = Arrays.copyOf(units, count * 2);
+                }
+                resources[count] = resource;
+                units[count++] = assignment.getUnits();
+            }
+        }
+        offsets[graph.size()] = count;
+
+        long[] ids = new long[resourceIds.size()];
+        int[] capacities = new int[ids.length];
+        for (int resource = 0; resource < ids.length; resource++) {
+            ids[resource] = resourceIds.get(resource);
+            capacities[resource] = capacityByResourceId.get(resourceIds.get(resource));
+        }
+        return new ResourceDemand(ids, capacities, offsets, Arrays.copyOf(resources, count), Arrays.copyOf(units, count));
+    }
+
+    // IDs of every resource the graph's tasks are assigned to
+    public static Set<Long> resourceIdsOf(PlanGraph graph) {
+        Set<Long> resourceIds = new HashSet<>();
+        for (int node = 0; node < graph.size(); node++) {
+            List<ResourceAssignment> assignments = graph.task(node).getAssignments();
+            if (assignments != null) {
+                for (ResourceAssignment assignment : assignments) {
+                    resourceIds.add(assignment.getResource().getId());
+                }
+            }
+        }
+        return resourceIds;
+    }
+
+    public int resourceCount() {
+        return capacities.length;
+    }
+
+    public long resourceId(int resource) {
+        return resourceIds[resource];
+    }
+
+    public int capacity(int resource) {
+        return capacities[resource];
+    }
+
+    public int assignmentStart(int node) {
+        return offsets[node];
+    }
+
+    public int assignmentEnd(int node) {
+        return offsets[node + 1];
+    }
+
+    public int resource(int assignment) {
+        return resources[assignment];
+    }
+
+    public int units(int assignment) {
+        return units[assignment];
+    }
+}
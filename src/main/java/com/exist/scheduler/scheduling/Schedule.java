@@ -0,0 +1,79 @@
+package com.exist.scheduler.scheduling;
+
+import com.exist.scheduler.model.Task;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+// Result of a scheduling pass: the topological order that was used and the computed dates per task,
+// kept as epoch days indexed by the node numbers of the plan graph
+public class Schedule {
+
+    private final PlanGraph graph;
+    private final int[] order;
+    private final long[] startDays;
+    private final long[] endDays;
+
+    public Schedule(PlanGraph graph, int[] order, long[] startDays, long[] endDays) {
+        this.graph = graph;
+        this.order = order;
+        this.startDays = startDays;
+        this.endDays = endDays;
+    }
+
+    public List<Task> getOrder() {
+        List<Task> tasks = new ArrayList<>(order.length);
+        for (int node : order) {
+            tasks.add(graph.task(node));
+        }
+        return Collections.unmodifiableList(tasks);
+    }
+
+    public LocalDate getStartDate(Task task) {
+        int node = graph.indexOf(task);
+        return node >= 0 ? LocalDate.ofEpochDay(startDays[node]) : null;
+    }
+
+    public LocalDate getEndDate(Task task) {
+        int node = graph.indexOf(task);
+        return node >= 0 ? LocalDate.ofEpochDay(endDays[node]) : null;
+    }
+
+    // Dates by node number, for graphs that have no task entities behind them
+    public long getStartDay(int node) {
+        return startDays[node];
+    }
+
+    public long getEndDay(int node) {
+        return endDays[node];
+    }
+
+    // Writes the computed dates to the given tasks and returns how many of them actually changed
+    public int applyTo(Collection<Task> tasks) {
+        int changed = 0;
+        for (Task task : tasks) {
+            int node = graph.indexOf(task);
+            if (node >= 0 && applyDates(task, startDays[node], endDays[node])) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    // Only touches the entity when a date differs, so unchanged tasks are neither allocated nor written back
+    public static boolean applyDates(Task task, long startDay, long endDay) {
+        if (isDay(task.getTaskStartDate(), startDay) && isDay(task.getTaskEndDate(), endDay)) {
+            return false;
+        }
+        task.setTaskStartDate(LocalDate.ofEpochDay(startDay));
+        task.setTaskEndDate(LocalDate.ofEpochDay(endDay));
+        return true;
+    }
+
+    private static boolean isDay(LocalDate date, long epochDay) {
+        return date != null && date.toEpochDay() == epochDay;
+    }
+}
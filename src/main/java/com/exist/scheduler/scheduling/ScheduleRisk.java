@@ -0,0 +1,57 @@
+package com.exist.scheduler.scheduling;
+
+import java.time.LocalDate;
+
+// Result of a Monte Carlo run over a plan graph. Project finishes are working-day ordinals of the plan's calendar,
+// one per iteration and sorted, like the earliest finishes of CriticalPathAnalysis; the project occupies the working
+// days [start, finish).
+public class ScheduleRisk {
+
+    private final WorkingCalendar calendar;
+    private final long startOrdinal;
+    private final long plannedFinish;
+    private final long[] finishes;
+    private final int[] criticalCounts;
+
+    public ScheduleRisk(WorkingCalendar calendar, long startOrdinal, long plannedFinish, long[] finishes, int[] criticalCounts) {
+        this.calendar = calendar;
+        this.startOrdinal = startOrdinal;
+        this.plannedFinish = plannedFinish;
+        this.finishes = finishes;
+        this.criticalCounts = criticalCounts;
+    }
+
+    public int getIterations() {
+        return finishes.length;
+    }
+
+    // Project end with every task taking its most likely duration
+    public LocalDate getPlannedEndDate() {
+        return finishDate(plannedFinish);
+    }
+
+    // The end date that the given share of the iterations met, by nearest rank
+    public LocalDate getEndDate(double percentile) {
+        int rank = (int) Math.ceil(percentile * finishes.length);
+        return finishDate(finishes[Math.max(0, Math.min(finishes.length - 1, rank - 1))]);
+    }
+
+    // Share of the iterations that ended no later than the plan with most likely durations
+    public double getPlannedEndProbability() {
+        int met = 0;
+        while (met < finishes.length && finishes[met] <= plannedFinish) {
+            met++;
+        }
+        return (double) met / finishes.length;
+    }
+
+    // Share of the iterations in which the node had no float
+    public double getCriticalityIndex(int node) {
+        return (double) criticalCounts[node] / finishes.length;
+    }
+
+    // Last working day of the project; a project without any duration ends on the day it starts
+    private LocalDate finishDate(long finish) {
+        return LocalDate.ofEpochDay(calendar.workingDayAt(finish > startOrdinal ? finish - 1 : startOrdinal));
+    }
+}
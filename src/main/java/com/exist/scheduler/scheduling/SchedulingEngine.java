@@ -0,0 +1,524 @@
+package com.exist.scheduler.scheduling;
+
+import com.exist.scheduler.model.RecalculationResult;
+import com.exist.scheduler.model.Task;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.IntStream;
+
+@Component
+public class SchedulingEngine {
+
+    // Plans with fewer tasks are scheduled on the calling thread alone; handing work to other threads costs more
+    // than it saves below this size
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 50_000;
+
+    // Wavefronts with fewer nodes are not split across threads
+    private static final int WAVEFRONT_GRAIN = 2048;
+
+    // Monte Carlo iterations per chunk; each chunk has its own random numbers and working arrays
+    private static final int SIMULATION_CHUNK = 256;
+
+    private final WorkingDayCalendar workingDayCalendar;
+
+    private final int parallelThreshold;
+
+    public SchedulingEngine(WorkingDayCalendar workingDayCalendar) {
+        this(workingDayCalendar, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    @Autowired
+    public SchedulingEngine(WorkingDayCalendar workingDayCalendar,
+                            @Value("${scheduler.parallel-scheduling.threshold:" + DEFAULT_PARALLEL_THRESHOLD + "}") int parallelThreshold) {
+        this.workingDayCalendar = workingDayCalendar;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    // Schedules the given tasks in a single forward pass over their dependency graph.
+    // Dependencies that are not part of the collection are pulled into the graph so their end dates are honoured.
+    public Schedule schedule(Collection<Task> tasks, LocalDate projectStartDate) {
+        return schedule(tasks, projectStartDate, workingDayCalendar);
+    }
+
+    public Schedule schedule(Collection<Task> tasks, LocalDate projectStartDate, WorkingCalendar calendar) {
+        return schedule(PlanGraph.of(tasks), projectStartDate, calendar);
+    }
+
+    public Schedule schedule(PlanGraph graph, LocalDate projectStartDate, WorkingCalendar calendar) {
+        if (graph.size() >= parallelThreshold) {
+            return scheduleWavefronts(graph, projectStartDate, calendar);
+        }
+
+        long startDay = (projectStartDate != null ? projectStartDate : LocalDate.now()).toEpochDay();
+
+        int[] order = graph.topologicalOrder();
+
+        long[] startDays = new long[graph.size()];
+        long[] endDays = new long[graph.size()];
+
+        // Every dependency precedes the task in topological order, so its end date is already known
+        for (int node : order) {
+            scheduleNode(graph, node, startDay, calendar, startDays, endDays);
+        }
+
+        return new Schedule(graph, order, startDays, endDays);
+    }
+
+    // The same dates and order as the sequential pass, for very large plans. The wavefronts of the graph are
+    // scheduled one after the other; the nodes of one wavefront only wait on earlier wavefronts, so they are spread
+    // over the fork-join pool, whose workers steal from each other as they run out. Narrow wavefronts, e.g. all
+    // of a chain, stay on the calling thread.
+    private Schedule scheduleWavefronts(PlanGraph graph, LocalDate projectStartDate, WorkingCalendar calendar) {
+        long startDay = (projectStartDate != null ? projectStartDate : LocalDate.now()).toEpochDay();
+
+        int[][] wavefronts = graph.wavefronts();
+        int[] order = wavefronts[0];
+        int[] offsets = wavefronts[1];
+
+        long[] startDays = new long[graph.size()];
+        long[] endDays = new long[graph.size()];
+
+        for (int wavefront = 0; wavefront + 1 < offsets.length; wavefront++) {
+            int first = offsets[wavefront];
+            int end = offsets[wavefront + 1];
+            if (end - first < WAVEFRONT_GRAIN) {
+                for (int i = first; i < end; i++) {
+                    scheduleNode(graph, order[i], startDay, calendar, startDays, endDays);
+                }
+            } else {
+                IntStream.range(first, end).parallel()
+                        .forEach(i -> scheduleNode(graph, order[i], startDay, calendar, startDays, endDays));
+            }
+        }
+
+        return new Schedule(graph, order, startDays, endDays);
+    }
+
+    // Dates of one node whose dependencies all have theirs
+    private static void scheduleNode(PlanGraph graph, int node, long startDay, WorkingCalendar calendar,
+                                     long[] startDays, long[] endDays) {
+        long taskStart = startAfterDependencies(graph, node, startDay, endDays);
+
+        startDays[node] = taskStart;
+        endDays[node] = calendar.addWorkingDays(taskStart, graph.duration(node));
+    }
+
+    // A task starts on the plan's start day or the day after its latest dependency ends, whichever is later. Every
+    // pass that dates tasks goes through here, so none of them lets a task share a day with a dependency.
+    private static long startAfterDependencies(PlanGraph graph, int node, long startDay, long[] endDays) {
+        long taskStart = startDay;
+        for (int edge = graph.dependencyStart(node); edge < graph.dependencyEnd(node); edge++) {
+            taskStart = Math.max(taskStart, endDays[graph.dependency(edge)] + 1);
+        }
+        return taskStart;
+    }
+
+    // Resource leveling with a serial list scheduler. Tasks are taken from a priority queue once all their
+    // dependencies are placed, longest remaining path to the end of the plan first. Each one starts on the first
+    // working day from its dependency-driven start on which every resource it needs has enough capacity left for
+    // its whole duration. Usage per resource and working day is kept in a segment tree, so finding that day costs
+    // O(log n) per conflicting booking it skips, rather than a day-by-day scan. When no resource ever runs out,
+    // the dates are the ones schedule gives.
+    public Schedule level(PlanGraph graph, ResourceDemand demand, LocalDate projectStartDate, WorkingCalendar calendar) {
+        long startDay = (projectStartDate != null ? projectStartDate : LocalDate.now()).toEpochDay();
+        long startOrdinal = calendar.workingDaysBefore(startDay);
+        int size = graph.size();
+
+        int[][] successorLists = graph.successors();
+        int[] successorOffsets = successorLists[0];
+        int[] successors = successorLists[1];
+
+        // Working days from the start of each task to the end of the plan along its longest chain of successors
+        int[] topologicalOrder = graph.topologicalOrder();
+        long[] remaining = new long[size];
+        for (int i = size - 1; i >= 0; i--) {
+            int node = topologicalOrder[i];
+            long longestSuccessor = 0;
+            for (int edge = successorOffsets[node]; edge < successorOffsets[node + 1]; edge++) {
+                longestSuccessor = Math.max(longestSuccessor, remaining[successors[edge]]);
+            }
+            remaining[node] = Math.max(0, graph.duration(node)) + longestSuccessor;
+        }
+
+        int[] waiting = new int[size];
+        PriorityQueue<Integer> ready = new PriorityQueue<>(size > 0 ? size : 1,
+                Comparator.comparingLong((Integer node) -> -remaining[node]).thenComparingInt(node -> node));
+        for (int node = 0; node < size; node++) {
+            waiting[node] = graph.dependencyEnd(node) - graph.dependencyStart(node);
+            if (waiting[node] == 0) {
+                ready.add(node);
+            }
+        }
+
+        CapacityTree[] usage = new CapacityTree[demand.resourceCount()];
+        int[] order = new int[size];
+        long[] startDays = new long[size];
+        long[] endDays = new long[size];
+        for (int placed = 0; placed < size; placed++) {
+            int node = ready.poll();
+            order[placed] = node;
+
+            // The start schedule would give the task
+            long taskStart = startAfterDependencies(graph, node, startDay, endDays);
+
+            int duration = graph.duration(node);
+            if (duration > 0) {
+                int earliest = (int) (calendar.workingDaysBefore(taskStart) - startOrdinal);
+                int first = firstFit(graph, demand, usage, node, earliest, duration);
+                for (int assignment = demand.assignmentStart(node); assignment < demand.assignmentEnd(node); assignment++) {
+                    usage[demand.resource(assignment)].add(first, first + duration - 1, demand.units(assignment));
+                }
+                if (first > earliest) {
+                    taskStart = calendar.workingDayAt(startOrdinal + first);
+                }
+                endDays[node] = calendar.workingDayAt(startOrdinal + first + duration - 1);
+            } else {
+                endDays[node] = taskStart;
+            }
+            startDays[node] = taskStart;
+
+            for (int edge = successorOffsets[node]; edge < successorOffsets[node + 1]; edge++) {
+                if (--waiting[successors[edge]] == 0) {
+                    ready.add(successors[edge]);
+                }
+            }
+        }
+
+        return new Schedule(graph, order, startDays, endDays);
+    }
+
+    // First working day, counted from the plan start, on or after earliest on which every resource of the node has
+    // room for its units on all of the next duration days. Each conflict moves the candidate to the first day with
+    // room after the last overbooked day it found, skipping fully booked stretches in one step, and the candidate
+    // is checked against every resource again until none objects.
+    private static int firstFit(PlanGraph graph, ResourceDemand demand, CapacityTree[] usage, int node, int earliest, int duration) {
+        int first = earliest;
+        boolean moved = true;
+        while (moved) {
+            moved = false;
+            for (int assignment = demand.assignmentStart(node); assignment < demand.assignmentEnd(node); assignment++) {
+                int resource = demand.resource(assignment);
+                int limit = demand.capacity(resource) - demand.units(assignment);
+                if (limit < 0) {
+                    throw new IllegalStateException(String.format("%s needs %s units of resource %s, which has a capacity of %s",
+                            graph.describe(node), demand.units(assignment), demand.resourceId(resource), demand.capacity(resource)));
+                }
+                if (usage[resource] == null) {
+                    usage[resource] = new CapacityTree(earliest + duration);
+                }
+                int overbooked = usage[resource].lastAbove(first, first + duration - 1, limit);
+                if (overbooked >= 0) {
+                    first = usage[resource].firstAtMost(overbooked + 1, limit);
+                    moved = true;
+                }
+            }
+        }
+        return first;
+    }
+
+    // Re-dates the changed tasks and everything downstream of them in place, leaving the rest of the plan untouched.
+    // Tasks outside that cone keep their stored dates, which is what the cone reads for their end dates.
+    public RecalculationResult reschedule(Collection<Task> tasks, Collection<Task> changedTasks,
+                                          LocalDate projectStartDate, WorkingCalendar calendar) {
+        long startDay = (projectStartDate != null ? projectStartDate : LocalDate.now()).toEpochDay();
+
+        List<Task> roots = new ArrayList<>(tasks.size() + changedTasks.size());
+        roots.addAll(tasks);
+        roots.addAll(changedTasks);
+        PlanGraph graph = PlanGraph.of(roots);
+        int[][] successorLists = graph.successors();
+        int[] successorOffsets = successorLists[0];
+        int[] successors = successorLists[1];
+
+        // Collect the transitive successors of the changed tasks
+        boolean[] inCone = new boolean[graph.size()];
+        int[] pending = new int[graph.size()];
+        int coneSize = 0;
+        for (Task changedTask : changedTasks) {
+            int node = graph.indexOf(changedTask);
+            if (!inCone[node]) {
+                inCone[node] = true;
+                pending[coneSize++] = node;
+            }
+        }
+        for (int head = 0; head < coneSize; head++) {
+            int current = pending[head];
+            for (int edge = successorOffsets[current]; edge < successorOffsets[current + 1]; edge++) {
+                int successor = successors[edge];
+                if (!inCone[successor]) {
+                    inCone[successor] = true;
+                    pending[coneSize++] = successor;
+                }
+            }
+        }
+
+        // Tasks outside the cone contribute their stored end dates
+        long[] endDays = new long[graph.size()];
+        for (int node = 0; node < graph.size(); node++) {
+            if (!inCone[node]) {
+                LocalDate taskEnd = graph.task(node).getTaskEndDate();
+                endDays[node] = taskEnd != null ? taskEnd.toEpochDay() : Long.MIN_VALUE;
+            }
+        }
+
+        int changed = 0;
+        for (int node : graph.topologicalOrder(inCone, coneSize)) {
+            // Dependencies inside the cone have already been re-dated, those outside it keep their stored dates
+            long taskStart = startAfterDependencies(graph, node, startDay, endDays);
+
+            endDays[node] = calendar.addWorkingDays(taskStart, graph.duration(node));
+            if (Schedule.applyDates(graph.task(node), taskStart, endDays[node])) {
+                changed++;
+            }
+        }
+
+        return new RecalculationResult(coneSize, changed);
+    }
+
+    // Monte Carlo schedule risk analysis. Every iteration draws each task's duration between its optimistic and
+    // pessimistic estimate, the graph's duration being the most likely one, and runs the forward pass of analyze in
+    // working-day ordinals. It then walks back from the tasks that finish last along the dependencies that finish
+    // right when their successor starts, which are the tasks without float in that iteration.
+    // Iterations run in fixed chunks on the fork-join pool. Each chunk has its own SplittableRandom, split off a root
+    // seeded with the given seed before any chunk starts, so the result depends on the seed and not on the threads.
+    // The graph and its topological order are shared, and a chunk reuses its primitive arrays for every iteration.
+    public ScheduleRisk simulate(PlanGraph graph, int[] optimistic, int[] pessimistic, DurationDistribution distribution,
+                                 LocalDate projectStartDate, WorkingCalendar calendar, int iterations, long seed) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations must be at least 1");
+        }
+        long startDay = (projectStartDate != null ? projectStartDate : LocalDate.now()).toEpochDay();
+        long startOrdinal = calendar.workingDaysBefore(startDay);
+        int size = graph.size();
+        int[] order = graph.topologicalOrder();
+
+        // Estimates are widened to include the most likely duration, which may have been changed on its own.
+        // Only tasks with some spread between them are drawn; the others always take their most likely duration.
+        int[] mode = new int[size];
+        int[] uncertain = new int[size];
+        int uncertainCount = 0;
+        double[] parameters = new double[size * DurationDistribution.PARAMETERS];
+        for (int node = 0; node < size; node++) {
+            mode[node] = Math.max(0, graph.duration(node));
+            int low = Math.max(0, Math.min(optimistic[node], mode[node]));
+            int high = Math.max(pessimistic[node], mode[node]);
+            if (low < high) {
+                distribution.prepare(low, mode[node], high, parameters, uncertainCount * DurationDistribution.PARAMETERS);
+                uncertain[uncertainCount++] = node;
+            }
+        }
+        int[] uncertainNodes = Arrays.copyOf(uncertain, uncertainCount);
+
+        // The working day of lag after tasks without duration is the one schedule and analyze give them
+        long[] lag = new long[size];
+        earliestDates(graph, order, startDay, calendar, new long[size], new long[size], lag);
+        long plannedFinish = forwardPass(graph, order, mode, lag, startOrdinal, new long[size], new long[size]);
+
+        int chunks = (iterations + SIMULATION_CHUNK - 1) / SIMULATION_CHUNK;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[chunks];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            randoms[chunk] = root.split();
+        }
+
+        long[] finishes = new long[iterations];
+        int[][] chunkCriticalCounts = new int[chunks][];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> chunkCriticalCounts[chunk] = simulateChunk(graph, order,
+                mode, lag, uncertainNodes, parameters, distribution, startOrdinal, randoms[chunk],
+                chunk * SIMULATION_CHUNK, Math.min(iterations, (chunk + 1) * SIMULATION_CHUNK), finishes));
+
+        int[] criticalCounts = new int[size];
+        for (int[] counts : chunkCriticalCounts) {
+            for (int node = 0; node < size; node++) {
+                criticalCounts[node] += counts[node];
+            }
+        }
+        Arrays.sort(finishes);
+        return new ScheduleRisk(calendar, startOrdinal, plannedFinish, finishes, criticalCounts);
+    }
+
+    // Iterations first .. end - 1 of a simulation; returns how often each node was critical
+    private static int[] simulateChunk(PlanGraph graph, int[] order, int[] mode, long[] lag, int[] uncertainNodes,
+                                       double[] parameters, DurationDistribution distribution, long startOrdinal,
+                                       SplittableRandom random, int first, int end, long[] finishes) {
+        int size = graph.size();
+        int[] durations = mode.clone();
+        long[] earliestStart = new long[size];
+        long[] earliestFinish = new long[size];
+        int[] criticalCounts = new int[size];
+        int[] marked = new int[size];
+        int[] pending = new int[size];
+
+        for (int iteration = first; iteration < end; iteration++) {
+            for (int i = 0; i < uncertainNodes.length; i++) {
+                durations[uncertainNodes[i]] = distribution.sample(random, parameters, i * DurationDistribution.PARAMETERS);
+            }
+            long projectFinish = forwardPass(graph, order, durations, lag, startOrdinal, earliestStart, earliestFinish);
+            finishes[iteration] = projectFinish;
+
+            // Each iteration marks with its own stamp, so the marks never need clearing
+            int stamp = iteration + 1;
+            int pendingCount = 0;
+            for (int node = 0; node < size; node++) {
+                if (earliestFinish[node] == projectFinish) {
+                    marked[node] = stamp;
+                    pending[pendingCount++] = node;
+                }
+            }
+            while (pendingCount > 0) {
+                int node = pending[--pendingCount];
+                criticalCounts[node]++;
+                for (int edge = graph.dependencyStart(node); edge < graph.dependencyEnd(node); edge++) {
+                    int dependency = graph.dependency(edge);
+                    if (marked[dependency] != stamp
+                            && release(dependency, durations, lag, earliestFinish) == earliestStart[node]) {
+                        marked[dependency] = stamp;
+                        pending[pendingCount++] = dependency;
+                    }
+                }
+            }
+        }
+        return criticalCounts;
+    }
+
+    // Earliest start and finish of every node for the given durations; returns the finish of the project
+    private static long forwardPass(PlanGraph graph, int[] order, int[] durations, long[] lag, long startOrdinal,
+                                    long[] earliestStart, long[] earliestFinish) {
+        long projectFinish = startOrdinal;
+        for (int node : order) {
+            long start = startOrdinal;
+            for (int edge = graph.dependencyStart(node); edge < graph.dependencyEnd(node); edge++) {
+                start = Math.max(start, release(graph.dependency(edge), durations, lag, earliestFinish));
+            }
+            earliestStart[node] = start;
+            earliestFinish[node] = start + durations[node];
+            projectFinish = Math.max(projectFinish, earliestFinish[node]);
+        }
+        return projectFinish;
+    }
+
+    // First working day a successor of the node can start on. Lag only applies while the node has no duration; an
+    // iteration that draws one for it dates its successors from its finish.
+    private static long release(int node, int[] durations, long[] lag, long[] earliestFinish) {
+        return earliestFinish[node] + (durations[node] == 0 ? lag[node] : 0);
+    }
+
+    // Critical path method in working-day ordinals: a forward pass for the earliest dates, a backward pass for the
+    // latest dates, both linear in tasks plus dependencies. The forward pass dates tasks with the same rule as
+    // schedule, so the earliest dates and the project end are the ones schedule produces. A task without duration
+    // ends on the day it starts and its successors start the day after, which is the one working day of lag its
+    // outgoing dependencies carry.
+    public CriticalPathAnalysis analyze(Collection<Task> tasks, LocalDate projectStartDate, WorkingCalendar calendar) {
+        long startDay = (projectStartDate != null ? projectStartDate : LocalDate.now()).toEpochDay();
+        long startOrdinal = calendar.workingDaysBefore(startDay);
+
+        PlanGraph graph = PlanGraph.of(tasks);
+        int size = graph.size();
+        int[] order = graph.topologicalOrder();
+
+        long[] earliestStart = new long[size];
+        long[] earliestFinish = new long[size];
+        long[] lag = new long[size];
+        long projectEndDay = earliestDates(graph, order, startDay, calendar, earliestStart, earliestFinish, lag);
+        long projectFinish = startOrdinal;
+        for (int node = 0; node < size; node++) {
+            projectFinish = Math.max(projectFinish, earliestFinish[node]);
+        }
+
+        // Backward pass: a task has to finish before the latest start of every task that waits on it
+        long[] latestStart = new long[size];
+        long[] latestFinish = new long[size];
+        long[] successorStart = new long[size];
+        Arrays.fill(latestFinish, projectFinish);
+        Arrays.fill(successorStart, Long.MAX_VALUE);
+        for (int i = order.length - 1; i >= 0; i--) {
+            int node = order[i];
+            latestStart[node] = latestFinish[node] - (earliestFinish[node] - earliestStart[node]);
+            for (int edge = graph.dependencyStart(node); edge < graph.dependencyEnd(node); edge++) {
+                int dependency = graph.dependency(edge);
+                latestFinish[dependency] = Math.min(latestFinish[dependency], latestStart[node] - lag[dependency]);
+                successorStart[dependency] = Math.min(successorStart[dependency], earliestStart[node]);
+            }
+        }
+
+        long[] freeFloat = new long[size];
+        for (int node = 0; node < size; node++) {
+            freeFloat[node] = successorStart[node] == Long.MAX_VALUE
+                    ? projectFinish - earliestFinish[node]
+                    : successorStart[node] - earliestFinish[node] - lag[node];
+        }
+
+        return new CriticalPathAnalysis(graph, calendar, order, earliestStart, earliestFinish, latestStart, latestFinish,
+                freeFloat, criticalPath(graph, order, earliestStart, earliestFinish, latestStart, lag, projectFinish),
+                LocalDate.ofEpochDay(projectEndDay));
+    }
+
+    // Earliest start and finish of every node in working-day ordinals, dated with the rule schedule uses, and the
+    // working days of lag each node adds before its successors can start. Returns the day the last node ends on.
+    private static long earliestDates(PlanGraph graph, int[] order, long startDay, WorkingCalendar calendar,
+                                      long[] earliestStart, long[] earliestFinish, long[] lag) {
+        long[] endDays = new long[graph.size()];
+        long projectEndDay = startDay;
+        for (int node : order) {
+            long taskStart = startAfterDependencies(graph, node, startDay, endDays);
+            endDays[node] = calendar.addWorkingDays(taskStart, graph.duration(node));
+            earliestStart[node] = calendar.workingDaysBefore(taskStart);
+            earliestFinish[node] = earliestStart[node] + Math.max(0, graph.duration(node));
+            lag[node] = calendar.workingDaysBefore(endDays[node] + 1) - earliestFinish[node];
+            projectEndDay = Math.max(projectEndDay, endDays[node]);
+        }
+        return projectEndDay;
+    }
+
+    // Walks back from the critical task that finishes last through the critical dependency that drives each start
+    private int[] criticalPath(PlanGraph graph, int[] order, long[] earliestStart, long[] earliestFinish,
+                               long[] latestStart, long[] lag, long projectFinish) {
+        int current = -1;
+        for (int i = order.length - 1; i >= 0 && current < 0; i--) {
+            int node = order[i];
+            if (earliestFinish[node] == projectFinish && latestStart[node] == earliestStart[node]) {
+                current = node;
+            }
+        }
+
+        List<Integer> path = new ArrayList<>();
+        while (current >= 0) {
+            path.add(current);
+            int driver = -1;
+            for (int edge = graph.dependencyStart(current); edge < graph.dependencyEnd(current) && driver < 0; edge++) {
+                int dependency = graph.dependency(edge);
+                if (earliestFinish[dependency] + lag[dependency] == earliestStart[current]
+                        && latestStart[dependency] == earliestStart[dependency]) {
+                    driver = dependency;
+                }
+            }
+            current = driver;
+        }
+
+        int[] criticalPath = new int[path.size()];
+        for (int i = 0; i < criticalPath.length; i++) {
+            criticalPath[i] = path.get(path.size() - 1 - i);
+        }
+        return criticalPath;
+    }
+
+    // Orders the tasks so that every task comes after all of its dependencies (Kahn's algorithm).
+    // Dependencies outside the given nodes are treated as already scheduled.
+    public List<Task> topologicalOrder(List<Task> nodes) {
+        PlanGraph graph = PlanGraph.of(nodes);
+        boolean[] included = new boolean[graph.size()];
+        for (Task node : nodes) {
+            included[graph.indexOf(node)] = true;
+        }
+
+        List<Task> order = new ArrayList<>(nodes.size());
+        for (int node : graph.topologicalOrder(included, nodes.size())) {
+            order.add(graph.task(node));
+        }
+        return order;
+    }
+}
@@ -0,0 +1,40 @@
+package com.exist.scheduler.scheduling;
+
+import java.time.LocalDate;
+
+// Working days are numbered with consecutive ordinals, so "add N working days" and
+// "count working days between" reduce to converting between epoch days and ordinals.
+public interface WorkingCalendar {
+
+    boolean isWorkingDay(long epochDay);
+
+    // Ordinal of the first working day on or after the given day, i.e. the number of working days before it
+    long workingDaysBefore(long epochDay);
+
+    // Inverse of workingDaysBefore: the epoch day of the working day with the given ordinal
+    long workingDayAt(long ordinal);
+
+    // The start date is counted as the first working day; the result is the last working day of the span
+    default long addWorkingDays(long startEpochDay, int daysToAdd) {
+        if (daysToAdd <= 0) {
+            return startEpochDay;
+        }
+        return workingDayAt(workingDaysBefore(startEpochDay) + daysToAdd - 1);
+    }
+
+    // Working days between start and end, both inclusive
+    default long countWorkingDays(long startEpochDay, long endEpochDay) {
+        if (endEpochDay < startEpochDay) {
+            return 0;
+        }
+        return workingDaysBefore(endEpochDay + 1) - workingDaysBefore(startEpochDay);
+    }
+
+    default LocalDate addWorkingDays(LocalDate startDate, int daysToAdd) {
+        return LocalDate.ofEpochDay(addWorkingDays(startDate.toEpochDay(), daysToAdd));
+    }
+
+    default long countWorkingDays(LocalDate start, LocalDate end) {
+        return countWorkingDays(start.toEpochDay(), end.toEpochDay());
+    }
+}
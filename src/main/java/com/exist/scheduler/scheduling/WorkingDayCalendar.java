@@ -0,0 +1,68 @@
+package com.exist.scheduler.scheduling;
+
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.util.EnumSet;
+import java.util.Set;
+
+// Weekly calendar arithmetic on epoch days, Monday to Friday unless another work week is given.
+// Working days are numbered consecutively, so counting and adding are closed-form week math instead of day-by-day loops.
+@Component
+public class WorkingDayCalendar implements WorkingCalendar {
+
+    // Epoch day 0 (1970-01-01) is a Thursday; shifting by 3 puts Monday at offset 0 of every week
+    private static final int MONDAY_OFFSET = 3;
+
+    private final int workingDaysPerWeek;
+
+    // Number of working days in a week that fall before the given weekday offset (Monday = 0 ... Sunday = 6)
+    private final int[] workingDaysBeforeWeekday = new int[8];
+
+    // Weekday offset of the n-th working day of a week
+    private final int[] weekdayOfWorkingDay;
+
+    public WorkingDayCalendar() {
+        this(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+    }
+
+    public WorkingDayCalendar(Set<DayOfWeek> workingDays) {
+        if (workingDays == null || workingDays.isEmpty()) {
+            throw new IllegalArgumentException("A work week needs at least one working day");
+        }
+
+        workingDaysPerWeek = workingDays.size();
+        weekdayOfWorkingDay = new int[workingDaysPerWeek];
+
+        int count = 0;
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            int offset = dayOfWeek.ordinal();
+            workingDaysBeforeWeekday[offset] = count;
+            if (workingDays.contains(dayOfWeek)) {
+                weekdayOfWorkingDay[count++] = offset;
+            }
+        }
+        workingDaysBeforeWeekday[7] = count;
+    }
+
+    @Override
+    public boolean isWorkingDay(long epochDay) {
+        int offset = (int) Math.floorMod(epochDay + MONDAY_OFFSET, 7);
+        return workingDaysBeforeWeekday[offset + 1] > workingDaysBeforeWeekday[offset];
+    }
+
+    // Counted from the Monday of epoch week 0
+    @Override
+    public long workingDaysBefore(long epochDay) {
+        long shifted = epochDay + MONDAY_OFFSET;
+        return Math.floorDiv(shifted, 7) * workingDaysPerWeek
+                + workingDaysBeforeWeekday[(int) Math.floorMod(shifted, 7)];
+    }
+
+    @Override
+    public long workingDayAt(long ordinal) {
+        return Math.floorDiv(ordinal, workingDaysPerWeek) * 7
+                + weekdayOfWorkingDay[(int) Math.floorMod(ordinal, workingDaysPerWeek)]
+                - MONDAY_OFFSET;
+    }
+}
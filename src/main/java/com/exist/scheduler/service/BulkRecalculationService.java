@@ -0,0 +1,195 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.model.BulkRecalculationJob;
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.RecalculationResult;
+import com.exist.scheduler.repository.ProjectPlanRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Recomputes the dates of every stored plan, e.g. after a data fix. Plan IDs are read in keyset pages and grouped
+// by lock stripe into batches, which run on a ForkJoinPool with one worker per core by default. A batch is one
+// transaction: its plans are read with their tasks in one query and scheduled one after the other, and the changed
+// dates go out as JDBC batch updates at commit. Every batch holds a single lock stripe, so batches never wait for
+// each other and throughput grows with the workers until the connection pool or the database is the limit.
+// Only two batches per worker are read ahead, which bounds the number of plans held in memory.
+@Service
+public class BulkRecalculationService {
+
+    // Finished jobs kept around for status requests
+    private static final int FINISHED_JOBS_KEPT = 100;
+
+    Logger logger = LogManager.getLogger(BulkRecalculationService.class);
+
+    private final ProjectPlanRepository projectPlanRepository;
+
+    private final ProjectPlanService projectPlanService;
+
+    private final ProjectPlanLocks projectPlanLocks;
+
+    private final ProjectPlanDetailsCache projectPlanDetailsCache;
+
+    private final ForkJoinPool pool;
+
+    private final int batchSize;
+
+    private final AtomicLong jobIds = new AtomicLong();
+
+    // Guards the job map and the current job
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private BulkRecalculationJob current;
+
+    private final Map<Long, BulkRecalculationJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BulkRecalculationJob> eldest) {
+            return size() > FINISHED_JOBS_KEPT && eldest.getValue().isFinished();
+        }
+    };
+
+    public BulkRecalculationService(ProjectPlanRepository projectPlanRepository, ProjectPlanService projectPlanService,
+                                    ProjectPlanLocks projectPlanLocks, ProjectPlanDetailsCache projectPlanDetailsCache,
+                                    @Value("${scheduler.bulk-recalculation.parallelism:0}") int parallelism,
+                                    @Value("${scheduler.bulk-recalculation.batch-size:50}") int batchSize) {
+        this.projectPlanRepository = projectPlanRepository;
+        this.projectPlanService = projectPlanService;
+        this.projectPlanLocks = projectPlanLocks;
+        this.projectPlanDetailsCache = projectPlanDetailsCache;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    // Starts a run in the background, or returns the one still going so that repeated requests do not start another
+    public BulkRecalculationJob recalculateAll() {
+        lock.lock();
+        try {
+            if (current != null && !current.isFinished()) {
+                return current;
+            }
+            BulkRecalculationJob job = new BulkRecalculationJob(jobIds.incrementAndGet(), pool.getParallelism());
+            jobs.put(job.getJobId(), job);
+            current = job;
+
+            Thread coordinator = new Thread(() -> run(job), "bulk-recalculation-" + job.getJobId());
+            coordinator.setDaemon(true);
+            coordinator.start();
+            return job;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public BulkRecalculationJob getJob(long jobId) {
+        lock.lock();
+        try {
+            BulkRecalculationJob job = jobs.get(jobId);
+            if (job == null) {
+                throw new NoSuchElementException(String.format("Bulk recalculation job with ID: %s not found", jobId));
+            }
+            return job;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Reads the plan IDs and hands their batches to the pool, waiting for the oldest batch whenever enough are in flight
+    private void run(BulkRecalculationJob job) {
+        try {
+            job.start(projectPlanRepository.count());
+            Deque<ForkJoinTask<?>> inFlight = new ArrayDeque<>();
+            int maxInFlight = 2 * pool.getParallelism();
+            PageRequest page = PageRequest.ofSize(batchSize * projectPlanLocks.stripeCount());
+
+            long afterId = 0;
+            List<Long> projectPlanIds;
+            while (!(projectPlanIds = projectPlanRepository.findIdsAfter(afterId, page)).isEmpty()) {
+                afterId = projectPlanIds.get(projectPlanIds.size() - 1);
+                for (List<Long> batch : batchesByStripe(projectPlanIds)) {
+                    if (inFlight.size() >= maxInFlight) {
+                        inFlight.poll().join();
+                    }
+                    inFlight.add(pool.submit(() -> recalculateBatch(job, batch)));
+                }
+                logger.info(String.format("Recalculated %s of %s project plans, %.0f plans/s",
+                        job.getPlansDone(), job.getPlansTotal(), job.getPlansPerSecond()));
+            }
+            while (!inFlight.isEmpty()) {
+                inFlight.poll().join();
+            }
+
+            job.complete();
+            logger.info(String.format("Recalculated %s project plans, %s failed, %s task dates changed, %.0f plans/s on %s workers",
+                    job.getPlansDone(), job.getPlansFailed(), job.getTasksChanged(),
+                    job.getPlansPerSecond(), job.getParallelism()));
+        } catch (RuntimeException | Error e) {
+            // An Error from a batch ends the run too, but the job must still finish or it would never be replaced
+            job.fail(e.getMessage() != null ? e.getMessage() : e.toString());
+            logger.error("Recalculation of all project plans failed", e);
+        }
+    }
+
+    // Plan IDs of one page cut into batches of up to batchSize plans that share a lock stripe
+    private List<List<Long>> batchesByStripe(List<Long> projectPlanIds) {
+        Map<Integer, List<Long>> filling = new LinkedHashMap<>();
+        List<List<Long>> batches = new ArrayList<>();
+        for (Long projectPlanId : projectPlanIds) {
+            int stripe = projectPlanLocks.stripe(projectPlanId);
+            List<Long> batch = filling.computeIfAbsent(stripe, s -> new ArrayList<>(batchSize));
+            batch.add(projectPlanId);
+            if (batch.size() == batchSize) {
+                batches.add(batch);
+                filling.remove(stripe);
+            }
+        }
+        batches.addAll(filling.values());
+        return batches;
+    }
+
+    // A plan that cannot be scheduled, e.g. a leveled plan whose task needs more of a resource than it has, rolls
+    // back its whole batch. The batch is then recalculated plan by plan, so only that plan is left out. An Error,
+    // such as a stack overflow on one plan's graph, is treated the same way.
+    private void recalculateBatch(BulkRecalculationJob job, List<Long> batch) {
+        try {
+            RecalculationResult result = projectPlanLocks.write(batch, () -> {
+                RecalculationResult batchResult = new RecalculationResult(0, 0);
+                for (ProjectPlan projectPlan : projectPlanRepository.findWithTasksByIdIn(batch)) {
+                    projectPlanDetailsCache.invalidate(projectPlan.getId());
+                    batchResult = batchResult.plus(projectPlanService.calculateTaskAndProjectDates(projectPlan));
+                }
+                return batchResult;
+            });
+            job.batchDone(batch.size(), result);
+        } catch (RuntimeException | Error e) {
+            for (Long projectPlanId : batch) {
+                recalculatePlan(job, projectPlanId);
+            }
+        }
+    }
+
+    private void recalculatePlan(BulkRecalculationJob job, Long projectPlanId) {
+        try {
+            job.batchDone(1, projectPlanService.recalculateProjectPlan(projectPlanId));
+        } catch (NoSuchElementException e) {
+            // Deleted since its ID was read
+            job.batchDone(1, new RecalculationResult(0, 0));
+        } catch (RuntimeException | Error e) {
+            logger.warn(String.format("Project Plan with ID: %s could not be recalculated: %s", projectPlanId, e));
+            job.batchFailed(List.of(projectPlanId));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -1,18 +1,23 @@
 package com.exist.scheduler.service;
 
-import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.dto.ProjectPlanFilter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
 
+// On-demand report of the stored plan and task dates, only in the report profile, which also starts without the
+// web server so the application exits once the report is written:
+//   mvn spring-boot:run -Dspring-boot.run.profiles=report -Dspring-boot.run.arguments=--name=Website
+// --name limits the report to plans whose name contains the text. Plans are read from a cursor a chunk at a time
+// and nothing is recalculated, so the report runs in bounded memory on a database of any size.
 @Component
-public class ConsoleAppRunner implements CommandLineRunner {
+@Profile("report")
+public class ConsoleAppRunner implements ApplicationRunner {
 
     private final ProjectPlanService projectPlanService;
 
@@ -23,33 +28,18 @@ public class ConsoleAppRunner implements CommandLineRunner {
     }
 
     @Override
-    public void run(String... args) throws Exception {
-        // Fetch all project plans
-        List<ProjectPlan> projectPlans = projectPlanService.getAllProjectPlans();
+    public void run(ApplicationArguments args) {
+        List<String> names = args.getOptionValues("name");
+        ProjectPlanFilter filter = new ProjectPlanFilter(names != null && !names.isEmpty() ? names.get(0) : null, null, null);
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM d, yyyy");
-
-        for (ProjectPlan projectPlan : projectPlans) {
-            // Output project plan details
-            LocalDate[] projectDates = projectPlanService.calculateProjectDates(projectPlan);
-            String projectStart = projectDates[0].format(formatter);
-            String projectEnd = projectDates[1].format(formatter);
-
-            // Calculate the total duration in days using ChronoUnit.DAYS.between
-            long totalDuration = ChronoUnit.DAYS.between(projectDates[0], projectDates[1]);
-
-                logger.info(String.format("Project Plan: %s", projectPlan.getName()));
-                logger.info(String.format("Total Duration: %s  days", totalDuration));
-                logger.info(String.format("Project Start: %1$s, End: %2$s", projectStart, projectEnd));
+        projectPlanService.streamProjectPlanDetails(filter, projectPlan -> {
+            logger.info(String.format("Project Plan: %s", projectPlan.getProjectPlanName()));
+            logger.info(String.format("Total Duration: %s  days", projectPlan.getTotalDuration()));
+            logger.info(String.format("Project Start: %1$s, End: %2$s", projectPlan.getProjectStart(), projectPlan.getProjectEnd()));
 
             // Output each task in the project plan
-            projectPlan.getTasks().forEach(task -> {
-                LocalDate[] taskDates = projectPlanService.calculateTaskDates(task, LocalDate.now());
-                String taskStart = taskDates[0].format(formatter);
-                String taskEnd = taskDates[1].format(formatter);
-                logger.info(String.format("  Task: %1$s -> Start: %2$s, End: %3$s", task.getName(), taskStart, taskEnd));
-            });
-
-        }
+            projectPlan.getTasks().forEach(task -> logger.info(String.format("  Task: %1$s -> Start: %2$s, End: %3$s",
+                    task.getTaskName(), task.getStartDate(), task.getEndDate())));
+        });
     }
-}
\ No newline at end of file
+}
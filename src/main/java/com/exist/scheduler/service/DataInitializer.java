@@ -2,14 +2,18 @@ package com.exist.scheduler.service;
 
 import com.exist.scheduler.dto.ProjectPlanDTO;
 import com.exist.scheduler.dto.TaskDTO;
-import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.annotation.Profile;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
 
+// Sample plans for trying the API out, only in the demo profile: mvn spring-boot:run -Dspring-boot.run.profiles=demo
+// Runs once per application start, after the context is refreshed and before runners such as the report
 @Component
+@Profile("demo")
 public class DataInitializer {
 
     private final ProjectPlanService projectPlanService;
@@ -18,7 +22,7 @@ public class DataInitializer {
         this.projectPlanService = projectPlanService;
     }
 
-    @EventListener(ContextRefreshedEvent.class)
+    @EventListener(ApplicationStartedEvent.class)
     public void init() {
         // Create first Project Plan: Website Development
 
@@ -26,10 +30,14 @@ public class DataInitializer {
         websiteProject.setName("Website Development");
 
         List<TaskDTO> taskDTOList = new ArrayList<>();
-        // Create tasks for the first project using the projectPlanId
+        // Create tasks for the first project, referencing each other by key
         TaskDTO designTask = new TaskDTO(null, "Design", 5, List.of(), null, null, null);
-        TaskDTO developmentTask = new TaskDTO(null, "Development", 10, List.of(1L), null, null, null);
-        TaskDTO testingTask = new TaskDTO(null, "Testing", 3, List.of(2L), null, null, null);
+        designTask.setKey("design");
+        TaskDTO developmentTask = new TaskDTO(null, "Development", 10, List.of(), null, null, null);
+        developmentTask.setKey("development");
+        developmentTask.setDependencyKeys(List.of("design"));
+        TaskDTO testingTask = new TaskDTO(null, "Testing", 3, List.of(), null, null, null);
+        testingTask.setDependencyKeys(List.of("development"));
         taskDTOList.add(designTask);
         taskDTOList.add(developmentTask);
         taskDTOList.add(testingTask);
@@ -44,8 +52,12 @@ public class DataInitializer {
 
         // Create tasks for the second project
         TaskDTO planningTask = new TaskDTO(null, "Planning", 4, List.of(), null, null, null);
-        TaskDTO codingTask = new TaskDTO(null, "Coding", 12, List.of(4L), null, null, null);
-        TaskDTO reviewTask = new TaskDTO(null, "Review", 2, List.of(5L), null, null, null);
+        planningTask.setKey("planning");
+        TaskDTO codingTask = new TaskDTO(null, "Coding", 12, List.of(), null, null, null);
+        codingTask.setKey("coding");
+        codingTask.setDependencyKeys(List.of("planning"));
+        TaskDTO reviewTask = new TaskDTO(null, "Review", 2, List.of(), null, null, null);
+        reviewTask.setDependencyKeys(List.of("coding"));
 
         taskDTOList1.add(planningTask);
         taskDTOList1.add(codingTask);
@@ -0,0 +1,179 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.model.CacheStats;
+import com.exist.scheduler.model.TaskDetails;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Rendered task details per project plan, bounded by plan count with least-recently-used eviction.
+// Every plan has a version that writes bump; readers take the version before loading tasks and an entry is only
+// served while its version is still current, so a render that raced with a write is never handed out.
+// TaskDetails are mutable, so entries hold copies of them and every hit hands out fresh copies; a caller changing
+// what it got never changes what later readers see.
+// Hits, misses, evictions and size are published with the standard cache meter names under cache=plan-details.
+@Component
+public class ProjectPlanDetailsCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "plan-details";
+
+    // Versions are striped by plan ID so they take fixed memory; a bump only costs other plans in the stripe a miss
+    private static final int VERSION_STRIPES = 1024;
+
+    private final int maxSize;
+
+    private final Map<Long, Entry> entries;
+
+    // Guards entries. A ReentrantLock rather than synchronized, so virtual threads waiting for it do not pin their
+    // carrier thread on JDK 21.
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ProjectPlanDetailsCache(@Value("${scheduler.details-cache.max-size:1000}") int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > ProjectPlanDetailsCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public long version(Long projectPlanId) {
+        return versions.get(stripe(projectPlanId));
+    }
+
+    // Cached tasks of the plan if they were rendered at the given version, otherwise null
+    public List<TaskDetails> get(Long projectPlanId, long version) {
+        lock.lock();
+        try {
+            Entry entry = entries.get(projectPlanId);
+            if (entry != null && entry.version == version) {
+                hits.incrementAndGet();
+                return copyOf(entry.tasks);
+            }
+            if (entry != null) {
+                entries.remove(projectPlanId);
+            }
+        } finally {
+            lock.unlock();
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(Long projectPlanId, long version, List<TaskDetails> tasks) {
+        if (version != version(projectPlanId)) {
+            return;
+        }
+        List<TaskDetails> copy = copyOf(tasks);
+        lock.lock();
+        try {
+            entries.put(projectPlanId, new Entry(version, copy));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called by every write to a plan. The version is bumped again once the transaction has finished, so a reader
+    // that loaded the old rows while the write was in flight cannot keep its result.
+    public void invalidate(Long projectPlanId) {
+        bump(projectPlanId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    bump(projectPlanId);
+                }
+            });
+        }
+    }
+
+    public CacheStats getStats() {
+        lock.lock();
+        try {
+            return new CacheStats(hits.get(), misses.get(), evictions.get(), entries.size(), maxSize);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, AtomicLong::get)
+                .tags("cache", CACHE_NAME, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, AtomicLong::get)
+                .tags("cache", CACHE_NAME, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", evictions, AtomicLong::get)
+                .tag("cache", CACHE_NAME)
+                .register(registry);
+        Gauge.builder("cache.size", this, cache -> cache.getStats().getSize())
+                .tag("cache", CACHE_NAME)
+                .register(registry);
+    }
+
+    private void bump(Long projectPlanId) {
+        versions.incrementAndGet(stripe(projectPlanId));
+        lock.lock();
+        try {
+            entries.remove(projectPlanId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static List<TaskDetails> copyOf(List<TaskDetails> tasks) {
+        List<TaskDetails> copies = new ArrayList<>(tasks.size());
+        for (TaskDetails task : tasks) {
+            TaskDetails copy = new TaskDetails();
+            copy.setTaskName(task.getTaskName());
+            copy.setTaskId(task.getTaskId());
+            copy.setDuration(task.getDuration());
+            copy.setStartDate(task.getStartDate());
+            copy.setEndDate(task.getEndDate());
+            copy.setDependencies(task.getDependencies() != null ? new ArrayList<>(task.getDependencies()) : null);
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    private static int stripe(Long projectPlanId) {
+        return Long.hashCode(projectPlanId) & (VERSION_STRIPES - 1);
+    }
+
+    private static final class Entry {
+        private final long version;
+        private final List<TaskDetails> tasks;
+
+        private Entry(long version, List<TaskDetails> tasks) {
+            this.version = version;
+            this.tasks = tasks;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.exist.scheduler.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Serializes writes per project plan. Plan IDs map onto a fixed set of lock stripes, so edits to the same plan
+// run one after the other while edits to unrelated plans only contend when they share a stripe. The lock is held
+// around the whole transaction, from reading the plan to the commit, so a recalculation always starts from the
+// dates the previous one committed.
+@Component
+public class ProjectPlanLocks {
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReentrantLock[] locks;
+
+    private final int maxAttempts;
+
+    public ProjectPlanLocks(PlatformTransactionManager transactionManager,
+                            @Value("${scheduler.plan-locks.stripes:64}") int stripes,
+                            @Value("${scheduler.plan-locks.max-attempts:3}") int maxAttempts) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    public <T> T write(Long projectPlanId, Supplier<T> work) {
+        return write(Collections.singletonList(projectPlanId), work);
+    }
+
+    // Runs the work in a transaction of its own while holding the stripes of all given plans. A write that still
+    // loses an optimistic version check, for example against another instance, is retried a bounded number of times.
+    public <T> T write(Collection<Long> projectPlanIds, Supplier<T> work) {
+        // Stripes are always taken in ascending order, so two writes spanning the same plans cannot deadlock
+        int[] stripes = projectPlanIds.stream()
+                .filter(Objects::nonNull)
+                .mapToInt(this::stripe)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        for (int stripe : stripes) {
+            locks[stripe].lock();
+        }
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return transactionTemplate.execute(status -> work.get());
+                } catch (OptimisticLockingFailureException e) {
+                    if (attempt >= maxAttempts) {
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                locks[stripes[i]].unlock();
+            }
+        }
+    }
+
+    // Work on many plans can be grouped by stripe, so that groups on different stripes never wait for each other
+    public int stripe(Long projectPlanId) {
+        return Math.floorMod(Long.hashCode(projectPlanId), locks.length);
+    }
+
+    public int stripeCount() {
+        return locks.length;
+    }
+}
@@ -1,28 +1,58 @@
 package com.exist.scheduler.service;
 
 import com.exist.scheduler.dto.ProjectPlanDTO;
+import com.exist.scheduler.dto.ProjectPlanFilter;
 import com.exist.scheduler.dto.TaskDTO;
 import com.exist.scheduler.mapper.ProjectPlanMapper;
+import com.exist.scheduler.model.CacheStats;
+import com.exist.scheduler.model.CriticalPathDetails;
 import com.exist.scheduler.model.ProjectPlan;
 import com.exist.scheduler.model.ProjectPlanDetails;
+import com.exist.scheduler.model.ProjectPlanSummary;
+import com.exist.scheduler.model.RecalculationResult;
 import com.exist.scheduler.model.Task;
+import com.exist.scheduler.model.TaskDependencyName;
 import com.exist.scheduler.model.TaskDetails;
+import com.exist.scheduler.model.TaskFloatDetails;
+import com.exist.scheduler.model.TaskSummary;
 import com.exist.scheduler.repository.ProjectPlanRepository;
 import com.exist.scheduler.repository.TaskRepository;
+import com.exist.scheduler.scheduling.CriticalPathAnalysis;
+import com.exist.scheduler.scheduling.PlanGraph;
+import com.exist.scheduler.scheduling.ResourceDemand;
+import com.exist.scheduler.scheduling.Schedule;
+import com.exist.scheduler.scheduling.SchedulingEngine;
+import com.exist.scheduler.scheduling.WorkingCalendar;
+import com.exist.scheduler.scheduling.WorkingDayCalendar;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 public class ProjectPlanService {
 
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final int STREAM_CHUNK_SIZE = 100;
+
+    // How often a task that keeps moving between plans is looked up again before the edit gives up
+    private static final int MAX_TASK_LOOKUPS = 3;
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMMM d, yyyy");
+
     @Autowired
     private ProjectPlanRepository projectPlanRepository;
 
@@ -32,10 +62,32 @@ public class ProjectPlanService {
     @Autowired
     private ProjectPlanMapper projectPlanMapper;
 
+    @Autowired
+    private SchedulingEngine schedulingEngine;
+
+    @Autowired
+    private WorkingDayCalendar workingDayCalendar;
+
+    @Autowired
+    private WorkCalendarService workCalendarService;
+
+    @Autowired
+    private ProjectPlanDetailsCache projectPlanDetailsCache;
+
+    @Autowired
+    private ProjectPlanLocks projectPlanLocks;
+
+    @Autowired
+    private SchedulerMetrics schedulerMetrics;
+
+    @Autowired
+    private ResourceService resourceService;
+
     @Transactional
     public ProjectPlanDTO createProjectPlan(ProjectPlanDTO projectPlanDTO) {
         ProjectPlan projectPlan = projectPlanMapper.toProjectPlanEntity(projectPlanDTO);
 
+        // Nothing is flushed before commit, so an invalid or cyclic task graph rolls back the whole plan
         // Recalculate task and project dates
         if (Optional.ofNullable(projectPlan.getTasks()).isPresent()) {
             calculateTaskAndProjectDates(projectPlan);
@@ -44,28 +96,82 @@ public class ProjectPlanService {
         return projectPlanMapper.toProjectPlanDTO(projectPlan);  // Return the saved project with tasks
     }
 
-    @Transactional
-    public void addTaskToProjectPlan(TaskDTO taskDTO) {
+    // Writes to an existing plan hold its lock for the whole transaction, see ProjectPlanLocks
+    public RecalculationResult addTaskToProjectPlan(TaskDTO taskDTO) {
+        return projectPlanLocks.write(taskDTO.getProjectPlanId(), () -> addTask(taskDTO, true));
+    }
+
+    // The deferred writes persist the change without recalculating dates and return the plans whose dates are
+    // now stale, for the caller to hand to the RecalculationQueue
+    public List<Long> addTaskToProjectPlanDeferred(TaskDTO taskDTO) {
+        projectPlanLocks.write(taskDTO.getProjectPlanId(), () -> addTask(taskDTO, false));
+        return List.of(taskDTO.getProjectPlanId());
+    }
 
-        ProjectPlan projectPlan = projectPlanRepository.findById(taskDTO.getProjectPlanId())
+    private RecalculationResult addTask(TaskDTO taskDTO, boolean recalculate) {
+        ProjectPlan projectPlan = projectPlanRepository.findWithTasksById(taskDTO.getProjectPlanId())
                 .orElseThrow(() -> new NoSuchElementException(String.format("Project Plan with ID: %s not found", taskDTO.getProjectPlanId())));
 
         Task task = projectPlanMapper.toTaskEntity(taskDTO, projectPlan);
         projectPlan.getTasks().add(task);
         taskRepository.save(task);
-        calculateTaskAndProjectDates(projectPlan);
+        projectPlanDetailsCache.invalidate(projectPlan.getId());
+
+        if (!recalculate) {
+            return new RecalculationResult(0, 0);
+        }
+        // A new task has no successors yet, so only the task itself needs dates
+        return recalculateFrom(projectPlan, task);
     }
 
-    @Transactional
-    public void updateTask(Long taskId, TaskDTO taskDTO) {
-        Task task = taskRepository.findById(taskId)
+    public RecalculationResult updateTask(Long taskId, TaskDTO taskDTO) {
+        // Moving a task writes to both plans, so both are locked
+        return writeTask(taskId, () -> projectPlanIdOf(taskId), taskDTO.getProjectPlanId(),
+                projectPlanId -> updateTask(taskId, projectPlanId, taskDTO, true));
+    }
+
+    public List<Long> updateTaskDeferred(Long taskId, TaskDTO taskDTO) {
+        return writeTask(taskId, () -> projectPlanIdOf(taskId), taskDTO.getProjectPlanId(), projectPlanId -> {
+            updateTask(taskId, projectPlanId, taskDTO, false);
+            return projectPlanId.equals(taskDTO.getProjectPlanId())
+                    ? List.of(projectPlanId)
+                    : List.of(projectPlanId, taskDTO.getProjectPlanId());
+        });
+    }
+
+    private Long projectPlanIdOf(Long taskId) {
+        return taskRepository.findProjectPlanIdById(taskId)
                 .orElseThrow(() -> new NoSuchElementException(String.format("Task with ID: %s not found", taskId)));
+    }
+
+    // Runs the work under the locks of the task's plan and the other given plan. The task's plan is read before the
+    // lock is taken, so when another write moved the task in between, its plan is looked up again and the new one
+    // locked instead of retrying against the old one.
+    private <T> T writeTask(Long taskId, Supplier<Long> projectPlanIdOfTask, Long otherProjectPlanId, Function<Long, T> work) {
+        for (int lookup = 1; ; lookup++) {
+            Long projectPlanId = projectPlanIdOfTask.get();
+            try {
+                return projectPlanLocks.write(Arrays.asList(projectPlanId, otherProjectPlanId), () -> work.apply(projectPlanId));
+            } catch (TaskMovedException e) {
+                if (lookup >= MAX_TASK_LOOKUPS) {
+                    throw new OptimisticLockingFailureException(String.format(
+                            "Task with ID: %s was moved to another project plan, please retry", taskId));
+                }
+            }
+        }
+    }
+
+    private RecalculationResult updateTask(Long taskId, Long projectPlanId, TaskDTO taskDTO, boolean recalculate) {
+        Task task = taskRepository.findWithProjectPlanById(taskId)
+                .orElseThrow(() -> new NoSuchElementException(String.format("Task with ID: %s not found", taskId)));
+        requireProjectPlan(task, projectPlanId);
 
-        Long projectPlanId = task.getProjectPlan().getId();
         Long projectPlanIdNew = taskDTO.getProjectPlanId();
 
-        Optional<ProjectPlan> projectPlanOptional = projectPlanRepository.findById(projectPlanId);
-        Optional<ProjectPlan> projectPlanOptionalNew = projectPlanRepository.findById(projectPlanIdNew);
+        Optional<ProjectPlan> projectPlanOptional = projectPlanRepository.findWithTasksById(projectPlanId);
+        Optional<ProjectPlan> projectPlanOptionalNew = projectPlanId.equals(projectPlanIdNew)
+                ? projectPlanOptional
+                : projectPlanRepository.findWithTasksById(projectPlanIdNew);
 
         ProjectPlan projectPlan = projectPlanOptional.orElseThrow(()
                 -> new NoSuchElementException(String.format("Project not found with ID: %s not found", projectPlanId)));
@@ -75,30 +181,83 @@ public class ProjectPlanService {
 
         task.setName(taskDTO.getName());
         task.setDuration(taskDTO.getDuration());
+        if (taskDTO.getOptimisticDuration() != null || taskDTO.getPessimisticDuration() != null) {
+            projectPlanMapper.setEstimates(task, taskDTO);
+        }
         task.setProjectPlan(projectPlanNew);
 
         task.setDependencies(projectPlanMapper.toTaskDependencies(taskDTO, projectPlanNew));
+        if (taskDTO.getAssignments() != null) {
+            task.setAssignments(projectPlanMapper.toAssignments(taskDTO, projectPlanMapper.resolveResources(List.of(taskDTO))));
+        }
 
         taskRepository.save(task);
         projectPlan.getTasks().remove(task);
         projectPlanNew.getTasks().add(task);
+        projectPlanDetailsCache.invalidate(projectPlanId);
+        projectPlanDetailsCache.invalidate(projectPlanIdNew);
 
-        calculateTaskAndProjectDates(projectPlan);
-        calculateTaskAndProjectDates(projectPlanNew);
+        if (!recalculate) {
+            // Dates can wait, but a dependency cycle has to be rejected before it is committed
+            schedulingEngine.topologicalOrder(projectPlanNew.getTasks());
+            return new RecalculationResult(0, 0);
+        }
+
+        if (projectPlanId.equals(projectPlanIdNew)) {
+            return recalculateFrom(projectPlan, task);
+        }
 
+        // Moving a task between plans reshapes both dependency graphs, so both are recalculated in full
+        return recalculateAllTasks(projectPlan).plus(recalculateAllTasks(projectPlanNew));
     }
 
-    @Transactional
     public void updateProject(Long projectId, ProjectPlanDTO projectPlanDTO) {
-        ProjectPlan projectPlan = projectPlanRepository.findById(projectId)
+        projectPlanLocks.write(projectId, () -> {
+            updateProjectPlan(projectId, projectPlanDTO, true);
+            return null;
+        });
+    }
+
+    public List<Long> updateProjectDeferred(Long projectId, ProjectPlanDTO projectPlanDTO) {
+        projectPlanLocks.write(projectId, () -> {
+            updateProjectPlan(projectId, projectPlanDTO, false);
+            return null;
+        });
+        return List.of(projectId);
+    }
+
+    // Full recomputation of a plan's dates, run by the RecalculationQueue after deferred writes
+    public RecalculationResult recalculateProjectPlan(Long projectId) {
+        return projectPlanLocks.write(projectId, () -> {
+            ProjectPlan projectPlan = projectPlanRepository.findWithTasksById(projectId)
+                    .orElseThrow(() -> new NoSuchElementException(String.format("Project Plan with ID: %s not found", projectId)));
+            projectPlanDetailsCache.invalidate(projectId);
+            return recalculateAllTasks(projectPlan);
+        });
+    }
+
+    private void updateProjectPlan(Long projectId, ProjectPlanDTO projectPlanDTO, boolean recalculate) {
+        ProjectPlan projectPlan = projectPlanRepository.findWithTasksById(projectId)
                 .orElseThrow(() -> new NoSuchElementException("Project Plan with ID: " + projectId + " not found"));
 
+        projectPlanDetailsCache.invalidate(projectId);
+
         // Update project properties
         projectPlan.setName(projectPlanDTO.getName());
         projectPlan.setProjectStartDate(projectPlanDTO.getProjectStartDate());
+        if (projectPlanDTO.getWorkCalendarId() != null) {
+            projectPlan.setWorkCalendar(projectPlanMapper.toWorkCalendar(projectPlanDTO.getWorkCalendarId()));
+        }
+        if (projectPlanDTO.getResourceLeveling() != null) {
+            projectPlan.setResourceLeveling(projectPlanDTO.getResourceLeveling());
+        }
 
         // Recalculate project and task dates
-        calculateTaskAndProjectDates(projectPlan);
+        if (recalculate) {
+            // Scheduling walks every dependency list, so they are loaded with one query rather than 50 at a time
+            taskRepository.findWithDependenciesByProjectPlanId(projectId);
+            calculateTaskAndProjectDates(projectPlan);
+        }
 
         projectPlanRepository.save(projectPlan);  // Save updated project
     }
@@ -111,15 +270,19 @@ public class ProjectPlanService {
         LocalDate earliestTaskStart = projectStart;
         LocalDate latestTaskEnd = projectStart;
 
+        Schedule schedule = schedulingEngine.schedule(projectPlan.getTasks(), projectStart,
+                workCalendarService.forPlan(projectPlan));
+
         for (Task task : projectPlan.getTasks()) {
-            LocalDate[] taskDates = calculateTaskDates(task, projectStart);
+            LocalDate taskStart = schedule.getStartDate(task);
+            LocalDate taskEnd = schedule.getEndDate(task);
 
-            if (taskDates[0].isBefore(earliestTaskStart)) {
-                earliestTaskStart = taskDates[0];
+            if (taskStart.isBefore(earliestTaskStart)) {
+                earliestTaskStart = taskStart;
             }
 
-            if (taskDates[1].isAfter(latestTaskEnd)) {
-                latestTaskEnd = taskDates[1];
+            if (taskEnd.isAfter(latestTaskEnd)) {
+                latestTaskEnd = taskEnd;
             }
         }
 
@@ -136,154 +299,278 @@ public class ProjectPlanService {
 
 
     public LocalDate[] calculateTaskDates(Task task, LocalDate projectStartDate) {
-        LocalDate startDate = projectStartDate != null ? projectStartDate : LocalDate.now();
+        // Schedules the task together with the chain of dependencies it waits on
+        Schedule schedule = schedulingEngine.schedule(List.of(task), projectStartDate);
 
-        // Set to keep track of visited tasks (to handle potential circular dependencies)
-        Set<Long> visitedTasks = new HashSet<>();
-
-        // Calculate the start date based on dependencies
-        if (Optional.ofNullable(task.getDependencies()).isPresent()) {
-            for (Task dependency : task.getDependencies()) {
-                // Check for circular dependencies before recursion
-                if (!visitedTasks.add(dependency.getId())) {
-                    throw new IllegalStateException("Circular dependency detected for task: " + task.getId());
-                }
+        return new LocalDate[]{schedule.getStartDate(task), schedule.getEndDate(task)};
+    }
 
-                // Recursively calculate the dependency's start and end dates
-                LocalDate[] dependencyDates = calculateTaskDates(dependency, projectStartDate);
+    // Earliest and latest dates, floats and the critical path of a plan, on its own working calendar
+    @Transactional
+    public CriticalPathDetails analyzeCriticalPath(Long projectId) {
+        ProjectPlan projectPlan = projectPlanRepository.findWithTasksById(projectId)
+                .orElseThrow(() -> new NoSuchElementException(String.format("Project Plan with ID: %s not found", projectId)));
+
+        CriticalPathAnalysis analysis = schedulingEngine.analyze(projectPlan.getTasks(), projectPlan.getProjectStartDate(),
+                workCalendarService.forPlan(projectPlan));
+
+        CriticalPathDetails criticalPathDetails = new CriticalPathDetails();
+        criticalPathDetails.setProjectPlanName(projectPlan.getName());
+        criticalPathDetails.setProjectId(projectPlan.getId());
+        criticalPathDetails.setProjectStart(format(projectPlan.getProjectStartDate()));
+        criticalPathDetails.setProjectEnd(format(analysis.getProjectEnd()));
+
+        List<String> criticalPath = new ArrayList<>();
+        long criticalPathWorkingDays = 0;
+        for (Task task : analysis.getCriticalPath()) {
+            criticalPath.add(task.getName());
+            criticalPathWorkingDays += Math.max(0, task.getDuration());
+        }
+        criticalPathDetails.setCriticalPath(criticalPath);
+        criticalPathDetails.setCriticalPathWorkingDays(criticalPathWorkingDays);
+
+        List<TaskFloatDetails> taskFloats = new ArrayList<>(projectPlan.getTasks().size());
+        for (Task task : analysis.getOrder()) {
+            TaskFloatDetails taskFloat = new TaskFloatDetails();
+            taskFloat.setTaskName(task.getName());
+            taskFloat.setTaskId(task.getId());
+            taskFloat.setDuration(task.getDuration());
+            taskFloat.setEarliestStart(format(analysis.getEarliestStart(task)));
+            taskFloat.setEarliestFinish(format(analysis.getEarliestFinish(task)));
+            taskFloat.setLatestStart(format(analysis.getLatestStart(task)));
+            taskFloat.setLatestFinish(format(analysis.getLatestFinish(task)));
+            taskFloat.setTotalFloat(analysis.getTotalFloat(task));
+            taskFloat.setFreeFloat(analysis.getFreeFloat(task));
+            taskFloat.setCritical(analysis.isCritical(task));
+            taskFloats.add(taskFloat);
+        }
+        criticalPathDetails.setTasks(taskFloats);
+        return criticalPathDetails;
+    }
 
-                // Ensure the task starts the next working day after the latest dependency ends
-                if (dependencyDates[1].isAfter(startDate)) {
-                    // Start the current task the day after the latest dependency ends
-                    startDate = dependencyDates[1].plusDays(1);
-                }
+    // Plans with their tasks and dependency lists loaded, so they can be scheduled after the transaction ends
+    @Transactional
+    public List<ProjectPlan> getAllProjectPlans() {
+        List<ProjectPlan> projectPlans = projectPlanRepository.findAllWithTasks();
+        for (ProjectPlan projectPlan : projectPlans) {
+            for (Task task : projectPlan.getTasks()) {
+                Hibernate.initialize(task.getDependencies());
             }
         }
+        return projectPlans;
+    }
 
-        // Calculate end date by adding the task's duration and skipping weekends (assuming addWorkingDays handles weekends)
-        LocalDate endDate = addWorkingDays(startDate, task.getDuration());
 
-        visitedTasks.remove(task.getId());
+    public List<ProjectPlanDetails> toProjectPlanDetails() {
+        return toProjectPlanDetails(projectPlanRepository.findAllSummaries());
+    }
 
-        return new LocalDate[]{startDate, endDate};
+    // One page of plans after the given ID, in ID order, so clients walk the data set with a keyset cursor
+    public List<ProjectPlanDetails> toProjectPlanDetails(ProjectPlanFilter filter, Long afterId, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return toProjectPlanDetails(projectPlanRepository.findPageByFilter(
+                afterId != null ? afterId : 0L, filter.getName(), filter.getFrom(), filter.getTo(),
+                PageRequest.ofSize(pageSize)));
     }
 
-    public List<ProjectPlan> getAllProjectPlans() {
-        return projectPlanRepository.findAll();
+    // Hands plans to the consumer while they are read from a database cursor. Tasks are loaded for a chunk
+    // of plans at a time and nothing is kept in the persistence context, so memory does not grow with the data set.
+    @Transactional
+    public void streamProjectPlanDetails(ProjectPlanFilter filter, Consumer<ProjectPlanDetails> consumer) {
+        try (Stream<ProjectPlanSummary> projectPlans = projectPlanRepository.streamByFilter(
+                filter.getName(), filter.getFrom(), filter.getTo())) {
+            List<ProjectPlanSummary> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            Iterator<ProjectPlanSummary> iterator = projectPlans.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == STREAM_CHUNK_SIZE || !iterator.hasNext()) {
+                    toProjectPlanDetails(chunk).forEach(consumer);
+                    chunk.clear();
+                }
+            }
+        }
     }
 
+    // Builds the details of a batch of plans. Task details come from the cache while the plan is unchanged;
+    // the rest are loaded with two more queries, one for tasks and one for dependency names.
+    private List<ProjectPlanDetails> toProjectPlanDetails(List<ProjectPlanSummary> projectPlans) {
+        if (projectPlans.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-    public List<ProjectPlanDetails> toProjectPlanDetails() {
-        List<ProjectPlan> projectPlans = getAllProjectPlans();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM d, yyyy");
-        List<ProjectPlanDetails> projectPlanDetailsList = new ArrayList<>();
+        Map<Long, List<TaskDetails>> tasksByPlan = new HashMap<>();
+        Map<Long, Long> versions = new HashMap<>();
+        for (ProjectPlanSummary projectPlan : projectPlans) {
+            long version = projectPlanDetailsCache.version(projectPlan.id());
+            List<TaskDetails> cachedTasks = projectPlanDetailsCache.get(projectPlan.id(), version);
+            if (cachedTasks != null) {
+                tasksByPlan.put(projectPlan.id(), cachedTasks);
+            } else {
+                versions.put(projectPlan.id(), version);
+            }
+        }
 
-        for (ProjectPlan projectPlan : projectPlans) {
+        if (!versions.isEmpty()) {
+            tasksByPlan.putAll(loadTaskDetails(versions));
+        }
 
+        List<ProjectPlanDetails> projectPlanDetailsList = new ArrayList<>(projectPlans.size());
+        for (ProjectPlanSummary projectPlan : projectPlans) {
             ProjectPlanDetails planDetails = new ProjectPlanDetails();
 
-            planDetails.setProjectPlanName(projectPlan.getName());
-            planDetails.setProjectId(projectPlan.getId());
-            planDetails.setTotalDuration(projectPlan.getProjectDuration());
-            planDetails.setTotalWorkingDays(projectPlan.getTotalWorkingDays());
-
-            String projectStart = (projectPlan.getProjectStartDate() != null)
-                    ? projectPlan.getProjectStartDate().format(formatter)
-                    : "N/A";
-            String projectEnd = (projectPlan.getProjectEndDate() != null)
-                    ? projectPlan.getProjectEndDate().format(formatter)
-                    : "N/A";
+            planDetails.setProjectPlanName(projectPlan.name());
+            planDetails.setProjectId(projectPlan.id());
+            planDetails.setTotalDuration(projectPlan.projectDuration());
+            planDetails.setTotalWorkingDays(projectPlan.totalWorkingDays());
+            planDetails.setProjectStart(format(projectPlan.projectStartDate()));
+            planDetails.setProjectEnd(format(projectPlan.projectEndDate()));
+            planDetails.setTasks(tasksByPlan.get(projectPlan.id()));
 
-            planDetails.setProjectStart(projectStart);
-            planDetails.setProjectEnd(projectEnd);
+            projectPlanDetailsList.add(planDetails);
+        }
+        return projectPlanDetailsList;
+    }
 
-            List<TaskDetails> taskDetailsList = new ArrayList<>();
-            for (Task task : projectPlan.getTasks()) {
-                TaskDetails taskDetails = new TaskDetails();
+    // Renders the tasks of the given plans and caches them under the version taken before they were read
+    private Map<Long, List<TaskDetails>> loadTaskDetails(Map<Long, Long> versions) {
+        List<Long> projectPlanIds = new ArrayList<>(versions.keySet());
 
-                taskDetails.setTaskName(task.getName());
-                taskDetails.setTaskId(task.getId());
-                taskDetails.setDuration(task.getDuration());
+        Map<Long, List<TaskSummary>> tasksByPlan = new HashMap<>();
+        for (TaskSummary task : taskRepository.findSummariesByProjectPlanIds(projectPlanIds)) {
+            tasksByPlan.computeIfAbsent(task.projectPlanId(), id -> new ArrayList<>()).add(task);
+        }
 
-                String taskStart = (task.getTaskStartDate() != null)
-                        ? task.getTaskStartDate().format(formatter)
-                        : "N/A";
-                String taskEnd = (task.getTaskEndDate() != null)
-                        ? task.getTaskEndDate().format(formatter)
-                        : "N/A";
+        Map<Long, List<String>> dependencyNames = new HashMap<>();
+        for (TaskDependencyName dependency : taskRepository.findDependencyNamesByProjectPlanIds(projectPlanIds)) {
+            dependencyNames.computeIfAbsent(dependency.taskId(), id -> new ArrayList<>()).add(dependency.dependencyName());
+        }
 
-                taskDetails.setStartDate(taskStart);
-                taskDetails.setEndDate(taskEnd);
+        Map<Long, List<TaskDetails>> taskDetailsByPlan = new HashMap<>();
+        for (Long projectPlanId : projectPlanIds) {
+            List<TaskDetails> taskDetailsList = toTaskDetails(tasksByPlan.getOrDefault(projectPlanId, List.of()), dependencyNames);
+            projectPlanDetailsCache.put(projectPlanId, versions.get(projectPlanId), taskDetailsList);
+            taskDetailsByPlan.put(projectPlanId, taskDetailsList);
+        }
+        return taskDetailsByPlan;
+    }
 
-                List<String> dependencies = task.getDependencies().stream()
-                        .map(Task::getName)
-                        .toList();
+    private List<TaskDetails> toTaskDetails(List<TaskSummary> tasks, Map<Long, List<String>> dependencyNames) {
+        // Sort the tasks by start date (earliest to latest), unscheduled tasks last
+        List<TaskSummary> sortedTasks = new ArrayList<>(tasks);
+        sortedTasks.sort(Comparator.comparing(TaskSummary::taskStartDate, Comparator.nullsLast(Comparator.naturalOrder())));
 
-                taskDetails.setDependencies(dependencies);
-                taskDetailsList.add(taskDetails);
-            }
+        List<TaskDetails> taskDetailsList = new ArrayList<>(sortedTasks.size());
+        for (TaskSummary task : sortedTasks) {
+            TaskDetails taskDetails = new TaskDetails();
 
-            // Sort the taskDetailsList by start date (earliest to latest)
-            taskDetailsList.sort(Comparator.comparing(
-                    taskDetails -> LocalDate.parse(
-                            taskDetails.getStartDate(), formatter),
-                    Comparator.nullsLast(Comparator.naturalOrder())));
+            taskDetails.setTaskName(task.name());
+            taskDetails.setTaskId(task.id());
+            taskDetails.setDuration(task.duration());
+            taskDetails.setStartDate(format(task.taskStartDate()));
+            taskDetails.setEndDate(format(task.taskEndDate()));
+            taskDetails.setDependencies(dependencyNames.getOrDefault(task.id(), List.of()));
 
-            planDetails.setTasks(taskDetailsList);
-            projectPlanDetailsList.add(planDetails);
+            taskDetailsList.add(taskDetails);
         }
-        return projectPlanDetailsList;
+        return taskDetailsList;
+    }
+
+    public CacheStats getDetailsCacheStats() {
+        return projectPlanDetailsCache.getStats();
+    }
+
+    private static String format(LocalDate date) {
+        return date != null ? date.format(DATE_FORMATTER) : "N/A";
     }
 
     public LocalDate addWorkingDays(LocalDate startDate, int daysToAdd) {
-        LocalDate resultDate = startDate;
-        int addedDays = 0;
-        // The start date is counted as the first working day
-        if (!(resultDate.getDayOfWeek() == DayOfWeek.SATURDAY || resultDate.getDayOfWeek() == DayOfWeek.SUNDAY)) {
-            addedDays++;  // Count the start date as the first working day
+        return workingDayCalendar.addWorkingDays(startDate, daysToAdd);
+    }
+
+    public RecalculationResult calculateTaskAndProjectDates(ProjectPlan projectPlan) {
+        return recalculateAllTasks(projectPlan);
+    }
+
+    // Dates for the whole plan come out of one pass over the dependency graph
+    private RecalculationResult recalculateAllTasks(ProjectPlan projectPlan) {
+        String mode = projectPlan.isResourceLeveling() ? SchedulerMetrics.LEVELED : SchedulerMetrics.FULL;
+        return schedulerMetrics.recalculation(mode, projectPlan.getTasks().size(), () -> {
+            WorkingCalendar calendar = workCalendarService.forPlan(projectPlan);
+
+            Schedule schedule = projectPlan.isResourceLeveling()
+                    ? level(projectPlan, calendar)
+                    : schedulingEngine.schedule(projectPlan.getTasks(), projectPlan.getProjectStartDate(), calendar);
+            int tasksChanged = schedule.applyTo(projectPlan.getTasks());
+
+            updateProjectDates(projectPlan, calendar);
+            return new RecalculationResult(projectPlan.getTasks().size(), tasksChanged);
+        });
+    }
+
+    // Assignments are loaded in batches of 50 tasks, and the capacities of all their resources with one query
+    private Schedule level(ProjectPlan projectPlan, WorkingCalendar calendar) {
+        PlanGraph graph = PlanGraph.of(projectPlan.getTasks());
+        ResourceDemand demand = ResourceDemand.of(graph, resourceService.getCapacities(ResourceDemand.resourceIdsOf(graph)));
+        return schedulingEngine.level(graph, demand, projectPlan.getProjectStartDate(), calendar);
+    }
+
+    // Only the changed task and its transitive successors are re-dated when the rest of the plan is already scheduled.
+    // In a resource-leveled plan a change can move capacity to or from any task, so the whole plan is leveled again.
+    private RecalculationResult recalculateFrom(ProjectPlan projectPlan, Task changedTask) {
+        // isScheduled and reschedule walk every dependency list, so they are all loaded up front
+        taskRepository.findWithDependenciesByProjectPlanId(projectPlan.getId());
+        if (projectPlan.isResourceLeveling() || !isScheduled(projectPlan, changedTask)) {
+            return recalculateAllTasks(projectPlan);
         }
 
-        while (addedDays < daysToAdd) {
-            resultDate = resultDate.plusDays(1);
+        return schedulerMetrics.recalculation(SchedulerMetrics.INCREMENTAL, projectPlan.getTasks().size(), () -> {
+            WorkingCalendar calendar = workCalendarService.forPlan(projectPlan);
+
+            RecalculationResult result = schedulingEngine.reschedule(projectPlan.getTasks(), List.of(changedTask),
+                    projectPlan.getProjectStartDate(), calendar);
 
-            if (resultDate.getDayOfWeek() != DayOfWeek.SATURDAY && resultDate.getDayOfWeek() != DayOfWeek.SUNDAY) {
-                addedDays++;
+            updateProjectDates(projectPlan, calendar);
+            return result;
+        });
+    }
+
+    // Every task apart from the changed one, and every dependency they wait on, already has dates
+    private boolean isScheduled(ProjectPlan projectPlan, Task changedTask) {
+        for (Task task : projectPlan.getTasks()) {
+            if (task != changedTask && (task.getTaskStartDate() == null || task.getTaskEndDate() == null)) {
+                return false;
+            }
+            if (task.getDependencies() != null) {
+                for (Task dependency : task.getDependencies()) {
+                    if (dependency != changedTask && dependency.getTaskEndDate() == null) {
+                        return false;
+                    }
+                }
             }
         }
-        return resultDate;  // Return the last working day as the end date
+        return true;
     }
 
-    public void calculateTaskAndProjectDates(ProjectPlan projectPlan) {
+    private void updateProjectDates(ProjectPlan projectPlan, WorkingCalendar calendar) {
         LocalDate earliestStartDate = Optional.ofNullable(projectPlan.getProjectStartDate())
                 .orElse(LocalDate.now());
 
-        LocalDate latestEndDate = Optional.ofNullable(projectPlan.getProjectStartDate())
-                .orElse(LocalDate.now());
+        LocalDate latestEndDate = earliestStartDate;
 
         for (Task task : projectPlan.getTasks()) {
-            LocalDate[] taskDates = calculateTaskDates(task, projectPlan.getProjectStartDate());
-
-            Optional<LocalDate> taskStartDate = Optional.ofNullable(taskDates[0]);
-            Optional<LocalDate> taskEndDate = Optional.ofNullable(taskDates[1]);
-
-            taskStartDate.ifPresent(task::setTaskStartDate);
-            taskEndDate.ifPresent(task::setTaskEndDate);
-
             // Update the earliest start date
-            LocalDate finalEarliestStartDate = earliestStartDate;
-            earliestStartDate = taskStartDate
-                    .filter(startDate -> startDate.isBefore(finalEarliestStartDate))
-                    .orElse(earliestStartDate);
+            if (task.getTaskStartDate() != null && task.getTaskStartDate().isBefore(earliestStartDate)) {
+                earliestStartDate = task.getTaskStartDate();
+            }
 
             // Update the latest end date
-            LocalDate finalLatestEndDate = latestEndDate;
-            latestEndDate = taskEndDate
-                    .filter(endDate -> endDate.isAfter(finalLatestEndDate))
-                    .orElse(latestEndDate);
+            if (task.getTaskEndDate() != null && task.getTaskEndDate().isAfter(latestEndDate)) {
+                latestEndDate = task.getTaskEndDate();
+            }
         }
 
-        // Compute the total number of working days (excluding weekends)
-        long totalWorkingDays = calculateWorkingDays(earliestStartDate, latestEndDate);
+        // Compute the total number of working days (excluding weekends and holidays)
+        long totalWorkingDays = calendar.countWorkingDays(earliestStartDate, latestEndDate);
 
         projectPlan.setTotalWorkingDays(totalWorkingDays);
         projectPlan.setProjectStartDate(earliestStartDate);
@@ -291,32 +578,68 @@ public class ProjectPlanService {
         projectPlan.setProjectDuration(Math.abs(ChronoUnit.DAYS.between(earliestStartDate, latestEndDate)));
     }
 
-    public long calculateWorkingDays(LocalDate start, LocalDate end) {
-        long workingDays = 0;
-        LocalDate currentDate = start;
-
-        while (!currentDate.isAfter(end)) {
-            // Count only weekdays (Monday to Friday)
-            if (currentDate.getDayOfWeek() != DayOfWeek.SATURDAY
-                    && currentDate.getDayOfWeek() != DayOfWeek.SUNDAY) {
-                workingDays++;
+    // Plans using a calendar pick up its new work week and holidays. A plan that switches to the calendar after the
+    // IDs were read is not locked here and is skipped; its own update already scheduled it on the new calendar.
+    public void recalculatePlansUsingCalendar(Long workCalendarId) {
+        Set<Long> projectPlanIds = new HashSet<>(projectPlanRepository.findIdsByWorkCalendarId(workCalendarId));
+        projectPlanLocks.write(projectPlanIds, () -> {
+            for (ProjectPlan projectPlan : projectPlanRepository.findWithTasksByWorkCalendarId(workCalendarId)) {
+                if (projectPlanIds.contains(projectPlan.getId())) {
+                    projectPlanDetailsCache.invalidate(projectPlan.getId());
+                    calculateTaskAndProjectDates(projectPlan);
+                }
             }
-            currentDate = currentDate.plusDays(1);
+            return null;
+        });
+    }
+
+    // Resource-leveled plans with a task on the resource are leveled again after its capacity changed
+    public void recalculatePlansUsingResource(Long resourceId) {
+        for (Long projectPlanId : taskRepository.findLeveledProjectPlanIdsByResourceId(resourceId)) {
+            recalculateProjectPlan(projectPlanId);
         }
+    }
 
-        return workingDays;
+    public long calculateWorkingDays(LocalDate start, LocalDate end) {
+        // Count only weekdays (Monday to Friday)
+        return workingDayCalendar.countWorkingDays(start, end);
     }
 
     public void deleteTask(Long taskId) {
-        Task task = taskRepository.findById(taskId).orElseThrow(() -> new EntityNotFoundException("Task not found"));
-        ProjectPlan projectPlan = task.getProjectPlan();
-        projectPlan.getTasks().remove(task);
-        taskRepository.delete(task);
-        projectPlanRepository.save(projectPlan);
+        Supplier<Long> projectPlanIdOfTask = () -> taskRepository.findProjectPlanIdById(taskId)
+                .orElseThrow(() -> new EntityNotFoundException("Task not found"));
+
+        writeTask(taskId, projectPlanIdOfTask, null, projectPlanId -> {
+            Task task = taskRepository.findById(taskId).orElseThrow(() -> new EntityNotFoundException("Task not found"));
+            requireProjectPlan(task, projectPlanId);
+            ProjectPlan projectPlan = task.getProjectPlan();
+            projectPlan.getTasks().remove(task);
+            taskRepository.delete(task);
+            projectPlanDetailsCache.invalidate(projectPlan.getId());
+            return null;
+        });
     }
 
     public void deleteProject(Long projectId) {
-        ProjectPlan projectPlan = projectPlanRepository.findById(projectId).orElseThrow(() -> new EntityNotFoundException("Project plan not found"));
-        projectPlanRepository.delete(projectPlan);
+        projectPlanLocks.write(projectId, () -> {
+            ProjectPlan projectPlan = projectPlanRepository.findById(projectId).orElseThrow(() -> new EntityNotFoundException("Project plan not found"));
+            projectPlanRepository.delete(projectPlan);
+            projectPlanDetailsCache.invalidate(projectId);
+            return null;
+        });
+    }
+
+    // The task was moved by another write between looking up its plan and taking that plan's lock
+    private void requireProjectPlan(Task task, Long projectPlanId) {
+        if (!projectPlanId.equals(task.getProjectPlan().getId())) {
+            throw new TaskMovedException();
+        }
+    }
+
+    // Not an OptimisticLockingFailureException, so ProjectPlanLocks does not retry under the stale plan's lock
+    private static class TaskMovedException extends RuntimeException {
+        private TaskMovedException() {
+            super(null, null, false, false);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,290 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.dto.TaskDTO;
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.ProjectPlanImportResult;
+import com.exist.scheduler.model.Task;
+import com.exist.scheduler.repository.ProjectPlanRepository;
+import com.exist.scheduler.scheduling.PlanGraph;
+import com.exist.scheduler.scheduling.Schedule;
+import com.exist.scheduler.scheduling.SchedulingEngine;
+import com.exist.scheduler.scheduling.WorkingCalendar;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+// Moves whole plans in and out as streams of task records (see TaskRecordFormat) without building the task graph
+// as entities. An import inserts tasks in JDBC batches while the input is still being parsed and keeps just an ID and
+// a duration per task for the final scheduling pass; an export writes every task as the database cursor reaches it.
+@Service
+public class ProjectPlanTransferService {
+
+    // Rows per JDBC batch, and rows per round-trip of a cursor
+    private static final int CHUNK_SIZE = 1000;
+
+    // Width of the staging key columns
+    private static final int MAX_KEY_LENGTH = 255;
+
+    // Keys named in an error message
+    private static final int KEYS_REPORTED = 10;
+
+    private final ProjectPlanRepository projectPlanRepository;
+
+    private final SchedulingEngine schedulingEngine;
+
+    private final WorkCalendarService workCalendarService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EntityManager entityManager;
+
+    public ProjectPlanTransferService(ProjectPlanRepository projectPlanRepository, SchedulingEngine schedulingEngine,
+                                      WorkCalendarService workCalendarService, DataSource dataSource,
+                                      EntityManager entityManager) {
+        this.projectPlanRepository = projectPlanRepository;
+        this.schedulingEngine = schedulingEngine;
+        this.workCalendarService = workCalendarService;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(CHUNK_SIZE);
+    }
+
+    // Creates a plan from the records of the input. Dependencies are resolved by key once every task is in, so they
+    // may point further down the input, and the plan is scheduled once at the end. It all runs in one transaction:
+    // an invalid record, an unknown dependency or a circular dependency leaves nothing behind.
+    @Transactional
+    public ProjectPlanImportResult importPlan(String name, LocalDate projectStartDate, TaskRecordFormat format,
+                                              InputStream input) throws IOException {
+        ProjectPlan projectPlan = projectPlanRepository.saveAndFlush(new ProjectPlan(name,
+                projectStartDate != null ? projectStartDate : LocalDate.now(), new ArrayList<>()));
+        Long projectPlanId = projectPlan.getId();
+
+        ImportedTasks tasks = new ImportedTasks(projectPlanId);
+        format.read(input, tasks::add);
+        tasks.flush();
+
+        List<String> duplicateKeys = jdbcTemplate.queryForList("select task_key from task_import_key"
+                + " where project_plan_id = ? group by task_key having count(*) > 1"
+                + " fetch first " + KEYS_REPORTED + " rows only", String.class, projectPlanId);
+        if (!duplicateKeys.isEmpty()) {
+            throw new IllegalArgumentException(String.format("Task keys: %s are used more than once", duplicateKeys));
+        }
+
+        List<String> unknownKeys = jdbcTemplate.queryForList("select distinct e.dependency_key from task_import_edge e"
+                + " left join task_import_key k on k.project_plan_id = e.project_plan_id and k.task_key = e.dependency_key"
+                + " where e.project_plan_id = ? and k.task_id is null"
+                + " fetch first " + KEYS_REPORTED + " rows only", String.class, projectPlanId);
+        if (!unknownKeys.isEmpty()) {
+            throw new NoSuchElementException(String.format("Tasks with keys: %s not found in import", unknownKeys));
+        }
+
+        int dependencyCount = jdbcTemplate.update("insert into task_dependencies (task_id, dependency_id)"
+                + " select k.task_id, d.task_id from task_import_edge e"
+                + " join task_import_key k on k.project_plan_id = e.project_plan_id and k.task_key = e.task_key"
+                + " join task_import_key d on d.project_plan_id = e.project_plan_id and d.task_key = e.dependency_key"
+                + " where e.project_plan_id = ?", projectPlanId);
+        jdbcTemplate.update("delete from task_import_edge where project_plan_id = ?", projectPlanId);
+        jdbcTemplate.update("delete from task_import_key where project_plan_id = ?", projectPlanId);
+
+        schedule(projectPlan, tasks, dependencyCount);
+        return new ProjectPlanImportResult(projectPlanId, tasks.size, dependencyCount);
+    }
+
+    public void requireProjectPlan(Long projectId) {
+        if (!projectPlanRepository.existsById(projectId)) {
+            throw new NoSuchElementException(String.format("Project Plan with ID: %s not found", projectId));
+        }
+    }
+
+    // Writes the tasks of the plan in ID order, keyed by their IDs. The dependency rows of a task arrive together,
+    // so only the current task is held in memory.
+    public void exportPlan(Long projectId, TaskRecordFormat format, OutputStream output) throws IOException {
+        TaskRecordFormat.TaskRecordWriter writer = format.writer(output);
+        TaskDTO[] current = new TaskDTO[1];
+        RowCallbackHandler handler = row -> {
+            long id = row.getLong("id");
+            if (current[0] == null || current[0].getId() != id) {
+                write(writer, current[0]);
+                current[0] = new TaskDTO(id, row.getString("name"), row.getInt("duration"), null, projectId,
+                        row.getObject("task_start_date", LocalDate.class), row.getObject("task_end_date", LocalDate.class));
+                current[0].setKey(String.valueOf(id));
+                current[0].setDependencyKeys(new ArrayList<>());
+            }
+
+            long dependencyId = row.getLong("dependency_id");
+            if (!row.wasNull()) {
+                current[0].getDependencyKeys().add(String.valueOf(dependencyId));
+            }
+        };
+
+        jdbcTemplate.query("select t.id, t.name, t.duration, t.task_start_date, t.task_end_date, d.dependency_id"
+                + " from task t left join task_dependencies d on d.task_id = t.id"
+                + " where t.project_plan_id = ? order by t.id", handler, projectId);
+        write(writer, current[0]);
+        writer.flush();
+    }
+
+    private static void write(TaskRecordFormat.TaskRecordWriter writer, TaskDTO task) {
+        if (task == null) {
+            return;
+        }
+        try {
+            writer.write(task);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // One scheduling pass over a graph of primitive arrays, read back from the dependency rows just inserted,
+    // with the dates written back in JDBC batches
+    private void schedule(ProjectPlan projectPlan, ImportedTasks tasks, int dependencyCount) {
+        int size = tasks.size;
+        long[] ids = Arrays.copyOf(tasks.ids, size);
+        int[] durations = Arrays.copyOf(tasks.durations, size);
+
+        // Task IDs come from an ascending sequence, so ids is sorted and a binary search finds the node of an ID
+        int[] dependentNodes = new int[dependencyCount];
+        int[] dependencyNodes = new int[dependencyCount];
+        int[] dependencyOffsets = new int[size + 1];
+        int[] edgeCount = new int[1];
+        RowCallbackHandler handler = row -> {
+            int node = Arrays.binarySearch(ids, row.getLong(1));
+            dependentNodes[edgeCount[0]] = node;
+            dependencyNodes[edgeCount[0]++] = Arrays.binarySearch(ids, row.getLong(2));
+            dependencyOffsets[node + 1]++;
+        };
+        jdbcTemplate.query("select d.task_id, d.dependency_id from task_dependencies d"
+                + " join task t on t.id = d.task_id where t.project_plan_id = ?", handler, projectPlan.getId());
+
+        for (int node = 0; node < size; node++) {
+            dependencyOffsets[node + 1] += dependencyOffsets[node];
+        }
+        int[] dependencies = new int[dependencyCount];
+        int[] next = Arrays.copyOf(dependencyOffsets, size);
+        for (int edge = 0; edge < dependencyCount; edge++) {
+            dependencies[next[dependentNodes[edge]]++] = dependencyNodes[edge];
+        }
+
+        WorkingCalendar calendar = workCalendarService.forPlan(projectPlan);
+        Schedule schedule = schedulingEngine.schedule(PlanGraph.of(ids, durations, dependencyOffsets, dependencies),
+                projectPlan.getProjectStartDate(), calendar);
+
+        long latestEndDay = projectPlan.getProjectStartDate().toEpochDay();
+        List<Object[]> dates = new ArrayList<>(CHUNK_SIZE);
+        for (int node = 0; node < size; node++) {
+            dates.add(new Object[]{LocalDate.ofEpochDay(schedule.getStartDay(node)),
+                    LocalDate.ofEpochDay(schedule.getEndDay(node)), ids[node]});
+            latestEndDay = Math.max(latestEndDay, schedule.getEndDay(node));
+            if (dates.size() == CHUNK_SIZE || node == size - 1) {
+                jdbcTemplate.batchUpdate("update task set task_start_date = ?, task_end_date = ? where id = ?", dates);
+                dates.clear();
+            }
+        }
+
+        // The plan is still managed, so its dates are written when the transaction commits
+        LocalDate startDate = projectPlan.getProjectStartDate();
+        LocalDate endDate = LocalDate.ofEpochDay(latestEndDay);
+        projectPlan.setProjectEndDate(endDate);
+        projectPlan.setTotalWorkingDays(calendar.countWorkingDays(startDate, endDate));
+        projectPlan.setProjectDuration(Math.abs(ChronoUnit.DAYS.between(startDate, endDate)));
+    }
+
+    // The tasks of one import, inserted a chunk at a time. Keys and dependency keys go to the staging tables, and
+    // only the ID and duration of every task stay in memory.
+    private final class ImportedTasks {
+
+        private final Long projectPlanId;
+
+        // Task's own generator for task_seq, so imported and JPA-saved tasks draw from the same pooled blocks
+        private final SharedSessionContractImplementor session;
+        private final BeforeExecutionGenerator taskIdGenerator;
+
+        private long[] ids = new long[CHUNK_SIZE];
+        private int[] durations = new int[CHUNK_SIZE];
+        private int size;
+
+        private final List<Object[]> taskRows = new ArrayList<>(CHUNK_SIZE);
+        private final List<Object[]> keyRows = new ArrayList<>(CHUNK_SIZE);
+        private final List<Object[]> edgeRows = new ArrayList<>(CHUNK_SIZE);
+
+        ImportedTasks(Long projectPlanId) {
+            this.projectPlanId = projectPlanId;
+            this.session = entityManager.unwrap(SharedSessionContractImplementor.class);
+            this.taskIdGenerator = (BeforeExecutionGenerator) session.getFactory().getMappingMetamodel()
+                    .getEntityDescriptor(Task.class).getGenerator();
+        }
+
+        void add(TaskDTO task) {
+            String key = requireKey(task.getKey());
+            List<String> dependencyKeys = task.getDependencyKeys() != null ? task.getDependencyKeys() : List.of();
+            for (String dependencyKey : dependencyKeys) {
+                requireKey(dependencyKey);
+            }
+
+            long id = nextId();
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                durations = Arrays.copyOf(durations, size * 2);
+            }
+            ids[size] = id;
+            durations[size] = task.getDuration();
+            size++;
+
+            taskRows.add(new Object[]{id, task.getName(), task.getDuration(), projectPlanId});
+            keyRows.add(new Object[]{projectPlanId, key, id});
+            for (String dependencyKey : dependencyKeys) {
+                edgeRows.add(new Object[]{projectPlanId, key, dependencyKey});
+            }
+
+            if (taskRows.size() >= CHUNK_SIZE || edgeRows.size() >= CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (!taskRows.isEmpty()) {
+                jdbcTemplate.batchUpdate("insert into task (id, version, name, duration, project_plan_id)"
+                        + " values (?, 0, ?, ?, ?)", taskRows);
+                jdbcTemplate.batchUpdate("insert into task_import_key (project_plan_id, task_key, task_id)"
+                        + " values (?, ?, ?)", keyRows);
+            }
+            if (!edgeRows.isEmpty()) {
+                jdbcTemplate.batchUpdate("insert into task_import_edge (project_plan_id, task_key, dependency_key)"
+                        + " values (?, ?, ?)", edgeRows);
+            }
+            taskRows.clear();
+            keyRows.clear();
+            edgeRows.clear();
+        }
+
+        // Only goes to the sequence once per block of allocationSize IDs
+        private long nextId() {
+            return ((Number) taskIdGenerator.generate(session, null, null, EventType.INSERT)).longValue();
+        }
+
+        private String requireKey(String key) {
+            if (key == null || key.isBlank()) {
+                throw new IllegalArgumentException(String.format("Task number %s has no key", size + 1));
+            }
+            if (key.length() > MAX_KEY_LENGTH) {
+                throw new IllegalArgumentException(String.format("Task key: %s is longer than %s characters",
+                        key.substring(0, 20) + "...", MAX_KEY_LENGTH));
+            }
+            return key;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.exist.scheduler.service;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+
+// Counts the SQL statements Hibernate prepares on the current thread between start() and stop(), so every request
+// can report how many queries it ran. Statements issued through JdbcTemplate are not seen. An inspector configured
+// with hibernate.session_factory.statement_inspector keeps working; it is called after this one.
+@Component
+public class QueryCounter implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private final ThreadLocal<int[]> count = new ThreadLocal<>();
+
+    private StatementInspector delegate;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        Object configured = hibernateProperties.get(AvailableSettings.STATEMENT_INSPECTOR);
+        if (configured instanceof StatementInspector inspector) {
+            delegate = inspector;
+        } else if (configured != null) {
+            Class<?> type = ClassUtils.resolveClassName(configured.toString(), getClass().getClassLoader());
+            delegate = (StatementInspector) BeanUtils.instantiateClass(type);
+        }
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] statements = count.get();
+        if (statements != null) {
+            statements[0]++;
+        }
+        return delegate != null ? delegate.inspect(sql) : sql;
+    }
+
+    public void start() {
+        count.set(new int[1]);
+    }
+
+    // Statements since start() on this thread, or -1 if counting was not started here
+    public int stop() {
+        int[] statements = count.get();
+        count.remove();
+        return statements != null ? statements[0] : -1;
+    }
+}
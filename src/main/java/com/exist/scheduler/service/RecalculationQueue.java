@@ -0,0 +1,180 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.model.RecalculationJob;
+import com.exist.scheduler.model.RecalculationResult;
+import com.exist.scheduler.model.RecalculationStatus;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Background recomputation of plan dates for writes made with ?async=true. A plan has at most one queued job;
+// edits arriving while it waits join that job, so a burst of edits costs one recomputation. Jobs wait a short
+// delay before they start to give a burst time to gather. Jobs live in memory only: plans left stale by a restart
+// are brought up to date by their next write.
+@Component
+public class RecalculationQueue {
+
+    // Finished jobs kept around for status requests
+    private static final int FINISHED_JOBS_KEPT = 1000;
+
+    private final ProjectPlanService projectPlanService;
+
+    private final TaskScheduler scheduler;
+
+    private final Duration delay;
+
+    private final AtomicLong jobIds = new AtomicLong();
+
+    // Guards all state below; a ReentrantLock so waiting virtual threads do not pin their carrier
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Long, RecalculationJob> queuedByPlan = new HashMap<>();
+
+    private final Map<Long, RecalculationJob> runningByPlan = new HashMap<>();
+
+    private final Map<Long, RecalculationJob> lastFinishedByPlan = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, RecalculationJob> eldest) {
+            return size() > FINISHED_JOBS_KEPT;
+        }
+    };
+
+    private final Map<Long, RecalculationJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, RecalculationJob> eldest) {
+            return size() > FINISHED_JOBS_KEPT && eldest.getValue().isFinished();
+        }
+    };
+
+    public RecalculationQueue(ProjectPlanService projectPlanService,
+                              @Value("${scheduler.recalculation.threads:2}") int threads,
+                              @Value("${scheduler.recalculation.delay-ms:200}") long delayMillis,
+                              @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.projectPlanService = projectPlanService;
+        this.delay = Duration.ofMillis(delayMillis);
+        this.scheduler = virtualThreads ? virtualThreadScheduler() : platformThreadScheduler(threads);
+    }
+
+    // Jobs spend most of their time waiting for the plan lock and the database, so with virtual threads every job
+    // gets a thread of its own and the connection pool is what limits them
+    private static TaskScheduler virtualThreadScheduler() {
+        SimpleAsyncTaskScheduler scheduler = new SimpleAsyncTaskScheduler();
+        scheduler.setVirtualThreads(true);
+        scheduler.setThreadNamePrefix("plan-recalculation-");
+        return scheduler;
+    }
+
+    private static TaskScheduler platformThreadScheduler(int threads) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(threads);
+        scheduler.setDaemon(true);
+        scheduler.setThreadNamePrefix("plan-recalculation-");
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    public List<RecalculationJob> submit(Collection<Long> projectPlanIds) {
+        List<RecalculationJob> submitted = new ArrayList<>(projectPlanIds.size());
+        for (Long projectPlanId : projectPlanIds) {
+            submitted.add(submit(projectPlanId));
+        }
+        return submitted;
+    }
+
+    // The queued job of the plan, or a new one when nothing is queued. A job that is already running has read
+    // the plan, so it is not joined.
+    public RecalculationJob submit(Long projectPlanId) {
+        lock.lock();
+        try {
+            RecalculationJob queued = queuedByPlan.get(projectPlanId);
+            if (queued != null) {
+                queued.addEdit();
+                return queued;
+            }
+
+            RecalculationJob job = new RecalculationJob(jobIds.incrementAndGet(), projectPlanId);
+            queuedByPlan.put(projectPlanId, job);
+            jobs.put(job.getJobId(), job);
+            scheduler.schedule(() -> run(job), Instant.now().plus(delay));
+            return job;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public RecalculationJob getJob(long jobId) {
+        lock.lock();
+        try {
+            RecalculationJob job = jobs.get(jobId);
+            if (job == null) {
+                throw new NoSuchElementException(String.format("Recalculation job with ID: %s not found", jobId));
+            }
+            return job;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public RecalculationStatus getStatus(Long projectPlanId) {
+        lock.lock();
+        try {
+            RecalculationJob current = queuedByPlan.getOrDefault(projectPlanId, runningByPlan.get(projectPlanId));
+            return new RecalculationStatus(projectPlanId, current, lastFinishedByPlan.get(projectPlanId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run(RecalculationJob job) {
+        Long projectPlanId = job.getProjectPlanId();
+        lock.lock();
+        try {
+            queuedByPlan.remove(projectPlanId, job);
+            runningByPlan.put(projectPlanId, job);
+            job.start();
+        } finally {
+            lock.unlock();
+        }
+
+        RecalculationResult result = null;
+        Throwable failure = null;
+        try {
+            // Takes the plan lock, so the job waits for writes to the plan that are still in flight
+            result = projectPlanService.recalculateProjectPlan(projectPlanId);
+        } catch (RuntimeException | Error e) {
+            // An Error fails the job too; otherwise it would stay running and every later edit would queue behind it
+            failure = e;
+        }
+
+        // Finished and no longer running in one step, so a status request never sees a finished job as current
+        lock.lock();
+        try {
+            if (failure == null) {
+                job.complete(result);
+            } else {
+                job.fail(failure.getMessage() != null ? failure.getMessage() : failure.toString());
+            }
+            runningByPlan.remove(projectPlanId, job);
+            lastFinishedByPlan.put(projectPlanId, job);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler instanceof ThreadPoolTaskScheduler threadPool) {
+            threadPool.shutdown();
+        } else if (scheduler instanceof SimpleAsyncTaskScheduler virtualThreads) {
+            virtualThreads.close();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.exist.scheduler.service;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+
+// Records the number of SQL statements each HTTP request ran as scheduler.request.queries, tagged with the same
+// method and URI pattern as its http.server.requests timer. Streaming responses that finish on another thread
+// are left out.
+@Component
+public class RequestQueryMetrics implements ObservationHandler<ServerRequestObservationContext> {
+
+    private final QueryCounter queryCounter;
+
+    private final MeterRegistry meterRegistry;
+
+    public RequestQueryMetrics(QueryCounter queryCounter, MeterRegistry meterRegistry) {
+        this.queryCounter = queryCounter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return context instanceof ServerRequestObservationContext;
+    }
+
+    @Override
+    public void onStart(ServerRequestObservationContext context) {
+        queryCounter.start();
+    }
+
+    @Override
+    public void onStop(ServerRequestObservationContext context) {
+        int statements = queryCounter.stop();
+        if (statements < 0) {
+            return;
+        }
+        DistributionSummary.builder("scheduler.request.queries")
+                .baseUnit("statements")
+                .tag("method", value(context, "method"))
+                .tag("uri", value(context, "uri"))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(statements);
+    }
+
+    private static String value(ServerRequestObservationContext context, String key) {
+        KeyValue keyValue = context.getLowCardinalityKeyValue(key);
+        return keyValue != null ? keyValue.getValue() : "UNKNOWN";
+    }
+}
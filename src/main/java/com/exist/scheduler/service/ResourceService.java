@@ -0,0 +1,84 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.dto.ResourceDTO;
+import com.exist.scheduler.model.Resource;
+import com.exist.scheduler.repository.ResourceRepository;
+import com.exist.scheduler.repository.TaskRepository;
+import jakarta.transaction.Transactional;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+@Service
+public class ResourceService {
+
+    private final ResourceRepository resourceRepository;
+
+    private final TaskRepository taskRepository;
+
+    private final ProjectPlanDetailsCache projectPlanDetailsCache;
+
+    public ResourceService(ResourceRepository resourceRepository, TaskRepository taskRepository,
+                           ProjectPlanDetailsCache projectPlanDetailsCache) {
+        this.resourceRepository = resourceRepository;
+        this.taskRepository = taskRepository;
+        this.projectPlanDetailsCache = projectPlanDetailsCache;
+    }
+
+    @Transactional
+    public ResourceDTO createResource(ResourceDTO resourceDTO) {
+        Resource resource = new Resource();
+        applyChanges(resource, resourceDTO);
+        return toResourceDTO(resourceRepository.save(resource));
+    }
+
+    @Transactional
+    public ResourceDTO updateResource(Long resourceId, ResourceDTO resourceDTO) {
+        Resource resource = resourceRepository.findById(resourceId)
+                .orElseThrow(() -> new NoSuchElementException(String.format("Resource with ID: %s not found", resourceId)));
+        applyChanges(resource, resourceDTO);
+
+        // Every assignment has to fit into a day, otherwise no amount of delay could level the plans using it
+        int maxUnits = taskRepository.findMaxUnitsByResourceId(resourceId).orElse(0);
+        if (maxUnits > resource.getCapacity()) {
+            throw new IllegalArgumentException(String.format(
+                    "Resource with ID: %s has tasks needing %s units, more than a capacity of %s", resourceId, maxUnits, resource.getCapacity()));
+        }
+
+        // Invalidates the cached details of every leveled plan using the resource. That bumps the version scenario and
+        // risk snapshots are keyed on, so none taken with the old capacity is served again
+        for (Long projectPlanId : taskRepository.findLeveledProjectPlanIdsByResourceId(resourceId)) {
+            projectPlanDetailsCache.invalidate(projectPlanId);
+        }
+        return toResourceDTO(resourceRepository.save(resource));
+    }
+
+    public List<ResourceDTO> getAllResources() {
+        return resourceRepository.findAll().stream()
+                .map(this::toResourceDTO)
+                .toList();
+    }
+
+    // Daily capacity by resource ID, read with one query
+    public Map<Long, Integer> getCapacities(Collection<Long> resourceIds) {
+        Map<Long, Integer> capacities = new HashMap<>();
+        if (!resourceIds.isEmpty()) {
+            for (Resource resource : resourceRepository.findAllById(resourceIds)) {
+                capacities.put(resource.getId(), resource.getCapacity());
+            }
+        }
+        return capacities;
+    }
+
+    private void applyChanges(Resource resource, ResourceDTO resourceDTO) {
+        if (resourceDTO.getCapacity() < 1) {
+            throw new IllegalArgumentException(String.format("Resource capacity must be at least 1, not: %s", resourceDTO.getCapacity()));
+        }
+        resource.setName(resourceDTO.getName());
+        resource.setCapacity(resourceDTO.getCapacity());
+    }
+
+    private ResourceDTO toResourceDTO(Resource resource) {
+        return new ResourceDTO(resource.getId(), resource.getName(), resource.getCapacity());
+    }
+}
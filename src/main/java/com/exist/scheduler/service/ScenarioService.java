@@ -0,0 +1,237 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.dto.ScenarioDTO;
+import com.exist.scheduler.dto.TaskOverrideDTO;
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.ScenarioResult;
+import com.exist.scheduler.model.Task;
+import com.exist.scheduler.model.TaskScenarioDelta;
+import com.exist.scheduler.repository.ProjectPlanRepository;
+import com.exist.scheduler.scheduling.PlanGraph;
+import com.exist.scheduler.scheduling.PlanSnapshot;
+import com.exist.scheduler.scheduling.ResourceDemand;
+import com.exist.scheduler.scheduling.Schedule;
+import com.exist.scheduler.scheduling.SchedulingEngine;
+import com.exist.scheduler.scheduling.WorkingCalendar;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+// What-if scheduling of stored plans. A scenario overrides durations, dependencies or the start date and gets back
+// how the dates would move; nothing is written. Scenarios run against an immutable snapshot of the plan that is
+// loaded once and kept, per plan, until a write bumps the plan's version in the details cache, so they need no
+// database access and no lock and any number of them can run against the same snapshot at once.
+// Two scenarios that both miss the cache may both load the snapshot; the later one simply replaces the earlier.
+@Service
+public class ScenarioService {
+
+    private final ProjectPlanRepository projectPlanRepository;
+
+    private final ProjectPlanDetailsCache projectPlanDetailsCache;
+
+    private final WorkCalendarService workCalendarService;
+
+    private final ResourceService resourceService;
+
+    private final SchedulingEngine schedulingEngine;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final int maxSnapshots;
+
+    // Guards snapshots, which is in access order so the least recently used plan is dropped first
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Map<Long, PlanSnapshot> snapshots;
+
+    public ScenarioService(ProjectPlanRepository projectPlanRepository, ProjectPlanDetailsCache projectPlanDetailsCache,
+                           WorkCalendarService workCalendarService, ResourceService resourceService,
+                           SchedulingEngine schedulingEngine, PlatformTransactionManager transactionManager,
+                           @Value("${scheduler.scenario.snapshot-cache.max-size:100}") int maxSnapshots) {
+        this.projectPlanRepository = projectPlanRepository;
+        this.projectPlanDetailsCache = projectPlanDetailsCache;
+        this.workCalendarService = workCalendarService;
+        this.resourceService = resourceService;
+        this.schedulingEngine = schedulingEngine;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxSnapshots = maxSnapshots;
+        this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, PlanSnapshot> eldest) {
+                return size() > ScenarioService.this.maxSnapshots;
+            }
+        };
+    }
+
+    public ScenarioResult simulate(Long projectPlanId, ScenarioDTO scenarioDTO) {
+        PlanSnapshot snapshot = snapshot(projectPlanId);
+        PlanGraph base = snapshot.getGraph();
+
+        Map<Integer, Integer> changedDurations = new HashMap<>();
+        Map<Integer, int[]> changedDependencies = new HashMap<>();
+        for (TaskOverrideDTO override : Optional.ofNullable(scenarioDTO.getTasks()).orElse(List.of())) {
+            int node = nodeOf(snapshot, override.getTaskId(), projectPlanId);
+
+            if (override.getDuration() != null) {
+                if (override.getDuration() < 0) {
+                    throw new IllegalArgumentException(String.format(
+                            "Duration of task with ID: %s must not be negative", override.getTaskId()));
+                }
+                changedDurations.put(node, override.getDuration());
+            }
+
+            List<Long> added = Optional.ofNullable(override.getAddedDependencies()).orElse(List.of());
+            List<Long> removed = Optional.ofNullable(override.getRemovedDependencies()).orElse(List.of());
+            if (!added.isEmpty() || !removed.isEmpty()) {
+                int[] current = changedDependencies.get(node);
+                changedDependencies.put(node, changeDependencies(snapshot, node, current, added, removed, projectPlanId));
+            }
+        }
+
+        LocalDate projectStartDate = scenarioDTO.getProjectStartDate() != null
+                ? scenarioDTO.getProjectStartDate()
+                : snapshot.getProjectStartDate();
+        PlanGraph variant = base.withChanges(changedDurations, changedDependencies);
+        Schedule schedule = schedule(variant, snapshot.getDemand(), projectStartDate, snapshot.getCalendar());
+
+        return compare(projectPlanId, snapshot, schedule, projectStartDate);
+    }
+
+    // The snapshot of the plan at its current version, loaded in a read-only transaction when there is none yet.
+    // The version is taken before the plan is read, so a snapshot that raced with a write is never served.
+    public PlanSnapshot snapshot(Long projectPlanId) {
+        long version = projectPlanDetailsCache.version(projectPlanId);
+        lock.lock();
+        try {
+            PlanSnapshot snapshot = snapshots.get(projectPlanId);
+            if (snapshot != null && snapshot.getVersion() == version) {
+                return snapshot;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        PlanSnapshot snapshot = readOnlyTransaction.execute(status -> load(projectPlanId, version));
+        if (version == projectPlanDetailsCache.version(projectPlanId)) {
+            lock.lock();
+            try {
+                snapshots.put(projectPlanId, snapshot);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return snapshot;
+    }
+
+    private PlanSnapshot load(Long projectPlanId, long version) {
+        ProjectPlan projectPlan = projectPlanRepository.findWithTasksById(projectPlanId)
+                .orElseThrow(() -> new NoSuchElementException(String.format("Project Plan with ID: %s not found", projectPlanId)));
+
+        PlanGraph graph = PlanGraph.of(projectPlan.getTasks());
+        ResourceDemand demand = projectPlan.isResourceLeveling()
+                ? ResourceDemand.of(graph, resourceService.getCapacities(ResourceDemand.resourceIdsOf(graph)))
+                : null;
+
+        String[] names = new String[graph.size()];
+        int[] optimistic = new int[graph.size()];
+        int[] pessimistic = new int[graph.size()];
+        for (int node = 0; node < graph.size(); node++) {
+            Task task = graph.task(node);
+            names[node] = task.getName();
+            optimistic[node] = Optional.ofNullable(task.getOptimisticDuration()).orElse(task.getDuration());
+            pessimistic[node] = Optional.ofNullable(task.getPessimisticDuration()).orElse(task.getDuration());
+        }
+
+        // A plan without a start date is scheduled from today, so the snapshot fixes the day it was taken on
+        LocalDate projectStartDate = Optional.ofNullable(projectPlan.getProjectStartDate()).orElse(LocalDate.now());
+        WorkingCalendar calendar = workCalendarService.forPlan(projectPlan);
+        PlanGraph detached = graph.detached();
+        Schedule baseline = schedule(detached, demand, projectStartDate, calendar);
+        return new PlanSnapshot(version, detached, names, optimistic, pessimistic, demand, projectStartDate, calendar,
+                baseline);
+    }
+
+    private Schedule schedule(PlanGraph graph, ResourceDemand demand, LocalDate projectStartDate, WorkingCalendar calendar) {
+        return demand != null
+                ? schedulingEngine.level(graph, demand, projectStartDate, calendar)
+                : schedulingEngine.schedule(graph, projectStartDate, calendar);
+    }
+
+    // The node's dependency list with the removed ones taken out and the added ones appended, starting from the
+    // list an earlier override of the same task left, if any
+    private static int[] changeDependencies(PlanSnapshot snapshot, int node, int[] current, List<Long> added,
+                                            List<Long> removed, Long projectPlanId) {
+        PlanGraph graph = snapshot.getGraph();
+        List<Integer> dependencies = new ArrayList<>();
+        if (current != null) {
+            for (int dependency : current) {
+                dependencies.add(dependency);
+            }
+        } else {
+            for (int edge = graph.dependencyStart(node); edge < graph.dependencyEnd(node); edge++) {
+                dependencies.add(graph.dependency(edge));
+            }
+        }
+
+        for (Long removedId : removed) {
+            if (!dependencies.remove(Integer.valueOf(nodeOf(snapshot, removedId, projectPlanId)))) {
+                throw new IllegalArgumentException(String.format("Task with ID: %s does not depend on task with ID: %s",
+                        graph.taskId(node), removedId));
+            }
+        }
+        for (Long addedId : added) {
+            Integer dependency = nodeOf(snapshot, addedId, projectPlanId);
+            if (!dependencies.contains(dependency)) {
+                dependencies.add(dependency);
+            }
+        }
+        return dependencies.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int nodeOf(PlanSnapshot snapshot, Long taskId, Long projectPlanId) {
+        int node = taskId != null ? snapshot.nodeOf(taskId) : -1;
+        if (node < 0) {
+            throw new NoSuchElementException(String.format(
+                    "Task with ID: %s not found in project plan with ID: %s", taskId, projectPlanId));
+        }
+        return node;
+    }
+
+    private static ScenarioResult compare(Long projectPlanId, PlanSnapshot snapshot, Schedule schedule,
+                                          LocalDate projectStartDate) {
+        Schedule baseline = snapshot.getBaseline();
+        WorkingCalendar calendar = snapshot.getCalendar();
+
+        long baseEndDay = snapshot.getProjectStartDate().toEpochDay();
+        long endDay = projectStartDate.toEpochDay();
+        List<TaskScenarioDelta> tasks = new ArrayList<>();
+        for (int node = 0; node < snapshot.getGraph().size(); node++) {
+            long baseStart = baseline.getStartDay(node);
+            long baseEnd = baseline.getEndDay(node);
+            long start = schedule.getStartDay(node);
+            long end = schedule.getEndDay(node);
+            baseEndDay = Math.max(baseEndDay, baseEnd);
+            endDay = Math.max(endDay, end);
+
+            if (start != baseStart || end != baseEnd) {
+                tasks.add(new TaskScenarioDelta(snapshot.getGraph().taskId(node), snapshot.getName(node),
+                        LocalDate.ofEpochDay(baseStart), LocalDate.ofEpochDay(baseEnd),
+                        LocalDate.ofEpochDay(start), LocalDate.ofEpochDay(end),
+                        workingDaysBetween(calendar, baseStart, start), workingDaysBetween(calendar, baseEnd, end)));
+            }
+        }
+
+        return new ScenarioResult(projectPlanId, LocalDate.ofEpochDay(baseEndDay), LocalDate.ofEpochDay(endDay),
+                workingDaysBetween(calendar, baseEndDay, endDay), snapshot.getGraph().size(), tasks);
+    }
+
+    private static long workingDaysBetween(WorkingCalendar calendar, long fromDay, long toDay) {
+        return calendar.workingDaysBefore(toDay) - calendar.workingDaysBefore(fromDay);
+    }
+}
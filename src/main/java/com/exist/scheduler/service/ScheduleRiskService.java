@@ -0,0 +1,63 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.model.ScheduleRiskAnalysis;
+import com.exist.scheduler.model.TaskCriticality;
+import com.exist.scheduler.scheduling.DurationDistribution;
+import com.exist.scheduler.scheduling.PlanGraph;
+import com.exist.scheduler.scheduling.PlanSnapshot;
+import com.exist.scheduler.scheduling.ScheduleRisk;
+import com.exist.scheduler.scheduling.SchedulingEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Schedule risk of stored plans: every task's duration is drawn from its optimistic, most likely and pessimistic
+// estimates many times over and the plan is scheduled for each draw. Runs against the same snapshots as the
+// what-if scenarios, so repeated analyses of an unchanged plan do not touch the database. Like the critical path
+// analysis it looks at dependencies and the calendar only. Resource capacities of leveled plans are not applied, so
+// for those plans the simulated dates cannot be compared with the stored end and no planned end is reported.
+@Service
+public class ScheduleRiskService {
+
+    private final ScenarioService scenarioService;
+
+    private final SchedulingEngine schedulingEngine;
+
+    private final int maxIterations;
+
+    public ScheduleRiskService(ScenarioService scenarioService, SchedulingEngine schedulingEngine,
+                               @Value("${scheduler.risk-analysis.max-iterations:100000}") int maxIterations) {
+        this.scenarioService = scenarioService;
+        this.schedulingEngine = schedulingEngine;
+        this.maxIterations = maxIterations;
+    }
+
+    // Without a seed a random one is picked; it is part of the result so the run can be repeated
+    public ScheduleRiskAnalysis analyze(Long projectPlanId, int iterations, String distributionName, Long seed) {
+        if (iterations < 1 || iterations > maxIterations) {
+            throw new IllegalArgumentException(String.format("Iterations must be between 1 and %s", maxIterations));
+        }
+        DurationDistribution distribution = DurationDistribution.of(distributionName);
+        long runSeed = seed != null ? seed : ThreadLocalRandom.current().nextLong();
+
+        PlanSnapshot snapshot = scenarioService.snapshot(projectPlanId);
+        PlanGraph graph = snapshot.getGraph();
+        ScheduleRisk risk = schedulingEngine.simulate(graph, snapshot.getOptimistic(), snapshot.getPessimistic(),
+                distribution, snapshot.getProjectStartDate(), snapshot.getCalendar(), iterations, runSeed);
+
+        List<TaskCriticality> tasks = new ArrayList<>(graph.size());
+        for (int node = 0; node < graph.size(); node++) {
+            tasks.add(new TaskCriticality(graph.taskId(node), snapshot.getName(node), risk.getCriticalityIndex(node)));
+        }
+        tasks.sort(Comparator.comparingDouble(TaskCriticality::getCriticalityIndex).reversed());
+
+        boolean leveled = snapshot.getDemand() != null;
+        return new ScheduleRiskAnalysis(projectPlanId, iterations, distribution.name().toLowerCase(), runSeed,
+                leveled ? null : risk.getPlannedEndDate(), leveled ? null : risk.getPlannedEndProbability(),
+                risk.getEndDate(0.5), risk.getEndDate(0.8), risk.getEndDate(0.95), tasks);
+    }
+}
@@ -0,0 +1,71 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.model.RecalculationResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+// Timers and counters around the scheduling hot paths, published through Actuator at /actuator/metrics and
+// /actuator/prometheus. The timed sections are observations, so they also become spans when tracing is sampled.
+//   scheduler.recalculation            timer per mode (full, incremental, leveled)
+//   scheduler.recalculation.plan.size  histogram of the number of tasks in the recalculated plans
+//   scheduler.recalculation.tasks      tasks visited and tasks whose dates changed
+//   scheduler.dependencies.resolve     timer of the mapper's batched dependency lookup, and the IDs it resolved
+@Component
+public class SchedulerMetrics {
+
+    public static final String FULL = "full";
+
+    public static final String INCREMENTAL = "incremental";
+
+    public static final String LEVELED = "leveled";
+
+    private final ObservationRegistry observationRegistry;
+
+    private final DistributionSummary planSize;
+
+    private final Counter tasksVisited;
+
+    private final Counter tasksChanged;
+
+    private final DistributionSummary dependencyIds;
+
+    public SchedulerMetrics(MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+        this.planSize = DistributionSummary.builder("scheduler.recalculation.plan.size")
+                .baseUnit("tasks")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.tasksVisited = Counter.builder("scheduler.recalculation.tasks")
+                .tag("result", "visited")
+                .register(meterRegistry);
+        this.tasksChanged = Counter.builder("scheduler.recalculation.tasks")
+                .tag("result", "changed")
+                .register(meterRegistry);
+        this.dependencyIds = DistributionSummary.builder("scheduler.dependencies.resolve.ids")
+                .baseUnit("ids")
+                .register(meterRegistry);
+    }
+
+    // Times a recalculation of a plan with the given number of tasks and counts the tasks it went through
+    public RecalculationResult recalculation(String mode, int tasks, Supplier<RecalculationResult> recalculation) {
+        RecalculationResult result = Observation.createNotStarted("scheduler.recalculation", observationRegistry)
+                .lowCardinalityKeyValue("mode", mode)
+                .observe(recalculation);
+
+        planSize.record(tasks);
+        tasksVisited.increment(result.getTasksRecalculated());
+        tasksChanged.increment(result.getTasksChanged());
+        return result;
+    }
+
+    public <T> T dependencyResolution(int ids, Supplier<T> resolution) {
+        dependencyIds.record(ids);
+        return Observation.createNotStarted("scheduler.dependencies.resolve", observationRegistry).observe(resolution);
+    }
+}
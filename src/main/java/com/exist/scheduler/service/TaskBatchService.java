@@ -0,0 +1,282 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.dto.TaskBatchDTO;
+import com.exist.scheduler.dto.TaskDTO;
+import com.exist.scheduler.dto.TaskOperationDTO;
+import com.exist.scheduler.mapper.ProjectPlanMapper;
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.RecalculationResult;
+import com.exist.scheduler.model.Resource;
+import com.exist.scheduler.model.Task;
+import com.exist.scheduler.model.TaskBatchResult;
+import com.exist.scheduler.model.TaskOperationResult;
+import com.exist.scheduler.repository.ProjectPlanRepository;
+import com.exist.scheduler.repository.TaskRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+// Adds, updates, deletes and re-links many tasks of one plan in a single transaction. The plan is loaded once,
+// dependencies resolve against its tasks and the tasks added by the batch without further queries, and the dates
+// are recomputed once at the end, however many items the batch holds.
+@Service
+public class TaskBatchService {
+
+    private final ProjectPlanRepository projectPlanRepository;
+
+    private final TaskRepository taskRepository;
+
+    private final ProjectPlanService projectPlanService;
+
+    private final ProjectPlanLocks projectPlanLocks;
+
+    private final ProjectPlanDetailsCache projectPlanDetailsCache;
+
+    private final ProjectPlanMapper projectPlanMapper;
+
+    public TaskBatchService(ProjectPlanRepository projectPlanRepository, TaskRepository taskRepository,
+                            ProjectPlanService projectPlanService, ProjectPlanLocks projectPlanLocks,
+                            ProjectPlanDetailsCache projectPlanDetailsCache, ProjectPlanMapper projectPlanMapper) {
+        this.projectPlanRepository = projectPlanRepository;
+        this.taskRepository = taskRepository;
+        this.projectPlanService = projectPlanService;
+        this.projectPlanLocks = projectPlanLocks;
+        this.projectPlanDetailsCache = projectPlanDetailsCache;
+        this.projectPlanMapper = projectPlanMapper;
+    }
+
+    public TaskBatchResult applyBatch(Long projectId, TaskBatchDTO taskBatchDTO) {
+        List<TaskOperationDTO> operations = taskBatchDTO.getOperations() != null ? taskBatchDTO.getOperations() : List.of();
+        return projectPlanLocks.write(projectId, () -> applyBatch(projectId, operations));
+    }
+
+    private TaskBatchResult applyBatch(Long projectId, List<TaskOperationDTO> operations) {
+        ProjectPlan projectPlan = projectPlanRepository.findWithTasksById(projectId)
+                .orElseThrow(() -> new NoSuchElementException(String.format("Project Plan with ID: %s not found", projectId)));
+
+        Map<Long, Task> planTasks = new HashMap<>();
+        for (Task task : projectPlan.getTasks()) {
+            planTasks.put(task.getId(), task);
+        }
+
+        // Estimates and assignments go through the same mapper calls as PUT /tasks/{id}
+        List<TaskDTO> taskDTOs = new ArrayList<>(operations.size());
+        for (TaskOperationDTO operation : operations) {
+            taskDTOs.add(toTaskDTO(operation));
+        }
+
+        // Every item is checked before anything is written, so a rejected batch leaves the plan untouched
+        List<String> errors = validate(operations, planTasks, projectId);
+        Map<Long, Resource> resources = resolveResources(taskDTOs, errors);
+        if (errors.stream().anyMatch(Objects::nonNull)) {
+            List<TaskOperationResult> results = new ArrayList<>(operations.size());
+            for (int i = 0; i < operations.size(); i++) {
+                TaskOperationDTO operation = operations.get(i);
+                results.add(new TaskOperationResult(i, String.valueOf(operation.getOp()), operation.getTaskId(),
+                        operation.getKey(), errors.get(i)));
+            }
+            return new TaskBatchResult(projectId, false, new RecalculationResult(0, 0), results);
+        }
+
+        // New tasks first, so sequence IDs are assigned and later items can depend on them
+        Task[] operationTasks = new Task[operations.size()];
+        Map<String, Task> addedByKey = new HashMap<>();
+        List<Task> added = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            TaskOperationDTO operation = operations.get(i);
+            if (operation.getOp() == TaskOperationDTO.Type.ADD) {
+                Task task = new Task(operation.getName(), operation.getDuration(), new ArrayList<>(), projectPlan);
+                operationTasks[i] = task;
+                added.add(task);
+                if (operation.getKey() != null) {
+                    addedByKey.put(operation.getKey(), task);
+                }
+            } else {
+                operationTasks[i] = planTasks.get(operation.getTaskId());
+            }
+        }
+        if (!added.isEmpty()) {
+            taskRepository.saveAll(added);
+            projectPlan.getTasks().addAll(added);
+        }
+
+        Set<Task> deleted = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < operations.size(); i++) {
+            TaskOperationDTO operation = operations.get(i);
+            Task task = operationTasks[i];
+            switch (operation.getOp()) {
+                case ADD -> {
+                    projectPlanMapper.setEstimates(task, taskDTOs.get(i));
+                    task.setAssignments(projectPlanMapper.toAssignments(taskDTOs.get(i), resources));
+                    task.setDependencies(toDependencies(operation, planTasks, addedByKey));
+                }
+                case UPDATE -> {
+                    task.setName(operation.getName());
+                    task.setDuration(operation.getDuration());
+                    if (operation.getOptimisticDuration() != null || operation.getPessimisticDuration() != null) {
+                        projectPlanMapper.setEstimates(task, taskDTOs.get(i));
+                    }
+                    if (operation.getAssignments() != null) {
+                        task.setAssignments(projectPlanMapper.toAssignments(taskDTOs.get(i), resources));
+                    }
+                    task.setDependencies(toDependencies(operation, planTasks, addedByKey));
+                }
+                case RELINK -> task.setDependencies(toDependencies(operation, planTasks, addedByKey));
+                case DELETE -> deleted.add(task);
+            }
+        }
+
+        if (!deleted.isEmpty()) {
+            projectPlan.getTasks().removeAll(deleted);
+            // Links from tasks that stay in the plan go with the deleted tasks, and a deleted task's own
+            // dependencies are detached first so the cascade does not delete them as well
+            for (Task task : projectPlan.getTasks()) {
+                task.getDependencies().removeIf(deleted::contains);
+            }
+            for (Task task : deleted) {
+                task.getDependencies().clear();
+            }
+            taskRepository.deleteAll(deleted);
+        }
+
+        projectPlanDetailsCache.invalidate(projectId);
+        RecalculationResult recalculation = projectPlanService.calculateTaskAndProjectDates(projectPlan);
+
+        List<TaskOperationResult> results = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            TaskOperationDTO operation = operations.get(i);
+            results.add(new TaskOperationResult(i, operation.getOp().name(), operationTasks[i].getId(), operation.getKey(), null));
+        }
+        return new TaskBatchResult(projectId, true, recalculation, results);
+    }
+
+    // One entry per item: null when the item can be applied, otherwise the reason it cannot
+    private List<String> validate(List<TaskOperationDTO> operations, Map<Long, Task> planTasks, Long projectId) {
+        Set<Long> deletedIds = new HashSet<>();
+        Map<String, Integer> keyCounts = new HashMap<>();
+        for (TaskOperationDTO operation : operations) {
+            if (operation.getOp() == TaskOperationDTO.Type.DELETE && operation.getTaskId() != null) {
+                deletedIds.add(operation.getTaskId());
+            }
+            if (operation.getOp() == TaskOperationDTO.Type.ADD && operation.getKey() != null) {
+                keyCounts.merge(operation.getKey(), 1, Integer::sum);
+            }
+        }
+
+        List<String> errors = new ArrayList<>(operations.size());
+        for (TaskOperationDTO operation : operations) {
+            errors.add(validate(operation, planTasks, projectId, deletedIds, keyCounts));
+        }
+        return errors;
+    }
+
+    private String validate(TaskOperationDTO operation, Map<Long, Task> planTasks, Long projectId,
+                            Set<Long> deletedIds, Map<String, Integer> keyCounts) {
+        if (operation.getOp() == null) {
+            return "Operation must be one of ADD, UPDATE, DELETE, RELINK";
+        }
+
+        if (operation.getOp() == TaskOperationDTO.Type.ADD) {
+            if (operation.getKey() != null && keyCounts.get(operation.getKey()) > 1) {
+                return String.format("Task key: %s is used more than once", operation.getKey());
+            }
+        } else {
+            if (operation.getTaskId() == null || !planTasks.containsKey(operation.getTaskId())) {
+                return String.format("Task with ID: %s not found in project plan with ID: %s", operation.getTaskId(), projectId);
+            }
+            if (operation.getOp() != TaskOperationDTO.Type.DELETE && deletedIds.contains(operation.getTaskId())) {
+                return String.format("Task with ID: %s is deleted by this batch", operation.getTaskId());
+            }
+            if (operation.getOp() == TaskOperationDTO.Type.DELETE) {
+                return null;
+            }
+        }
+
+        List<Long> unresolvedIds = new ArrayList<>();
+        for (Long dependencyId : idsOf(operation)) {
+            if (!planTasks.containsKey(dependencyId) || deletedIds.contains(dependencyId)) {
+                unresolvedIds.add(dependencyId);
+            }
+        }
+        if (!unresolvedIds.isEmpty()) {
+            return String.format("Tasks with IDs: %s not found in project plan with ID: %s", unresolvedIds, projectId);
+        }
+
+        List<String> unknownKeys = new ArrayList<>();
+        for (String dependencyKey : keysOf(operation)) {
+            if (!keyCounts.containsKey(dependencyKey)) {
+                unknownKeys.add(dependencyKey);
+            }
+        }
+        if (!unknownKeys.isEmpty()) {
+            return String.format("Tasks with keys: %s not found in batch", unknownKeys);
+        }
+
+        if (operation.getOp() != TaskOperationDTO.Type.RELINK) {
+            try {
+                projectPlanMapper.setEstimates(new Task(), toTaskDTO(operation));
+            } catch (IllegalArgumentException e) {
+                return e.getMessage();
+            }
+        }
+        return null;
+    }
+
+    // The assigned resources of all ADD and UPDATE items, read with one query. When some of them are rejected, the
+    // items are looked up one by one so each rejected item gets its own error.
+    private Map<Long, Resource> resolveResources(List<TaskDTO> taskDTOs, List<String> errors) {
+        List<TaskDTO> assigning = new ArrayList<>();
+        for (int i = 0; i < taskDTOs.size(); i++) {
+            if (taskDTOs.get(i) != null && taskDTOs.get(i).getAssignments() != null) {
+                assigning.add(taskDTOs.get(i));
+            }
+        }
+        try {
+            return projectPlanMapper.resolveResources(assigning);
+        } catch (IllegalArgumentException | NoSuchElementException e) {
+            for (int i = 0; i < taskDTOs.size(); i++) {
+                if (errors.get(i) == null && taskDTOs.get(i) != null && taskDTOs.get(i).getAssignments() != null) {
+                    try {
+                        projectPlanMapper.resolveResources(List.of(taskDTOs.get(i)));
+                    } catch (IllegalArgumentException | NoSuchElementException itemError) {
+                        errors.set(i, itemError.getMessage());
+                    }
+                }
+            }
+            return Map.of();
+        }
+    }
+
+    // The fields of an ADD or UPDATE item that the mapper reads, null for DELETE and RELINK
+    private static TaskDTO toTaskDTO(TaskOperationDTO operation) {
+        if (operation.getOp() != TaskOperationDTO.Type.ADD && operation.getOp() != TaskOperationDTO.Type.UPDATE) {
+            return null;
+        }
+        TaskDTO taskDTO = new TaskDTO();
+        taskDTO.setName(operation.getName());
+        taskDTO.setDuration(operation.getDuration());
+        taskDTO.setOptimisticDuration(operation.getOptimisticDuration());
+        taskDTO.setPessimisticDuration(operation.getPessimisticDuration());
+        taskDTO.setAssignments(operation.getAssignments());
+        return taskDTO;
+    }
+
+    private List<Task> toDependencies(TaskOperationDTO operation, Map<Long, Task> planTasks, Map<String, Task> addedByKey) {
+        List<Task> dependencies = new ArrayList<>();
+        for (Long dependencyId : idsOf(operation)) {
+            dependencies.add(planTasks.get(dependencyId));
+        }
+        for (String dependencyKey : keysOf(operation)) {
+            dependencies.add(addedByKey.get(dependencyKey));
+        }
+        return dependencies;
+    }
+
+    private static List<Long> idsOf(TaskOperationDTO operation) {
+        return operation.getDependencies() != null ? operation.getDependencies() : List.of();
+    }
+
+    private static List<String> keysOf(TaskOperationDTO operation) {
+        return operation.getDependencyKeys() != null ? operation.getDependencyKeys() : List.of();
+    }
+}
@@ -0,0 +1,298 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.dto.TaskDTO;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Consumer;
+
+// File formats for importing and exporting the tasks of a plan. Every task is one record with its key, name,
+// duration and the keys of the tasks it depends on; exports also carry the computed dates, which imports ignore.
+// Records are parsed and written one at a time, so neither direction holds more than the current record.
+//   CSV:    a header line, then key,name,duration,dependencies,taskStartDate,taskEndDate with the dependency keys
+//           separated by ';'. Only key, name and duration are required columns.
+//   NDJSON: one JSON object per line with the same fields and "dependencies" as an array. A JSON array of such
+//           objects is accepted on import as well.
+public enum TaskRecordFormat {
+
+    CSV("text/csv") {
+        @Override
+        public void read(InputStream input, Consumer<TaskDTO> consumer) throws IOException {
+            CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+            List<String> header = reader.readRecord();
+            if (header == null) {
+                return;
+            }
+
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            for (String required : List.of("key", "name", "duration")) {
+                if (!columns.containsKey(required)) {
+                    throw new IllegalArgumentException(String.format("CSV header is missing the column: %s", required));
+                }
+            }
+
+            List<String> fields;
+            while ((fields = reader.readRecord()) != null) {
+                if (fields.size() == 1 && fields.get(0).isBlank()) {
+                    continue;
+                }
+
+                TaskDTO task = new TaskDTO();
+                // Keys are trimmed like the dependency keys that refer to them
+                String key = field(fields, columns.get("key"));
+                task.setKey(key != null ? key.trim() : null);
+                task.setName(field(fields, columns.get("name")));
+                task.setDuration(parseDuration(field(fields, columns.get("duration")), task.getKey()));
+                task.setDependencyKeys(splitKeys(field(fields, columns.get("dependencies"))));
+                consumer.accept(task);
+            }
+        }
+
+        @Override
+        public TaskRecordWriter writer(OutputStream output) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            return new TaskRecordWriter() {
+                private boolean headerWritten;
+
+                @Override
+                public void write(TaskDTO task) throws IOException {
+                    if (!headerWritten) {
+                        writer.write("key,name,duration,dependencies,taskStartDate,taskEndDate\n");
+                        headerWritten = true;
+                    }
+                    writer.write(escape(task.getKey()));
+                    writer.write(',');
+                    writer.write(escape(task.getName()));
+                    writer.write(',');
+                    writer.write(String.valueOf(task.getDuration()));
+                    writer.write(',');
+                    writer.write(escape(String.join(";", task.getDependencyKeys())));
+                    writer.write(',');
+                    writer.write(toText(task.getTaskStartDate()));
+                    writer.write(',');
+                    writer.write(toText(task.getTaskEndDate()));
+                    writer.write('\n');
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    writer.flush();
+                }
+            };
+        }
+    },
+
+    NDJSON("application/x-ndjson") {
+        @Override
+        public void read(InputStream input, Consumer<TaskDTO> consumer) throws IOException {
+            try (JsonParser parser = JSON.createParser(input)) {
+                JsonToken token = parser.nextToken();
+                boolean array = token == JsonToken.START_ARRAY;
+                if (array) {
+                    token = parser.nextToken();
+                }
+
+                while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+                    if (token != JsonToken.START_OBJECT) {
+                        throw new IllegalArgumentException("Every task must be a JSON object");
+                    }
+                    consumer.accept(readTask(parser));
+                    token = parser.nextToken();
+                }
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException(String.format("Invalid JSON: %s", e.getOriginalMessage()));
+            }
+        }
+
+        @Override
+        public TaskRecordWriter writer(OutputStream output) throws IOException {
+            JsonGenerator generator = JSON.createGenerator(output, JsonEncoding.UTF8);
+            return new TaskRecordWriter() {
+                @Override
+                public void write(TaskDTO task) throws IOException {
+                    generator.writeStartObject();
+                    generator.writeStringField("key", task.getKey());
+                    generator.writeStringField("name", task.getName());
+                    generator.writeNumberField("duration", task.getDuration());
+                    generator.writeArrayFieldStart("dependencies");
+                    for (String dependencyKey : task.getDependencyKeys()) {
+                        generator.writeString(dependencyKey);
+                    }
+                    generator.writeEndArray();
+                    generator.writeStringField("taskStartDate", task.getTaskStartDate() != null ? task.getTaskStartDate().toString() : null);
+                    generator.writeStringField("taskEndDate", task.getTaskEndDate() != null ? task.getTaskEndDate().toString() : null);
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    generator.flush();
+                }
+            };
+        }
+    };
+
+    // Writes never close the response stream; the servlet container does that
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+            .build();
+
+    private final String mediaType;
+
+    TaskRecordFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public static TaskRecordFormat of(String name) {
+        for (TaskRecordFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Format must be one of csv, ndjson, not: %s", name));
+    }
+
+    // Hands every task of the input to the consumer as soon as it is parsed
+    public abstract void read(InputStream input, Consumer<TaskDTO> consumer) throws IOException;
+
+    public abstract TaskRecordWriter writer(OutputStream output) throws IOException;
+
+    public interface TaskRecordWriter {
+
+        void write(TaskDTO task) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    private static TaskDTO readTask(JsonParser parser) throws IOException {
+        TaskDTO task = new TaskDTO();
+        task.setDependencyKeys(new ArrayList<>());
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "key" -> task.setKey(value.isScalarValue() ? parser.getText() : null);
+                case "name" -> task.setName(value == JsonToken.VALUE_NULL ? null : parser.getText());
+                case "duration" -> task.setDuration(parseDuration(parser.getText(), task.getKey()));
+                case "dependencies" -> {
+                    if (value == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            task.getDependencyKeys().add(parser.getText());
+                        }
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return task;
+    }
+
+    private static String field(List<String> fields, Integer column) {
+        return column != null && column < fields.size() ? fields.get(column) : null;
+    }
+
+    private static int parseDuration(String duration, String key) {
+        try {
+            return Integer.parseInt(duration.trim());
+        } catch (NullPointerException | NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Task with key: %s has an invalid duration: %s", key, duration));
+        }
+    }
+
+    private static List<String> splitKeys(String keys) {
+        List<String> dependencyKeys = new ArrayList<>();
+        if (keys != null) {
+            for (String key : keys.split(";")) {
+                if (!key.isBlank()) {
+                    dependencyKeys.add(key.trim());
+                }
+            }
+        }
+        return dependencyKeys;
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String toText(LocalDate date) {
+        return date != null ? date.toString() : "";
+    }
+
+    // RFC 4180 records: fields separated by commas, quoted fields may hold commas, line breaks and doubled quotes
+    private static final class CsvReader {
+
+        private final Reader reader;
+
+        private int next;
+
+        CsvReader(Reader reader) throws IOException {
+            this.reader = reader;
+            this.next = reader.read();
+        }
+
+        // The fields of the next record, or null at the end of the input
+        List<String> readRecord() throws IOException {
+            if (next == -1) {
+                return null;
+            }
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                int c = next;
+                next = reader.read();
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IllegalArgumentException("CSV input ends inside a quoted field");
+                    } else if (c == '"' && next == '"') {
+                        field.append('"');
+                        next = reader.read();
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\r' && next == '\n') {
+                    // The line feed ends the record
+                } else if (c == '\n' || c == -1) {
+                    fields.add(field.toString());
+                    return fields;
+                } else {
+                    field.append((char) c);
+                }
+            }
+        }
+    }
+}
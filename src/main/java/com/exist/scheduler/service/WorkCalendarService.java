@@ -0,0 +1,133 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.dto.WorkCalendarDTO;
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.WorkCalendar;
+import com.exist.scheduler.repository.ProjectPlanRepository;
+import com.exist.scheduler.repository.WorkCalendarRepository;
+import com.exist.scheduler.scheduling.HolidayCalendar;
+import com.exist.scheduler.scheduling.WorkingCalendar;
+import com.exist.scheduler.scheduling.WorkingDayCalendar;
+import jakarta.transaction.Transactional;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class WorkCalendarService {
+
+    private final WorkCalendarRepository workCalendarRepository;
+
+    private final WorkingDayCalendar workingDayCalendar;
+
+    private final ProjectPlanRepository projectPlanRepository;
+
+    private final ProjectPlanDetailsCache projectPlanDetailsCache;
+
+    // Compiled working-day indexes by calendar ID, rebuilt only after the calendar changes
+    private final Map<Long, WorkingCalendar> compiledCalendars = new ConcurrentHashMap<>();
+
+    public WorkCalendarService(WorkCalendarRepository workCalendarRepository, WorkingDayCalendar workingDayCalendar,
+                               ProjectPlanRepository projectPlanRepository, ProjectPlanDetailsCache projectPlanDetailsCache) {
+        this.workCalendarRepository = workCalendarRepository;
+        this.workingDayCalendar = workingDayCalendar;
+        this.projectPlanRepository = projectPlanRepository;
+        this.projectPlanDetailsCache = projectPlanDetailsCache;
+    }
+
+    @Transactional
+    public WorkCalendarDTO createCalendar(WorkCalendarDTO workCalendarDTO) {
+        WorkCalendar workCalendar = new WorkCalendar();
+        applyChanges(workCalendar, workCalendarDTO);
+        return toWorkCalendarDTO(workCalendarRepository.save(workCalendar));
+    }
+
+    @Transactional
+    public WorkCalendarDTO updateCalendar(Long calendarId, WorkCalendarDTO workCalendarDTO) {
+        WorkCalendar workCalendar = getCalendar(calendarId);
+        applyChanges(workCalendar, workCalendarDTO);
+        workCalendarRepository.save(workCalendar);
+
+        // Invalidates the cached details of every plan on this calendar. That bumps the version scenario and risk
+        // snapshots are keyed on, so none taken with the old working days is served again
+        for (Long projectPlanId : projectPlanRepository.findIdsByWorkCalendarId(calendarId)) {
+            projectPlanDetailsCache.invalidate(projectPlanId);
+        }
+        evict(calendarId);
+        return toWorkCalendarDTO(workCalendar);
+    }
+
+    public List<WorkCalendarDTO> getAllCalendars() {
+        return workCalendarRepository.findAll().stream()
+                .map(this::toWorkCalendarDTO)
+                .toList();
+    }
+
+    public WorkCalendar getCalendar(Long calendarId) {
+        return workCalendarRepository.findById(calendarId)
+                .orElseThrow(() -> new NoSuchElementException(String.format("Work Calendar with ID: %s not found", calendarId)));
+    }
+
+    // Plans without a calendar of their own use the Monday to Friday week
+    public WorkingCalendar forPlan(ProjectPlan projectPlan) {
+        WorkCalendar workCalendar = projectPlan.getWorkCalendar();
+        if (workCalendar == null) {
+            return workingDayCalendar;
+        }
+        if (workCalendar.getId() == null) {
+            return compile(workCalendar);
+        }
+        return compiledCalendars.computeIfAbsent(workCalendar.getId(), id -> compile(workCalendar));
+    }
+
+    public WorkingCalendar compile(WorkCalendar workCalendar) {
+        WorkingDayCalendar workWeek = workCalendar.getWorkingDays() == null || workCalendar.getWorkingDays().isEmpty()
+                ? workingDayCalendar
+                : new WorkingDayCalendar(EnumSet.copyOf(workCalendar.getWorkingDays()));
+
+        if (workCalendar.getHolidays() == null || workCalendar.getHolidays().isEmpty()) {
+            return workWeek;
+        }
+        return new HolidayCalendar(workWeek, workCalendar.getHolidays());
+    }
+
+    // The compiled calendar is dropped again once the transaction has finished, so a plan that compiled the old
+    // rows while the update was in flight cannot keep them
+    private void evict(Long calendarId) {
+        compiledCalendars.remove(calendarId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    compiledCalendars.remove(calendarId);
+                }
+            });
+        }
+    }
+
+    private void applyChanges(WorkCalendar workCalendar, WorkCalendarDTO workCalendarDTO) {
+        workCalendar.setName(workCalendarDTO.getName());
+
+        // Default to a Monday to Friday week when no working days are given
+        Set<DayOfWeek> workingDays = workCalendarDTO.getWorkingDays() == null || workCalendarDTO.getWorkingDays().isEmpty()
+                ? EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY)
+                : EnumSet.copyOf(workCalendarDTO.getWorkingDays());
+        workCalendar.setWorkingDays(new HashSet<>(workingDays));
+
+        workCalendar.setHolidays(workCalendarDTO.getHolidays() != null
+                ? new HashSet<>(workCalendarDTO.getHolidays())
+                : new HashSet<>());
+    }
+
+    private WorkCalendarDTO toWorkCalendarDTO(WorkCalendar workCalendar) {
+        return new WorkCalendarDTO(
+                workCalendar.getId(),
+                workCalendar.getName(),
+                workCalendar.getWorkingDays().stream().sorted().toList(),
+                workCalendar.getHolidays().stream().sorted().toList());
+    }
+}
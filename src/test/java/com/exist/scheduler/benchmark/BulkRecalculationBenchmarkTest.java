@@ -0,0 +1,110 @@
+package com.exist.scheduler.benchmark;
+
+import com.exist.scheduler.dto.ProjectPlanDTO;
+import com.exist.scheduler.dto.TaskDTO;
+import com.exist.scheduler.model.BulkRecalculationJob;
+import com.exist.scheduler.model.RecalculationJob;
+import com.exist.scheduler.repository.ProjectPlanRepository;
+import com.exist.scheduler.service.BulkRecalculationService;
+import com.exist.scheduler.service.ProjectPlanDetailsCache;
+import com.exist.scheduler.service.ProjectPlanLocks;
+import com.exist.scheduler.service.ProjectPlanService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Plans recalculated per second by the recalculation of all plans with 1, 2, 4, ... workers up to the number of
+// cores, and the speedup over one worker. Task dates are cleared before every run, so every run writes them all.
+// Run with: mvn test -Pbenchmark -Dtest=BulkRecalculationBenchmarkTest -Dbenchmark.bulk-plans=5000
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.datasource.url=jdbc:h2:file:./target/bulk-recalculation-benchmark;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.datasource.hikari.maximum-pool-size=64"
+})
+class BulkRecalculationBenchmarkTest {
+
+    private static final int PLAN_COUNT = Integer.getInteger("benchmark.bulk-plans", 5000);
+
+    private static final int TASKS_PER_PLAN = 40;
+
+    Logger logger = LogManager.getLogger(BulkRecalculationBenchmarkTest.class);
+
+    @Autowired
+    private ProjectPlanService projectPlanService;
+
+    @Autowired
+    private ProjectPlanRepository projectPlanRepository;
+
+    @Autowired
+    private ProjectPlanLocks projectPlanLocks;
+
+    @Autowired
+    private ProjectPlanDetailsCache projectPlanDetailsCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void throughputScalesWithWorkers() throws InterruptedException {
+        seed();
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        double singleWorker = 0;
+        for (int workers = 1; workers <= cores; workers = workers < cores ? Math.min(2 * workers, cores) : cores + 1) {
+            BulkRecalculationService bulkRecalculationService = new BulkRecalculationService(projectPlanRepository,
+                    projectPlanService, projectPlanLocks, projectPlanDetailsCache, workers, 50);
+            try {
+                jdbcTemplate.update("update task set task_start_date = null, task_end_date = null");
+
+                long start = System.nanoTime();
+                BulkRecalculationJob job = bulkRecalculationService.recalculateAll();
+                while (!job.isFinished()) {
+                    Thread.sleep(10);
+                }
+                double plansPerSecond = PLAN_COUNT / ((System.nanoTime() - start) / 1_000_000_000.0);
+
+                assertEquals(RecalculationJob.Status.DONE, job.getStatus());
+                assertEquals(PLAN_COUNT, job.getPlansDone());
+                assertEquals((long) PLAN_COUNT * TASKS_PER_PLAN, job.getTasksChanged());
+
+                if (workers == 1) {
+                    singleWorker = plansPerSecond;
+                }
+                logger.info(String.format("%s workers: %s plans of %s tasks, %.0f plans/s, speedup %.2f",
+                        workers, PLAN_COUNT, TASKS_PER_PLAN, plansPerSecond, plansPerSecond / singleWorker));
+            } finally {
+                bulkRecalculationService.shutdown();
+            }
+        }
+    }
+
+    private void seed() {
+        for (int plan = 0; plan < PLAN_COUNT; plan++) {
+            List<TaskDTO> tasks = new ArrayList<>(TASKS_PER_PLAN);
+            for (int i = 0; i < TASKS_PER_PLAN; i++) {
+                TaskDTO task = new TaskDTO(null, "Task " + i, 1 + (plan + i) % 7, List.of(), null, null, null);
+                task.setKey("task-" + i);
+                task.setDependencyKeys(i == 0 ? List.of() : i % 4 == 0 ? List.of("task-" + (i - 1), "task-" + (i / 2)) : List.of("task-" + (i - 1)));
+                tasks.add(task);
+            }
+
+            ProjectPlanDTO projectPlanDTO = new ProjectPlanDTO();
+            projectPlanDTO.setName("Bulk benchmark plan " + plan);
+            projectPlanDTO.setProjectStartDate(LocalDate.of(2024, 10, 7));
+            projectPlanDTO.setTasks(tasks);
+            projectPlanService.createProjectPlan(projectPlanDTO);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.exist.scheduler.benchmark;
+
+import com.exist.scheduler.dto.ProjectPlanDTO;
+import com.exist.scheduler.dto.TaskDTO;
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.Task;
+import com.exist.scheduler.repository.ProjectPlanRepository;
+import com.exist.scheduler.repository.TaskRepository;
+import com.exist.scheduler.service.ProjectPlanService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Compares creating a large chained plan through the batched create path with inserting one row per round-trip.
+// Run with: mvn test -Pbenchmark -Dbenchmark.tasks=5000
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class PlanCreationBenchmarkTest {
+
+    private static final int TASK_COUNT = Integer.getInteger("benchmark.tasks", 5000);
+
+    private static final int WARM_UP_TASK_COUNT = 200;
+
+    Logger logger = LogManager.getLogger(PlanCreationBenchmarkTest.class);
+
+    @Autowired
+    private ProjectPlanService projectPlanService;
+
+    @Autowired
+    private ProjectPlanRepository projectPlanRepository;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void createLargePlan() {
+        createRowByRow(WARM_UP_TASK_COUNT);
+        createBatched(WARM_UP_TASK_COUNT);
+
+        long rowByRowStart = System.nanoTime();
+        createRowByRow(TASK_COUNT);
+        long rowByRowNanos = System.nanoTime() - rowByRowStart;
+
+        long batchedStart = System.nanoTime();
+        ProjectPlanDTO created = createBatched(TASK_COUNT);
+        long batchedNanos = System.nanoTime() - batchedStart;
+
+        assertEquals(TASK_COUNT, created.getTasks().size());
+
+        logger.info(String.format("Row by row: %s tasks in %s ms, %.0f tasks/s",
+                TASK_COUNT, rowByRowNanos / 1_000_000, tasksPerSecond(rowByRowNanos)));
+        logger.info(String.format("Batched:    %s tasks in %s ms, %.0f tasks/s (%.1fx)",
+                TASK_COUNT, batchedNanos / 1_000_000, tasksPerSecond(batchedNanos), (double) rowByRowNanos / batchedNanos));
+    }
+
+    private ProjectPlanDTO createBatched(int taskCount) {
+        List<TaskDTO> tasks = new ArrayList<>(taskCount);
+        for (int i = 0; i < taskCount; i++) {
+            TaskDTO task = new TaskDTO(null, "Task " + i, 1 + i % 10, List.of(), null, null, null);
+            task.setKey("task-" + i);
+            task.setDependencyKeys(i > 0 ? List.of("task-" + (i - 1)) : List.of());
+            tasks.add(task);
+        }
+
+        ProjectPlanDTO projectPlanDTO = new ProjectPlanDTO();
+        projectPlanDTO.setName("Batched");
+        projectPlanDTO.setProjectStartDate(LocalDate.of(2024, 10, 7));
+        projectPlanDTO.setTasks(tasks);
+        return projectPlanService.createProjectPlan(projectPlanDTO);
+    }
+
+    // One insert statement and round-trip per task, the way identity-generated IDs force it
+    private void createRowByRow(int taskCount) {
+        transactionTemplate.executeWithoutResult(status -> {
+            ProjectPlan projectPlan = projectPlanRepository.saveAndFlush(
+                    new ProjectPlan("Row by row", LocalDate.of(2024, 10, 7), new ArrayList<>()));
+            Task previous = null;
+            for (int i = 0; i < taskCount; i++) {
+                List<Task> dependencies = previous != null ? List.of(previous) : List.of();
+                previous = taskRepository.saveAndFlush(new Task("Task " + i, 1 + i % 10, new ArrayList<>(dependencies), projectPlan));
+            }
+        });
+    }
+
+    private double tasksPerSecond(long nanos) {
+        return TASK_COUNT / (nanos / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,171 @@
+package com.exist.scheduler.benchmark;
+
+import com.exist.scheduler.model.ProjectPlanImportResult;
+import com.exist.scheduler.service.ProjectPlanTransferService;
+import com.exist.scheduler.service.TaskRecordFormat;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Imports a generated plan of a million tasks and exports it again, logging the time and the peak heap of both.
+// The database is an H2 file under target/ so that table data stays off the heap and the peak is the
+// application's own; neither the input nor the output exists in memory as a whole.
+// Run with: mvn test -Pbenchmark -Dtest=PlanTransferBenchmarkTest -Dbenchmark.transfer-tasks=1000000 -DargLine=-Xmx256m
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.datasource.url=jdbc:h2:file:./target/transfer-benchmark;DB_CLOSE_ON_EXIT=FALSE"
+})
+class PlanTransferBenchmarkTest {
+
+    private static final int TASK_COUNT = Integer.getInteger("benchmark.transfer-tasks", 1_000_000);
+
+    Logger logger = LogManager.getLogger(PlanTransferBenchmarkTest.class);
+
+    @Autowired
+    private ProjectPlanTransferService projectPlanTransferService;
+
+    @Test
+    void importAndExportLargePlan() throws Exception {
+        HeapSampler heap = new HeapSampler();
+
+        heap.start();
+        long importStart = System.nanoTime();
+        ProjectPlanImportResult result = projectPlanTransferService.importPlan("Transfer benchmark",
+                LocalDate.of(2024, 10, 7), TaskRecordFormat.CSV, new GeneratedCsv(TASK_COUNT));
+        long importNanos = System.nanoTime() - importStart;
+        long importPeak = heap.stop();
+
+        assertEquals(TASK_COUNT, result.getTasksImported());
+
+        CountingOutputStream output = new CountingOutputStream();
+        heap.start();
+        long exportStart = System.nanoTime();
+        projectPlanTransferService.exportPlan(result.getProjectPlanId(), TaskRecordFormat.NDJSON, output);
+        long exportNanos = System.nanoTime() - exportStart;
+        long exportPeak = heap.stop();
+
+        assertEquals(TASK_COUNT, output.lines);
+
+        logger.info(String.format("Import: %s tasks, %s dependencies in %s ms, %.0f tasks/s, peak heap %s MB",
+                TASK_COUNT, result.getDependenciesImported(), importNanos / 1_000_000,
+                TASK_COUNT / (importNanos / 1_000_000_000.0), importPeak / (1024 * 1024)));
+        logger.info(String.format("Export: %s tasks, %s MB in %s ms, %.0f tasks/s, peak heap %s MB",
+                TASK_COUNT, output.bytes / (1024 * 1024), exportNanos / 1_000_000,
+                TASK_COUNT / (exportNanos / 1_000_000_000.0), exportPeak / (1024 * 1024)));
+    }
+
+    // Chains of a thousand tasks, every tenth task also waiting on its counterpart in the previous chain,
+    // produced one line at a time as it is read
+    private static final class GeneratedCsv extends InputStream {
+
+        private final int taskCount;
+
+        private int nextTask = -1;
+
+        private byte[] line = "key,name,duration,dependencies\n".getBytes(StandardCharsets.UTF_8);
+
+        private int position;
+
+        GeneratedCsv(int taskCount) {
+            this.taskCount = taskCount;
+        }
+
+        @Override
+        public int read() {
+            if (position == line.length) {
+                if (++nextTask == taskCount) {
+                    return -1;
+                }
+                int i = nextTask;
+                String previous = i % 1000 != 0 ? "t" + (i - 1) : "";
+                String crossLink = i % 10 == 0 && i >= 1000 ? ";t" + (i - 1000) : "";
+                line = String.format("t%s,Task %s,%s,%s%s\n", i, i, 1 + i % 10, previous, crossLink).getBytes(StandardCharsets.UTF_8);
+                position = 0;
+            }
+            return line[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            int count = 0;
+            while (count < length) {
+                int next = read();
+                if (next == -1) {
+                    return count == 0 ? -1 : count;
+                }
+                buffer[offset + count++] = (byte) next;
+            }
+            return count;
+        }
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long bytes;
+
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                write(buffer[i]);
+            }
+        }
+    }
+
+    // Highest heap use seen while a phase runs, sampled every 10 ms
+    private static final class HeapSampler {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        private final AtomicLong peak = new AtomicLong();
+
+        private Thread sampler;
+
+        void start() {
+            System.gc();
+            peak.set(memory.getHeapMemoryUsage().getUsed());
+            sampler = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            sampler.setDaemon(true);
+            sampler.start();
+        }
+
+        long stop() throws InterruptedException {
+            sampler.interrupt();
+            sampler.join();
+            return peak.get();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.exist.scheduler.benchmark;
+
+import com.exist.scheduler.dto.ProjectPlanDTO;
+import com.exist.scheduler.dto.TaskDTO;
+import com.exist.scheduler.service.ProjectPlanService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Throughput and p99 latency of /retrieve-all and /add-task with many clients at once, on the Tomcat
+// platform-thread pool. VirtualThreadRequestLoadBenchmarkTest runs the same load with virtual threads (JDK 21+).
+// Run with: mvn test -Pbenchmark -Dtest='*RequestLoadBenchmarkTest' -Dbenchmark.concurrency=400 -Dbenchmark.requests=20000
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "spring.jpa.show-sql=false")
+class RequestLoadBenchmarkTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("benchmark.concurrency", 400);
+
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 20000);
+
+    private static final int WARM_UP_REQUESTS = 1000;
+
+    private static final int PLANS = 50;
+
+    Logger logger = LogManager.getLogger(getClass());
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ProjectPlanService projectPlanService;
+
+    @Autowired
+    private Environment environment;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private final List<Long> projectPlanIds = new ArrayList<>();
+
+    @BeforeAll
+    void createPlans() {
+        for (int plan = 0; plan < PLANS; plan++) {
+            List<TaskDTO> tasks = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                TaskDTO task = new TaskDTO(null, "Task " + i, 1 + i % 5, List.of(), null, null, null);
+                task.setKey("task-" + i);
+                task.setDependencyKeys(i > 0 ? List.of("task-" + (i - 1)) : List.of());
+                tasks.add(task);
+            }
+
+            ProjectPlanDTO projectPlanDTO = new ProjectPlanDTO();
+            projectPlanDTO.setName("Load " + plan);
+            projectPlanDTO.setProjectStartDate(LocalDate.of(2024, 10, 7));
+            projectPlanDTO.setTasks(tasks);
+            projectPlanIds.add(projectPlanService.createProjectPlan(projectPlanDTO).getId());
+        }
+    }
+
+    @Test
+    void retrieveAll() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri("/api/projects/retrieve-all?size=20&name=Load")).GET().build();
+        run("GET /retrieve-all", i -> request);
+    }
+
+    @Test
+    void addTask() throws Exception {
+        // Spread over the plans, so the requests are not all serialized on one plan lock
+        run("POST /add-task", i -> HttpRequest.newBuilder(uri("/api/projects/add-task"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(String.format(
+                        "{\"name\":\"Load task %s\",\"duration\":2,\"dependencies\":[],\"projectPlanId\":%s}",
+                        i, projectPlanIds.get(i % projectPlanIds.size()))))
+                .build());
+    }
+
+    private void run(String name, IntFunction<HttpRequest> requests) throws Exception {
+        send(requests, WARM_UP_REQUESTS);
+
+        long start = System.nanoTime();
+        long[] latencies = send(requests, REQUESTS);
+        long elapsedNanos = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        logger.info(String.format("%s, %s threads, %s clients: %.0f requests/s, p50 %.1f ms, p99 %.1f ms, max %.1f ms",
+                name, threadMode(), CONCURRENCY, REQUESTS / (elapsedNanos / 1_000_000_000.0),
+                millis(percentile(latencies, 50)), millis(percentile(latencies, 99)), millis(latencies[latencies.length - 1])));
+    }
+
+    // Sends the requests from a fixed number of client threads and returns the latency of each one
+    private long[] send(IntFunction<HttpRequest> requests, int count) throws Exception {
+        long[] latencies = new long[count];
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(CONCURRENCY);
+        try {
+            List<Future<?>> workers = new ArrayList<>(CONCURRENCY);
+            for (int client = 0; client < CONCURRENCY; client++) {
+                workers.add(clients.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+                        long sent = System.nanoTime();
+                        HttpResponse<Void> response = httpClient.send(requests.apply(i), HttpResponse.BodyHandlers.discarding());
+                        latencies[i] = System.nanoTime() - sent;
+                        assertEquals(200, response.statusCode());
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        return latencies;
+    }
+
+    private String threadMode() {
+        return environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false) ? "virtual" : "platform";
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * percentile / 100.0) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,100 @@
+package com.exist.scheduler.benchmark;
+
+import com.exist.scheduler.SchedulerApplication;
+import com.exist.scheduler.dto.ProjectPlanDTO;
+import com.exist.scheduler.dto.TaskDTO;
+import com.exist.scheduler.repository.ProjectPlanRepository;
+import com.exist.scheduler.service.ProjectPlanService;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Time from launch until the application is ready, against an empty database and one holding many plans, with
+// lazy and eager bean creation. The stored plans should not show up in the startup time.
+// The databases are H2 files under target/, so they survive between the starts of one run.
+// Run with: mvn test -Pbenchmark -Dtest=StartupBenchmarkTest -Dbenchmark.startup-plans=2000
+@Tag("benchmark")
+class StartupBenchmarkTest {
+
+    private static final int PLAN_COUNT = Integer.getInteger("benchmark.startup-plans", 2000);
+
+    private static final int TASKS_PER_PLAN = 20;
+
+    private static final int STARTS = 5;
+
+    Logger logger = LogManager.getLogger(StartupBenchmarkTest.class);
+
+    @Test
+    void startupTimeDoesNotGrowWithStoredPlans() {
+        String empty = "jdbc:h2:file:./target/startup-benchmark-empty;DB_CLOSE_ON_EXIT=FALSE";
+        String seeded = "jdbc:h2:file:./target/startup-benchmark-seeded;DB_CLOSE_ON_EXIT=FALSE";
+
+        try (ConfigurableApplicationContext context = start(empty, "create", true)) {
+            assertEquals(0, context.getBean(ProjectPlanRepository.class).count());
+        }
+        try (ConfigurableApplicationContext context = start(seeded, "create", true)) {
+            seed(context.getBean(ProjectPlanService.class));
+            assertEquals(PLAN_COUNT, context.getBean(ProjectPlanRepository.class).count());
+        }
+
+        long emptyLazy = medianStartMillis(empty, true);
+        long seededLazy = medianStartMillis(seeded, true);
+        long seededEager = medianStartMillis(seeded, false);
+
+        logger.info(String.format("Startup, median of %s: empty database %s ms, %s plans %s ms (lazy), %s ms (eager)",
+                STARTS, emptyLazy, PLAN_COUNT, seededLazy, seededEager));
+    }
+
+    private long medianStartMillis(String url, boolean lazy) {
+        long[] millis = new long[STARTS];
+        for (int i = 0; i < STARTS; i++) {
+            long start = System.nanoTime();
+            try (ConfigurableApplicationContext context = start(url, "update", lazy)) {
+                millis[i] = (System.nanoTime() - start) / 1_000_000;
+            }
+        }
+        Arrays.sort(millis);
+        return millis[STARTS / 2];
+    }
+
+    private static ConfigurableApplicationContext start(String url, String ddlAuto, boolean lazy) {
+        return new SpringApplicationBuilder(SchedulerApplication.class)
+                .properties(
+                        "spring.datasource.url=" + url,
+                        "spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                        "spring.jpa.show-sql=false",
+                        "spring.main.lazy-initialization=" + lazy,
+                        "spring.main.banner-mode=off",
+                        "spring.devtools.restart.enabled=false",
+                        "server.port=0")
+                .run();
+    }
+
+    private static void seed(ProjectPlanService projectPlanService) {
+        for (int plan = 0; plan < PLAN_COUNT; plan++) {
+            List<TaskDTO> tasks = new ArrayList<>(TASKS_PER_PLAN);
+            for (int i = 0; i < TASKS_PER_PLAN; i++) {
+                TaskDTO task = new TaskDTO(null, "Task " + i, 1 + i % 5, List.of(), null, null, null);
+                task.setKey("task-" + i);
+                task.setDependencyKeys(i > 0 ? List.of("task-" + (i - 1)) : List.of());
+                tasks.add(task);
+            }
+
+            ProjectPlanDTO projectPlanDTO = new ProjectPlanDTO();
+            projectPlanDTO.setName("Stored plan " + plan);
+            projectPlanDTO.setProjectStartDate(LocalDate.of(2024, 10, 7));
+            projectPlanDTO.setTasks(tasks);
+            projectPlanService.createProjectPlan(projectPlanDTO);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.exist.scheduler.benchmark;
+
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.test.context.ActiveProfiles;
+
+// The same load with requests and recalculations on virtual threads, for comparison with the platform-thread run
+@EnabledForJreRange(min = JRE.JAVA_21)
+@ActiveProfiles("virtual-threads")
+class VirtualThreadRequestLoadBenchmarkTest extends RequestLoadBenchmarkTest {
+}
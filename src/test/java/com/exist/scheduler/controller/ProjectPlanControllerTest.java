@@ -1,19 +1,53 @@
 package com.exist.scheduler.controller;
 
 import com.exist.scheduler.dto.ProjectPlanDTO;
+import com.exist.scheduler.dto.ProjectPlanFilter;
+import com.exist.scheduler.dto.ScenarioDTO;
+import com.exist.scheduler.dto.TaskBatchDTO;
 import com.exist.scheduler.dto.TaskDTO;
+import com.exist.scheduler.model.BulkRecalculationJob;
+import com.exist.scheduler.model.CacheStats;
+import com.exist.scheduler.model.CriticalPathDetails;
+import com.exist.scheduler.model.ProjectPlanDetails;
+import com.exist.scheduler.model.ProjectPlanImportResult;
+import com.exist.scheduler.model.RecalculationJob;
+import com.exist.scheduler.model.RecalculationResult;
+import com.exist.scheduler.model.RecalculationStatus;
+import com.exist.scheduler.model.ScenarioResult;
+import com.exist.scheduler.model.ScheduleRiskAnalysis;
+import com.exist.scheduler.model.TaskBatchResult;
+import com.exist.scheduler.model.TaskCriticality;
+import com.exist.scheduler.model.TaskOperationResult;
+import com.exist.scheduler.model.TaskScenarioDelta;
+import com.exist.scheduler.service.BulkRecalculationService;
 import com.exist.scheduler.service.ProjectPlanService;
+import com.exist.scheduler.service.ProjectPlanTransferService;
+import com.exist.scheduler.service.RecalculationQueue;
+import com.exist.scheduler.service.ScenarioService;
+import com.exist.scheduler.service.ScheduleRiskService;
+import com.exist.scheduler.service.TaskBatchService;
+import com.exist.scheduler.service.TaskRecordFormat;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.Collections;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -29,6 +63,24 @@ class ProjectPlanControllerTest {
     @MockBean
     private ProjectPlanService projectPlanService;
 
+    @MockBean
+    private RecalculationQueue recalculationQueue;
+
+    @MockBean
+    private TaskBatchService taskBatchService;
+
+    @MockBean
+    private ProjectPlanTransferService projectPlanTransferService;
+
+    @MockBean
+    private BulkRecalculationService bulkRecalculationService;
+
+    @MockBean
+    private ScenarioService scenarioService;
+
+    @MockBean
+    private ScheduleRiskService scheduleRiskService;
+
     // Test for createProjectPlan endpoint
     @Test
     void createProjectPlan_Success() throws Exception {
@@ -52,7 +104,7 @@ class ProjectPlanControllerTest {
         TaskDTO taskDTO = new TaskDTO();
         taskDTO.setProjectPlanId(1L);
 
-        doNothing().when(projectPlanService).addTaskToProjectPlan(any(TaskDTO.class));
+        when(projectPlanService.addTaskToProjectPlan(any(TaskDTO.class))).thenReturn(new RecalculationResult(1, 1));
 
         String requestBody = "{\"taskName\":\"Development\",\"duration\":10,\"projectPlanId\":1}";
 
@@ -60,7 +112,7 @@ class ProjectPlanControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(requestBody))
                 .andExpect(status().isOk())
-                .andExpect(content().string("Task added to project plan with ID: 1"))
+                .andExpect(content().string("Task added to project plan with ID: 1. Tasks recalculated: 1, dates changed: 1"))
                 .andDo(print());
     }
 
@@ -86,15 +138,159 @@ class ProjectPlanControllerTest {
     // Test for retrieveAllProjectPlan endpoint
     @Test
     void retrieveAllProjectPlan_Success() throws Exception {
-        when(projectPlanService.toProjectPlanDetails()).thenReturn(Collections.emptyList());
+        when(projectPlanService.toProjectPlanDetails(any(ProjectPlanFilter.class), isNull(), eq(50))).thenReturn(Collections.emptyList());
 
         mockMvc.perform(get("/api/projects/retrieve-all")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.message").value("All Project Plans"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist())
                 .andDo(print());
     }
 
+    @Test
+    void retrieveAllProjectPlan_FullPageReturnsCursor() throws Exception {
+        ProjectPlanDetails first = new ProjectPlanDetails();
+        first.setProjectId(4L);
+        ProjectPlanDetails second = new ProjectPlanDetails();
+        second.setProjectId(7L);
+        ProjectPlanFilter filter = new ProjectPlanFilter("web", LocalDate.of(2024, 10, 1), null);
+        when(projectPlanService.toProjectPlanDetails(filter, 3L, 2)).thenReturn(List.of(first, second));
+
+        mockMvc.perform(get("/api/projects/retrieve-all")
+                        .param("afterId", "3")
+                        .param("size", "2")
+                        .param("name", "web")
+                        .param("from", "2024-10-01"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.projectPlans.length()").value(2))
+                .andExpect(jsonPath("$.nextCursor").value(7));
+    }
+
+    @Test
+    void retrieveAllProjectPlan_PageSizeTooLarge() throws Exception {
+        mockMvc.perform(get("/api/projects/retrieve-all")
+                        .param("size", "501"))
+                .andExpect(status().isBadRequest());
+
+        verify(projectPlanService, never()).toProjectPlanDetails(any(), any(), anyInt());
+    }
+
+    @Test
+    void streamAllProjectPlans_WritesOnePlanPerLine() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ProjectPlanDetails> consumer = invocation.getArgument(1);
+            for (long id = 1; id <= 2; id++) {
+                ProjectPlanDetails planDetails = new ProjectPlanDetails();
+                planDetails.setProjectId(id);
+                consumer.accept(planDetails);
+            }
+            return null;
+        }).when(projectPlanService).streamProjectPlanDetails(any(ProjectPlanFilter.class), any());
+
+        MvcResult result = mockMvc.perform(get("/api/projects/retrieve-all/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"projectId\":1"));
+        assertTrue(lines[1].contains("\"projectId\":2"));
+    }
+
+    @Test
+    void importProjectPlan_Success() throws Exception {
+        when(projectPlanTransferService.importPlan(eq("Migrated"), eq(LocalDate.of(2024, 10, 7)), eq(TaskRecordFormat.NDJSON),
+                any(InputStream.class))).thenReturn(new ProjectPlanImportResult(4L, 2, 1));
+
+        mockMvc.perform(post("/api/projects/import")
+                        .param("name", "Migrated")
+                        .param("projectStartDate", "2024-10-07")
+                        .param("format", "ndjson")
+                        .contentType("application/x-ndjson")
+                        .content("{\"key\":\"a\",\"name\":\"A\",\"duration\":1}\n{\"key\":\"b\",\"name\":\"B\",\"duration\":2,\"dependencies\":[\"a\"]}\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Project plan imported with ID: 4. Tasks imported: 2, dependencies: 1"));
+    }
+
+    @Test
+    void importProjectPlan_UnknownDependency() throws Exception {
+        when(projectPlanTransferService.importPlan(eq("Migrated"), isNull(), eq(TaskRecordFormat.CSV), any(InputStream.class)))
+                .thenThrow(new NoSuchElementException("Tasks with keys: [x] not found in import"));
+
+        mockMvc.perform(post("/api/projects/import")
+                        .param("name", "Migrated")
+                        .contentType("text/csv")
+                        .content("key,name,duration,dependencies\na,A,1,x\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Tasks with keys: [x] not found in import"));
+    }
+
+    @Test
+    void exportProjectPlan_StreamsRecords() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(2);
+            output.write("key,name,duration,dependencies,taskStartDate,taskEndDate\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(projectPlanTransferService).exportPlan(eq(1L), eq(TaskRecordFormat.CSV), any());
+
+        MvcResult result = mockMvc.perform(get("/api/projects/{projectId}/export", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string("key,name,duration,dependencies,taskStartDate,taskEndDate\n"));
+    }
+
+    @Test
+    void exportProjectPlan_ProjectNotFound() throws Exception {
+        doThrow(new NoSuchElementException("Project Plan with ID: 9 not found"))
+                .when(projectPlanTransferService).requireProjectPlan(9L);
+
+        mockMvc.perform(get("/api/projects/{projectId}/export", 9L).param("format", "ndjson"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Project Plan with ID: 9 not found"));
+    }
+
+    @Test
+    void getDetailsCacheStats() throws Exception {
+        when(projectPlanService.getDetailsCacheStats()).thenReturn(new CacheStats(3, 1, 0, 1, 1000));
+
+        mockMvc.perform(get("/api/projects/details-cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hits").value(3))
+                .andExpect(jsonPath("$.misses").value(1))
+                .andExpect(jsonPath("$.hitRate").value(0.75));
+    }
+
+    @Test
+    void getCriticalPath_Success() throws Exception {
+        CriticalPathDetails criticalPathDetails = new CriticalPathDetails();
+        criticalPathDetails.setProjectId(1L);
+        criticalPathDetails.setCriticalPath(List.of("Design", "Development"));
+        when(projectPlanService.analyzeCriticalPath(1L)).thenReturn(criticalPathDetails);
+
+        mockMvc.perform(get("/api/projects/{projectId}/critical-path", 1L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.criticalPath[1]").value("Development"));
+    }
+
+    @Test
+    void getCriticalPath_ProjectNotFound() throws Exception {
+        when(projectPlanService.analyzeCriticalPath(9L))
+                .thenThrow(new NoSuchElementException("Project Plan with ID: 9 not found"));
+
+        mockMvc.perform(get("/api/projects/{projectId}/critical-path", 9L))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Project Plan with ID: 9 not found"));
+    }
+
     @Test
     void testUpdateTask() throws Exception {
         Long taskId = 1L;
@@ -102,14 +298,14 @@ class ProjectPlanControllerTest {
         taskDTO.setName("Updated Task");
         taskDTO.setDuration(5);
 
-        doNothing().when(projectPlanService).updateTask(taskId, taskDTO);
+        when(projectPlanService.updateTask(taskId, taskDTO)).thenReturn(new RecalculationResult(3, 2));
 
         mockMvc.perform(put("/api/projects/tasks/{taskId}", taskId)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"name\":\"Updated Task\",\"duration\":5}")
                 )
                 .andExpect(status().isOk())
-                .andExpect(content().string("Task updated and affected dates recalculated."));
+                .andExpect(content().string("Task updated and affected dates recalculated. Tasks recalculated: 3, dates changed: 2"));
 
         verify(projectPlanService).updateTask(taskId, taskDTO);
     }
@@ -132,6 +328,177 @@ class ProjectPlanControllerTest {
         verify(projectPlanService).updateProject(projectId, projectPlanDTO);
     }
 
+    @Test
+    void testUpdateTask_ConcurrentEditReturnsConflict() throws Exception {
+        when(projectPlanService.updateTask(eq(1L), any(TaskDTO.class)))
+                .thenThrow(new OptimisticLockingFailureException("Task with ID: 1 was moved to another project plan, please retry"));
+
+        mockMvc.perform(put("/api/projects/tasks/{taskId}", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Updated Task\",\"duration\":5}")
+                )
+                .andExpect(status().isConflict())
+                .andExpect(content().string("Task with ID: 1 was moved to another project plan, please retry"));
+    }
+
+    @Test
+    void testUpdateTask_AsyncQueuesRecalculation() throws Exception {
+        when(projectPlanService.updateTaskDeferred(eq(1L), any(TaskDTO.class))).thenReturn(List.of(2L));
+        when(recalculationQueue.submit(List.of(2L))).thenReturn(List.of(new RecalculationJob(7L, 2L)));
+
+        mockMvc.perform(put("/api/projects/tasks/{taskId}", 1L)
+                        .param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Updated Task\",\"duration\":5,\"projectPlanId\":2}")
+                )
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/projects/recalculations/7"))
+                .andExpect(content().string("Task updated. Recalculation queued with job ID: 7"));
+
+        verify(projectPlanService, never()).updateTask(any(), any());
+    }
+
+    @Test
+    void testGetRecalculationStatus() throws Exception {
+        RecalculationJob queued = new RecalculationJob(7L, 2L);
+        queued.addEdit();
+        when(recalculationQueue.getStatus(2L)).thenReturn(new RecalculationStatus(2L, queued, null));
+
+        mockMvc.perform(get("/api/projects/{projectId}/recalculation", 2L))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fresh").value(false))
+                .andExpect(jsonPath("$.currentJob.jobId").value(7))
+                .andExpect(jsonPath("$.currentJob.status").value("QUEUED"))
+                .andExpect(jsonPath("$.currentJob.edits").value(2));
+    }
+
+    @Test
+    void testGetRecalculationJob_NotFound() throws Exception {
+        when(recalculationQueue.getJob(9L)).thenThrow(new NoSuchElementException("Recalculation job with ID: 9 not found"));
+
+        mockMvc.perform(get("/api/projects/recalculations/{jobId}", 9L))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Recalculation job with ID: 9 not found"));
+    }
+
+    @Test
+    void recalculateAll_ReturnsJob() throws Exception {
+        BulkRecalculationJob job = new BulkRecalculationJob(3L, 8);
+        job.start(120);
+        job.batchDone(50, new RecalculationResult(400, 12));
+        when(bulkRecalculationService.recalculateAll()).thenReturn(job);
+
+        mockMvc.perform(post("/api/projects/recalculate-all"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/projects/recalculate-all/3"))
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.plansTotal").value(120))
+                .andExpect(jsonPath("$.plansDone").value(50))
+                .andExpect(jsonPath("$.tasksChanged").value(12))
+                .andExpect(jsonPath("$.parallelism").value(8));
+    }
+
+    @Test
+    void getBulkRecalculationJob_NotFound() throws Exception {
+        when(bulkRecalculationService.getJob(4L)).thenThrow(new NoSuchElementException("Bulk recalculation job with ID: 4 not found"));
+
+        mockMvc.perform(get("/api/projects/recalculate-all/{jobId}", 4L))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Bulk recalculation job with ID: 4 not found"));
+    }
+
+    @Test
+    void simulateScenario_ReturnsDeltas() throws Exception {
+        LocalDate start = LocalDate.of(2024, 10, 7);
+        when(scenarioService.simulate(eq(1L), any(ScenarioDTO.class))).thenReturn(new ScenarioResult(1L,
+                LocalDate.of(2024, 11, 1), LocalDate.of(2024, 11, 13), 8, 4, List.of(
+                        new TaskScenarioDelta(7L, "Coding", start, LocalDate.of(2024, 10, 29), start,
+                                LocalDate.of(2024, 11, 8), 0, 8))));
+
+        mockMvc.perform(post("/api/projects/{projectId}/scenarios", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"tasks\":[{\"taskId\":7,\"duration\":20}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.projectEndDelta").value(8))
+                .andExpect(jsonPath("$.tasksChanged").value(1))
+                .andExpect(jsonPath("$.tasks[0].taskName").value("Coding"))
+                .andExpect(jsonPath("$.tasks[0].endDelta").value(8));
+    }
+
+    @Test
+    void simulateScenario_Cycle() throws Exception {
+        when(scenarioService.simulate(eq(1L), any(ScenarioDTO.class)))
+                .thenThrow(new IllegalStateException("Circular dependency detected: Task (7) -> Task (8) -> Task (7)"));
+
+        mockMvc.perform(post("/api/projects/{projectId}/scenarios", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"tasks\":[{\"taskId\":7,\"addedDependencies\":[8]}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Circular dependency detected: Task (7) -> Task (8) -> Task (7)"));
+    }
+
+    @Test
+    void analyzeScheduleRisk_ReturnsPercentiles() throws Exception {
+        when(scheduleRiskService.analyze(1L, 5000, "pert", 42L)).thenReturn(new ScheduleRiskAnalysis(1L, 5000, "pert",
+                42L, LocalDate.of(2024, 11, 1), 0.31, LocalDate.of(2024, 11, 5), LocalDate.of(2024, 11, 8),
+                LocalDate.of(2024, 11, 13), List.of(new TaskCriticality(7L, "Coding", 1.0))));
+
+        mockMvc.perform(get("/api/projects/{projectId}/risk", 1L)
+                        .param("iterations", "5000")
+                        .param("distribution", "pert")
+                        .param("seed", "42"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.seed").value(42))
+                .andExpect(jsonPath("$.p80EndDate").value("2024-11-08"))
+                .andExpect(jsonPath("$.tasks[0].taskName").value("Coding"))
+                .andExpect(jsonPath("$.tasks[0].criticalityIndex").value(1.0));
+    }
+
+    @Test
+    void analyzeScheduleRisk_UnknownDistribution() throws Exception {
+        when(scheduleRiskService.analyze(1L, 10000, "normal", null))
+                .thenThrow(new IllegalArgumentException("Distribution must be one of triangular, pert, not: normal"));
+
+        mockMvc.perform(get("/api/projects/{projectId}/risk", 1L).param("distribution", "normal"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Distribution must be one of triangular, pert, not: normal"));
+    }
+
+    @Test
+    void applyTaskBatch_Success() throws Exception {
+        when(taskBatchService.applyBatch(eq(1L), any(TaskBatchDTO.class))).thenReturn(new TaskBatchResult(1L, true,
+                new RecalculationResult(6, 3), List.of(
+                        new TaskOperationResult(0, "ADD", 10L, "review", null),
+                        new TaskOperationResult(1, "DELETE", 4L, null, null))));
+
+        String requestBody = "{\"operations\":[" +
+                "{\"op\":\"ADD\",\"key\":\"review\",\"name\":\"Review\",\"duration\":2,\"dependencies\":[3]}," +
+                "{\"op\":\"DELETE\",\"taskId\":4}]}";
+
+        mockMvc.perform(post("/api/projects/{projectId}/tasks/batch", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(requestBody))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(true))
+                .andExpect(jsonPath("$.tasksRecalculated").value(6))
+                .andExpect(jsonPath("$.results[0].taskId").value(10))
+                .andExpect(jsonPath("$.results[1].op").value("DELETE"));
+    }
+
+    @Test
+    void applyTaskBatch_RejectedItems() throws Exception {
+        when(taskBatchService.applyBatch(eq(1L), any(TaskBatchDTO.class))).thenReturn(new TaskBatchResult(1L, false,
+                new RecalculationResult(0, 0), List.of(
+                        new TaskOperationResult(0, "UPDATE", 99L, null, "Task with ID: 99 not found in project plan with ID: 1"))));
+
+        mockMvc.perform(post("/api/projects/{projectId}/tasks/batch", 1L)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"operations\":[{\"op\":\"UPDATE\",\"taskId\":99,\"name\":\"Unknown\",\"duration\":1}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.applied").value(false))
+                .andExpect(jsonPath("$.results[0].error").value("Task with ID: 99 not found in project plan with ID: 1"));
+    }
+
     @Test
     void testDeleteTask() throws Exception {
         Long taskId = 1L;
@@ -0,0 +1,209 @@
+package com.exist.scheduler.controller;
+
+import com.exist.scheduler.dto.ProjectPlanDTO;
+import com.exist.scheduler.dto.TaskDTO;
+import com.exist.scheduler.service.ProjectPlanService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Each endpoint has to run a fixed number of statements, however many tasks the plans hold
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.exist.scheduler.controller.StatementCounter"
+})
+@AutoConfigureMockMvc
+class ProjectPlanQueryCountTest {
+
+    private static final int SMALL_PLAN = 5;
+
+    private static final int LARGE_PLAN = 120;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProjectPlanService projectPlanService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void retrieveAll_UsesThreeStatementsPerPage() throws Exception {
+        createPlan("Listing small", SMALL_PLAN);
+        createPlan("Listing large", LARGE_PLAN);
+
+        int statements = countStatements(get("/api/projects/retrieve-all").param("name", "Listing"));
+
+        // Plan page, tasks of the page, dependency names of the page
+        assertEquals(3, statements);
+    }
+
+    @Test
+    void retrieveAll_UnchangedPlansOnlyNeedThePageQuery() throws Exception {
+        ProjectPlanDTO edited = createPlan("Cached edited", SMALL_PLAN);
+        createPlan("Cached untouched", LARGE_PLAN);
+        countStatements(get("/api/projects/retrieve-all").param("name", "Cached"));
+
+        assertEquals(1, countStatements(get("/api/projects/retrieve-all").param("name", "Cached")));
+
+        countUpdateTask(edited);
+        assertEquals(3, countStatements(get("/api/projects/retrieve-all").param("name", "Cached")));
+    }
+
+    @Test
+    void retrieveAll_PublishesItsStatementCount() throws Exception {
+        createPlan("Metered", SMALL_PLAN);
+        double before = requestQueries().totalAmount();
+        long requestsBefore = requestQueries().count();
+
+        int statements = countStatements(get("/api/projects/retrieve-all").param("name", "Metered"));
+
+        assertEquals(requestsBefore + 1, requestQueries().count());
+        assertEquals(statements, requestQueries().totalAmount() - before);
+    }
+
+    @Test
+    void streamAll_UsesThreeStatementsPerChunk() throws Exception {
+        createPlan("Streaming small", SMALL_PLAN);
+        createPlan("Streaming large", LARGE_PLAN);
+
+        StatementCounter.reset();
+        MvcResult result = mockMvc.perform(get("/api/projects/retrieve-all/stream").param("name", "Streaming"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        assertEquals(3, StatementCounter.count());
+    }
+
+    @Test
+    void updateTask_DoesNotDependOnPlanSize() throws Exception {
+        int small = countUpdateTask(createPlan("Update task small", SMALL_PLAN));
+        int large = countUpdateTask(createPlan("Update task large", LARGE_PLAN));
+
+        assertEquals(small, large);
+    }
+
+    @Test
+    void addTask_DoesNotDependOnPlanSize() throws Exception {
+        int small = countAddTask(createPlan("Add task small", SMALL_PLAN));
+        int large = countAddTask(createPlan("Add task large", LARGE_PLAN));
+
+        assertEquals(small, large);
+    }
+
+    @Test
+    void updateProject_DoesNotDependOnPlanSize() throws Exception {
+        int small = countUpdateProject(createPlan("Update project small", SMALL_PLAN));
+        int large = countUpdateProject(createPlan("Update project large", LARGE_PLAN));
+
+        assertEquals(small, large);
+    }
+
+    @Test
+    void deleteTask_DoesNotLoadDependencyGraph() throws Exception {
+        int small = countDeleteTask(createPlan("Delete task small", SMALL_PLAN));
+        int large = countDeleteTask(createPlan("Delete task large", LARGE_PLAN));
+
+        assertEquals(small, large);
+    }
+
+    @Test
+    void taskBatch_DoesNotDependOnBatchSize() throws Exception {
+        int small = countTaskBatch(createPlan("Batch small", SMALL_PLAN), 10);
+        int large = countTaskBatch(createPlan("Batch large", SMALL_PLAN), 40);
+
+        assertEquals(small, large);
+    }
+
+    private int countUpdateTask(ProjectPlanDTO projectPlan) throws Exception {
+        List<TaskDTO> tasks = projectPlan.getTasks();
+        TaskDTO last = tasks.get(tasks.size() - 2);
+        TaskDTO previous = tasks.get(tasks.size() - 3);
+        return countStatements(put("/api/projects/tasks/{taskId}", last.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format("{\"name\":\"%s\",\"duration\":7,\"dependencies\":[%s],\"projectPlanId\":%s}",
+                        last.getName(), previous.getId(), projectPlan.getId())));
+    }
+
+    private int countAddTask(ProjectPlanDTO projectPlan) throws Exception {
+        List<TaskDTO> tasks = projectPlan.getTasks();
+        return countStatements(post("/api/projects/add-task")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format("{\"name\":\"Extra\",\"duration\":2,\"dependencies\":[%s],\"projectPlanId\":%s}",
+                        tasks.get(tasks.size() - 2).getId(), projectPlan.getId())));
+    }
+
+    private int countUpdateProject(ProjectPlanDTO projectPlan) throws Exception {
+        return countStatements(put("/api/projects/{projectId}", projectPlan.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(String.format("{\"name\":\"%s renamed\",\"projectStartDate\":\"2024-10-07\"}", projectPlan.getName())));
+    }
+
+    private int countDeleteTask(ProjectPlanDTO projectPlan) throws Exception {
+        List<TaskDTO> tasks = projectPlan.getTasks();
+        return countStatements(delete("/api/projects/tasks/{taskId}", tasks.get(tasks.size() - 1).getId()));
+    }
+
+    // Chains the given number of new tasks after the last task of the chain
+    private int countTaskBatch(ProjectPlanDTO projectPlan, int adds) throws Exception {
+        List<TaskDTO> tasks = projectPlan.getTasks();
+        StringBuilder operations = new StringBuilder();
+        for (int i = 0; i < adds; i++) {
+            operations.append(i > 0 ? "," : "").append(i > 0
+                    ? String.format("{\"op\":\"ADD\",\"key\":\"new-%s\",\"name\":\"New %s\",\"duration\":2,\"dependencyKeys\":[\"new-%s\"]}", i, i, i - 1)
+                    : String.format("{\"op\":\"ADD\",\"key\":\"new-0\",\"name\":\"New 0\",\"duration\":2,\"dependencies\":[%s]}", tasks.get(tasks.size() - 2).getId()));
+        }
+        return countStatements(post("/api/projects/{projectId}/tasks/batch", projectPlan.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"operations\":[" + operations + "]}"));
+    }
+
+    private int countStatements(RequestBuilder request) throws Exception {
+        StatementCounter.reset();
+        mockMvc.perform(request).andExpect(status().isOk());
+        return StatementCounter.count();
+    }
+
+    private DistributionSummary requestQueries() {
+        return DistributionSummary.builder("scheduler.request.queries")
+                .baseUnit("statements")
+                .tags("method", "GET", "uri", "/api/projects/retrieve-all")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // A chain of tasks followed by one standalone task nothing depends on
+    private ProjectPlanDTO createPlan(String name, int chainLength) {
+        List<TaskDTO> tasks = new ArrayList<>();
+        for (int i = 0; i < chainLength; i++) {
+            TaskDTO task = new TaskDTO(null, "Task " + i, 1 + i % 5, List.of(), null, null, null);
+            task.setKey("task-" + i);
+            task.setDependencyKeys(i > 0 ? List.of("task-" + (i - 1)) : List.of());
+            tasks.add(task);
+        }
+        tasks.add(new TaskDTO(null, "Standalone", 3, List.of(), null, null, null));
+
+        ProjectPlanDTO projectPlanDTO = new ProjectPlanDTO();
+        projectPlanDTO.setName(name);
+        projectPlanDTO.setProjectStartDate(LocalDate.of(2024, 10, 7));
+        projectPlanDTO.setTasks(tasks);
+        return projectPlanService.createProjectPlan(projectPlanDTO);
+    }
+}
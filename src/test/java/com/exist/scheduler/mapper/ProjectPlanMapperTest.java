@@ -0,0 +1,166 @@
+package com.exist.scheduler.mapper;
+
+import com.exist.scheduler.dto.ProjectPlanDTO;
+import com.exist.scheduler.dto.TaskDTO;
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.Task;
+import com.exist.scheduler.repository.ProjectPlanRepository;
+import com.exist.scheduler.repository.TaskRepository;
+import com.exist.scheduler.service.SchedulerMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProjectPlanMapperTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private ProjectPlanRepository projectPlanRepository;
+
+    @Spy
+    private SchedulerMetrics schedulerMetrics = new SchedulerMetrics(new SimpleMeterRegistry(), ObservationRegistry.NOOP);
+
+    @InjectMocks
+    private ProjectPlanMapper projectPlanMapper;
+
+    private ProjectPlan projectPlan;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        projectPlan = new ProjectPlan();
+        projectPlan.setId(1L);
+        projectPlan.setTasks(new ArrayList<>());
+    }
+
+    private Task task(Long id) {
+        Task task = new Task("Task " + id, 1, new ArrayList<>(), projectPlan);
+        task.setId(id);
+        return task;
+    }
+
+    private TaskDTO taskDTO(Long... dependencies) {
+        return new TaskDTO(null, "New Task", 1, List.of(dependencies), 1L, null, null);
+    }
+
+    private ProjectPlanDTO projectPlanDTO(TaskDTO... tasks) {
+        ProjectPlanDTO projectPlanDTO = new ProjectPlanDTO();
+        projectPlanDTO.setName("New Project");
+        projectPlanDTO.setTasks(List.of(tasks));
+        return projectPlanDTO;
+    }
+
+    private void stubSaves() {
+        when(projectPlanRepository.save(any(ProjectPlan.class))).thenAnswer(invocation -> {
+            ProjectPlan saved = invocation.getArgument(0);
+            saved.setId(1L);
+            return saved;
+        });
+        when(taskRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void toProjectPlanEntityLinksTasksByClientKey() {
+        stubSaves();
+        TaskDTO testing = taskDTO();
+        testing.setKey("testing");
+        testing.setDependencyKeys(List.of("development"));
+        TaskDTO development = taskDTO();
+        development.setKey("development");
+
+        ProjectPlan created = projectPlanMapper.toProjectPlanEntity(projectPlanDTO(testing, development));
+
+        assertEquals(2, created.getTasks().size());
+        assertSame(created.getTasks().get(1), created.getTasks().get(0).getDependencies().get(0));
+        verify(taskRepository, never()).findAllByProjectPlanIdAndIdIn(anyLong(), anyCollection());
+    }
+
+    @Test
+    void toProjectPlanEntityReportsUnknownAndDuplicateKeys() {
+        stubSaves();
+        TaskDTO design = taskDTO();
+        design.setKey("design");
+        design.setDependencyKeys(List.of("research", "budget"));
+
+        NoSuchElementException unknown = assertThrows(NoSuchElementException.class,
+                () -> projectPlanMapper.toProjectPlanEntity(projectPlanDTO(design)));
+        assertEquals("Tasks with keys: [research, budget] not found in request", unknown.getMessage());
+
+        TaskDTO copy = taskDTO();
+        copy.setKey("design");
+        IllegalArgumentException duplicate = assertThrows(IllegalArgumentException.class,
+                () -> projectPlanMapper.toProjectPlanEntity(projectPlanDTO(taskDTO(), copy, copy)));
+        assertEquals("Task keys: [design] are used more than once", duplicate.getMessage());
+    }
+
+    @Test
+    void resolveDependenciesUsesOneQueryForTheWholeBatch() {
+        when(taskRepository.findAllByProjectPlanIdAndIdIn(eq(1L), anyCollection()))
+                .thenReturn(List.of(task(1L), task(2L), task(3L)));
+
+        Map<Long, Task> resolved = projectPlanMapper.resolveDependencies(
+                List.of(taskDTO(1L, 2L), taskDTO(2L, 3L)), projectPlan, Map.of());
+
+        assertEquals(Set.of(1L, 2L, 3L), resolved.keySet());
+        verify(taskRepository, times(1)).findAllByProjectPlanIdAndIdIn(1L, Set.of(1L, 2L, 3L));
+        verify(taskRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void resolveDependenciesTakesKnownTasksFromIdentityMap() {
+        Task known = task(7L);
+
+        List<Task> dependencies = projectPlanMapper.toTaskDependencies(taskDTO(7L),
+                projectPlanMapper.resolveDependencies(List.of(taskDTO(7L)), projectPlan, Map.of(7L, known)));
+
+        assertEquals(List.of(known), dependencies);
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    void resolveDependenciesReportsAllUnresolvedIdsTogether() {
+        when(taskRepository.findAllByProjectPlanIdAndIdIn(eq(1L), anyCollection())).thenReturn(List.of(task(1L)));
+
+        NoSuchElementException exception = assertThrows(NoSuchElementException.class,
+                () -> projectPlanMapper.resolveDependencies(List.of(taskDTO(1L, 2L), taskDTO(3L)), projectPlan, Map.of()));
+
+        assertEquals("Tasks with IDs: [2, 3] not found in project plan with ID: 1", exception.getMessage());
+    }
+
+    @Test
+    void toTaskEntityKeepsEstimatesThatBracketTheDuration() {
+        TaskDTO estimated = taskDTO();
+        estimated.setOptimisticDuration(0);
+        estimated.setPessimisticDuration(4);
+
+        Task task = projectPlanMapper.toTaskEntity(estimated, projectPlan);
+
+        assertEquals(0, task.getOptimisticDuration());
+        assertEquals(4, task.getPessimisticDuration());
+        assertNull(projectPlanMapper.toTaskEntity(taskDTO(), projectPlan).getOptimisticDuration());
+
+        TaskDTO inverted = taskDTO();
+        inverted.setOptimisticDuration(2);
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> projectPlanMapper.toTaskEntity(inverted, projectPlan));
+        assertEquals("Task New Task needs 0 <= optimistic duration <= duration <= pessimistic duration, not: 2 <= 1 <= null",
+                exception.getMessage());
+    }
+}
@@ -0,0 +1,61 @@
+package com.exist.scheduler.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CapacityTreeTest {
+
+    @Test
+    void matchesPlainArrayOnRandomBookings() {
+        Random random = new Random(3);
+        CapacityTree tree = new CapacityTree(4);
+        int[] usage = new int[4096];
+
+        for (int step = 0; step < 5000; step++) {
+            int first = random.nextInt(2000);
+            int last = first + random.nextInt(200);
+            if (random.nextBoolean()) {
+                int units = 1 + random.nextInt(4);
+                tree.add(first, last, units);
+                for (int day = first; day <= last; day++) {
+                    usage[day] += units;
+                }
+            } else if (random.nextBoolean()) {
+                int limit = random.nextInt(30);
+                int expected = first;
+                while (expected < usage.length && usage[expected] > limit) {
+                    expected++;
+                }
+                assertEquals(expected, tree.firstAtMost(first, limit), "from " + first + " at most " + limit);
+            } else {
+                int limit = random.nextInt(30);
+                int expected = -1;
+                for (int day = last; day >= first && expected < 0; day--) {
+                    if (usage[day] > limit) {
+                        expected = day;
+                    }
+                }
+                assertEquals(expected, tree.lastAbove(first, last, limit), first + ".." + last + " above " + limit);
+            }
+        }
+
+        for (int day = 0; day < usage.length; day++) {
+            assertEquals(usage[day], tree.usage(day), "day " + day);
+        }
+    }
+
+    @Test
+    void daysPastTheEndAreFree() {
+        CapacityTree tree = new CapacityTree(2);
+        tree.add(0, 1, 3);
+
+        assertEquals(1, tree.lastAbove(0, 100, 2));
+        assertEquals(-1, tree.lastAbove(2, 100, 0));
+        assertEquals(0, tree.usage(500));
+        assertEquals(2, tree.firstAtMost(0, 2));
+        assertEquals(500, tree.firstAtMost(500, 0));
+    }
+}
@@ -0,0 +1,89 @@
+package com.exist.scheduler.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HolidayCalendarTest {
+
+    // Day-by-day reference implementations the compiled calendar has to match
+    private static LocalDate addWorkingDaysByLoop(WorkingCalendar calendar, LocalDate startDate, int daysToAdd) {
+        LocalDate resultDate = startDate;
+        int addedDays = calendar.isWorkingDay(resultDate.toEpochDay()) ? 1 : 0;
+        while (addedDays < daysToAdd) {
+            resultDate = resultDate.plusDays(1);
+            if (calendar.isWorkingDay(resultDate.toEpochDay())) {
+                addedDays++;
+            }
+        }
+        return resultDate;
+    }
+
+    private static long countWorkingDaysByLoop(WorkingCalendar calendar, LocalDate start, LocalDate end) {
+        long workingDays = 0;
+        for (LocalDate current = start; !current.isAfter(end); current = current.plusDays(1)) {
+            if (calendar.isWorkingDay(current.toEpochDay())) {
+                workingDays++;
+            }
+        }
+        return workingDays;
+    }
+
+    @Test
+    void holidaysAreSkipped() {
+        // Christmas and Boxing Day 2024 fall on Wednesday and Thursday
+        HolidayCalendar calendar = new HolidayCalendar(new WorkingDayCalendar(),
+                List.of(LocalDate.of(2024, 12, 25), LocalDate.of(2024, 12, 26)));
+
+        assertFalse(calendar.isWorkingDay(LocalDate.of(2024, 12, 25).toEpochDay()));
+        assertEquals(LocalDate.of(2024, 12, 30), calendar.addWorkingDays(LocalDate.of(2024, 12, 23), 4));
+        assertEquals(3, calendar.countWorkingDays(LocalDate.of(2024, 12, 23), LocalDate.of(2024, 12, 29)));
+    }
+
+    @Test
+    void customWorkWeek() {
+        WorkingDayCalendar sundayToThursday = new WorkingDayCalendar(EnumSet.of(DayOfWeek.SUNDAY,
+                DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY));
+
+        assertFalse(sundayToThursday.isWorkingDay(LocalDate.of(2024, 10, 11).toEpochDay())); // Friday
+        assertTrue(sundayToThursday.isWorkingDay(LocalDate.of(2024, 10, 13).toEpochDay())); // Sunday
+        assertEquals(LocalDate.of(2024, 10, 14), sundayToThursday.addWorkingDays(LocalDate.of(2024, 10, 9), 4));
+    }
+
+    @Test
+    void emptyWorkWeekIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new WorkingDayCalendar(EnumSet.noneOf(DayOfWeek.class)));
+    }
+
+    @Test
+    void matchesDayByDayScanInsideAndAroundTheCompiledRange() {
+        Random random = new Random(42);
+        Set<LocalDate> holidays = new HashSet<>();
+        LocalDate first = LocalDate.of(2024, 1, 1);
+        for (int i = 0; i < 200; i++) {
+            holidays.add(first.plusDays(random.nextInt(700)));
+        }
+        WorkingDayCalendar workWeek = new WorkingDayCalendar(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY,
+                DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.SATURDAY));
+        HolidayCalendar calendar = new HolidayCalendar(workWeek, holidays);
+
+        for (int i = 0; i < 2000; i++) {
+            LocalDate start = first.plusDays(random.nextInt(900) - 100);
+            int days = random.nextInt(120);
+            assertEquals(addWorkingDaysByLoop(calendar, start, days), calendar.addWorkingDays(start, days),
+                    String.format("start=%s, days=%s", start, days));
+
+            LocalDate end = start.plusDays(random.nextInt(400) - 5);
+            assertEquals(countWorkingDaysByLoop(calendar, start, end), calendar.countWorkingDays(start, end),
+                    String.format("start=%s, end=%s", start, end));
+        }
+    }
+}
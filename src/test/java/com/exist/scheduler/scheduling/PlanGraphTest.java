@@ -0,0 +1,184 @@
+package com.exist.scheduler.scheduling;
+
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlanGraphTest {
+
+    private final ProjectPlan projectPlan = new ProjectPlan();
+
+    private Task task(Long id, String name, int duration, Task... dependencies) {
+        Task task = new Task(name, duration, new ArrayList<>(List.of(dependencies)), projectPlan);
+        task.setId(id);
+        return task;
+    }
+
+    @Test
+    void dependenciesAreStoredInListOrder() {
+        Task design = task(1L, "Design", 5);
+        Task review = task(2L, "Review", 1);
+        Task development = task(3L, "Development", 10, review, design);
+
+        PlanGraph graph = PlanGraph.of(List.of(development));
+
+        assertEquals(3, graph.size());
+        int node = graph.indexOf(development);
+        assertEquals(10, graph.duration(node));
+        assertEquals(2, graph.dependencyEnd(node) - graph.dependencyStart(node));
+        assertSame(review, graph.task(graph.dependency(graph.dependencyStart(node))));
+        assertSame(design, graph.task(graph.dependency(graph.dependencyStart(node) + 1)));
+        assertEquals(-1, graph.indexOf(task(4L, "Other", 1)));
+    }
+
+    @Test
+    void successorsMirrorDependencies() {
+        Task root = task(1L, "Root", 1);
+        Task left = task(2L, "Left", 1, root);
+        Task right = task(3L, "Right", 1, root);
+        Task join = task(4L, "Join", 1, left, right);
+
+        PlanGraph graph = PlanGraph.of(List.of(root, left, right, join));
+        int[][] successorLists = graph.successors();
+        int[] offsets = successorLists[0];
+        int[] successors = successorLists[1];
+
+        int rootNode = graph.indexOf(root);
+        assertEquals(2, offsets[rootNode + 1] - offsets[rootNode]);
+        assertSame(left, graph.task(successors[offsets[rootNode]]));
+        assertSame(right, graph.task(successors[offsets[rootNode] + 1]));
+        int joinNode = graph.indexOf(join);
+        assertEquals(0, offsets[joinNode + 1] - offsets[joinNode]);
+    }
+
+    @Test
+    void topologicalOrderOfSubsetIgnoresExcludedDependencies() {
+        Task design = task(1L, "Design", 5);
+        Task development = task(2L, "Development", 10, design);
+        Task testing = task(3L, "Testing", 3, development);
+
+        PlanGraph graph = PlanGraph.of(List.of(testing));
+        boolean[] included = new boolean[graph.size()];
+        included[graph.indexOf(development)] = true;
+        included[graph.indexOf(testing)] = true;
+
+        int[] order = graph.topologicalOrder(included, 2);
+
+        assertEquals(2, order.length);
+        assertSame(development, graph.task(order[0]));
+        assertSame(testing, graph.task(order[1]));
+    }
+
+    @Test
+    void graphOfTaskIdsHasNoEntitiesAndNamesIdsInCycles() {
+        // 10 <- 11 <- 12, and 13 on its own
+        PlanGraph graph = PlanGraph.of(new long[]{10, 11, 12, 13}, new int[]{2, 3, 1, 4},
+                new int[]{0, 0, 1, 2, 2}, new int[]{0, 1});
+
+        assertEquals(4, graph.size());
+        assertNull(graph.task(0));
+        assertEquals(1, graph.duration(2));
+        assertArrayEquals(new int[]{0, 3, 1, 2}, graph.topologicalOrder());
+
+        // 20 <- 21 <- 20
+        PlanGraph cyclic = PlanGraph.of(new long[]{20, 21}, new int[]{1, 1}, new int[]{0, 1, 2}, new int[]{1, 0});
+        IllegalStateException e = assertThrows(IllegalStateException.class, cyclic::topologicalOrder);
+        assertEquals("Circular dependency detected: Task (20) -> Task (21) -> Task (20)", e.getMessage());
+    }
+
+    @Test
+    void changedVariantLeavesTheOriginalAsItWas() {
+        // 10 <- 11 <- 12 <- 13, and 14 waits on 10 and 13
+        PlanGraph graph = PlanGraph.of(new long[]{10, 11, 12, 13, 14}, new int[]{2, 3, 1, 4, 5},
+                new int[]{0, 0, 1, 2, 3, 5}, new int[]{0, 1, 2, 0, 3});
+
+        PlanGraph variant = graph.withChanges(Map.of(2, 7), Map.of(1, new int[0], 3, new int[]{0, 1}, 4, new int[]{2}));
+
+        assertEquals(7, variant.duration(2));
+        assertEquals(1, graph.duration(2));
+        assertEquals(13, variant.taskId(3));
+        assertArrayEquals(new int[0], dependenciesOf(variant, 0));
+        assertArrayEquals(new int[0], dependenciesOf(variant, 1));
+        assertArrayEquals(new int[]{1}, dependenciesOf(variant, 2));
+        assertArrayEquals(new int[]{0, 1}, dependenciesOf(variant, 3));
+        assertArrayEquals(new int[]{2}, dependenciesOf(variant, 4));
+        assertArrayEquals(new int[]{0}, dependenciesOf(graph, 1));
+        assertArrayEquals(new int[]{0, 3}, dependenciesOf(graph, 4));
+
+        // A change that closes a loop only shows up in the variant
+        PlanGraph cyclic = graph.withChanges(Map.of(), Map.of(0, new int[]{2}));
+        assertThrows(IllegalStateException.class, cyclic::topologicalOrder);
+        assertEquals(5, graph.topologicalOrder().length);
+    }
+
+    @Test
+    void detachedGraphKeepsIdsAndStructureWithoutEntities() {
+        Task design = task(1L, "Design", 5);
+        Task development = task(2L, "Development", 10, design);
+
+        PlanGraph graph = PlanGraph.of(List.of(design, development));
+        PlanGraph detached = graph.detached();
+
+        assertNull(detached.task(0));
+        assertEquals(1L, detached.taskId(graph.indexOf(design)));
+        assertEquals(2L, detached.taskId(graph.indexOf(development)));
+        assertArrayEquals(dependenciesOf(graph, 1), dependenciesOf(detached, 1));
+        assertArrayEquals(graph.topologicalOrder(), detached.topologicalOrder());
+    }
+
+    @Test
+    void wavefrontsFollowTopologicalOrderAndOnlyWaitOnEarlierOnes() {
+        Random random = new Random(5);
+        for (int round = 0; round < 50; round++) {
+            List<Task> tasks = new ArrayList<>();
+            int size = 1 + random.nextInt(300);
+            for (int i = 0; i < size; i++) {
+                Task task = task((long) i, "Task " + i, 1);
+                for (int d = random.nextInt(4); d > 0 && i > 0; d--) {
+                    task.getDependencies().add(tasks.get(random.nextInt(i)));
+                }
+                tasks.add(task);
+            }
+
+            PlanGraph graph = PlanGraph.of(tasks);
+            int[][] wavefronts = graph.wavefronts();
+            int[] order = wavefronts[0];
+            int[] offsets = wavefronts[1];
+
+            assertArrayEquals(graph.topologicalOrder(), order);
+            assertEquals(0, offsets[0]);
+            assertEquals(size, offsets[offsets.length - 1]);
+
+            int[] wavefrontOf = new int[size];
+            for (int wavefront = 0; wavefront + 1 < offsets.length; wavefront++) {
+                assertTrue(offsets[wavefront] < offsets[wavefront + 1], "empty wavefront " + wavefront);
+                for (int i = offsets[wavefront]; i < offsets[wavefront + 1]; i++) {
+                    wavefrontOf[order[i]] = wavefront;
+                }
+            }
+            // Each node sits one wavefront after its deepest dependency
+            for (int node = 0; node < size; node++) {
+                int deepest = -1;
+                for (int edge = graph.dependencyStart(node); edge < graph.dependencyEnd(node); edge++) {
+                    deepest = Math.max(deepest, wavefrontOf[graph.dependency(edge)]);
+                }
+                assertEquals(deepest + 1, wavefrontOf[node]);
+            }
+        }
+    }
+
+    private static int[] dependenciesOf(PlanGraph graph, int node) {
+        int[] dependencies = new int[graph.dependencyEnd(node) - graph.dependencyStart(node)];
+        for (int edge = graph.dependencyStart(node); edge < graph.dependencyEnd(node); edge++) {
+            dependencies[edge - graph.dependencyStart(node)] = graph.dependency(edge);
+        }
+        return dependencies;
+    }
+}
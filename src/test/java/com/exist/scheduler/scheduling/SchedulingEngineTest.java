@@ -0,0 +1,532 @@
+package com.exist.scheduler.scheduling;
+
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.RecalculationResult;
+import com.exist.scheduler.model.Resource;
+import com.exist.scheduler.model.ResourceAssignment;
+import com.exist.scheduler.model.Task;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchedulingEngineTest {
+
+    private final SchedulingEngine schedulingEngine = new SchedulingEngine(new WorkingDayCalendar());
+
+    private final ProjectPlan projectPlan = new ProjectPlan();
+
+    private Task task(Long id, String name, int duration, Task... dependencies) {
+        Task task = new Task(name, duration, new ArrayList<>(List.of(dependencies)), projectPlan);
+        task.setId(id);
+        return task;
+    }
+
+    @Test
+    void scheduleChain() {
+        LocalDate start = LocalDate.of(2024, 10, 7); // Monday
+        Task design = task(1L, "Design", 5);
+        Task development = task(2L, "Development", 10, design);
+        Task testing = task(3L, "Testing", 3, development);
+
+        Schedule schedule = schedulingEngine.schedule(List.of(testing, development, design), start);
+
+        assertEquals(LocalDate.of(2024, 10, 7), schedule.getStartDate(design));
+        assertEquals(LocalDate.of(2024, 10, 11), schedule.getEndDate(design));
+        assertEquals(LocalDate.of(2024, 10, 12), schedule.getStartDate(development));
+        assertEquals(LocalDate.of(2024, 10, 25), schedule.getEndDate(development));
+        assertEquals(LocalDate.of(2024, 10, 26), schedule.getStartDate(testing));
+        assertEquals(LocalDate.of(2024, 10, 30), schedule.getEndDate(testing));
+        assertEquals(List.of(design, development, testing), schedule.getOrder());
+    }
+
+    @Test
+    void scheduleDiamondWaitsForLatestDependency() {
+        LocalDate start = LocalDate.of(2024, 10, 7);
+        Task root = task(1L, "Root", 1);
+        Task shortBranch = task(2L, "Short", 2, root);
+        Task longBranch = task(3L, "Long", 6, root);
+        Task join = task(4L, "Join", 1, shortBranch, longBranch);
+
+        Schedule schedule = schedulingEngine.schedule(List.of(root, shortBranch, longBranch, join), start);
+
+        assertEquals(schedule.getEndDate(longBranch).plusDays(1), schedule.getStartDate(join));
+    }
+
+    @Test
+    void everyPassStartsTasksTheDayAfterTheirLatestDependency() {
+        LocalDate start = LocalDate.of(2024, 10, 7); // Monday
+        WorkingCalendar calendar = new WorkingDayCalendar();
+        Task kickoff = task(1L, "Kickoff", 1);
+        Task setup = task(2L, "Setup", 1, kickoff);
+        Task prep = task(3L, "Prep", 2);
+        Task design = task(4L, "Design", 3);
+        // Design ends a day after Prep and comes second
+        Task build = task(5L, "Build", 2, prep, design);
+        List<Task> tasks = List.of(kickoff, setup, prep, design, build);
+
+        Schedule schedule = schedulingEngine.schedule(tasks, start, calendar);
+        Schedule parallel = new SchedulingEngine(new WorkingDayCalendar(), 0).schedule(tasks, start, calendar);
+        Schedule leveled = level(tasks, start, resource(1L, 1));
+        schedulingEngine.reschedule(tasks, tasks, start, calendar);
+
+        assertEquals(LocalDate.of(2024, 10, 8), schedule.getStartDate(setup));
+        assertEquals(LocalDate.of(2024, 10, 10), schedule.getStartDate(build));
+        for (Task task : tasks) {
+            assertEquals(schedule.getStartDate(task), parallel.getStartDate(task), task.getName());
+            assertEquals(schedule.getStartDate(task), leveled.getStartDate(task), task.getName());
+            assertEquals(schedule.getStartDate(task), task.getTaskStartDate(), task.getName());
+            assertEquals(schedule.getEndDate(task), task.getTaskEndDate(), task.getName());
+        }
+    }
+
+    @Test
+    void scheduleIncludesDependenciesOutsideTheCollection() {
+        LocalDate start = LocalDate.of(2024, 10, 7);
+        Task design = task(1L, "Design", 5);
+        Task development = task(2L, "Development", 10, design);
+
+        Schedule schedule = schedulingEngine.schedule(List.of(development), start);
+
+        assertEquals(LocalDate.of(2024, 10, 12), schedule.getStartDate(development));
+        assertEquals(LocalDate.of(2024, 10, 11), schedule.getEndDate(design));
+    }
+
+    @Test
+    void scheduleReportsFullCyclePath() {
+        Task design = task(1L, "Design", 5);
+        Task development = task(2L, "Development", 10, design);
+        Task testing = task(3L, "Testing", 3, development);
+        design.getDependencies().add(testing);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> schedulingEngine.schedule(List.of(design, development, testing), LocalDate.now()));
+
+        assertEquals("Circular dependency detected: Design (1) -> Testing (3) -> Development (2) -> Design (1)",
+                exception.getMessage());
+    }
+
+    @Test
+    void rescheduleOnlyTouchesDownstreamCone() {
+        LocalDate start = LocalDate.of(2024, 10, 7);
+        WorkingCalendar calendar = new WorkingDayCalendar();
+        Task design = task(1L, "Design", 5);
+        Task development = task(2L, "Development", 10, design);
+        Task testing = task(3L, "Testing", 3, development);
+        Task documentation = task(4L, "Documentation", 4, design);
+        List<Task> tasks = List.of(design, development, testing, documentation);
+        schedulingEngine.schedule(tasks, start, calendar).applyTo(tasks);
+
+        LocalDate documentationEnd = documentation.getTaskEndDate();
+        development.setDuration(12);
+        RecalculationResult result = schedulingEngine.reschedule(tasks, List.of(development), start, calendar);
+
+        assertEquals(2, result.getTasksRecalculated());
+        assertEquals(2, result.getTasksChanged());
+        assertEquals(documentationEnd, documentation.getTaskEndDate());
+
+        Schedule fullSchedule = schedulingEngine.schedule(tasks, start, calendar);
+        for (Task task : tasks) {
+            assertEquals(fullSchedule.getStartDate(task), task.getTaskStartDate());
+            assertEquals(fullSchedule.getEndDate(task), task.getTaskEndDate());
+        }
+    }
+
+    @Test
+    void rescheduleCountsOnlyTasksWhoseDatesChanged() {
+        LocalDate start = LocalDate.of(2024, 10, 7);
+        WorkingCalendar calendar = new WorkingDayCalendar();
+        Task design = task(1L, "Design", 5);
+        Task development = task(2L, "Development", 10, design);
+        List<Task> tasks = List.of(design, development);
+        schedulingEngine.schedule(tasks, start, calendar).applyTo(tasks);
+
+        development.setName("Implementation");
+        RecalculationResult result = schedulingEngine.reschedule(tasks, List.of(design), start, calendar);
+
+        assertEquals(2, result.getTasksRecalculated());
+        assertEquals(0, result.getTasksChanged());
+    }
+
+    @Test
+    void scheduleHandlesTasksWithoutDependencies() {
+        LocalDate start = LocalDate.of(2024, 10, 9); // Wednesday
+        Task task = new Task();
+        task.setDuration(5);
+
+        Schedule schedule = schedulingEngine.schedule(List.of(task), start);
+
+        assertEquals(start, schedule.getStartDate(task));
+        assertEquals(LocalDate.of(2024, 10, 15), schedule.getEndDate(task));
+    }
+
+    @Test
+    void scheduleMatchesDependencyOrderReferenceOnRandomPlans() {
+        Random random = new Random(7);
+        LocalDate start = LocalDate.of(2024, 10, 9);
+        WorkingCalendar calendar = new WorkingDayCalendar();
+
+        for (int round = 0; round < 50; round++) {
+            List<Task> tasks = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                Task task = task((long) i, "Task " + i, random.nextInt(8));
+                for (int d = random.nextInt(4); d > 0 && i > 0; d--) {
+                    task.getDependencies().add(tasks.get(random.nextInt(i)));
+                }
+                tasks.add(task);
+            }
+
+            // Tasks are created after their dependencies, so creation order is a valid schedule order
+            Map<Task, LocalDate> referenceEnd = new IdentityHashMap<>();
+            Schedule schedule = schedulingEngine.schedule(tasks, start, calendar);
+            for (Task task : tasks) {
+                // The day after the latest dependency ends, however the dependencies are ordered
+                LocalDate taskStart = start;
+                for (Task dependency : task.getDependencies()) {
+                    if (!referenceEnd.get(dependency).isBefore(taskStart)) {
+                        taskStart = referenceEnd.get(dependency).plusDays(1);
+                    }
+                }
+                referenceEnd.put(task, calendar.addWorkingDays(taskStart, task.getDuration()));
+
+                assertEquals(taskStart, schedule.getStartDate(task));
+                assertEquals(referenceEnd.get(task), schedule.getEndDate(task));
+            }
+        }
+    }
+
+    @Test
+    void parallelScheduleMatchesSequentialOnRandomPlans() {
+        Random random = new Random(17);
+        SchedulingEngine sequential = new SchedulingEngine(new WorkingDayCalendar(), Integer.MAX_VALUE);
+        SchedulingEngine parallel = new SchedulingEngine(new WorkingDayCalendar(), 0);
+        List<LocalDate> holidays = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            holidays.add(LocalDate.of(2024, 10, 1).plusDays(random.nextInt(2000)));
+        }
+        WorkingCalendar[] calendars = {new WorkingDayCalendar(), new HolidayCalendar(new WorkingDayCalendar(), holidays)};
+
+        for (int round = 0; round < 40; round++) {
+            // Layers of random width, each task waiting on tasks of earlier layers, so some wavefronts are wide
+            // enough to be split across threads and others are not
+            List<Task> tasks = new ArrayList<>();
+            int layerStart = 0;
+            for (int layer = random.nextInt(12); layer >= 0; layer--) {
+                int width = random.nextInt(4) == 0 ? 1 + random.nextInt(6000) : 1 + random.nextInt(50);
+                for (int i = 0; i < width; i++) {
+                    Task task = task((long) tasks.size(), "Task " + tasks.size(), random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(15));
+                    for (int d = layerStart > 0 ? random.nextInt(4) : 0; d > 0; d--) {
+                        task.getDependencies().add(tasks.get(random.nextInt(layerStart)));
+                    }
+                    tasks.add(task);
+                }
+                layerStart = tasks.size();
+            }
+            Collections.shuffle(tasks, random);
+            LocalDate start = LocalDate.of(2024, 10, 1).plusDays(random.nextInt(14));
+            WorkingCalendar calendar = calendars[round % calendars.length];
+
+            PlanGraph graph = PlanGraph.of(tasks);
+            Schedule expected = sequential.schedule(graph, start, calendar);
+            Schedule actual = parallel.schedule(graph, start, calendar);
+
+            assertEquals(expected.getOrder(), actual.getOrder());
+            for (int node = 0; node < graph.size(); node++) {
+                assertEquals(expected.getStartDay(node), actual.getStartDay(node), graph.task(node).getName());
+                assertEquals(expected.getEndDay(node), actual.getEndDay(node), graph.task(node).getName());
+            }
+        }
+    }
+
+    @Test
+    void parallelScheduleReportsCycles() {
+        Task design = task(1L, "Design", 5);
+        Task development = task(2L, "Development", 10, design);
+        design.getDependencies().add(development);
+
+        SchedulingEngine parallel = new SchedulingEngine(new WorkingDayCalendar(), 0);
+
+        assertThrows(IllegalStateException.class, () -> parallel.schedule(List.of(design, development), LocalDate.now()));
+    }
+
+    private static Resource resource(Long id, int capacity) {
+        Resource resource = new Resource("Resource " + id, capacity);
+        resource.setId(id);
+        return resource;
+    }
+
+    private Schedule level(List<Task> tasks, LocalDate start, Resource... resources) {
+        Map<Long, Integer> capacities = new HashMap<>();
+        for (Resource resource : resources) {
+            capacities.put(resource.getId(), resource.getCapacity());
+        }
+        PlanGraph graph = PlanGraph.of(tasks);
+        return schedulingEngine.level(graph, ResourceDemand.of(graph, capacities), start, new WorkingDayCalendar());
+    }
+
+    @Test
+    void levelRunsTasksSharingAResourceOneAfterAnother() {
+        LocalDate start = LocalDate.of(2024, 10, 7); // Monday
+        Resource crew = resource(1L, 2);
+        Resource crane = resource(2L, 1);
+        Task foundation = task(1L, "Foundation", 3);
+        Task frame = task(2L, "Frame", 5);
+        Task wiring = task(3L, "Wiring", 2);
+        foundation.getAssignments().add(new ResourceAssignment(crew, 1));
+        foundation.getAssignments().add(new ResourceAssignment(crane, 1));
+        frame.getAssignments().add(new ResourceAssignment(crane, 1));
+        wiring.getAssignments().add(new ResourceAssignment(crew, 1));
+
+        Schedule schedule = level(List.of(foundation, frame, wiring), start, crew, crane);
+
+        // Frame has the longest remaining path and takes the crane first; the crew has room for wiring right away
+        assertEquals(LocalDate.of(2024, 10, 7), schedule.getStartDate(frame));
+        assertEquals(LocalDate.of(2024, 10, 11), schedule.getEndDate(frame));
+        assertEquals(LocalDate.of(2024, 10, 14), schedule.getStartDate(foundation));
+        assertEquals(LocalDate.of(2024, 10, 16), schedule.getEndDate(foundation));
+        assertEquals(LocalDate.of(2024, 10, 7), schedule.getStartDate(wiring));
+    }
+
+    @Test
+    void levelWithAmpleCapacityMatchesSchedule() {
+        Random random = new Random(11);
+        LocalDate start = LocalDate.of(2024, 10, 5); // Saturday
+        Resource team = resource(1L, 1000);
+
+        for (int round = 0; round < 20; round++) {
+            List<Task> tasks = randomPlan(random, 80);
+            for (Task task : tasks) {
+                task.getAssignments().add(new ResourceAssignment(team, 1 + random.nextInt(3)));
+            }
+
+            Schedule expected = schedulingEngine.schedule(tasks, start, new WorkingDayCalendar());
+            Schedule leveled = level(tasks, start, team);
+            for (Task task : tasks) {
+                assertEquals(expected.getStartDate(task), leveled.getStartDate(task), task.getName());
+                assertEquals(expected.getEndDate(task), leveled.getEndDate(task), task.getName());
+            }
+        }
+    }
+
+    @Test
+    void levelNeverOverbooksAResourceOnRandomPlans() {
+        Random random = new Random(13);
+        LocalDate start = LocalDate.of(2024, 10, 7);
+        WorkingCalendar calendar = new WorkingDayCalendar();
+        Resource[] resources = {resource(1L, 1), resource(2L, 3), resource(3L, 5)};
+
+        for (int round = 0; round < 20; round++) {
+            List<Task> tasks = randomPlan(random, 60);
+            for (Task task : tasks) {
+                for (Resource resource : resources) {
+                    if (random.nextInt(3) == 0) {
+                        task.getAssignments().add(new ResourceAssignment(resource, 1 + random.nextInt(resource.getCapacity())));
+                    }
+                }
+            }
+
+            Schedule schedule = level(tasks, start, resources);
+
+            Map<Resource, Map<LocalDate, Integer>> booked = new IdentityHashMap<>();
+            for (Task task : tasks) {
+                for (Task dependency : task.getDependencies()) {
+                    assertFalse(schedule.getStartDate(task).isBefore(schedule.getEndDate(dependency)), task.getName());
+                }
+                for (LocalDate day = schedule.getStartDate(task); task.getDuration() > 0
+                        && !day.isAfter(schedule.getEndDate(task)); day = day.plusDays(1)) {
+                    if (!calendar.isWorkingDay(day.toEpochDay())) {
+                        continue;
+                    }
+                    for (ResourceAssignment assignment : task.getAssignments()) {
+                        int units = booked.computeIfAbsent(assignment.getResource(), r -> new HashMap<>())
+                                .merge(day, assignment.getUnits(), Integer::sum);
+                        assertTrue(units <= assignment.getResource().getCapacity(), day + " " + assignment.getResource().getName());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void levelRejectsAssignmentAboveCapacity() {
+        Resource crane = resource(2L, 1);
+        Task lift = task(1L, "Lift", 2);
+        lift.getAssignments().add(new ResourceAssignment(crane, 2));
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> level(List.of(lift), LocalDate.of(2024, 10, 7), crane));
+
+        assertTrue(exception.getMessage().endsWith("needs 2 units of resource 2, which has a capacity of 1"), exception.getMessage());
+    }
+
+    // Tasks are created after their dependencies
+    private List<Task> randomPlan(Random random, int size) {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            Task task = task((long) i, "Task " + i, random.nextInt(8));
+            for (int d = random.nextInt(3); d > 0 && i > 0; d--) {
+                task.getDependencies().add(tasks.get(random.nextInt(i)));
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    @Test
+    void analyzeFindsCriticalPathAndFloats() {
+        LocalDate start = LocalDate.of(2024, 10, 7); // Monday
+        Task design = task(1L, "Design", 5);
+        Task development = task(2L, "Development", 10, design);
+        Task testing = task(3L, "Testing", 3, development);
+        Task documentation = task(4L, "Documentation", 4, design);
+        List<Task> tasks = List.of(design, development, testing, documentation);
+
+        CriticalPathAnalysis analysis = schedulingEngine.analyze(tasks, start, new WorkingDayCalendar());
+
+        assertEquals(List.of(design, development, testing), analysis.getCriticalPath());
+        assertTrue(analysis.isCritical(development));
+        assertFalse(analysis.isCritical(documentation));
+        assertEquals(9, analysis.getTotalFloat(documentation));
+        assertEquals(9, analysis.getFreeFloat(documentation));
+
+        // Earliest dates are working days, and the finish of the last task matches the forward schedule
+        assertEquals(LocalDate.of(2024, 10, 14), analysis.getEarliestStart(development));
+        assertEquals(schedulingEngine.schedule(tasks, start).getEndDate(testing), analysis.getEarliestFinish(testing));
+        assertEquals(LocalDate.of(2024, 10, 25), analysis.getLatestStart(documentation));
+        assertEquals(LocalDate.of(2024, 10, 30), analysis.getLatestFinish(documentation));
+    }
+
+    @Test
+    void analyzeSeparatesFreeFloatFromTotalFloat() {
+        LocalDate start = LocalDate.of(2024, 10, 7);
+        Task first = task(1L, "First", 1);
+        Task second = task(2L, "Second", 1, first);
+        Task longTask = task(3L, "Long", 5);
+
+        CriticalPathAnalysis analysis = schedulingEngine.analyze(List.of(first, second, longTask), start,
+                new WorkingDayCalendar());
+
+        assertEquals(List.of(longTask), analysis.getCriticalPath());
+        assertEquals(3, analysis.getTotalFloat(first));
+        assertEquals(0, analysis.getFreeFloat(first));
+        assertEquals(3, analysis.getTotalFloat(second));
+        assertEquals(3, analysis.getFreeFloat(second));
+    }
+
+    @Test
+    void analyzeDatesTasksLikeSchedule() {
+        LocalDate start = LocalDate.of(2024, 10, 7); // Monday
+        Task kickoff = task(1L, "Kickoff", 1);
+        Task setup = task(2L, "Setup", 1, kickoff);
+        Task design = task(3L, "Design", 3);
+        // Design ends a day after Setup but comes second, and Build still starts after both
+        Task build = task(4L, "Build", 3, setup, design);
+        Task milestone = task(5L, "Milestone", 0, build);
+        Task launch = task(6L, "Launch", 1, milestone);
+        List<Task> tasks = List.of(kickoff, setup, design, build, milestone, launch);
+
+        Schedule schedule = schedulingEngine.schedule(tasks, start);
+        CriticalPathAnalysis analysis = schedulingEngine.analyze(tasks, start, new WorkingDayCalendar());
+
+        assertEquals(LocalDate.of(2024, 10, 8), schedule.getStartDate(setup));
+        assertEquals(LocalDate.of(2024, 10, 10), schedule.getStartDate(build));
+        for (Task task : tasks) {
+            assertEquals(schedule.getStartDate(task), analysis.getEarliestStart(task), task.getName());
+            assertEquals(schedule.getEndDate(task), analysis.getEarliestFinish(task), task.getName());
+            assertTrue(analysis.getTotalFloat(task) >= 0, task.getName());
+        }
+        assertEquals(schedule.getEndDate(launch), analysis.getProjectEnd());
+        assertEquals(List.of(design, build, milestone, launch), analysis.getCriticalPath());
+        assertEquals(1, analysis.getTotalFloat(setup));
+    }
+
+    @Test
+    void simulateWithoutSpreadMatchesThePlan() {
+        LocalDate start = LocalDate.of(2024, 10, 7); // Monday
+        Task design = task(1L, "Design", 5);
+        Task development = task(2L, "Development", 9, design);
+        // Falls on Friday 2024-10-25, so Testing starts a working day after it
+        Task codeFreeze = task(5L, "Code freeze", 0, development);
+        Task testing = task(3L, "Testing", 3, codeFreeze);
+        Task documentation = task(4L, "Documentation", 4, design);
+        List<Task> tasks = List.of(design, development, codeFreeze, testing, documentation);
+        PlanGraph graph = PlanGraph.of(tasks);
+        int[] durations = {5, 9, 0, 3, 4};
+        int[] estimates = new int[graph.size()];
+        for (int i = 0; i < tasks.size(); i++) {
+            estimates[graph.indexOf(tasks.get(i))] = durations[i];
+        }
+
+        ScheduleRisk risk = schedulingEngine.simulate(graph, estimates, estimates, DurationDistribution.PERT, start,
+                new WorkingDayCalendar(), 1000, 7);
+
+        LocalDate end = schedulingEngine.analyze(tasks, start, new WorkingDayCalendar()).getEarliestFinish(testing);
+        assertEquals(schedulingEngine.schedule(tasks, start).getEndDate(testing), end);
+        assertEquals(LocalDate.of(2024, 10, 30), end);
+        assertEquals(1000, risk.getIterations());
+        assertEquals(end, risk.getPlannedEndDate());
+        assertEquals(end, risk.getEndDate(0.5));
+        assertEquals(end, risk.getEndDate(0.95));
+        assertEquals(1.0, risk.getPlannedEndProbability());
+        assertEquals(1.0, risk.getCriticalityIndex(graph.indexOf(development)));
+        assertEquals(1.0, risk.getCriticalityIndex(graph.indexOf(codeFreeze)));
+        assertEquals(0.0, risk.getCriticalityIndex(graph.indexOf(documentation)));
+    }
+
+    @Test
+    void simulateSpreadsTheEndAndIsRepeatableForASeed() {
+        LocalDate start = LocalDate.of(2024, 10, 7);
+        Task design = task(1L, "Design", 5);
+        Task development = task(2L, "Development", 10, design);
+        Task testing = task(3L, "Testing", 3, development);
+        Task documentation = task(4L, "Documentation", 8, design);
+        List<Task> tasks = List.of(design, development, testing, documentation);
+        PlanGraph graph = PlanGraph.of(tasks);
+        int[] optimistic = new int[graph.size()];
+        int[] pessimistic = new int[graph.size()];
+        int[][] estimates = {{4, 8}, {8, 20}, {3, 3}, {2, 30}};
+        for (int i = 0; i < tasks.size(); i++) {
+            optimistic[graph.indexOf(tasks.get(i))] = estimates[i][0];
+            pessimistic[graph.indexOf(tasks.get(i))] = estimates[i][1];
+        }
+
+        for (DurationDistribution distribution : DurationDistribution.values()) {
+            ScheduleRisk risk = schedulingEngine.simulate(graph, optimistic, pessimistic, distribution, start,
+                    new WorkingDayCalendar(), 2000, 42);
+            ScheduleRisk again = schedulingEngine.simulate(graph, optimistic, pessimistic, distribution, start,
+                    new WorkingDayCalendar(), 2000, 42);
+
+            assertFalse(risk.getEndDate(0.5).isAfter(risk.getEndDate(0.8)), distribution.name());
+            assertTrue(risk.getEndDate(0.95).isAfter(risk.getPlannedEndDate()), distribution.name());
+            assertTrue(risk.getPlannedEndProbability() > 0 && risk.getPlannedEndProbability() < 1, distribution.name());
+            // Every path starts with Design; Documentation only sometimes outlasts Development and Testing
+            assertEquals(1.0, risk.getCriticalityIndex(graph.indexOf(design)), distribution.name());
+            double documentationIndex = risk.getCriticalityIndex(graph.indexOf(documentation));
+            assertTrue(documentationIndex > 0 && documentationIndex < 1, distribution.name());
+
+            for (double percentile : new double[]{0.5, 0.8, 0.95}) {
+                assertEquals(risk.getEndDate(percentile), again.getEndDate(percentile), distribution.name());
+            }
+            for (int node = 0; node < graph.size(); node++) {
+                assertEquals(risk.getCriticalityIndex(node), again.getCriticalityIndex(node), distribution.name());
+            }
+        }
+    }
+
+    @Test
+    void simulateRejectsNoIterations() {
+        PlanGraph graph = PlanGraph.of(List.of(task(1L, "Design", 5)));
+        int[] estimates = {5};
+
+        assertThrows(IllegalArgumentException.class, () -> schedulingEngine.simulate(graph, estimates, estimates,
+                DurationDistribution.TRIANGULAR, LocalDate.of(2024, 10, 7), new WorkingDayCalendar(), 0, 1));
+    }
+}
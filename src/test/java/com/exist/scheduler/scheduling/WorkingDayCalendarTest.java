@@ -0,0 +1,81 @@
+package com.exist.scheduler.scheduling;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkingDayCalendarTest {
+
+    private final WorkingDayCalendar workingDayCalendar = new WorkingDayCalendar();
+
+    // Day-by-day reference implementation the closed-form arithmetic has to match
+    private static LocalDate addWorkingDaysByLoop(LocalDate startDate, int daysToAdd) {
+        LocalDate resultDate = startDate;
+        int addedDays = isWeekend(resultDate) ? 0 : 1;
+        while (addedDays < daysToAdd) {
+            resultDate = resultDate.plusDays(1);
+            if (!isWeekend(resultDate)) {
+                addedDays++;
+            }
+        }
+        return resultDate;
+    }
+
+    private static long countWorkingDaysByLoop(LocalDate start, LocalDate end) {
+        long workingDays = 0;
+        for (LocalDate current = start; !current.isAfter(end); current = current.plusDays(1)) {
+            if (!isWeekend(current)) {
+                workingDays++;
+            }
+        }
+        return workingDays;
+    }
+
+    private static boolean isWeekend(LocalDate date) {
+        return date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY;
+    }
+
+    @Test
+    void addWorkingDaysMatchesDayByDayLoop() {
+        LocalDate first = LocalDate.of(1969, 12, 1);
+        for (int offset = 0; offset < 60; offset++) {
+            LocalDate start = first.plusDays(offset);
+            for (int days = -1; days <= 40; days++) {
+                assertEquals(addWorkingDaysByLoop(start, days), workingDayCalendar.addWorkingDays(start, days),
+                        String.format("start=%s, days=%s", start, days));
+            }
+        }
+    }
+
+    @Test
+    void countWorkingDaysMatchesDayByDayLoop() {
+        LocalDate first = LocalDate.of(2023, 12, 20);
+        for (int offset = 0; offset < 21; offset++) {
+            LocalDate start = first.plusDays(offset);
+            for (int length = -2; length <= 45; length++) {
+                LocalDate end = start.plusDays(length);
+                assertEquals(countWorkingDaysByLoop(start, end), workingDayCalendar.countWorkingDays(start, end),
+                        String.format("start=%s, end=%s", start, end));
+            }
+        }
+    }
+
+    @Test
+    void addWorkingDaysForLongTasks() {
+        LocalDate start = LocalDate.of(2024, 10, 9); // Wednesday
+        assertEquals(addWorkingDaysByLoop(start, 2000), workingDayCalendar.addWorkingDays(start, 2000));
+        assertEquals(LocalDate.of(2024, 10, 15), workingDayCalendar.addWorkingDays(start, 5));
+    }
+
+    @Test
+    void workingDayAtInvertsWorkingDaysBefore() {
+        for (long epochDay = -30; epochDay < 30; epochDay++) {
+            if (workingDayCalendar.isWorkingDay(epochDay)) {
+                assertEquals(epochDay, workingDayCalendar.workingDayAt(workingDayCalendar.workingDaysBefore(epochDay)));
+            }
+        }
+    }
+}
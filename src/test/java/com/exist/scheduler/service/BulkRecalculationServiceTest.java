@@ -0,0 +1,174 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.dto.ProjectPlanDTO;
+import com.exist.scheduler.dto.ResourceDTO;
+import com.exist.scheduler.dto.TaskAssignmentDTO;
+import com.exist.scheduler.dto.TaskDTO;
+import com.exist.scheduler.model.BulkRecalculationJob;
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.RecalculationJob;
+import com.exist.scheduler.model.RecalculationResult;
+import com.exist.scheduler.repository.ProjectPlanRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Runs the recalculation of all plans against the real database, with small batches so that a few hundred plans
+// spread over many batches and workers
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "scheduler.bulk-recalculation.parallelism=4",
+        "scheduler.bulk-recalculation.batch-size=7"
+})
+class BulkRecalculationServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 10, 7);
+
+    @Autowired
+    private BulkRecalculationService bulkRecalculationService;
+
+    @Autowired
+    private ProjectPlanService projectPlanService;
+
+    @Autowired
+    private ResourceService resourceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProjectPlanRepository projectPlanRepository;
+
+    @Autowired
+    private ProjectPlanLocks projectPlanLocks;
+
+    @Autowired
+    private ProjectPlanDetailsCache projectPlanDetailsCache;
+
+    @Test
+    void recalculatesEveryPlanAndLeavesOutOnlyOneThatCannotBeScheduled() throws InterruptedException {
+        List<Long> projectPlanIds = new ArrayList<>();
+        for (int plan = 0; plan < 300; plan++) {
+            projectPlanIds.add(createPlan("Bulk " + plan, plan, null).getId());
+        }
+
+        // Leveled on a resource whose capacity is then lowered below what its task needs, behind the service's back
+        Long resourceId = resourceService.createResource(new ResourceDTO(null, "Bulk crane", 2)).getId();
+        Long broken = createPlan("Bulk broken", 0, new TaskAssignmentDTO(resourceId, 2)).getId();
+        jdbcTemplate.update("update resource set capacity = 1 where id = ?", resourceId);
+
+        Map<Long, List<LocalDate>> expected = taskDates(projectPlanIds);
+        jdbcTemplate.update("update task set task_start_date = null, task_end_date = null"
+                + " where project_plan_id in (select id from project_plan where name like 'Bulk %')");
+
+        BulkRecalculationJob job = awaitFinished(bulkRecalculationService.recalculateAll());
+
+        assertEquals(RecalculationJob.Status.FAILED, job.getStatus());
+        assertEquals(List.of(broken), job.getFailedPlanIds());
+        assertEquals(1, job.getPlansFailed());
+        assertEquals(job.getPlansTotal(), job.getPlansDone() + job.getPlansFailed());
+        assertEquals(4, job.getParallelism());
+        assertEquals(expected, taskDates(projectPlanIds));
+        assertSame(job, bulkRecalculationService.getJob(job.getJobId()));
+    }
+
+    @Test
+    void errorInOnePlanOnlyLeavesOutThatPlan() throws InterruptedException {
+        Long broken = createPlan("Overflowing", 0, null).getId();
+        ProjectPlanService overflowing = mock(ProjectPlanService.class);
+        when(overflowing.calculateTaskAndProjectDates(any())).thenAnswer(invocation -> {
+            ProjectPlan projectPlan = invocation.getArgument(0);
+            if (broken.equals(projectPlan.getId())) {
+                throw new StackOverflowError();
+            }
+            return new RecalculationResult(0, 0);
+        });
+        when(overflowing.recalculateProjectPlan(any())).thenReturn(new RecalculationResult(0, 0));
+        when(overflowing.recalculateProjectPlan(broken)).thenThrow(new StackOverflowError());
+        BulkRecalculationService service = new BulkRecalculationService(projectPlanRepository, overflowing,
+                projectPlanLocks, projectPlanDetailsCache, 2, 7);
+
+        try {
+            BulkRecalculationJob job = awaitFinished(service.recalculateAll());
+
+            assertEquals(RecalculationJob.Status.FAILED, job.getStatus());
+            assertEquals(List.of(broken), job.getFailedPlanIds());
+            assertEquals(job.getPlansTotal(), job.getPlansDone() + job.getPlansFailed());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void errorOutsideABatchFailsTheJob() throws InterruptedException {
+        ProjectPlanRepository failing = mock(ProjectPlanRepository.class);
+        when(failing.count()).thenThrow(new StackOverflowError());
+        BulkRecalculationService service = new BulkRecalculationService(failing, projectPlanService,
+                projectPlanLocks, projectPlanDetailsCache, 2, 7);
+
+        try {
+            BulkRecalculationJob job = awaitFinished(service.recalculateAll());
+
+            assertEquals(RecalculationJob.Status.FAILED, job.getStatus());
+            assertEquals("java.lang.StackOverflowError", job.getError());
+            assertNotSame(job, service.recalculateAll());
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void unknownJobIsReported() {
+        NoSuchElementException e = assertThrows(NoSuchElementException.class, () -> bulkRecalculationService.getJob(-1));
+        assertEquals("Bulk recalculation job with ID: -1 not found", e.getMessage());
+    }
+
+    private ProjectPlanDTO createPlan(String name, int seed, TaskAssignmentDTO assignment) {
+        List<TaskDTO> tasks = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            TaskDTO task = new TaskDTO(null, "Task " + i, 1 + (seed + i) % 5, List.of(), null, null, null);
+            task.setKey("task-" + i);
+            task.setDependencyKeys(i == 0 ? List.of() : i % 2 == 0 ? List.of("task-" + (i - 1), "task-" + (i - 2)) : List.of("task-0"));
+            if (assignment != null) {
+                task.setAssignments(List.of(assignment));
+            }
+            tasks.add(task);
+        }
+        ProjectPlanDTO projectPlanDTO = new ProjectPlanDTO();
+        projectPlanDTO.setName(name);
+        projectPlanDTO.setProjectStartDate(START);
+        projectPlanDTO.setResourceLeveling(assignment != null);
+        projectPlanDTO.setTasks(tasks);
+        return projectPlanService.createProjectPlan(projectPlanDTO);
+    }
+
+    private Map<Long, List<LocalDate>> taskDates(List<Long> projectPlanIds) {
+        Map<Long, List<LocalDate>> dates = new HashMap<>();
+        for (Long projectPlanId : projectPlanIds) {
+            jdbcTemplate.query("select id, task_start_date, task_end_date from task where project_plan_id = ?",
+                    rs -> {
+                        dates.put(rs.getLong("id"), Arrays.asList(rs.getObject("task_start_date", LocalDate.class),
+                                rs.getObject("task_end_date", LocalDate.class)));
+                    }, projectPlanId);
+        }
+        return dates;
+    }
+
+    private BulkRecalculationJob awaitFinished(BulkRecalculationJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + 60_000_000_000L;
+        while (!job.isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(job.isFinished(), "Recalculation did not finish in time");
+        return job;
+    }
+}
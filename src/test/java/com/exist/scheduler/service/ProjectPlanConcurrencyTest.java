@@ -0,0 +1,120 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.dto.ProjectPlanDTO;
+import com.exist.scheduler.dto.TaskDTO;
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.Task;
+import com.exist.scheduler.repository.ProjectPlanRepository;
+import com.exist.scheduler.scheduling.Schedule;
+import com.exist.scheduler.scheduling.SchedulingEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Concurrent edits against the real persistence layer: the committed dates have to be a valid schedule
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class ProjectPlanConcurrencyTest {
+
+    private static final int CHAIN_LENGTH = 20;
+
+    @Autowired
+    private ProjectPlanService projectPlanService;
+
+    @Autowired
+    private ProjectPlanRepository projectPlanRepository;
+
+    @Autowired
+    private SchedulingEngine schedulingEngine;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void concurrentTaskEditsLeaveAConsistentSchedule() throws Exception {
+        ProjectPlanDTO projectPlan = createChain("Concurrent edits");
+        List<TaskDTO> tasks = projectPlan.getTasks();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> edits = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                Random random = new Random(thread);
+                edits.add(executor.submit(() -> {
+                    for (int i = 0; i < 25; i++) {
+                        int index = random.nextInt(CHAIN_LENGTH);
+                        TaskDTO task = tasks.get(index);
+                        TaskDTO update = new TaskDTO(null, task.getName(), 1 + random.nextInt(10),
+                                index > 0 ? List.of(tasks.get(index - 1).getId()) : List.of(), projectPlan.getId(), null, null);
+                        projectPlanService.updateTask(task.getId(), update);
+                    }
+                }));
+            }
+            for (Future<?> edit : edits) {
+                edit.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            ProjectPlan stored = projectPlanRepository.findWithTasksById(projectPlan.getId()).orElseThrow();
+            Schedule expected = schedulingEngine.schedule(stored.getTasks(), LocalDate.of(2024, 10, 7));
+
+            LocalDate latestEnd = null;
+            for (Task task : stored.getTasks()) {
+                assertEquals(expected.getStartDate(task), task.getTaskStartDate(), task.getName());
+                assertEquals(expected.getEndDate(task), task.getTaskEndDate(), task.getName());
+                if (latestEnd == null || task.getTaskEndDate().isAfter(latestEnd)) {
+                    latestEnd = task.getTaskEndDate();
+                }
+            }
+            assertEquals(latestEnd, stored.getProjectEndDate());
+        });
+    }
+
+    @Test
+    void staleCopyOfAPlanIsRejected() {
+        ProjectPlanDTO projectPlan = createChain("Stale copy");
+
+        ProjectPlan stale = transactionTemplate.execute(status ->
+                projectPlanRepository.findById(projectPlan.getId()).orElseThrow());
+
+        ProjectPlanDTO rename = new ProjectPlanDTO();
+        rename.setName("Renamed");
+        rename.setProjectStartDate(LocalDate.of(2024, 10, 7));
+        projectPlanService.updateProject(projectPlan.getId(), rename);
+
+        stale.setName("Lost update");
+        assertThrows(OptimisticLockingFailureException.class, () -> projectPlanRepository.save(stale));
+        assertEquals("Renamed", projectPlanRepository.findById(projectPlan.getId()).orElseThrow().getName());
+    }
+
+    private ProjectPlanDTO createChain(String name) {
+        List<TaskDTO> tasks = new ArrayList<>();
+        for (int i = 0; i < CHAIN_LENGTH; i++) {
+            TaskDTO task = new TaskDTO(null, "Task " + i, 1 + i % 5, List.of(), null, null, null);
+            task.setKey("task-" + i);
+            task.setDependencyKeys(i > 0 ? List.of("task-" + (i - 1)) : List.of());
+            tasks.add(task);
+        }
+
+        ProjectPlanDTO projectPlanDTO = new ProjectPlanDTO();
+        projectPlanDTO.setName(name);
+        projectPlanDTO.setProjectStartDate(LocalDate.of(2024, 10, 7));
+        projectPlanDTO.setTasks(tasks);
+        return projectPlanService.createProjectPlan(projectPlanDTO);
+    }
+}
@@ -0,0 +1,88 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.model.CacheStats;
+import com.exist.scheduler.model.TaskDetails;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectPlanDetailsCacheTest {
+
+    private final ProjectPlanDetailsCache cache = new ProjectPlanDetailsCache(2);
+
+    private List<TaskDetails> tasks(String name) {
+        TaskDetails taskDetails = new TaskDetails();
+        taskDetails.setTaskName(name);
+        return List.of(taskDetails);
+    }
+
+    @Test
+    void servesEntryWhileVersionIsCurrent() {
+        long version = cache.version(1L);
+        cache.put(1L, version, tasks("Design"));
+
+        assertEquals("Design", cache.get(1L, cache.version(1L)).get(0).getTaskName());
+        assertNotNull(cache.get(1L, cache.version(1L)));
+
+        CacheStats stats = cache.getStats();
+        assertEquals(2, stats.getHits());
+        assertEquals(0, stats.getMisses());
+        assertEquals(1.0, stats.getHitRate());
+    }
+
+    @Test
+    void changesToServedTasksDoNotReachTheCache() {
+        List<TaskDetails> rendered = new ArrayList<>(tasks("Design"));
+        rendered.get(0).setDependencies(new ArrayList<>(List.of("Kickoff")));
+        long version = cache.version(1L);
+        cache.put(1L, version, rendered);
+
+        rendered.get(0).setTaskName("Changed after put");
+        TaskDetails served = cache.get(1L, version).get(0);
+        served.setTaskName("Changed after get");
+        served.getDependencies().add("Review");
+
+        TaskDetails again = cache.get(1L, version).get(0);
+        assertEquals("Design", again.getTaskName());
+        assertEquals(List.of("Kickoff"), again.getDependencies());
+    }
+
+    @Test
+    void invalidateDropsEntry() {
+        cache.put(1L, cache.version(1L), tasks("Design"));
+
+        cache.invalidate(1L);
+
+        assertNull(cache.get(1L, cache.version(1L)));
+        assertEquals(1, cache.getStats().getMisses());
+    }
+
+    @Test
+    void renderStartedBeforeWriteIsNotCached() {
+        long versionBeforeWrite = cache.version(1L);
+        cache.invalidate(1L);
+
+        cache.put(1L, versionBeforeWrite, tasks("Stale"));
+
+        assertNull(cache.get(1L, cache.version(1L)));
+        assertEquals(0, cache.getStats().getSize());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedPlan() {
+        cache.put(1L, cache.version(1L), tasks("One"));
+        cache.put(2L, cache.version(2L), tasks("Two"));
+        cache.get(1L, cache.version(1L));
+
+        cache.put(3L, cache.version(3L), tasks("Three"));
+
+        assertNotNull(cache.get(1L, cache.version(1L)));
+        assertNull(cache.get(2L, cache.version(2L)));
+        assertNotNull(cache.get(3L, cache.version(3L)));
+        assertEquals(1, cache.getStats().getEvictions());
+        assertEquals(2, cache.getStats().getSize());
+    }
+}
@@ -0,0 +1,133 @@
+package com.exist.scheduler.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ProjectPlanLocksTest {
+
+    private final ProjectPlanLocks projectPlanLocks = new ProjectPlanLocks(mock(PlatformTransactionManager.class), 16, 3);
+
+    @Test
+    void retriesLostVersionCheckUntilItSucceeds() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = projectPlanLocks.write(1L, () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("Stale plan");
+            }
+            return "saved";
+        });
+
+        assertEquals("saved", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(OptimisticLockingFailureException.class, () -> projectPlanLocks.write(1L, () -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("Stale plan");
+        }));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void otherFailuresAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> projectPlanLocks.write(1L, () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("Circular dependency detected");
+        }));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void writesToTheSamePlanNeverOverlap() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        try {
+            List<Future<Object>> writes = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                writes.add(executor.submit(() -> projectPlanLocks.write(7L, () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.yield();
+                    running.decrementAndGet();
+                    return null;
+                })));
+            }
+            for (Future<Object> write : writes) {
+                write.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void writesToOtherPlansAreNotBlocked() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            Future<Object> blocked = executor.submit(() -> projectPlanLocks.write(1L, () -> {
+                holding.countDown();
+                await(release);
+                return null;
+            }));
+            assertTrue(holding.await(10, TimeUnit.SECONDS));
+
+            // Plan 2 falls on another stripe, so it is written while plan 1 is still locked
+            assertEquals("written", projectPlanLocks.write(2L, () -> "written"));
+
+            release.countDown();
+            blocked.get(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void writesSpanningPlansInOppositeOrderDoNotDeadlock() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Object>> writes = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                List<Long> projectPlanIds = i % 2 == 0 ? List.of(1L, 2L) : List.of(2L, 1L);
+                writes.add(executor.submit(() -> projectPlanLocks.write(projectPlanIds, () -> null)));
+            }
+            for (Future<Object> write : writes) {
+                write.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
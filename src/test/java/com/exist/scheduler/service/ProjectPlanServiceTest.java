@@ -1,13 +1,26 @@
 package com.exist.scheduler.service;
 
 import com.exist.scheduler.dto.ProjectPlanDTO;
+import com.exist.scheduler.dto.ProjectPlanFilter;
 import com.exist.scheduler.dto.TaskDTO;
 import com.exist.scheduler.mapper.ProjectPlanMapper;
 import com.exist.scheduler.model.ProjectPlan;
 import com.exist.scheduler.model.ProjectPlanDetails;
+import com.exist.scheduler.model.ProjectPlanSummary;
+import com.exist.scheduler.model.RecalculationResult;
+import com.exist.scheduler.model.Resource;
+import com.exist.scheduler.model.ResourceAssignment;
 import com.exist.scheduler.model.Task;
+import com.exist.scheduler.model.TaskDependencyName;
+import com.exist.scheduler.model.TaskSummary;
 import com.exist.scheduler.repository.ProjectPlanRepository;
 import com.exist.scheduler.repository.TaskRepository;
+import com.exist.scheduler.repository.WorkCalendarRepository;
+import com.exist.scheduler.scheduling.SchedulingEngine;
+import com.exist.scheduler.scheduling.WorkingDayCalendar;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,10 +30,17 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.stream.Stream;
@@ -40,6 +60,30 @@ class ProjectPlanServiceTest {
     @Mock
     private ProjectPlanMapper projectPlanMapper;
 
+    @Mock
+    private ResourceService resourceService;
+
+    @Spy
+    private WorkingDayCalendar workingDayCalendar = new WorkingDayCalendar();
+
+    @Spy
+    private SchedulingEngine schedulingEngine = new SchedulingEngine(workingDayCalendar);
+
+    @Spy
+    private ProjectPlanDetailsCache projectPlanDetailsCache = new ProjectPlanDetailsCache(100);
+
+    @Spy
+    private WorkCalendarService workCalendarService = new WorkCalendarService(mock(WorkCalendarRepository.class),
+            workingDayCalendar, mock(ProjectPlanRepository.class), projectPlanDetailsCache);
+
+    @Spy
+    private ProjectPlanLocks projectPlanLocks = new ProjectPlanLocks(mock(PlatformTransactionManager.class), 16, 3);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private SchedulerMetrics schedulerMetrics = new SchedulerMetrics(meterRegistry, ObservationRegistry.NOOP);
+
     @InjectMocks
     private ProjectPlanService projectPlanService;
 
@@ -87,7 +131,7 @@ class ProjectPlanServiceTest {
         Task task = new Task();
         task.setName("Task 1");
 
-        when(projectPlanRepository.findById(1L)).thenReturn(Optional.of(projectPlan));
+        when(projectPlanRepository.findWithTasksById(1L)).thenReturn(Optional.of(projectPlan));
         when(projectPlanMapper.toTaskEntity(any(TaskDTO.class), any())).thenReturn(task);
         when(taskRepository.save(any(Task.class))).thenReturn(task);
 
@@ -101,14 +145,14 @@ class ProjectPlanServiceTest {
         TaskDTO taskDTO = new TaskDTO();
         taskDTO.setProjectPlanId(1L);
 
-        when(projectPlanRepository.findById(1L)).thenReturn(Optional.empty());
+        when(projectPlanRepository.findWithTasksById(1L)).thenReturn(Optional.empty());
 
         NoSuchElementException exception = assertThrows(NoSuchElementException.class, () -> {
             projectPlanService.addTaskToProjectPlan(taskDTO);
         });
 
         assertEquals("Project Plan with ID: 1 not found", exception.getMessage());
-        verify(projectPlanRepository, times(1)).findById(1L);
+        verify(projectPlanRepository, times(1)).findWithTasksById(1L);
         verify(taskRepository, never()).save(any(Task.class));
     }
 
@@ -148,27 +192,19 @@ class ProjectPlanServiceTest {
     @Test
     void toProjectPlanDetails() {
 
-        // Mock project plan with start and end dates
-        ProjectPlan projectPlan = new ProjectPlan();
-        projectPlan.setName("Test Project");
-        projectPlan.setId(1L);
-        projectPlan.setProjectStartDate(LocalDate.of(2024, 1, 1)); // Mock start date
-        projectPlan.setProjectEndDate(null);   // Mock end date
-        projectPlan.setProjectDuration(31); // Mock duration
-
-        Task task = new Task();
-        task.setId(1L);
-        task.setName("Test Task");
-        task.setDuration(5);
-        task.setTaskStartDate(LocalDate.of(2024, 1, 1));  // Mock task start date
-        task.setTaskEndDate(null);    // Mock task end date
-        task.setDependencies(new ArrayList<>());  // No dependencies for simplicity
+        // Plan summary with a start date and no end date yet
+        ProjectPlanSummary projectPlan = new ProjectPlanSummary(1L, "Test Project",
+                LocalDate.of(2024, 1, 1), null, 31, 0);
 
-        // Set tasks in project plan
-        projectPlan.setTasks(List.of(task));
+        // An unscheduled task listed first has to end up after the scheduled one
+        TaskSummary unscheduled = new TaskSummary(2L, 1L, "Unscheduled Task", 3, null, null);
+        TaskSummary task = new TaskSummary(1L, 1L, "Test Task", 5, LocalDate.of(2024, 1, 1), null);
 
-        // Mock the repository call
-        when(projectPlanRepository.findAll()).thenReturn(List.of(projectPlan));
+        // Mock the repository calls
+        when(projectPlanRepository.findAllSummaries()).thenReturn(List.of(projectPlan));
+        when(taskRepository.findSummariesByProjectPlanIds(List.of(1L))).thenReturn(List.of(unscheduled, task));
+        when(taskRepository.findDependencyNamesByProjectPlanIds(List.of(1L)))
+                .thenReturn(List.of(new TaskDependencyName(2L, "Test Task")));
 
         // Call the method under test
         List<ProjectPlanDetails> details = projectPlanService.toProjectPlanDetails();
@@ -177,17 +213,80 @@ class ProjectPlanServiceTest {
         assertNotNull(details);
         assertEquals(1, details.size());
         assertEquals("Test Project", details.get(0).getProjectPlanName());
-        assertEquals(1, details.get(0).getTasks().size());
+        assertEquals(2, details.get(0).getTasks().size());
         assertEquals("Test Task", details.get(0).getTasks().get(0).getTaskName());
+        assertEquals("Unscheduled Task", details.get(0).getTasks().get(1).getTaskName());
 
         // Assert formatted dates
         assertEquals("January 1, 2024", details.get(0).getProjectStart());
         assertEquals("N/A", details.get(0).getProjectEnd());
         assertEquals("January 1, 2024", details.get(0).getTasks().get(0).getStartDate());
         assertEquals("N/A", details.get(0).getTasks().get(0).getEndDate());
+        assertEquals("N/A", details.get(0).getTasks().get(1).getStartDate());
 
-        // Assert task dependencies are empty (no dependencies were set)
+        // Assert task dependencies come from the dependency name rows
         assertTrue(details.get(0).getTasks().get(0).getDependencies().isEmpty());
+        assertEquals(List.of("Test Task"), details.get(0).getTasks().get(1).getDependencies());
+    }
+
+    @Test
+    void toProjectPlanDetails_UnchangedPlanIsServedFromCache() {
+        ProjectPlanSummary projectPlan = new ProjectPlanSummary(1L, "Test Project", LocalDate.of(2024, 1, 1), null, 0, 0);
+        when(projectPlanRepository.findAllSummaries()).thenReturn(List.of(projectPlan));
+        when(taskRepository.findSummariesByProjectPlanIds(List.of(1L)))
+                .thenReturn(List.of(new TaskSummary(1L, 1L, "Test Task", 5, LocalDate.of(2024, 1, 1), null)));
+
+        projectPlanService.toProjectPlanDetails();
+        List<ProjectPlanDetails> details = projectPlanService.toProjectPlanDetails();
+
+        assertEquals("Test Task", details.get(0).getTasks().get(0).getTaskName());
+        verify(taskRepository, times(1)).findSummariesByProjectPlanIds(any());
+        assertEquals(1, projectPlanService.getDetailsCacheStats().getHits());
+
+        // A write to the plan makes the next read render it again
+        ProjectPlan entity = new ProjectPlan();
+        entity.setId(1L);
+        entity.setTasks(new ArrayList<>());
+        when(projectPlanRepository.findWithTasksById(1L)).thenReturn(Optional.of(entity));
+        ProjectPlanDTO projectPlanDTO = new ProjectPlanDTO();
+        projectPlanDTO.setName("Renamed");
+        projectPlanDTO.setProjectStartDate(LocalDate.of(2024, 1, 1));
+        projectPlanService.updateProject(1L, projectPlanDTO);
+
+        projectPlanService.toProjectPlanDetails();
+        verify(taskRepository, times(2)).findSummariesByProjectPlanIds(any());
+    }
+
+    @Test
+    void toProjectPlanDetails_PageIsClampedAndStartsAfterCursor() {
+        ProjectPlanFilter filter = new ProjectPlanFilter("web", null, LocalDate.of(2024, 12, 31));
+        when(projectPlanRepository.findPageByFilter(anyLong(), any(), any(), any(), any(Pageable.class))).thenReturn(List.of());
+
+        projectPlanService.toProjectPlanDetails(filter, 10L, 10_000);
+        projectPlanService.toProjectPlanDetails(filter, null, 20);
+
+        verify(projectPlanRepository).findPageByFilter(10L, "web", null, LocalDate.of(2024, 12, 31),
+                PageRequest.ofSize(ProjectPlanService.MAX_PAGE_SIZE));
+        verify(projectPlanRepository).findPageByFilter(0L, "web", null, LocalDate.of(2024, 12, 31), PageRequest.ofSize(20));
+    }
+
+    @Test
+    void streamProjectPlanDetails_LoadsTasksOncePerChunk() {
+        List<ProjectPlanSummary> projectPlans = new ArrayList<>();
+        for (long id = 1; id <= 150; id++) {
+            projectPlans.add(new ProjectPlanSummary(id, "Plan " + id, LocalDate.of(2024, 1, 1), null, 0, 0));
+        }
+        when(projectPlanRepository.streamByFilter(null, null, null)).thenReturn(projectPlans.stream());
+
+        List<String> written = new ArrayList<>();
+        projectPlanService.streamProjectPlanDetails(new ProjectPlanFilter(),
+                planDetails -> written.add(planDetails.getProjectPlanName()));
+
+        assertEquals(150, written.size());
+        assertEquals("Plan 1", written.get(0));
+        assertEquals("Plan 150", written.get(149));
+        verify(taskRepository, times(2)).findSummariesByProjectPlanIds(any());
+        verify(taskRepository, times(2)).findDependencyNamesByProjectPlanIds(any());
     }
 
     @Test
@@ -208,8 +307,9 @@ class ProjectPlanServiceTest {
         task.setName("Old Task");
         task.setProjectPlan(projectPlan);
 
-        when(taskRepository.findById(4L)).thenReturn(java.util.Optional.of(task));
-        when(projectPlanRepository.findById(anyLong())).thenReturn(java.util.Optional.of(projectPlan));
+        when(taskRepository.findProjectPlanIdById(4L)).thenReturn(Optional.of(1L));
+        when(taskRepository.findWithProjectPlanById(4L)).thenReturn(java.util.Optional.of(task));
+        when(projectPlanRepository.findWithTasksById(anyLong())).thenReturn(java.util.Optional.of(projectPlan));
 
         // Call the method under test
         projectPlanService.updateTask(4L, taskDTO);
@@ -217,10 +317,134 @@ class ProjectPlanServiceTest {
         // Assertions
         assertEquals("Updated Task", task.getName());
         assertEquals(5, task.getDuration());
-        verify(taskRepository, times(1)).findById(4L);
+        verify(taskRepository, times(1)).findWithProjectPlanById(4L);
         verify(taskRepository, times(1)).save(any(Task.class));
     }
 
+    @Test
+    void updateTask_MovedTaskIsLookedUpAgain() {
+        ProjectPlan projectPlan = new ProjectPlan();
+        projectPlan.setId(2L);
+        projectPlan.setTasks(new ArrayList<>());
+        Task task = new Task("Design", 3, new ArrayList<>(), projectPlan);
+        task.setId(4L);
+        projectPlan.getTasks().add(task);
+
+        // The task was in plan 1 when first looked up, but another write moved it to plan 2 before the lock was taken
+        when(taskRepository.findProjectPlanIdById(4L)).thenReturn(Optional.of(1L), Optional.of(2L));
+        when(taskRepository.findWithProjectPlanById(4L)).thenReturn(Optional.of(task));
+        when(projectPlanRepository.findWithTasksById(2L)).thenReturn(Optional.of(projectPlan));
+        when(projectPlanMapper.toTaskDependencies(any(TaskDTO.class), any(ProjectPlan.class))).thenReturn(new ArrayList<>());
+
+        projectPlanService.updateTaskDeferred(4L, new TaskDTO(4L, "Design", 5, List.of(), 2L, null, null));
+
+        assertEquals(5, task.getDuration());
+        verify(projectPlanLocks).write(eq(Arrays.asList(1L, 2L)), any());
+        verify(projectPlanLocks).write(eq(Arrays.asList(2L, 2L)), any());
+
+        // A task that moves on every lookup is given up on rather than retried under a stale lock
+        when(taskRepository.findProjectPlanIdById(4L)).thenReturn(Optional.of(1L));
+        OptimisticLockingFailureException e = assertThrows(OptimisticLockingFailureException.class,
+                () -> projectPlanService.updateTask(4L, new TaskDTO(4L, "Design", 6, List.of(), 2L, null, null)));
+        assertEquals("Task with ID: 4 was moved to another project plan, please retry", e.getMessage());
+        assertEquals(5, task.getDuration());
+    }
+
+    @Test
+    void updateTaskDeferred_KeepsDatesAndRejectsCycles() {
+        ProjectPlan projectPlan = new ProjectPlan();
+        projectPlan.setId(1L);
+        projectPlan.setProjectStartDate(LocalDate.of(2024, 10, 7));
+        projectPlan.setTasks(new ArrayList<>());
+        Task design = new Task("Design", 3, new ArrayList<>(), projectPlan);
+        design.setId(1L);
+        Task build = new Task("Build", 5, new ArrayList<>(List.of(design)), projectPlan);
+        build.setId(2L);
+        projectPlan.getTasks().addAll(List.of(design, build));
+        projectPlanService.calculateTaskAndProjectDates(projectPlan);
+        LocalDate buildStart = build.getTaskStartDate();
+
+        when(taskRepository.findProjectPlanIdById(1L)).thenReturn(Optional.of(1L));
+        when(taskRepository.findWithProjectPlanById(1L)).thenReturn(Optional.of(design));
+        when(projectPlanRepository.findWithTasksById(1L)).thenReturn(Optional.of(projectPlan));
+
+        TaskDTO longer = new TaskDTO(1L, "Design", 10, List.of(), 1L, null, null);
+        when(projectPlanMapper.toTaskDependencies(eq(longer), any(ProjectPlan.class))).thenReturn(new ArrayList<>());
+
+        assertEquals(List.of(1L), projectPlanService.updateTaskDeferred(1L, longer));
+        assertEquals(10, design.getDuration());
+        assertEquals(buildStart, build.getTaskStartDate());  // Left to the recalculation queue
+
+        TaskDTO cyclic = new TaskDTO(1L, "Design", 3, List.of(2L), 1L, null, null);
+        when(projectPlanMapper.toTaskDependencies(eq(cyclic), any(ProjectPlan.class))).thenReturn(new ArrayList<>(List.of(build)));
+
+        assertThrows(IllegalStateException.class, () -> projectPlanService.updateTaskDeferred(1L, cyclic));
+    }
+
+    @Test
+    void calculateTaskAndProjectDates_RecordsMetrics() {
+        ProjectPlan projectPlan = new ProjectPlan();
+        projectPlan.setId(1L);
+        projectPlan.setProjectStartDate(LocalDate.of(2024, 10, 7));
+        projectPlan.setTasks(new ArrayList<>());
+        Task design = new Task("Design", 3, new ArrayList<>(), projectPlan);
+        Task build = new Task("Build", 5, new ArrayList<>(List.of(design)), projectPlan);
+        projectPlan.getTasks().addAll(List.of(design, build));
+
+        projectPlanService.calculateTaskAndProjectDates(projectPlan);
+        projectPlanService.calculateTaskAndProjectDates(projectPlan);
+
+        assertEquals(2, meterRegistry.get("scheduler.recalculation.plan.size").summary().count());
+        assertEquals(4, meterRegistry.get("scheduler.recalculation.plan.size").summary().totalAmount());
+        assertEquals(4, meterRegistry.get("scheduler.recalculation.tasks").tag("result", "visited").counter().count());
+        // The second pass finds every date already in place
+        assertEquals(2, meterRegistry.get("scheduler.recalculation.tasks").tag("result", "changed").counter().count());
+    }
+
+    @Test
+    void recalculateProjectPlan_SchedulesWholePlan() {
+        ProjectPlan projectPlan = new ProjectPlan();
+        projectPlan.setId(1L);
+        projectPlan.setProjectStartDate(LocalDate.of(2024, 10, 7));
+        projectPlan.setTasks(new ArrayList<>());
+        Task design = new Task("Design", 3, new ArrayList<>(), projectPlan);
+        Task build = new Task("Build", 5, new ArrayList<>(List.of(design)), projectPlan);
+        projectPlan.getTasks().addAll(List.of(design, build));
+        when(projectPlanRepository.findWithTasksById(1L)).thenReturn(Optional.of(projectPlan));
+
+        RecalculationResult result = projectPlanService.recalculateProjectPlan(1L);
+
+        assertEquals(2, result.getTasksRecalculated());
+        assertEquals(LocalDate.of(2024, 10, 10), build.getTaskStartDate());
+        assertEquals(LocalDate.of(2024, 10, 16), projectPlan.getProjectEndDate());
+    }
+
+    @Test
+    void recalculateProjectPlan_LevelsSharedResource() {
+        ProjectPlan projectPlan = new ProjectPlan();
+        projectPlan.setId(1L);
+        projectPlan.setProjectStartDate(LocalDate.of(2024, 10, 7));
+        projectPlan.setResourceLeveling(true);
+        projectPlan.setTasks(new ArrayList<>());
+        Resource crew = new Resource("Crew", 1);
+        crew.setId(7L);
+        Task design = new Task("Design", 3, new ArrayList<>(), projectPlan);
+        Task build = new Task("Build", 5, new ArrayList<>(), projectPlan);
+        design.getAssignments().add(new ResourceAssignment(crew, 1));
+        build.getAssignments().add(new ResourceAssignment(crew, 1));
+        projectPlan.getTasks().addAll(List.of(design, build));
+        when(projectPlanRepository.findWithTasksById(1L)).thenReturn(Optional.of(projectPlan));
+        when(resourceService.getCapacities(any())).thenReturn(Map.of(7L, 1));
+
+        projectPlanService.recalculateProjectPlan(1L);
+
+        // Neither task waits on the other, but the crew can only work on one; the longer one goes first
+        assertEquals(LocalDate.of(2024, 10, 7), build.getTaskStartDate());
+        assertEquals(LocalDate.of(2024, 10, 11), build.getTaskEndDate());
+        assertEquals(LocalDate.of(2024, 10, 14), design.getTaskStartDate());
+        assertEquals(LocalDate.of(2024, 10, 16), projectPlan.getProjectEndDate());
+    }
+
     @Test
     void testUpdateProject() {
         // Prepare mock data
@@ -233,7 +457,7 @@ class ProjectPlanServiceTest {
         projectPlanDTO.setName("Updated Project");
         projectPlanDTO.setProjectStartDate(LocalDate.now());
 
-        when(projectPlanRepository.findById(1L)).thenReturn(java.util.Optional.of(projectPlan));
+        when(projectPlanRepository.findWithTasksById(1L)).thenReturn(java.util.Optional.of(projectPlan));
 
         // Call the method under test
         projectPlanService.updateProject(1L, projectPlanDTO);
@@ -241,7 +465,7 @@ class ProjectPlanServiceTest {
         // Assertions
         assertEquals("Updated Project", projectPlan.getName());
         assertEquals(LocalDate.now(), projectPlan.getProjectStartDate());
-        verify(projectPlanRepository, times(1)).findById(1L);
+        verify(projectPlanRepository, times(1)).findWithTasksById(1L);
         verify(projectPlanRepository, times(1)).save(any(ProjectPlan.class));
     }
 
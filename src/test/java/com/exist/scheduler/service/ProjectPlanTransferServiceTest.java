@@ -0,0 +1,174 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.dto.ProjectPlanDTO;
+import com.exist.scheduler.dto.TaskDTO;
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.ProjectPlanImportResult;
+import com.exist.scheduler.model.Task;
+import com.exist.scheduler.repository.ProjectPlanRepository;
+import com.exist.scheduler.scheduling.Schedule;
+import com.exist.scheduler.scheduling.SchedulingEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Imports and exports against the real database: the imported plan has to be scheduled exactly like a created one
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class ProjectPlanTransferServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 10, 7);
+
+    @Autowired
+    private ProjectPlanTransferService projectPlanTransferService;
+
+    @Autowired
+    private ProjectPlanService projectPlanService;
+
+    @Autowired
+    private ProjectPlanRepository projectPlanRepository;
+
+    @Autowired
+    private SchedulingEngine schedulingEngine;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void importedPlanIsScheduled() throws IOException {
+        // Every task depends on the one after it, so each dependency is only known further down the input
+        StringBuilder csv = new StringBuilder("key,name,duration,dependencies\n");
+        int taskCount = 2500;
+        for (int i = 0; i < taskCount; i++) {
+            csv.append("t").append(i).append(",Task ").append(i).append(',').append(1 + i % 4).append(',')
+                    .append(i < taskCount - 1 ? "t" + (i + 1) : "").append(i % 10 == 0 && i + 2 < taskCount ? ";t" + (i + 2) : "")
+                    .append('\n');
+        }
+
+        ProjectPlanImportResult result = importPlan("Imported chain", TaskRecordFormat.CSV, csv.toString());
+
+        assertEquals(taskCount, result.getTasksImported());
+        assertEquals(taskCount - 1 + 250, result.getDependenciesImported());
+        assertScheduled(result.getProjectPlanId(), taskCount);
+        assertEquals(0, stagingRows());
+    }
+
+    @Test
+    void exportedPlanImportsWithTheSameDates() throws IOException {
+        List<TaskDTO> tasks = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            TaskDTO task = new TaskDTO(null, "Task " + i, 1 + i % 5, List.of(), null, null, null);
+            task.setKey("task-" + i);
+            task.setDependencyKeys(i == 0 ? List.of() : i % 3 == 0 ? List.of("task-" + (i - 1), "task-" + (i / 2)) : List.of("task-" + (i - 1)));
+            tasks.add(task);
+        }
+        ProjectPlanDTO projectPlanDTO = new ProjectPlanDTO();
+        projectPlanDTO.setName("Exported");
+        projectPlanDTO.setProjectStartDate(START);
+        projectPlanDTO.setTasks(tasks);
+        ProjectPlanDTO created = projectPlanService.createProjectPlan(projectPlanDTO);
+
+        for (TaskRecordFormat format : TaskRecordFormat.values()) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            projectPlanTransferService.exportPlan(created.getId(), format, output);
+            ProjectPlanImportResult result = importPlan("Re-imported", format, output.toString(StandardCharsets.UTF_8));
+
+            assertEquals(30, result.getTasksImported(), format.name());
+            assertEquals(datesByName(created.getId()), datesByName(result.getProjectPlanId()), format.name());
+        }
+    }
+
+    @Test
+    void unknownDependencyRollsTheImportBack() {
+        long plansBefore = projectPlanRepository.count();
+
+        NoSuchElementException e = assertThrows(NoSuchElementException.class, () -> importPlan("Unknown key",
+                TaskRecordFormat.NDJSON, "{\"key\":\"a\",\"name\":\"A\",\"duration\":1,\"dependencies\":[\"missing\"]}"));
+
+        assertEquals("Tasks with keys: [missing] not found in import", e.getMessage());
+        assertEquals(plansBefore, projectPlanRepository.count());
+        assertEquals(0, stagingRows());
+    }
+
+    @Test
+    void invalidGraphsAreRejected() {
+        IllegalArgumentException duplicate = assertThrows(IllegalArgumentException.class, () -> importPlan("Duplicate",
+                TaskRecordFormat.CSV, "key,name,duration\na,A,1\na,Again,2\n"));
+        assertEquals("Task keys: [a] are used more than once", duplicate.getMessage());
+
+        IllegalStateException cycle = assertThrows(IllegalStateException.class, () -> importPlan("Cycle",
+                TaskRecordFormat.CSV, "key,name,duration,dependencies\na,A,1,c\nb,B,1,a\nc,C,1,b\n"));
+        assertTrue(cycle.getMessage().startsWith("Circular dependency detected"), cycle.getMessage());
+    }
+
+    @Test
+    void importsAndCreatedPlansShareTheTaskSequence() throws IOException {
+        // Each import and each create takes IDs from the same pooled generator, whichever goes first
+        List<Long> projectPlanIds = new ArrayList<>();
+        for (int round = 0; round < 3; round++) {
+            projectPlanIds.add(importPlan("Interleaved import " + round, TaskRecordFormat.CSV,
+                    "key,name,duration\na,A,1\nb,B,2\n").getProjectPlanId());
+            ProjectPlanDTO projectPlanDTO = new ProjectPlanDTO();
+            projectPlanDTO.setName("Interleaved create " + round);
+            projectPlanDTO.setProjectStartDate(START);
+            projectPlanDTO.setTasks(List.of(new TaskDTO(null, "C", 3, List.of(), null, null, null)));
+            projectPlanIds.add(projectPlanService.createProjectPlan(projectPlanDTO).getId());
+        }
+
+        for (Long projectPlanId : projectPlanIds) {
+            assertFalse(datesByName(projectPlanId).isEmpty());
+        }
+    }
+
+    private ProjectPlanImportResult importPlan(String name, TaskRecordFormat format, String input) throws IOException {
+        return projectPlanTransferService.importPlan(name, START, format,
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private void assertScheduled(Long projectPlanId, int taskCount) {
+        transactionTemplate.executeWithoutResult(status -> {
+            ProjectPlan stored = projectPlanRepository.findWithTasksById(projectPlanId).orElseThrow();
+            assertEquals(taskCount, stored.getTasks().size());
+            Schedule expected = schedulingEngine.schedule(stored.getTasks(), START);
+
+            LocalDate latestEnd = START;
+            for (Task task : stored.getTasks()) {
+                assertEquals(expected.getStartDate(task), task.getTaskStartDate(), task.getName());
+                assertEquals(expected.getEndDate(task), task.getTaskEndDate(), task.getName());
+                if (task.getTaskEndDate().isAfter(latestEnd)) {
+                    latestEnd = task.getTaskEndDate();
+                }
+            }
+            assertEquals(START, stored.getProjectStartDate());
+            assertEquals(latestEnd, stored.getProjectEndDate());
+        });
+    }
+
+    private Map<String, List<LocalDate>> datesByName(Long projectPlanId) {
+        return transactionTemplate.execute(status -> {
+            Map<String, List<LocalDate>> dates = new HashMap<>();
+            for (Task task : projectPlanRepository.findWithTasksById(projectPlanId).orElseThrow().getTasks()) {
+                dates.put(task.getName(), List.of(task.getTaskStartDate(), task.getTaskEndDate()));
+            }
+            return dates;
+        });
+    }
+
+    private int stagingRows() {
+        return jdbcTemplate.queryForObject("select (select count(*) from task_import_key)"
+                + " + (select count(*) from task_import_edge)", Integer.class);
+    }
+}
@@ -0,0 +1,127 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.model.RecalculationJob;
+import com.exist.scheduler.model.RecalculationResult;
+import com.exist.scheduler.model.RecalculationStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RecalculationQueueTest {
+
+    private final ProjectPlanService projectPlanService = mock(ProjectPlanService.class);
+
+    private final RecalculationQueue recalculationQueue = new RecalculationQueue(projectPlanService, 2, 100, false);
+
+    @AfterEach
+    void tearDown() {
+        recalculationQueue.shutdown();
+    }
+
+    @Test
+    void burstOfEditsRunsOneRecalculation() throws Exception {
+        when(projectPlanService.recalculateProjectPlan(1L)).thenReturn(new RecalculationResult(10, 4));
+
+        RecalculationJob first = recalculationQueue.submit(1L);
+        for (int i = 0; i < 4; i++) {
+            assertSame(first, recalculationQueue.submit(1L));
+        }
+        assertFalse(recalculationQueue.getStatus(1L).isFresh());
+
+        awaitFinished(first);
+
+        assertEquals(RecalculationJob.Status.DONE, first.getStatus());
+        assertEquals(5, first.getEdits());
+        assertEquals(4, first.getResult().getTasksChanged());
+        verify(projectPlanService, times(1)).recalculateProjectPlan(1L);
+
+        RecalculationStatus status = recalculationQueue.getStatus(1L);
+        assertTrue(status.isFresh());
+        assertSame(first, status.getLastFinishedJob());
+    }
+
+    @Test
+    void plansAreRecalculatedSeparately() throws Exception {
+        when(projectPlanService.recalculateProjectPlan(anyLong())).thenReturn(new RecalculationResult(1, 1));
+
+        List<RecalculationJob> jobs = recalculationQueue.submit(List.of(1L, 2L));
+
+        assertNotEquals(jobs.get(0).getJobId(), jobs.get(1).getJobId());
+        awaitFinished(jobs.get(0));
+        awaitFinished(jobs.get(1));
+        verify(projectPlanService).recalculateProjectPlan(1L);
+        verify(projectPlanService).recalculateProjectPlan(2L);
+    }
+
+    @Test
+    void editDuringRunningRecalculationQueuesAnotherOne() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(projectPlanService.recalculateProjectPlan(1L)).thenAnswer(invocation -> {
+            running.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return new RecalculationResult(1, 1);
+        });
+
+        RecalculationJob first = recalculationQueue.submit(1L);
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+
+        // The running job has already read the plan, so this edit needs a job of its own
+        RecalculationJob second = recalculationQueue.submit(1L);
+        assertNotSame(first, second);
+        assertSame(second, recalculationQueue.getStatus(1L).getCurrentJob());
+
+        release.countDown();
+        awaitFinished(first);
+        awaitFinished(second);
+        assertTrue(recalculationQueue.getStatus(1L).isFresh());
+        verify(projectPlanService, times(2)).recalculateProjectPlan(1L);
+    }
+
+    @Test
+    void failedRecalculationIsReported() throws Exception {
+        when(projectPlanService.recalculateProjectPlan(3L))
+                .thenThrow(new NoSuchElementException("Project Plan with ID: 3 not found"));
+
+        RecalculationJob job = recalculationQueue.submit(3L);
+        awaitFinished(job);
+
+        assertEquals(RecalculationJob.Status.FAILED, job.getStatus());
+        assertEquals("Project Plan with ID: 3 not found", job.getError());
+        assertSame(job, recalculationQueue.getJob(job.getJobId()));
+        assertFalse(recalculationQueue.getStatus(3L).isFresh());
+    }
+
+    @Test
+    void errorInRecalculationFailsTheJob() throws Exception {
+        when(projectPlanService.recalculateProjectPlan(4L)).thenThrow(new StackOverflowError());
+
+        RecalculationJob job = recalculationQueue.submit(4L);
+        awaitFinished(job);
+
+        assertEquals(RecalculationJob.Status.FAILED, job.getStatus());
+        assertEquals("java.lang.StackOverflowError", job.getError());
+        assertNull(recalculationQueue.getStatus(4L).getCurrentJob());
+        assertNotSame(job, recalculationQueue.submit(4L));
+    }
+
+    @Test
+    void unknownJobIsRejected() {
+        assertThrows(NoSuchElementException.class, () -> recalculationQueue.getJob(42L));
+    }
+
+    private static void awaitFinished(RecalculationJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!job.isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isFinished(), "Job " + job.getJobId() + " did not finish");
+    }
+}
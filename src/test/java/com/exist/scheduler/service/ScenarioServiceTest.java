@@ -0,0 +1,276 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.dto.ProjectPlanDTO;
+import com.exist.scheduler.dto.ResourceDTO;
+import com.exist.scheduler.dto.ScenarioDTO;
+import com.exist.scheduler.dto.TaskAssignmentDTO;
+import com.exist.scheduler.dto.TaskDTO;
+import com.exist.scheduler.dto.TaskOverrideDTO;
+import com.exist.scheduler.dto.WorkCalendarDTO;
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.ScenarioResult;
+import com.exist.scheduler.model.TaskScenarioDelta;
+import com.exist.scheduler.model.WorkCalendar;
+import com.exist.scheduler.scheduling.PlanSnapshot;
+import com.exist.scheduler.scheduling.WorkingCalendar;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Scenarios against a stored plan: Design (5) <- Coding (12) <- Testing (3), and Docs (2) on its own
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class ScenarioServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 10, 7);
+
+    @Autowired
+    private ScenarioService scenarioService;
+
+    @Autowired
+    private ProjectPlanService projectPlanService;
+
+    @Autowired
+    private WorkCalendarService workCalendarService;
+
+    @Autowired
+    private ResourceService resourceService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long projectPlanId;
+
+    private Map<String, Long> taskIds;
+
+    @BeforeEach
+    void createPlan() {
+        ProjectPlanDTO projectPlanDTO = new ProjectPlanDTO();
+        projectPlanDTO.setName("Scenario plan");
+        projectPlanDTO.setProjectStartDate(START);
+        projectPlanDTO.setTasks(List.of(
+                task("Design", 5, List.of()),
+                task("Coding", 12, List.of("Design")),
+                task("Testing", 3, List.of("Coding")),
+                task("Docs", 2, List.of())));
+        projectPlanId = projectPlanService.createProjectPlan(projectPlanDTO).getId();
+
+        taskIds = new HashMap<>();
+        jdbcTemplate.query("select id, name from task where project_plan_id = ?",
+                rs -> {
+                    taskIds.put(rs.getString("name"), rs.getLong("id"));
+                }, projectPlanId);
+    }
+
+    @Test
+    void longerTaskMovesItsSuccessorsWithoutWriting() {
+        Map<Long, List<LocalDate>> storedBefore = storedDates();
+
+        ScenarioResult result = scenarioService.simulate(projectPlanId,
+                new ScenarioDTO(null, List.of(new TaskOverrideDTO(taskIds.get("Coding"), 20, null, null))));
+
+        assertEquals(4, result.getTasksScheduled());
+        assertEquals(2, result.getTasksChanged());
+        Map<String, TaskScenarioDelta> deltas = byName(result);
+        assertEquals(Set.of("Coding", "Testing"), deltas.keySet());
+        assertEquals(0, deltas.get("Coding").getStartDelta());
+        assertEquals(8, deltas.get("Coding").getEndDelta());
+        assertEquals(8, deltas.get("Testing").getStartDelta());
+        assertEquals(8, deltas.get("Testing").getEndDelta());
+        assertEquals(8, result.getProjectEndDelta());
+        assertTrue(result.getProjectEndDate().isAfter(result.getBaseProjectEndDate()));
+
+        assertEquals(storedBefore, storedDates());
+    }
+
+    @Test
+    void dependencyChangesAndStartDateAreApplied() {
+        // Coding no longer waits on Design, Testing also waits on Docs
+        ScenarioResult relinked = scenarioService.simulate(projectPlanId, new ScenarioDTO(null, List.of(
+                new TaskOverrideDTO(taskIds.get("Coding"), null, null, List.of(taskIds.get("Design"))),
+                new TaskOverrideDTO(taskIds.get("Testing"), null, List.of(taskIds.get("Docs")), null))));
+
+        Map<String, TaskScenarioDelta> deltas = byName(relinked);
+        assertEquals(START, deltas.get("Coding").getStartDate());
+        assertEquals(-5, deltas.get("Coding").getStartDelta());
+        assertEquals(-5, relinked.getProjectEndDelta());
+
+        // A week later, everything moves by five working days
+        ScenarioResult later = scenarioService.simulate(projectPlanId, new ScenarioDTO(START.plusWeeks(1), List.of()));
+
+        assertEquals(4, later.getTasksChanged());
+        for (TaskScenarioDelta delta : later.getTasks()) {
+            assertEquals(5, delta.getStartDelta(), delta.getTaskName());
+            assertEquals(5, delta.getEndDelta(), delta.getTaskName());
+        }
+    }
+
+    @Test
+    void invalidScenariosAreRejected() {
+        IllegalStateException cycle = assertThrows(IllegalStateException.class, () -> scenarioService.simulate(projectPlanId,
+                new ScenarioDTO(null, List.of(new TaskOverrideDTO(taskIds.get("Design"), null, List.of(taskIds.get("Testing")), null)))));
+        assertTrue(cycle.getMessage().startsWith("Circular dependency detected"), cycle.getMessage());
+
+        NoSuchElementException unknownTask = assertThrows(NoSuchElementException.class, () -> scenarioService.simulate(projectPlanId,
+                new ScenarioDTO(null, List.of(new TaskOverrideDTO(-1L, 3, null, null)))));
+        assertEquals(String.format("Task with ID: -1 not found in project plan with ID: %s", projectPlanId), unknownTask.getMessage());
+
+        IllegalArgumentException notADependency = assertThrows(IllegalArgumentException.class, () -> scenarioService.simulate(projectPlanId,
+                new ScenarioDTO(null, List.of(new TaskOverrideDTO(taskIds.get("Testing"), null, null, List.of(taskIds.get("Docs")))))));
+        assertEquals(String.format("Task with ID: %s does not depend on task with ID: %s", taskIds.get("Testing"), taskIds.get("Docs")),
+                notADependency.getMessage());
+
+        assertThrows(IllegalArgumentException.class, () -> scenarioService.simulate(projectPlanId,
+                new ScenarioDTO(null, List.of(new TaskOverrideDTO(taskIds.get("Docs"), -1, null, null)))));
+        assertThrows(NoSuchElementException.class, () -> scenarioService.simulate(-1L, new ScenarioDTO()));
+    }
+
+    @Test
+    void snapshotIsReusedUntilThePlanChanges() {
+        PlanSnapshot snapshot = scenarioService.snapshot(projectPlanId);
+        assertSame(snapshot, scenarioService.snapshot(projectPlanId));
+
+        TaskDTO coding = new TaskDTO(null, "Coding", 20, List.of(taskIds.get("Design")), projectPlanId, null, null);
+        projectPlanService.updateTask(taskIds.get("Coding"), coding);
+
+        PlanSnapshot updated = scenarioService.snapshot(projectPlanId);
+        assertNotSame(snapshot, updated);
+        assertEquals(20, updated.getGraph().duration(updated.nodeOf(taskIds.get("Coding"))));
+
+        // The new snapshot starts from the stored dates, so the same change again moves nothing
+        ScenarioResult result = scenarioService.simulate(projectPlanId,
+                new ScenarioDTO(null, List.of(new TaskOverrideDTO(taskIds.get("Coding"), 20, null, null))));
+        assertEquals(0, result.getTasksChanged());
+    }
+
+    @Test
+    void snapshotIsReplacedWhenTheCalendarOrAResourceChanges() {
+        List<DayOfWeek> workWeek = List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+                DayOfWeek.THURSDAY, DayOfWeek.FRIDAY);
+        Long calendarId = workCalendarService.createCalendar(new WorkCalendarDTO(null, "Office", workWeek, List.of())).getId();
+        ResourceDTO crew = resourceService.createResource(new ResourceDTO(null, "Crew", 1));
+
+        TaskDTO design = task("Design", 5, List.of());
+        design.setAssignments(List.of(new TaskAssignmentDTO(crew.getId(), 1)));
+        TaskDTO docs = task("Docs", 2, List.of());
+        docs.setAssignments(List.of(new TaskAssignmentDTO(crew.getId(), 1)));
+        ProjectPlanDTO projectPlanDTO = new ProjectPlanDTO();
+        projectPlanDTO.setName("Calendar plan");
+        projectPlanDTO.setProjectStartDate(START);
+        projectPlanDTO.setWorkCalendarId(calendarId);
+        projectPlanDTO.setResourceLeveling(true);
+        projectPlanDTO.setTasks(List.of(design, docs));
+        Long leveledPlanId = projectPlanService.createProjectPlan(projectPlanDTO).getId();
+
+        // Neither change goes through the plan itself, and its stored dates are not recalculated here
+        PlanSnapshot snapshot = scenarioService.snapshot(leveledPlanId);
+        LocalDate holiday = START.plusDays(1);
+        workCalendarService.updateCalendar(calendarId, new WorkCalendarDTO(calendarId, "Office", workWeek, List.of(holiday)));
+
+        PlanSnapshot onNewCalendar = scenarioService.snapshot(leveledPlanId);
+        assertNotSame(snapshot, onNewCalendar);
+        assertFalse(onNewCalendar.getCalendar().isWorkingDay(holiday.toEpochDay()));
+
+        resourceService.updateResource(crew.getId(), new ResourceDTO(crew.getId(), "Crew", 2));
+
+        PlanSnapshot withNewCapacity = scenarioService.snapshot(leveledPlanId);
+        assertNotSame(onNewCalendar, withNewCapacity);
+        assertEquals(2, withNewCapacity.getDemand().capacity(0));
+    }
+
+    @Test
+    void calendarCompiledDuringItsUpdateIsNotKept() throws Exception {
+        List<DayOfWeek> workWeek = List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+                DayOfWeek.THURSDAY, DayOfWeek.FRIDAY);
+        Long calendarId = workCalendarService.createCalendar(new WorkCalendarDTO(null, "Site", workWeek, List.of())).getId();
+        ProjectPlan onOldRows = new ProjectPlan();
+        onOldRows.setWorkCalendar(workCalendarService.getCalendar(calendarId));
+
+        // Another plan compiles the committed rows while the update has not committed yet
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        WorkingCalendar compiledDuringUpdate;
+        try {
+            compiledDuringUpdate = new TransactionTemplate(transactionManager).execute(status -> {
+                workCalendarService.updateCalendar(calendarId,
+                        new WorkCalendarDTO(calendarId, "Site", workWeek, List.of(START.plusDays(1))));
+                try {
+                    return reader.submit(() -> workCalendarService.forPlan(onOldRows)).get();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } finally {
+            reader.shutdown();
+        }
+
+        assertNotSame(compiledDuringUpdate, workCalendarService.forPlan(onOldRows));
+    }
+
+    @Test
+    void concurrentScenariosMatchSequentialOnes() throws Exception {
+        List<ScenarioDTO> scenarios = new ArrayList<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 200; i++) {
+            scenarios.add(new ScenarioDTO(null, List.of(
+                    new TaskOverrideDTO(taskIds.get("Coding"), random.nextInt(30), null, null),
+                    new TaskOverrideDTO(taskIds.get("Docs"), random.nextInt(30), List.of(taskIds.get("Design")), null))));
+        }
+        List<LocalDate> expected = new ArrayList<>();
+        for (ScenarioDTO scenario : scenarios) {
+            expected.add(scenarioService.simulate(projectPlanId, scenario).getProjectEndDate());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<LocalDate>> results = new ArrayList<>();
+            for (ScenarioDTO scenario : scenarios) {
+                results.add(executor.submit(() -> scenarioService.simulate(projectPlanId, scenario).getProjectEndDate()));
+            }
+            for (int i = 0; i < scenarios.size(); i++) {
+                assertEquals(expected.get(i), results.get(i).get(), "scenario " + i);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static TaskDTO task(String name, int duration, List<String> dependencyKeys) {
+        TaskDTO task = new TaskDTO(null, name, duration, List.of(), null, null, null);
+        task.setKey(name);
+        task.setDependencyKeys(dependencyKeys);
+        return task;
+    }
+
+    private static Map<String, TaskScenarioDelta> byName(ScenarioResult result) {
+        Map<String, TaskScenarioDelta> deltas = new HashMap<>();
+        for (TaskScenarioDelta delta : result.getTasks()) {
+            deltas.put(delta.getTaskName(), delta);
+        }
+        return deltas;
+    }
+
+    private Map<Long, List<LocalDate>> storedDates() {
+        Map<Long, List<LocalDate>> dates = new HashMap<>();
+        jdbcTemplate.query("select id, task_start_date, task_end_date from task where project_plan_id = ?",
+                rs -> {
+                    dates.put(rs.getLong("id"), List.of(rs.getObject("task_start_date", LocalDate.class),
+                            rs.getObject("task_end_date", LocalDate.class)));
+                }, projectPlanId);
+        return dates;
+    }
+}
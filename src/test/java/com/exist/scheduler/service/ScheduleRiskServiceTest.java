@@ -0,0 +1,174 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.dto.ProjectPlanDTO;
+import com.exist.scheduler.dto.ResourceDTO;
+import com.exist.scheduler.dto.TaskAssignmentDTO;
+import com.exist.scheduler.dto.TaskDTO;
+import com.exist.scheduler.model.ScheduleRiskAnalysis;
+import com.exist.scheduler.model.TaskCriticality;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Risk of a stored plan: Design (4-5-6) <- Coding (8-12-25) <- Testing (3), and Docs (2-30) on its own
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "scheduler.risk-analysis.max-iterations=20000"})
+class ScheduleRiskServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 10, 7);
+
+    @Autowired
+    private ScheduleRiskService scheduleRiskService;
+
+    @Autowired
+    private ProjectPlanService projectPlanService;
+
+    @Autowired
+    private ResourceService resourceService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long projectPlanId;
+
+    private Map<String, Long> taskIds;
+
+    @BeforeEach
+    void createPlan() {
+        ProjectPlanDTO projectPlanDTO = new ProjectPlanDTO();
+        projectPlanDTO.setName("Risk plan");
+        projectPlanDTO.setProjectStartDate(START);
+        projectPlanDTO.setTasks(List.of(
+                task("Design", 4, 5, 6, List.of()),
+                task("Coding", 8, 12, 25, List.of("Design")),
+                task("Testing", null, 3, null, List.of("Coding")),
+                task("Docs", null, 2, 30, List.of())));
+        projectPlanId = projectPlanService.createProjectPlan(projectPlanDTO).getId();
+
+        taskIds = new HashMap<>();
+        jdbcTemplate.query("select id, name from task where project_plan_id = ?",
+                rs -> {
+                    taskIds.put(rs.getString("name"), rs.getLong("id"));
+                }, projectPlanId);
+    }
+
+    @Test
+    void estimatesSpreadTheEndAroundThePlannedDate() {
+        ScheduleRiskAnalysis analysis = scheduleRiskService.analyze(projectPlanId, 10_000, "pert", 42L);
+
+        assertEquals(10_000, analysis.getIterations());
+        assertEquals("pert", analysis.getDistribution());
+        assertEquals(42L, analysis.getSeed());
+        assertEquals(jdbcTemplate.queryForObject("select max(task_end_date) from task where project_plan_id = ?",
+                LocalDate.class, projectPlanId), analysis.getPlannedEndDate());
+        assertTrue(analysis.getPlannedEndProbability() > 0 && analysis.getPlannedEndProbability() < 1);
+        assertFalse(analysis.getP50EndDate().isAfter(analysis.getP80EndDate()));
+        assertFalse(analysis.getP80EndDate().isAfter(analysis.getP95EndDate()));
+        assertTrue(analysis.getP95EndDate().isAfter(analysis.getPlannedEndDate()));
+
+        // The chain is critical unless Docs runs long; tasks come most critical first
+        List<TaskCriticality> tasks = analysis.getTasks();
+        assertEquals(4, tasks.size());
+        assertEquals("Docs", tasks.get(3).getTaskName());
+        assertTrue(tasks.get(3).getCriticalityIndex() > 0);
+        for (int i = 1; i < tasks.size(); i++) {
+            assertTrue(tasks.get(i - 1).getCriticalityIndex() >= tasks.get(i).getCriticalityIndex());
+        }
+    }
+
+    @Test
+    void sameSeedRepeatsTheRun() {
+        ScheduleRiskAnalysis first = scheduleRiskService.analyze(projectPlanId, 5000, "triangular", null);
+        ScheduleRiskAnalysis again = scheduleRiskService.analyze(projectPlanId, 5000, "triangular", first.getSeed());
+
+        assertEquals(first.getP50EndDate(), again.getP50EndDate());
+        assertEquals(first.getP80EndDate(), again.getP80EndDate());
+        assertEquals(first.getP95EndDate(), again.getP95EndDate());
+        assertEquals(first.getPlannedEndProbability(), again.getPlannedEndProbability());
+        for (int i = 0; i < first.getTasks().size(); i++) {
+            assertEquals(first.getTasks().get(i).getTaskId(), again.getTasks().get(i).getTaskId());
+            assertEquals(first.getTasks().get(i).getCriticalityIndex(), again.getTasks().get(i).getCriticalityIndex());
+        }
+    }
+
+    @Test
+    void updatedEstimatesAreUsedAndKeptWhenAbsent() {
+        // Coding and Docs lose their spread, so Coding is always critical and Docs never is
+        TaskDTO coding = new TaskDTO(null, "Coding", 12, List.of(taskIds.get("Design")), projectPlanId, null, null);
+        coding.setOptimisticDuration(12);
+        coding.setPessimisticDuration(12);
+        projectPlanService.updateTask(taskIds.get("Coding"), coding);
+        TaskDTO docs = new TaskDTO(null, "Docs", 2, List.of(), projectPlanId, null, null);
+        docs.setPessimisticDuration(2);
+        projectPlanService.updateTask(taskIds.get("Docs"), docs);
+        TaskDTO design = new TaskDTO(null, "Design", 5, List.of(), projectPlanId, null, null);
+        projectPlanService.updateTask(taskIds.get("Design"), design);
+
+        ScheduleRiskAnalysis analysis = scheduleRiskService.analyze(projectPlanId, 2000, "triangular", 7L);
+
+        // Design kept its 4 to 6 days, so only it moves the end
+        assertTrue(analysis.getP95EndDate().isAfter(analysis.getPlannedEndDate()));
+        Map<String, Double> criticality = new HashMap<>();
+        for (TaskCriticality task : analysis.getTasks()) {
+            criticality.put(task.getTaskName(), task.getCriticalityIndex());
+        }
+        assertEquals(1.0, criticality.get("Coding"));
+        assertEquals(0.0, criticality.get("Docs"));
+    }
+
+    @Test
+    void leveledPlanHasNoPlannedEnd() {
+        // Leveling runs the two tasks one after the other, which the simulation does not
+        Long crewId = resourceService.createResource(new ResourceDTO(null, "Crew", 1)).getId();
+        TaskDTO design = task("Design", 4, 5, 6, List.of());
+        design.setAssignments(List.of(new TaskAssignmentDTO(crewId, 1)));
+        TaskDTO docs = task("Docs", null, 2, 30, List.of());
+        docs.setAssignments(List.of(new TaskAssignmentDTO(crewId, 1)));
+        ProjectPlanDTO projectPlanDTO = new ProjectPlanDTO();
+        projectPlanDTO.setName("Leveled risk plan");
+        projectPlanDTO.setProjectStartDate(START);
+        projectPlanDTO.setResourceLeveling(true);
+        projectPlanDTO.setTasks(List.of(design, docs));
+        Long leveledPlanId = projectPlanService.createProjectPlan(projectPlanDTO).getId();
+
+        ScheduleRiskAnalysis analysis = scheduleRiskService.analyze(leveledPlanId, 1000, "pert", 42L);
+
+        assertNull(analysis.getPlannedEndDate());
+        assertNull(analysis.getPlannedEndProbability());
+        assertNotNull(analysis.getP50EndDate());
+        assertEquals(2, analysis.getTasks().size());
+    }
+
+    @Test
+    void invalidRequestsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> scheduleRiskService.analyze(projectPlanId, 0, "pert", null));
+        assertThrows(IllegalArgumentException.class, () -> scheduleRiskService.analyze(projectPlanId, 20_001, "pert", null));
+        IllegalArgumentException distribution = assertThrows(IllegalArgumentException.class,
+                () -> scheduleRiskService.analyze(projectPlanId, 100, "normal", null));
+        assertEquals("Distribution must be one of triangular, pert, not: normal", distribution.getMessage());
+        assertThrows(NoSuchElementException.class, () -> scheduleRiskService.analyze(-1L, 100, "pert", null));
+
+        ProjectPlanDTO inverted = new ProjectPlanDTO();
+        inverted.setName("Inverted estimates");
+        inverted.setTasks(List.of(task("Design", 6, 5, 4, List.of())));
+        assertThrows(IllegalArgumentException.class, () -> projectPlanService.createProjectPlan(inverted));
+    }
+
+    private static TaskDTO task(String name, Integer optimistic, int duration, Integer pessimistic, List<String> dependencyKeys) {
+        TaskDTO task = new TaskDTO(null, name, duration, List.of(), null, null, null);
+        task.setOptimisticDuration(optimistic);
+        task.setPessimisticDuration(pessimistic);
+        task.setKey(name);
+        task.setDependencyKeys(dependencyKeys);
+        return task;
+    }
+}
@@ -0,0 +1,253 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.dto.TaskAssignmentDTO;
+import com.exist.scheduler.dto.TaskBatchDTO;
+import com.exist.scheduler.dto.TaskOperationDTO;
+import com.exist.scheduler.mapper.ProjectPlanMapper;
+import com.exist.scheduler.model.ProjectPlan;
+import com.exist.scheduler.model.RecalculationResult;
+import com.exist.scheduler.model.Resource;
+import com.exist.scheduler.model.ResourceAssignment;
+import com.exist.scheduler.model.Task;
+import com.exist.scheduler.model.TaskBatchResult;
+import com.exist.scheduler.repository.ProjectPlanRepository;
+import com.exist.scheduler.repository.ResourceRepository;
+import com.exist.scheduler.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static com.exist.scheduler.dto.TaskOperationDTO.Type.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TaskBatchServiceTest {
+
+    @Mock
+    private ProjectPlanRepository projectPlanRepository;
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private ProjectPlanService projectPlanService;
+
+    @Spy
+    private ProjectPlanLocks projectPlanLocks = new ProjectPlanLocks(mock(PlatformTransactionManager.class), 16, 3);
+
+    @Spy
+    private ProjectPlanDetailsCache projectPlanDetailsCache = new ProjectPlanDetailsCache(100);
+
+    @Mock
+    private ResourceRepository resourceRepository;
+
+    @Spy
+    private ProjectPlanMapper projectPlanMapper = new ProjectPlanMapper();
+
+    @InjectMocks
+    private TaskBatchService taskBatchService;
+
+    private ProjectPlan projectPlan;
+
+    private Task design;
+
+    private Task build;
+
+    private Task test;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(projectPlanMapper, "resourceRepository", resourceRepository);
+
+        projectPlan = new ProjectPlan();
+        projectPlan.setId(1L);
+        projectPlan.setTasks(new ArrayList<>());
+        design = task(1L, "Design");
+        build = task(2L, "Build", design);
+        test = task(3L, "Test", build);
+
+        when(projectPlanRepository.findWithTasksById(1L)).thenReturn(Optional.of(projectPlan));
+        when(projectPlanService.calculateTaskAndProjectDates(projectPlan)).thenReturn(new RecalculationResult(4, 2));
+
+        // Sequence IDs as the pooled generator would hand them out
+        when(taskRepository.saveAll(any())).thenAnswer(invocation -> {
+            long id = 100;
+            for (Task task : invocation.<Iterable<Task>>getArgument(0)) {
+                task.setId(id++);
+            }
+            return invocation.getArgument(0);
+        });
+    }
+
+    @Test
+    void appliesAllItemsWithOneRecalculation() {
+        TaskOperationDTO review = new TaskOperationDTO(ADD, null, "Review", 2, List.of(1L));
+        review.setKey("review");
+        TaskOperationDTO signOff = new TaskOperationDTO(ADD, null, "Sign-off", 1, List.of());
+        signOff.setDependencyKeys(List.of("review"));
+        TaskOperationDTO relinkTest = new TaskOperationDTO(RELINK, 3L, null, 0, List.of(1L));
+        relinkTest.setDependencyKeys(List.of("review"));
+
+        TaskBatchResult result = taskBatchService.applyBatch(1L, new TaskBatchDTO(List.of(
+                review,
+                signOff,
+                new TaskOperationDTO(UPDATE, 2L, "Build v2", 8, List.of()),
+                relinkTest)));
+
+        assertTrue(result.isApplied());
+        assertEquals(4, result.getTasksRecalculated());
+        assertEquals(List.of(100L, 101L, 2L, 3L), result.getResults().stream().map(r -> r.getTaskId()).toList());
+        assertTrue(result.getResults().stream().allMatch(r -> r.getError() == null));
+
+        Task addedReview = projectPlan.getTasks().get(3);
+        Task addedSignOff = projectPlan.getTasks().get(4);
+        assertEquals(List.of(design), addedReview.getDependencies());
+        assertEquals(List.of(addedReview), addedSignOff.getDependencies());
+        assertEquals("Build v2", build.getName());
+        assertEquals(8, build.getDuration());
+        assertTrue(build.getDependencies().isEmpty());
+        assertEquals(List.of(design, addedReview), test.getDependencies());
+
+        verify(taskRepository, times(1)).saveAll(any());
+        verify(projectPlanService, times(1)).calculateTaskAndProjectDates(projectPlan);
+    }
+
+    @Test
+    void estimatesAndAssignmentsAreAppliedLikeSingleUpdates() {
+        Resource crew = new Resource("Crew", 2);
+        crew.setId(7L);
+        when(resourceRepository.findAllById(any())).thenReturn(List.of(crew));
+        test.setOptimisticDuration(2);
+        test.getAssignments().add(new ResourceAssignment(crew, 1));
+
+        TaskOperationDTO review = new TaskOperationDTO(ADD, null, "Review", 2, List.of(1L));
+        review.setOptimisticDuration(1);
+        review.setPessimisticDuration(4);
+        review.setAssignments(List.of(new TaskAssignmentDTO(7L, 2)));
+        TaskOperationDTO updateBuild = new TaskOperationDTO(UPDATE, 2L, "Build", 5, List.of(1L));
+        updateBuild.setPessimisticDuration(9);
+        updateBuild.setAssignments(List.of(new TaskAssignmentDTO(7L, 1)));
+
+        TaskBatchResult result = taskBatchService.applyBatch(1L, new TaskBatchDTO(List.of(
+                review,
+                updateBuild,
+                new TaskOperationDTO(UPDATE, 3L, "Test", 4, List.of(2L)))));
+
+        assertTrue(result.isApplied());
+        Task addedReview = projectPlan.getTasks().get(3);
+        assertEquals(1, addedReview.getOptimisticDuration());
+        assertEquals(4, addedReview.getPessimisticDuration());
+        assertSame(crew, addedReview.getAssignments().get(0).getResource());
+        assertEquals(2, addedReview.getAssignments().get(0).getUnits());
+        assertNull(build.getOptimisticDuration());
+        assertEquals(9, build.getPessimisticDuration());
+        assertEquals(1, build.getAssignments().size());
+
+        // An update without estimates or assignments keeps the ones the task has
+        assertEquals(2, test.getOptimisticDuration());
+        assertEquals(1, test.getAssignments().size());
+        verify(resourceRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    void invalidEstimatesAndAssignmentsAreReportedPerItem() {
+        Resource crew = new Resource("Crew", 2);
+        crew.setId(7L);
+        when(resourceRepository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            return ids.iterator().next() == 7L ? List.of(crew) : List.of();
+        });
+
+        TaskOperationDTO inverted = new TaskOperationDTO(UPDATE, 2L, "Build", 5, List.of(1L));
+        inverted.setOptimisticDuration(6);
+        TaskOperationDTO known = new TaskOperationDTO(ADD, null, "Review", 2, List.of());
+        known.setAssignments(List.of(new TaskAssignmentDTO(7L, 1)));
+        TaskOperationDTO unknown = new TaskOperationDTO(ADD, null, "Release", 1, List.of());
+        unknown.setAssignments(List.of(new TaskAssignmentDTO(8L, 1)));
+
+        TaskBatchResult result = taskBatchService.applyBatch(1L, new TaskBatchDTO(List.of(inverted, known, unknown)));
+
+        assertFalse(result.isApplied());
+        List<String> errors = result.getResults().stream().map(r -> r.getError()).toList();
+        assertEquals("Task Build needs 0 <= optimistic duration <= duration <= pessimistic duration, not: 6 <= 5 <= null",
+                errors.get(0));
+        assertNull(errors.get(1));
+        assertEquals("Resources with IDs: [8] not found", errors.get(2));
+        assertNull(build.getOptimisticDuration());
+        verify(taskRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void deletedTaskIsUnlinkedFromItsDependents() {
+        TaskBatchResult result = taskBatchService.applyBatch(1L, new TaskBatchDTO(List.of(
+                new TaskOperationDTO(DELETE, 2L, null, 0, null))));
+
+        assertTrue(result.isApplied());
+        assertEquals(List.of(design, test), projectPlan.getTasks());
+        assertTrue(test.getDependencies().isEmpty());
+        // Detached before the delete, so the cascade leaves Design alone
+        assertTrue(build.getDependencies().isEmpty());
+        verify(taskRepository).deleteAll(argThat(deleted -> deleted.iterator().next() == build));
+    }
+
+    @Test
+    void rejectedItemLeavesThePlanUntouched() {
+        TaskOperationDTO first = new TaskOperationDTO(ADD, null, "Review", 2, List.of());
+        first.setKey("review");
+        TaskOperationDTO duplicate = new TaskOperationDTO(ADD, null, "Review again", 2, List.of());
+        duplicate.setKey("review");
+        TaskOperationDTO unknownKey = new TaskOperationDTO(ADD, null, "Release", 1, List.of());
+        unknownKey.setDependencyKeys(List.of("missing"));
+
+        TaskBatchResult result = taskBatchService.applyBatch(1L, new TaskBatchDTO(List.of(
+                new TaskOperationDTO(UPDATE, 2L, "Build v2", 8, List.of(1L)),
+                new TaskOperationDTO(UPDATE, 99L, "Unknown", 1, List.of()),
+                new TaskOperationDTO(RELINK, 3L, null, 0, List.of(2L)),
+                new TaskOperationDTO(DELETE, 2L, null, 0, null),
+                first,
+                duplicate,
+                unknownKey)));
+
+        assertFalse(result.isApplied());
+        List<String> errors = result.getResults().stream().map(r -> r.getError()).toList();
+        assertEquals("Task with ID: 2 is deleted by this batch", errors.get(0));
+        assertEquals("Task with ID: 99 not found in project plan with ID: 1", errors.get(1));
+        assertEquals("Tasks with IDs: [2] not found in project plan with ID: 1", errors.get(2));
+        assertNull(errors.get(3));
+        assertEquals("Task key: review is used more than once", errors.get(4));
+        assertEquals("Task key: review is used more than once", errors.get(5));
+        assertEquals("Tasks with keys: [missing] not found in batch", errors.get(6));
+
+        assertEquals("Build", build.getName());
+        assertEquals(3, projectPlan.getTasks().size());
+        verify(taskRepository, never()).saveAll(any());
+        verify(projectPlanService, never()).calculateTaskAndProjectDates(any());
+    }
+
+    @Test
+    void unknownProjectPlanIsRejected() {
+        when(projectPlanRepository.findWithTasksById(9L)).thenReturn(Optional.empty());
+
+        assertThrows(NoSuchElementException.class,
+                () -> taskBatchService.applyBatch(9L, new TaskBatchDTO(List.of())));
+    }
+
+    private Task task(Long id, String name, Task... dependencies) {
+        Task task = new Task(name, 3, new ArrayList<>(List.of(dependencies)), projectPlan);
+        task.setId(id);
+        projectPlan.getTasks().add(task);
+        return task;
+    }
+}
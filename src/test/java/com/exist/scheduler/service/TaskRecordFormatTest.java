@@ -0,0 +1,117 @@
+package com.exist.scheduler.service;
+
+import com.exist.scheduler.dto.TaskDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskRecordFormatTest {
+
+    @Test
+    void csvReadsQuotedFieldsAndDependencyLists() throws IOException {
+        String csv = "Key,Name,Duration,Dependencies\r\n"
+                + "design,\"Design, review\",3,\n"
+                + "build,\"Build \"\"core\"\"\nand UI\",5,design\n"
+                + "\n"
+                + "test,Test,2,design; build\n"
+                + " deploy ,Deploy,1, test";
+
+        List<TaskDTO> tasks = read(TaskRecordFormat.CSV, csv);
+
+        assertEquals(4, tasks.size());
+        assertEquals("Design, review", tasks.get(0).getName());
+        assertTrue(tasks.get(0).getDependencyKeys().isEmpty());
+        assertEquals("Build \"core\"\nand UI", tasks.get(1).getName());
+        assertEquals(5, tasks.get(1).getDuration());
+        assertEquals(List.of("design"), tasks.get(1).getDependencyKeys());
+        assertEquals(List.of("design", "build"), tasks.get(2).getDependencyKeys());
+        assertEquals("deploy", tasks.get(3).getKey());
+        assertEquals(List.of("test"), tasks.get(3).getDependencyKeys());
+    }
+
+    @Test
+    void csvRejectsMissingColumnsAndBadDurations() {
+        IllegalArgumentException missingColumn = assertThrows(IllegalArgumentException.class,
+                () -> read(TaskRecordFormat.CSV, "key,name\na,A\n"));
+        assertEquals("CSV header is missing the column: duration", missingColumn.getMessage());
+
+        IllegalArgumentException badDuration = assertThrows(IllegalArgumentException.class,
+                () -> read(TaskRecordFormat.CSV, "key,name,duration\na,A,three\n"));
+        assertEquals("Task with key: a has an invalid duration: three", badDuration.getMessage());
+    }
+
+    @Test
+    void ndjsonReadsLinesAndArrays() throws IOException {
+        String lines = "{\"key\":\"design\",\"name\":\"Design\",\"duration\":3,\"dependencies\":[]}\n"
+                + "{\"key\":2,\"name\":\"Build\",\"duration\":5,\"dependencies\":[\"design\"],\"taskStartDate\":\"2024-10-07\"}\n";
+        String array = "[{\"key\":\"design\",\"name\":\"Design\",\"duration\":3},"
+                + "{\"key\":2,\"name\":\"Build\",\"duration\":5,\"dependencies\":[\"design\"],\"extra\":{\"a\":[1]}}]";
+
+        for (String input : List.of(lines, array)) {
+            List<TaskDTO> tasks = read(TaskRecordFormat.NDJSON, input);
+
+            assertEquals(2, tasks.size());
+            assertEquals("design", tasks.get(0).getKey());
+            assertTrue(tasks.get(0).getDependencyKeys().isEmpty());
+            assertEquals("2", tasks.get(1).getKey());
+            assertEquals(5, tasks.get(1).getDuration());
+            assertEquals(List.of("design"), tasks.get(1).getDependencyKeys());
+        }
+    }
+
+    @Test
+    void ndjsonRejectsMalformedInput() {
+        assertThrows(IllegalArgumentException.class, () -> read(TaskRecordFormat.NDJSON, "{\"key\":\"a\",\"name\":"));
+        assertThrows(IllegalArgumentException.class, () -> read(TaskRecordFormat.NDJSON, "[1, 2]"));
+    }
+
+    @Test
+    void writtenRecordsReadBackUnchanged() throws IOException {
+        TaskDTO plain = task("1", "Design", 3, List.of(), LocalDate.of(2024, 10, 7), LocalDate.of(2024, 10, 9));
+        TaskDTO awkward = task("2", "Build, \"core\"\nUI", 5, List.of("1"), null, null);
+
+        for (TaskRecordFormat format : TaskRecordFormat.values()) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            TaskRecordFormat.TaskRecordWriter writer = format.writer(output);
+            writer.write(plain);
+            writer.write(awkward);
+            writer.flush();
+
+            List<TaskDTO> tasks = read(format, output.toString(StandardCharsets.UTF_8));
+
+            assertEquals(2, tasks.size(), format.name());
+            assertEquals("Design", tasks.get(0).getName(), format.name());
+            assertEquals("Build, \"core\"\nUI", tasks.get(1).getName(), format.name());
+            assertEquals(5, tasks.get(1).getDuration(), format.name());
+            assertEquals(List.of("1"), tasks.get(1).getDependencyKeys(), format.name());
+        }
+    }
+
+    @Test
+    void unknownFormatIsRejected() {
+        assertEquals(TaskRecordFormat.NDJSON, TaskRecordFormat.of("ndjson"));
+        assertThrows(IllegalArgumentException.class, () -> TaskRecordFormat.of("xml"));
+    }
+
+    private static List<TaskDTO> read(TaskRecordFormat format, String input) throws IOException {
+        List<TaskDTO> tasks = new ArrayList<>();
+        format.read(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), tasks::add);
+        return tasks;
+    }
+
+    private static TaskDTO task(String key, String name, int duration, List<String> dependencyKeys,
+                                LocalDate taskStartDate, LocalDate taskEndDate) {
+        TaskDTO task = new TaskDTO(null, name, duration, null, null, taskStartDate, taskEndDate);
+        task.setKey(key);
+        task.setDependencyKeys(dependencyKeys);
+        return task;
+    }
+}